@@ -0,0 +1,29 @@
+package com.akosgyongyosi.cashflow.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ForecastExecutorConfig {
+
+    @Bean(name = "forecastExecutor", destroyMethod = "shutdown")
+    public ExecutorService forecastExecutor(ForecastProperties props) {
+        AtomicInteger seq = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, props.getEvaluationThreads()), r -> {
+            Thread t = new Thread(r, "forecast-eval-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // CPU-only work such as fitting baseline models; never blocks on the database
+    @Bean(name = "baselineForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool baselineForkJoinPool(ForecastProperties props) {
+        return new ForkJoinPool(Math.max(1, props.getEvaluationThreads()));
+    }
+}
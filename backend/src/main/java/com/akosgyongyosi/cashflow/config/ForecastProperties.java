@@ -0,0 +1,28 @@
+package com.akosgyongyosi.cashflow.config;
+
+import java.math.BigDecimal;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix="forecast")
+public class ForecastProperties {
+    private int evaluationThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private int modelCacheSize = 64;
+    private int kpiCacheSize = 256;
+    private int monteCarloDefaultPaths = 10_000;
+    private int monteCarloMaxPaths = 100_000;
+    private long monteCarloBudgetMs = 2_000;
+    private int goalSeekMaxIterations = 60;
+    private long goalSeekBudgetMs = 500;
+    private int weeklyPageSize = 13;
+    private int weeklyMaxPageSize = 104;
+    // closing balance, in plan base currency, below which a plan raises a shortfall alert
+    private BigDecimal shortfallThreshold = BigDecimal.ZERO;
+}
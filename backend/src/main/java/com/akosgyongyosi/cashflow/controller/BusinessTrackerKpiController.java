@@ -1,9 +1,13 @@
 package com.akosgyongyosi.cashflow.controller;
 
+import com.akosgyongyosi.cashflow.dto.DailyCashPositionDTO;
 import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
 import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.service.kpi.CashPositionService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiFilter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiResultCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,12 +21,18 @@ public class BusinessTrackerKpiController {
 
     private final KpiCalculationService kpiService;
     private final KpiDisplayCurrencyConverter displayConverter;
+    private final CashPositionService cashPositionService;
+    private final KpiResultCache kpiResultCache;
 
     @Autowired
     public BusinessTrackerKpiController(KpiCalculationService kpiService,
-                                        KpiDisplayCurrencyConverter displayConverter) {
+                                        KpiDisplayCurrencyConverter displayConverter,
+                                        CashPositionService cashPositionService,
+                                        KpiResultCache kpiResultCache) {
         this.kpiService = kpiService;
         this.displayConverter = displayConverter;
+        this.cashPositionService = cashPositionService;
+        this.kpiResultCache = kpiResultCache;
     }
 
     @GetMapping
@@ -35,15 +45,63 @@ public class BusinessTrackerKpiController {
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         LocalDate start = LocalDate.parse(startDate, fmt);
         LocalDate end   = LocalDate.parse(endDate, fmt);
-        if (startBalance == null) startBalance = BigDecimal.ZERO;
+        BigDecimal opening = startBalance != null ? startBalance : BigDecimal.ZERO;
         Currency base = (baseCurrency != null) ? baseCurrency : Currency.HUF;
+        Currency display = displayCurrency != base ? displayCurrency : null;
 
-        KpiDashboardDTO dash = kpiService.calculateForPeriod(start, end, startBalance, base);
+        KpiResultCache.Key key = KpiResultCache.Key.forPeriod(start, end, opening, base, display);
+        return kpiResultCache.get(key, start, end, () -> {
+            KpiDashboardDTO dash = kpiService.calculateForPeriod(start, end, opening, base);
+            dash.setBalanceCurrency(base.name());
+
+            if (display != null) {
+                dash = displayConverter.toDisplayCurrency(dash, start, base, display);
+            }
+            return dash;
+        });
+    }
+
+    // ad-hoc filters are computed from the transactions and not cached
+    @GetMapping("/filtered")
+    public KpiDashboardDTO getFilteredBusinessKpi(@RequestParam String startDate,
+                                                  @RequestParam String endDate,
+                                                  @RequestParam(required = false) BigDecimal startBalance,
+                                                  @RequestParam(required = false) Currency baseCurrency,
+                                                  @RequestParam(required = false) Currency displayCurrency,
+                                                  @RequestParam(required = false) Long categoryId,
+                                                  @RequestParam(required = false) String accountingCode,
+                                                  @RequestParam(required = false) Currency transactionCurrency) {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate start = LocalDate.parse(startDate, fmt);
+        LocalDate end   = LocalDate.parse(endDate, fmt);
+        BigDecimal opening = startBalance != null ? startBalance : BigDecimal.ZERO;
+        Currency base = (baseCurrency != null) ? baseCurrency : Currency.HUF;
+
+        KpiDashboardDTO dash = kpiService.calculateForPeriod(start, end, opening, base,
+                new KpiFilter(categoryId, accountingCode, transactionCurrency));
         dash.setBalanceCurrency(base.name());
-        
         if (displayCurrency != null && displayCurrency != base) {
             dash = displayConverter.toDisplayCurrency(dash, start, base, displayCurrency);
         }
         return dash;
     }
+
+    @GetMapping("/daily")
+    public DailyCashPositionDTO getDailyPosition(@RequestParam String startDate,
+                                                 @RequestParam String endDate,
+                                                 @RequestParam(required = false) BigDecimal startBalance,
+                                                 @RequestParam(required = false) Currency baseCurrency,
+                                                 @RequestParam(required = false) String from,
+                                                 @RequestParam(required = false) String to) {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate start = LocalDate.parse(startDate, fmt);
+        LocalDate end   = LocalDate.parse(endDate, fmt);
+        Currency base = (baseCurrency != null) ? baseCurrency : Currency.HUF;
+
+        var series = cashPositionService.forActuals(start, end, startBalance, base);
+        return cashPositionService.toDto(series,
+                from != null ? LocalDate.parse(from, fmt) : null,
+                to != null ? LocalDate.parse(to, fmt) : null,
+                base);
+    }
 }
@@ -1,13 +1,29 @@
 package com.akosgyongyosi.cashflow.controller;
 
+import com.akosgyongyosi.cashflow.dto.BacktestRequestDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestResultDTO;
 import com.akosgyongyosi.cashflow.dto.CreatePlanRequestDTO;
+import com.akosgyongyosi.cashflow.dto.ForecastResponseDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRequestDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityResultDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekRequestDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekResultDTO;
 import com.akosgyongyosi.cashflow.dto.ScenarioPlanRequestDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloRequestDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloResultDTO;
 import com.akosgyongyosi.cashflow.dto.MonthlyKpiDTO;
+import com.akosgyongyosi.cashflow.dto.ScenarioKpiDTO;
 import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.service.AuditLogService;
 import com.akosgyongyosi.cashflow.service.CashflowPlanService;
+import com.akosgyongyosi.cashflow.service.forecast.BacktestService;
+import com.akosgyongyosi.cashflow.service.forecast.FxSensitivityService;
+import com.akosgyongyosi.cashflow.service.forecast.GoalSeekService;
+import com.akosgyongyosi.cashflow.service.forecast.MonteCarloSimulationService;
+import com.akosgyongyosi.cashflow.service.forecast.ScenarioGroupEvaluationService;
+import com.akosgyongyosi.cashflow.service.forecast.WeeklyForecastService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,17 +43,35 @@ public class CashflowPlanController {
     private final KpiCalculationService kpiService;
     private final CashflowPlanRepository planRepository;
     private final AuditLogService auditLogService;
+    private final ScenarioGroupEvaluationService groupEvaluationService;
+    private final MonteCarloSimulationService simulationService;
+    private final GoalSeekService goalSeekService;
+    private final FxSensitivityService fxSensitivityService;
+    private final WeeklyForecastService weeklyForecastService;
+    private final BacktestService backtestService;
 
     public CashflowPlanController(
             CashflowPlanService planService,
             KpiCalculationService kpiService,
             CashflowPlanRepository planRepository,
-            AuditLogService auditLogService
+            AuditLogService auditLogService,
+            ScenarioGroupEvaluationService groupEvaluationService,
+            MonteCarloSimulationService simulationService,
+            GoalSeekService goalSeekService,
+            FxSensitivityService fxSensitivityService,
+            WeeklyForecastService weeklyForecastService,
+            BacktestService backtestService
     ) {
         this.planService = planService;
         this.kpiService = kpiService;
         this.planRepository = planRepository;
         this.auditLogService = auditLogService;
+        this.groupEvaluationService = groupEvaluationService;
+        this.simulationService = simulationService;
+        this.goalSeekService = goalSeekService;
+        this.fxSensitivityService = fxSensitivityService;
+        this.weeklyForecastService = weeklyForecastService;
+        this.backtestService = backtestService;
     }
 
     @PostMapping("/for-current-year")
@@ -64,7 +98,15 @@ public class CashflowPlanController {
             return ResponseEntity.badRequest().build();
         }
         String groupKey = UUID.randomUUID().toString();
-        CashflowPlan plan = planService.createPlanForInterval(request.getPlanName(), start, end, groupKey);
+        CashflowPlan plan;
+        try {
+            plan = request.getBaselineMode() != null
+                    ? planService.createPlanForInterval(request.getPlanName(), start, end, groupKey,
+                            request.getBaselineMode(), request.getBaselineYears(), request.getBaselineGranularity())
+                    : planService.createPlanForInterval(request.getPlanName(), start, end, groupKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         plan.setBaseCurrency(request.getBaseCurrency() != null ? request.getBaseCurrency() : Currency.HUF);
         if (request.getStartBalance() != null) plan.setStartBalance(request.getStartBalance());
         plan = planRepository.save(plan);
@@ -92,6 +134,14 @@ public class CashflowPlanController {
         return ResponseEntity.ok(plans);
     }
 
+    @GetMapping("/group/{groupKey}/kpi")
+    public ResponseEntity<List<ScenarioKpiDTO>> getGroupKpi(@PathVariable String groupKey,
+                                                            @RequestParam(required = false) Currency displayCurrency) {
+        List<ScenarioKpiDTO> result = groupEvaluationService.evaluateGroup(groupKey, displayCurrency);
+        if (result.isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(result);
+    }
+
     @PostMapping("/scenarios")
     public ResponseEntity<List<CashflowPlan>> createScenarioPlans(@RequestBody ScenarioPlanRequestDTO request,
                                                                    Principal principal) {
@@ -101,9 +151,15 @@ public class CashflowPlanController {
         BigDecimal startingBalance = request.getStartBalance() != null ? request.getStartBalance() : BigDecimal.ZERO;
         Currency base = request.getBaseCurrency() != null ? request.getBaseCurrency() : Currency.HUF;
 
-        List<CashflowPlan> threePlans = planService.createAllScenarioPlans(
-                request.getBasePlanName(), start, end, startingBalance, base
-        );
+        List<CashflowPlan> threePlans;
+        try {
+            threePlans = request.getBaselineMode() != null
+                    ? planService.createAllScenarioPlans(request.getBasePlanName(), start, end, startingBalance, base,
+                            request.getBaselineMode(), request.getBaselineYears(), request.getBaselineGranularity())
+                    : planService.createAllScenarioPlans(request.getBasePlanName(), start, end, startingBalance, base);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         threePlans.forEach(planRepository::save);
         auditLogService.logAction(principal != null ? principal.getName() : "system", "CREATE_SCENARIO_PLANS", 
             Map.of("basePlanName", request.getBasePlanName(), 
@@ -121,6 +177,77 @@ public class CashflowPlanController {
         return ResponseEntity.ok(dashboard.getMonthlyData());
     }
 
+    @GetMapping("/{planId}/weekly-forecast")
+    public ResponseEntity<ForecastResponseDTO> getWeeklyForecast(@PathVariable Long planId,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(required = false) Integer size) {
+        var plan = planService.getPlan(planId);
+        if (plan.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(weeklyForecastService.weekly(plan.get(), page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{planId}/simulation")
+    public ResponseEntity<MonteCarloResultDTO> simulate(@PathVariable Long planId,
+                                                        @RequestBody(required = false) MonteCarloRequestDTO request) {
+        MonteCarloRequestDTO req = request != null ? request : new MonteCarloRequestDTO();
+        if (req.getAmountSpread() < 0 || req.getPercentChangeSpread() < 0 || req.getFxSpread() < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return planService.getPlan(planId)
+                .map(plan -> ResponseEntity.ok(simulationService.simulate(plan, req)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{planId}/goal-seek")
+    public ResponseEntity<GoalSeekResultDTO> goalSeek(@PathVariable Long planId,
+                                                      @RequestBody GoalSeekRequestDTO request) {
+        var plan = planService.getPlan(planId);
+        if (plan.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(goalSeekService.solve(plan.get(), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{planId}/backtest")
+    public ResponseEntity<BacktestResultDTO> backtest(@PathVariable Long planId,
+                                                      @RequestBody(required = false) BacktestRequestDTO request) {
+        var plan = planService.getPlan(planId);
+        if (plan.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            BacktestRequestDTO req = request != null ? request : new BacktestRequestDTO();
+            return ResponseEntity.ok(backtestService.backtest(plan.get(), req));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{planId}/fx-sensitivity")
+    public ResponseEntity<FxSensitivityResultDTO> fxSensitivity(@PathVariable Long planId,
+                                                                @RequestBody(required = false) FxSensitivityRequestDTO request) {
+        var plan = planService.getPlan(planId);
+        if (plan.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            FxSensitivityRequestDTO req = request != null ? request : new FxSensitivityRequestDTO();
+            return ResponseEntity.ok(fxSensitivityService.sensitivity(plan.get(), req));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/group/{groupKey}")
     public ResponseEntity<Void> deletePlanGroup(@PathVariable String groupKey, Principal principal) {
         boolean deleted = planService.deletePlanGroup(groupKey);
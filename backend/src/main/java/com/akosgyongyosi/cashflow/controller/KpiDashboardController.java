@@ -1,52 +1,118 @@
 package com.akosgyongyosi.cashflow.controller;
 
+import com.akosgyongyosi.cashflow.dto.CashShortfallAlertDTO;
+import com.akosgyongyosi.cashflow.dto.DailyCashPositionDTO;
+import com.akosgyongyosi.cashflow.dto.KpiCacheStatsDTO;
 import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.PlanVarianceDTO;
 import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
-import com.akosgyongyosi.cashflow.service.forecast.CashflowCalculationService;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.kpi.CashPositionService;
+import com.akosgyongyosi.cashflow.service.kpi.CashShortfallAlertService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiResultCache;
+import com.akosgyongyosi.cashflow.service.kpi.PlanVarianceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/kpi")
 public class KpiDashboardController {
 
     private final KpiCalculationService kpiService;
     private final CashflowPlanRepository planRepository;
-    private final CashflowCalculationService cashflowCalculationService;
+    private final ForecastModelCache forecastModelCache;
     private final KpiDisplayCurrencyConverter displayConverter;
+    private final CashPositionService cashPositionService;
+    private final PlanVarianceService varianceService;
+    private final CashShortfallAlertService shortfallAlertService;
+    private final KpiResultCache kpiResultCache;
 
     @Autowired
     public KpiDashboardController(KpiCalculationService kpiService,
                                   CashflowPlanRepository planRepository,
-                                  CashflowCalculationService cashflowCalculationService,
-                                  KpiDisplayCurrencyConverter displayConverter) {
+                                  ForecastModelCache forecastModelCache,
+                                  KpiDisplayCurrencyConverter displayConverter,
+                                  CashPositionService cashPositionService,
+                                  PlanVarianceService varianceService,
+                                  CashShortfallAlertService shortfallAlertService,
+                                  KpiResultCache kpiResultCache) {
         this.kpiService = kpiService;
         this.planRepository = planRepository;
-        this.cashflowCalculationService = cashflowCalculationService;
+        this.forecastModelCache = forecastModelCache;
         this.displayConverter = displayConverter;
+        this.cashPositionService = cashPositionService;
+        this.varianceService = varianceService;
+        this.shortfallAlertService = shortfallAlertService;
+        this.kpiResultCache = kpiResultCache;
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public KpiDashboardDTO getKpi(@RequestParam Long planId,
                                   @RequestParam(required = false) Currency displayCurrency) {
         CashflowPlan plan = planRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found: " + planId));
 
-        cashflowCalculationService.applyAllAssumptions(plan);
-        planRepository.save(plan);
-
-        KpiDashboardDTO dash = kpiService.calculateForPlan(planId);
         Currency base = plan.getBaseCurrency();
-        if (displayCurrency != null && displayCurrency != base) {
-            dash = displayConverter.toDisplayCurrency(dash, plan.getStartDate(), base, displayCurrency);
-        }
-        if (dash.getBaseCurrency() == null) {
-            dash.setBaseCurrency(base.name());
-        }
-        return dash;
+        Currency display = displayCurrency != base ? displayCurrency : null;
+        return kpiResultCache.get(KpiResultCache.Key.forPlan(planId, base, display), plan.getStartDate(), plan.getEndDate(), () -> {
+            ForecastResult forecast = forecastModelCache.evaluate(plan);
+            KpiDashboardDTO dash = kpiService.calculateForForecast(forecast);
+            if (display != null) {
+                dash = displayConverter.toDisplayCurrency(dash, plan.getStartDate(), base, display);
+            }
+            if (dash.getBaseCurrency() == null) {
+                dash.setBaseCurrency(base.name());
+            }
+            return dash;
+        });
+    }
+
+    @GetMapping("/cache-stats")
+    public KpiCacheStatsDTO getCacheStats() {
+        return kpiResultCache.stats();
+    }
+
+    @GetMapping("/daily")
+    @Transactional(readOnly = true)
+    public DailyCashPositionDTO getDailyPosition(@RequestParam Long planId,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        CashflowPlan plan = planRepository.findById(planId)
+                .orElseThrow(() -> new RuntimeException("Plan not found: " + planId));
+        return cashPositionService.toDto(cashPositionService.forPlan(plan), from, to, plan.getBaseCurrency());
+    }
+
+    @GetMapping("/variance")
+    @Transactional(readOnly = true)
+    public PlanVarianceDTO getVariance(@RequestParam Long planId,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate through) {
+        CashflowPlan plan = planRepository.findById(planId)
+                .orElseThrow(() -> new RuntimeException("Plan not found: " + planId));
+        return varianceService.variance(plan, through);
+    }
+
+    // stored results of the last scans; reading them never evaluates a plan
+    @GetMapping("/shortfall-alerts")
+    public List<CashShortfallAlertDTO> getShortfallAlerts() {
+        return shortfallAlertService.activeAlerts();
+    }
+
+    @GetMapping("/shortfall-alerts/{planId}")
+    public ResponseEntity<CashShortfallAlertDTO> getShortfallAlert(@PathVariable Long planId) {
+        return shortfallAlertService.alertForPlan(planId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 }
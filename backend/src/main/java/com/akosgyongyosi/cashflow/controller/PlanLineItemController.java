@@ -8,19 +8,25 @@ import com.akosgyongyosi.cashflow.entity.LineItemType;
 import com.akosgyongyosi.cashflow.entity.TransactionCategory;
 import com.akosgyongyosi.cashflow.entity.Frequency;
 import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.AssumptionSignature;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.repository.PlanLineItemRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import com.akosgyongyosi.cashflow.service.AssumptionIdGeneratorService;
 import com.akosgyongyosi.cashflow.service.AuditLogService;
 import com.akosgyongyosi.cashflow.service.forecast.CashflowCalculationService;
+import com.akosgyongyosi.cashflow.service.forecast.WhatIfPreviewService;
 import com.akosgyongyosi.cashflow.service.fx.PlanCurrencyResolver;
 import com.akosgyongyosi.cashflow.service.fx.RateLookupService;
+import com.akosgyongyosi.cashflow.service.kpi.PlanChangedEvent;
 import com.akosgyongyosi.cashflow.dto.FxWarningDTO;
 import com.akosgyongyosi.cashflow.dto.RateLookupResultDTO;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import lombok.extern.slf4j.Slf4j;
 
 import java.security.Principal;
@@ -43,6 +49,8 @@ public class PlanLineItemController {
     private final com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService transactionDateRangeFxService;
     private final com.akosgyongyosi.cashflow.service.CashflowPlanService cashflowPlanService;
     private final AuditLogService auditLogService;
+    private final WhatIfPreviewService whatIfPreviewService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PlanLineItemController(
             CashflowPlanRepository planRepository,
@@ -53,7 +61,9 @@ public class PlanLineItemController {
             RateLookupService rateLookupService,
             com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService transactionDateRangeFxService,
             com.akosgyongyosi.cashflow.service.CashflowPlanService cashflowPlanService,
-            AuditLogService auditLogService
+            AuditLogService auditLogService,
+            WhatIfPreviewService whatIfPreviewService,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.planRepository = planRepository;
         this.lineItemRepository = lineItemRepository;
@@ -64,6 +74,8 @@ public class PlanLineItemController {
         this.transactionDateRangeFxService = transactionDateRangeFxService;
         this.cashflowPlanService = cashflowPlanService;
         this.auditLogService = auditLogService;
+        this.whatIfPreviewService = whatIfPreviewService;
+        this.eventPublisher = eventPublisher;
     }
 
     @PostMapping("/{planId}/line-items")
@@ -78,47 +90,7 @@ public class PlanLineItemController {
                     .orElseThrow(() -> new RuntimeException("Plan not found with ID: " + planId));
         log.debug("[CREATE] planId={} type={} title={} incomingAssumptionId={}", planId, dto.getType(), dto.getTitle(), dto.getAssumptionId());
 
-            PlanLineItem lineItem = new PlanLineItem();
-            lineItem.setPlan(plan);
-            lineItem.setTitle(dto.getTitle());
-            lineItem.setType(dto.getType());
-
-            Currency itemCurrency = dto.getCurrency() != null ? dto.getCurrency() : PlanCurrencyResolver.resolve(plan);
-            lineItem.setCurrency(itemCurrency);
-
-            switch (dto.getType()) {
-                case ONE_TIME:
-                    lineItem.setTransactionDate(dto.getTransactionDate());
-                    lineItem.setAmount(dto.getAmount());
-                    lineItem.setFrequency(Frequency.ONE_TIME);
-                    lineItem.setStartDate(null);
-                    lineItem.setEndDate(null);
-                    lineItem.setPercentChange(null);
-                    break;
-                case RECURRING:
-                    lineItem.setFrequency(dto.getFrequency());
-                    lineItem.setStartDate(dto.getStartDate());
-                    lineItem.setEndDate(dto.getEndDate());
-                    lineItem.setAmount(dto.getAmount());
-                    lineItem.setTransactionDate(null);
-                    lineItem.setPercentChange(null);
-                    break;
-                case CATEGORY_ADJUSTMENT:
-                    lineItem.setFrequency(null);
-                    lineItem.setStartDate(dto.getStartDate());
-                    lineItem.setEndDate(dto.getEndDate());
-                    lineItem.setPercentChange(dto.getPercentChange());
-                    lineItem.setAmount(null);
-                    lineItem.setTransactionDate(null);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported LineItemType: " + dto.getType());
-            }
-
-            if (dto.getCategoryId() != null) {
-                Optional<TransactionCategory> catOpt = categoryRepository.findById(dto.getCategoryId());
-                catOpt.ifPresent(lineItem::setCategory);
-            }
+            PlanLineItem lineItem = toLineItem(plan, dto);
 
             if (dto.getAssumptionId() == null) {
                 Long reusableId = tryFindReusableAssumptionId(dto);
@@ -174,6 +146,7 @@ public class PlanLineItemController {
 
             lineItemRepository.saveAll(plan.getLineItems());
             planRepository.save(plan);
+            eventPublisher.publishEvent(new PlanChangedEvent(planId));
             log.debug("[CREATE-DONE] planId={} itemId={} isApplied={} baselineTxCount={}", planId, saved.getId(), saved.getIsApplied(), plan.getBaselineTransactions() == null ? -1 : plan.getBaselineTransactions().size());
 
             auditLogService.logAction(principal != null ? principal.getName() : "system", "CREATE_ASSUMPTION", 
@@ -189,6 +162,135 @@ public class PlanLineItemController {
         }
     }
 
+    @PostMapping("/{planId}/line-items/batch")
+    @Transactional
+    public ResponseEntity<Object> createLineItems(
+        @org.springframework.lang.NonNull @PathVariable Long planId,
+        @org.springframework.lang.NonNull @RequestBody List<PlanLineItemRequestDTO> dtos,
+        Principal principal
+    ) {
+        if (dtos.isEmpty()) {
+            return ResponseEntity.badRequest().body("Error creating line items: empty request");
+        }
+        try {
+            CashflowPlan plan = planRepository.findById(planId)
+                    .orElseThrow(() -> new RuntimeException("Plan not found with ID: " + planId));
+            if (plan.getLineItems() == null) {
+                plan.setLineItems(new java.util.ArrayList<>());
+            }
+
+            java.util.Set<Long> categoryIds = new java.util.HashSet<>();
+            for (PlanLineItemRequestDTO dto : dtos) {
+                if (dto.getCategoryId() != null) categoryIds.add(dto.getCategoryId());
+            }
+            java.util.Map<Long, TransactionCategory> categoriesById = new java.util.HashMap<>();
+            categoryRepository.findAllById(categoryIds).forEach(c -> categoriesById.put(c.getId(), c));
+
+            java.util.Map<String, List<AssumptionSignature>> reusableByTitle = findReusableSignatures(dtos);
+            List<PlanLineItem> candidates = new java.util.ArrayList<>(dtos.size());
+            int needIds = 0;
+            for (PlanLineItemRequestDTO dto : dtos) {
+                PlanLineItem lineItem = toLineItem(plan, dto, categoriesById);
+                lineItem.setAssumptionId(dto.getAssumptionId() != null ? dto.getAssumptionId() : findReusableAssumptionId(dto, reusableByTitle));
+                if (lineItem.getAssumptionId() == null) needIds++;
+                candidates.add(lineItem);
+            }
+            if (needIds > 0) {
+                long next = assumptionIdGenService.reserveBlock(needIds);
+                for (PlanLineItem lineItem : candidates) {
+                    if (lineItem.getAssumptionId() == null) lineItem.setAssumptionId(next++);
+                }
+            }
+
+            java.util.Set<Long> existingIds = new java.util.HashSet<>();
+            plan.getLineItems().forEach(li -> existingIds.add(li.getAssumptionId()));
+            List<PlanLineItem> fresh = new java.util.ArrayList<>(candidates.size());
+            for (PlanLineItem lineItem : candidates) {
+                if (existingIds.add(lineItem.getAssumptionId())) {
+                    fresh.add(lineItem);
+                } else {
+                    log.warn("[BATCH-DUPLICATE] planId={} assumptionId={} already exists, skipping", planId, lineItem.getAssumptionId());
+                }
+            }
+
+            List<PlanLineItem> saved = lineItemRepository.saveAll(fresh);
+            plan.getLineItems().addAll(saved);
+
+            // items already in the plan were applied with the rates fetched when they were created
+            ensureFxRates(plan, saved);
+            cashflowCalculationService.applyAllAssumptions(plan);
+
+            lineItemRepository.saveAll(plan.getLineItems());
+            planRepository.save(plan);
+            eventPublisher.publishEvent(new PlanChangedEvent(planId));
+            log.debug("[BATCH-DONE] planId={} requested={} created={}", planId, dtos.size(), saved.size());
+
+            auditLogService.logAction(principal != null ? principal.getName() : "system", "CREATE_ASSUMPTIONS_BATCH",
+                java.util.Map.of("planId", planId, "requested", dtos.size(), "created", saved.size()));
+
+            return ResponseEntity.ok(saved.stream().map(item -> toResponseDTO(item, plan)).toList());
+
+        } catch (Exception e) {
+            // all or nothing: items saved before the failure must not commit along with the 400
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            }
+            return ResponseEntity.badRequest().body("Error creating line items: " + e.getMessage());
+        }
+    }
+
+    private PlanLineItem toLineItem(CashflowPlan plan, PlanLineItemRequestDTO dto) {
+        return toLineItem(plan, dto, null);
+    }
+
+    // categoriesById: preloaded categories for batch requests; null looks each one up
+    private PlanLineItem toLineItem(CashflowPlan plan, PlanLineItemRequestDTO dto, java.util.Map<Long, TransactionCategory> categoriesById) {
+        PlanLineItem lineItem = new PlanLineItem();
+        lineItem.setPlan(plan);
+        lineItem.setTitle(dto.getTitle());
+        lineItem.setType(dto.getType());
+
+        Currency itemCurrency = dto.getCurrency() != null ? dto.getCurrency() : PlanCurrencyResolver.resolve(plan);
+        lineItem.setCurrency(itemCurrency);
+
+        switch (dto.getType()) {
+            case ONE_TIME:
+                lineItem.setTransactionDate(dto.getTransactionDate());
+                lineItem.setAmount(dto.getAmount());
+                lineItem.setFrequency(Frequency.ONE_TIME);
+                lineItem.setStartDate(null);
+                lineItem.setEndDate(null);
+                lineItem.setPercentChange(null);
+                break;
+            case RECURRING:
+                lineItem.setFrequency(dto.getFrequency());
+                lineItem.setStartDate(dto.getStartDate());
+                lineItem.setEndDate(dto.getEndDate());
+                lineItem.setAmount(dto.getAmount());
+                lineItem.setTransactionDate(null);
+                lineItem.setPercentChange(null);
+                break;
+            case CATEGORY_ADJUSTMENT:
+                lineItem.setFrequency(null);
+                lineItem.setStartDate(dto.getStartDate());
+                lineItem.setEndDate(dto.getEndDate());
+                lineItem.setPercentChange(dto.getPercentChange());
+                lineItem.setAmount(null);
+                lineItem.setTransactionDate(null);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported LineItemType: " + dto.getType());
+        }
+
+        if (dto.getCategoryId() != null) {
+            Optional<TransactionCategory> catOpt = categoriesById != null
+                    ? Optional.ofNullable(categoriesById.get(dto.getCategoryId()))
+                    : categoryRepository.findById(dto.getCategoryId());
+            catOpt.ifPresent(lineItem::setCategory);
+        }
+        return lineItem;
+    }
+
     private Long tryFindReusableAssumptionId(PlanLineItemRequestDTO dto) {
         try {
             PlanLineItem match = null;
@@ -206,6 +308,67 @@ public class PlanLineItemController {
         }
     }
 
+    // same signatures as tryFindReusableAssumptionId, loaded for every title of the batch at once
+    private java.util.Map<String, List<AssumptionSignature>> findReusableSignatures(List<PlanLineItemRequestDTO> dtos) {
+        java.util.Set<String> titles = new java.util.HashSet<>();
+        for (PlanLineItemRequestDTO dto : dtos) {
+            if (dto.getAssumptionId() == null && dto.getTitle() != null) {
+                titles.add(dto.getTitle().toUpperCase(java.util.Locale.ROOT));
+            }
+        }
+        java.util.Map<String, List<AssumptionSignature>> byTitle = new java.util.HashMap<>();
+        if (titles.isEmpty()) {
+            return byTitle;
+        }
+        try {
+            for (AssumptionSignature s : lineItemRepository.findSignaturesByTitles(titles)) {
+                byTitle.computeIfAbsent(s.title().toUpperCase(java.util.Locale.ROOT), k -> new java.util.ArrayList<>()).add(s);
+            }
+        } catch (Exception ex) {
+            log.debug("[ASSUMPTION-ID-REUSE] batch signature search failed: {}", ex.getMessage());
+        }
+        return byTitle;
+    }
+
+    private Long findReusableAssumptionId(PlanLineItemRequestDTO dto, java.util.Map<String, List<AssumptionSignature>> byTitle) {
+        if (dto.getTitle() == null || dto.getType() == null) {
+            return null;
+        }
+        for (AssumptionSignature s : byTitle.getOrDefault(dto.getTitle().toUpperCase(java.util.Locale.ROOT), List.of())) {
+            if (s.type() != dto.getType()) {
+                continue;
+            }
+            boolean match = switch (dto.getType()) {
+                case ONE_TIME -> dto.getTransactionDate() != null && dto.getTransactionDate().equals(s.transactionDate());
+                case RECURRING -> dto.getStartDate() != null && dto.getFrequency() != null
+                        && dto.getStartDate().equals(s.startDate()) && dto.getFrequency() == s.frequency();
+                case CATEGORY_ADJUSTMENT -> dto.getStartDate() != null && dto.getPercentChange() != null
+                        && dto.getStartDate().equals(s.startDate()) && dto.getPercentChange().equals(s.percentChange());
+            };
+            if (match) {
+                return s.assumptionId();
+            }
+        }
+        return null;
+    }
+
+    @PostMapping("/{planId}/line-items/preview")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Object> previewLineItem(
+        @org.springframework.lang.NonNull @PathVariable Long planId,
+        @org.springframework.lang.NonNull @RequestBody PlanLineItemRequestDTO dto
+    ) {
+        try {
+            CashflowPlan plan = planRepository.findById(planId)
+                    .orElseThrow(() -> new RuntimeException("Plan not found with ID: " + planId));
+            // never attached to the plan, so nothing is flushed
+            PlanLineItem candidate = toLineItem(plan, dto);
+            return ResponseEntity.ok(whatIfPreviewService.preview(plan, candidate));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error previewing line item: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{planId}/line-items")
     public ResponseEntity<List<PlanLineItemResponseDTO>> getLineItemsForPlan(@org.springframework.lang.NonNull @PathVariable Long planId) {
         Optional<CashflowPlan> planOpt = planRepository.findById(planId);
@@ -221,6 +384,7 @@ public class PlanLineItemController {
     }
 
     @DeleteMapping("/{planId}/line-items/{itemId}")
+    @Transactional
     public ResponseEntity<Void> deleteLineItem(@org.springframework.lang.NonNull @PathVariable Long planId, @org.springframework.lang.NonNull @PathVariable Long itemId) {
         Optional<PlanLineItem> itemOpt = lineItemRepository.findById(itemId);
         if (itemOpt.isEmpty()) {
@@ -233,12 +397,27 @@ public class PlanLineItemController {
         }
 
         CashflowPlan plan = item.getPlan();
-        
+
+        boolean reverted = cashflowPlanService.revertAppliedAssumption(plan, item);
+        if (plan.getLineItems() != null) {
+            plan.getLineItems().remove(item);
+        }
         lineItemRepository.delete(item);
+        log.debug("[DELETE] planId={} itemId={} assumptionId={} incremental={}", planId, itemId, item.getAssumptionId(), reverted);
+
+        if (!reverted) {
+            rebuildPlan(plan.getId());
+        }
+        eventPublisher.publishEvent(new PlanChangedEvent(planId));
+
+        return ResponseEntity.noContent().build();
+    }
+
+    // full rebuild for contributions that were materialized before rows carried their source assumption
+    private void rebuildPlan(Long planId) {
+        cashflowPlanService.regenerateBaseline(planId);
         
-        cashflowPlanService.regenerateBaseline(plan.getId());
-        
-        plan = planRepository.findById(plan.getId())
+        CashflowPlan plan = planRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found"));
         
         if (plan.getLineItems() != null) {
@@ -248,14 +427,9 @@ public class PlanLineItemController {
             lineItemRepository.saveAll(plan.getLineItems());
         }
         
-        plan = planRepository.findById(plan.getId())
-                .orElseThrow(() -> new RuntimeException("Plan not found"));
-        
         ensureFxRatesForPlan(plan);
         cashflowCalculationService.applyAllAssumptions(plan);
         planRepository.save(plan);
-
-        return ResponseEntity.noContent().build();
     }
 
     private PlanLineItemResponseDTO toResponseDTO(PlanLineItem item, CashflowPlan plan) {
@@ -297,10 +471,14 @@ public class PlanLineItemController {
     }
     
     private void ensureFxRatesForPlan(CashflowPlan plan) {
+        ensureFxRates(plan, plan.getLineItems());
+    }
+
+    private void ensureFxRates(CashflowPlan plan, List<PlanLineItem> items) {
         try {
             java.util.Set<LocalDate> allDates = new java.util.HashSet<>();
             
-            for (PlanLineItem item : plan.getLineItems()) {
+            for (PlanLineItem item : items) {
                 if (item.getTransactionDate() != null) {
                     allDates.add(item.getTransactionDate());
                 } else if (item.getStartDate() != null && item.getEndDate() != null) {
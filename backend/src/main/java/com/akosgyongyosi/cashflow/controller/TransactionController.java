@@ -11,8 +11,11 @@ import com.akosgyongyosi.cashflow.dto.RateMetaDTO;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiRollupService;
+import com.akosgyongyosi.cashflow.service.kpi.TransactionsRecategorizedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -37,13 +40,19 @@ public class TransactionController {
     private final TransactionRepository transactionRepository;
     private final TransactionCategoryRepository categoryRepository;
     private final FxService fxService;
+    private final KpiRollupService kpiRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TransactionController(TransactionRepository transactionRepository,
                                  TransactionCategoryRepository categoryRepository,
-                                 FxService fxService) {
+                                 FxService fxService,
+                                 KpiRollupService kpiRollupService,
+                                 ApplicationEventPublisher eventPublisher) {
         this.transactionRepository = transactionRepository;
         this.categoryRepository = categoryRepository;
         this.fxService = fxService;
+        this.kpiRollupService = kpiRollupService;
+        this.eventPublisher = eventPublisher;
     }
     
     @GetMapping
@@ -84,6 +93,7 @@ public class TransactionController {
         }
         Transaction transaction = txOpt.get();
         TransactionDirection direction = transaction.getTransactionDirection();
+        KpiRollupService.Delta rollup = new KpiRollupService.Delta().remove(transaction);
 
         if (request.isCreateNewCategory()) {
             TransactionCategory newCat = new TransactionCategory();
@@ -109,6 +119,8 @@ public class TransactionController {
         }
 
         transactionRepository.save(transaction);
+        kpiRollupService.apply(rollup.add(transaction));
+        publishRecategorized(List.of(transaction));
         return ResponseEntity.ok("Transaction category updated");
     }
 
@@ -142,8 +154,15 @@ public class TransactionController {
             }
         }
 
-        txList.forEach(tx -> tx.setCategory(category));
+        KpiRollupService.Delta rollup = new KpiRollupService.Delta();
+        for (Transaction tx : txList) {
+            rollup.remove(tx);
+            tx.setCategory(category);
+            rollup.add(tx);
+        }
         transactionRepository.saveAll(txList);
+        kpiRollupService.apply(rollup);
+        publishRecategorized(txList);
 
         return ResponseEntity.ok("Category assigned to " + txList.size() + " transactions.");
     }
@@ -158,6 +177,14 @@ public class TransactionController {
         return ResponseEntity.ok(savedCategory);
     }
 
+    private void publishRecategorized(List<Transaction> txList) {
+        List<LocalDate> dates = txList.stream().map(Transaction::getBookingDate).filter(Objects::nonNull).toList();
+        if (!dates.isEmpty()) {
+            eventPublisher.publishEvent(new TransactionsRecategorizedEvent(
+                    java.util.Collections.min(dates), java.util.Collections.max(dates)));
+        }
+    }
+
     private Currency resolveDisplayCurrency(String requested) {
         if (requested == null || requested.isBlank() || requested.equalsIgnoreCase("original")) {
             return null;
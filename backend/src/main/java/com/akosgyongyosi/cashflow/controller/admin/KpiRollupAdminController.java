@@ -0,0 +1,38 @@
+package com.akosgyongyosi.cashflow.controller.admin;
+
+import com.akosgyongyosi.cashflow.dto.KpiRollupCheckDTO;
+import com.akosgyongyosi.cashflow.service.AuditLogService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiRollupService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/kpi-rollup")
+@PreAuthorize("hasRole('ADMIN')")
+public class KpiRollupAdminController {
+
+    private final KpiRollupService kpiRollupService;
+    private final AuditLogService auditLogService;
+
+    public KpiRollupAdminController(KpiRollupService kpiRollupService, AuditLogService auditLogService) {
+        this.kpiRollupService = kpiRollupService;
+        this.auditLogService = auditLogService;
+    }
+
+    @GetMapping("/check")
+    public ResponseEntity<KpiRollupCheckDTO> check() {
+        return ResponseEntity.ok(kpiRollupService.check());
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(Principal principal) {
+        int rows = kpiRollupService.rebuild();
+        auditLogService.logAction(principal != null ? principal.getName() : "system", "REBUILD_KPI_ROLLUP",
+                Map.of("rows", rows));
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+}
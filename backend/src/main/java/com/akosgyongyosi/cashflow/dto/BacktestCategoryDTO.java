@@ -0,0 +1,16 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class BacktestCategoryDTO {
+    private Long categoryId;
+    private String category;
+    private Double mape;
+    private Double bias;
+    private int months;
+}
@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class BacktestCellDTO {
+    private LocalDate windowStart;
+    private Long categoryId;
+    private String category;
+    private int year;
+    private int month;
+    // signed by the KPI direction rule, in plan base currency
+    private BigDecimal forecast;
+    private BigDecimal actual;
+    // null when nothing was booked in the month
+    private Double absolutePercentageError;
+}
@@ -0,0 +1,13 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class BacktestRequestDTO {
+    // number of past years the plan is replayed against; window k is the plan horizon moved back k years
+    private int windows = 3;
+}
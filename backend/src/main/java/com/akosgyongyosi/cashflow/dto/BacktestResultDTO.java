@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class BacktestResultDTO {
+    private Long planId;
+    private String baseCurrency;
+    // windows that had actuals to compare against
+    private int windows;
+    // mean absolute percentage error over the category months with actuals
+    private Double mape;
+    // total forecast minus total actual, relative to the absolute actuals; positive means too optimistic
+    private Double bias;
+    private List<BacktestCategoryDTO> categories;
+    private List<BacktestCellDTO> cells;
+    private long elapsedMs;
+}
@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class CashShortfallAlertDTO {
+    private Long planId;
+    private String currency;
+    private BigDecimal threshold;
+    // first day whose closing balance is below the threshold; null when the plan never drops below it
+    private LocalDate firstBreachDate;
+    private BigDecimal firstBreachBalance;
+    private LocalDate troughDate;
+    private BigDecimal troughBalance;
+    private Instant evaluatedAt;
+}
@@ -1,5 +1,7 @@
 package com.akosgyongyosi.cashflow.dto;
 
+import com.akosgyongyosi.cashflow.entity.BaselineGranularity;
+import com.akosgyongyosi.cashflow.entity.BaselineMode;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import lombok.Data;
 import lombok.Getter;
@@ -17,4 +19,8 @@ public class CreatePlanRequestDTO {
     private LocalDate endDate;
     private BigDecimal startBalance;
     private Currency baseCurrency;
+    // defaults to copying the last year's transactions
+    private BaselineMode baselineMode;
+    private Integer baselineYears;
+    private BaselineGranularity baselineGranularity;
 }
@@ -0,0 +1,17 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class DailyBalanceDTO {
+    private LocalDate date;
+    private BigDecimal netFlow;
+    private BigDecimal balance;
+}
@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class DailyCashPositionDTO {
+    private String currency;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal netFlow;
+    private BigDecimal minBalance;
+    private LocalDate minBalanceDate;
+    private List<DailyBalanceDTO> days;
+}
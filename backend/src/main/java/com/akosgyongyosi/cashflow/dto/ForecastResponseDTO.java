@@ -13,6 +13,11 @@ import lombok.Setter;
 @Setter
 public class ForecastResponseDTO {
     private Long cashflowPlanId;
+    private String baseCurrency;
+    // keyed by ISO week-based year * 100 + ISO week (2025-W07 -> 202507), so horizons can span years
     private Map<Integer, BigDecimal> weeklyTotals;
     private List<ForecastTransactionDTO> forecastTransactions; 
+    private int page;
+    private int size;
+    private int totalWeeks;
 }
@@ -0,0 +1,19 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.util.List;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class FxSensitivityRequestDTO {
+    // foreign currencies to shock one at a time; empty means every foreign currency in the forecast
+    private List<Currency> currencies;
+    // relative change of the currency's rate against the plan base (0.1 = 10% more base units per unit)
+    private List<Double> shocks = List.of(-0.2, -0.1, -0.05, 0d, 0.05, 0.1, 0.2);
+}
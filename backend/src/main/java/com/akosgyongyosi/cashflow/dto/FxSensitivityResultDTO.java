@@ -0,0 +1,19 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class FxSensitivityResultDTO {
+    private Long planId;
+    private String baseCurrency;
+    private BigDecimal closingBalance;
+    private List<Double> shocks;
+    private List<FxSensitivityRowDTO> rows;
+}
@@ -0,0 +1,20 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class FxSensitivityRowDTO {
+    private String currency;
+    // net forecast flow in this currency, converted to base at the evaluated rates
+    private BigDecimal exposure;
+    // one entry per requested shock, in request order
+    private List<BigDecimal> closingBalances;
+    private List<BigDecimal> lowestBalances;
+}
@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class GoalSeekRequestDTO {
+    private Long categoryId;
+    // every month-end balance of the plan has to stay at or above this
+    private BigDecimal minBalance;
+    // window of the candidate adjustment; defaults to the plan horizon
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // search range of the percentChange multiplier (1.0 = unchanged)
+    private double lowerBound = 0d;
+    private double upperBound = 3d;
+    private double tolerance = 1e-4;
+}
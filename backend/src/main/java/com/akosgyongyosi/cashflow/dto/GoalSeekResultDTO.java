@@ -0,0 +1,25 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class GoalSeekResultDTO {
+    private Long planId;
+    private Long categoryId;
+    private String baseCurrency;
+    private BigDecimal minBalance;
+    private GoalSeekStatus status;
+    private Double percentChange;
+    // lowest month-end balance with percentChange applied
+    private BigDecimal lowestBalance;
+    private Integer lowestBalanceYear;
+    private Integer lowestBalanceMonth;
+    private int iterations;
+    private long elapsedMs;
+}
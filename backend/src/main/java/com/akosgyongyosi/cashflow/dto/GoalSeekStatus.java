@@ -0,0 +1,10 @@
+package com.akosgyongyosi.cashflow.dto;
+
+public enum GoalSeekStatus {
+    SOLVED,
+    // every value in the search range meets the target; percentChange is the bound on the side the category pushes against
+    ALWAYS_MET,
+    INFEASIBLE,
+    // the iteration or time budget ran out; percentChange is the best value known to meet the target
+    BUDGET_EXHAUSTED
+}
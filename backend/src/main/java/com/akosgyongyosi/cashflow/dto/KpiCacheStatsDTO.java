@@ -0,0 +1,19 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class KpiCacheStatsDTO {
+    private int size;
+    private int capacity;
+    private long hits;
+    private long misses;
+    // hits / (hits + misses); 0 before the first lookup
+    private double hitRate;
+    private long evictions;
+    private long invalidations;
+}
@@ -0,0 +1,19 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Setter
+@Getter
+public class KpiRollupCheckDTO {
+    private boolean consistent;
+    private int rollupKeys;
+    private int transactionKeys;
+    private int mismatchCount;
+    private List<String> mismatches = new ArrayList<>();
+}
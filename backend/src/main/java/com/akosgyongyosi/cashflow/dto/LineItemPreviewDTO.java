@@ -0,0 +1,18 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class LineItemPreviewDTO {
+    private KpiDashboardDTO before;
+    private KpiDashboardDTO after;
+    private BigDecimal totalRevenueDelta;
+    private BigDecimal totalExpensesDelta;
+    private BigDecimal closingBalanceDelta;
+}
@@ -0,0 +1,22 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Data
+public class MonteCarloRequestDTO {
+    private Integer paths;
+    private Long seed;
+    // relative spread of each line item's amounts (0.1 = ±10%)
+    private PerturbationDistribution amountDistribution = PerturbationDistribution.NORMAL;
+    private double amountSpread = 0.1;
+    // absolute spread of the percentChange multiplier of category adjustments
+    private PerturbationDistribution percentChangeDistribution = PerturbationDistribution.NORMAL;
+    private double percentChangeSpread = 0.05;
+    // relative spread of the rate of every foreign currency
+    private PerturbationDistribution fxDistribution = PerturbationDistribution.NORMAL;
+    private double fxSpread = 0.05;
+}
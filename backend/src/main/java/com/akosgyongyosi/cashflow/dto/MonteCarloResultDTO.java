@@ -0,0 +1,22 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class MonteCarloResultDTO {
+    private Long planId;
+    private String baseCurrency;
+    private int pathsRequested;
+    private int pathsCompleted;
+    private boolean budgetExhausted;
+    private long elapsedMs;
+    // share of paths whose month-end balance went below zero at least once
+    private double probabilityOfNegativeBalance;
+    private List<SimulationMonthDTO> months;
+}
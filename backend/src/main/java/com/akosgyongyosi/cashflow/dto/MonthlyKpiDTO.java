@@ -12,6 +12,7 @@ import lombok.Setter;
 @Setter
 @Getter
 public class MonthlyKpiDTO {
+    private int year;
     private int month;
     private BigDecimal totalIncome = BigDecimal.ZERO;
     private BigDecimal totalExpense = BigDecimal.ZERO;
@@ -0,0 +1,8 @@
+package com.akosgyongyosi.cashflow.dto;
+
+
+public enum PerturbationDistribution {
+    NORMAL,
+    UNIFORM,
+    TRIANGULAR
+}
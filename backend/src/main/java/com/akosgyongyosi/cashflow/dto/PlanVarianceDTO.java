@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class PlanVarianceDTO {
+    private Long planId;
+    private String baseCurrency;
+    private LocalDate startDate;
+    // last day compared; later plan rows are not yet due
+    private LocalDate through;
+    private BigDecimal totalPlanned = BigDecimal.ZERO;
+    private BigDecimal totalActual = BigDecimal.ZERO;
+    private BigDecimal totalDelta = BigDecimal.ZERO;
+    private List<VarianceRowDTO> rows;
+}
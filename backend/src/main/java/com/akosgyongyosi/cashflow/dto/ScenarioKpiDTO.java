@@ -0,0 +1,16 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import com.akosgyongyosi.cashflow.entity.ScenarioType;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class ScenarioKpiDTO {
+    private Long planId;
+    private String planName;
+    private ScenarioType scenario;
+    private KpiDashboardDTO kpi;
+}
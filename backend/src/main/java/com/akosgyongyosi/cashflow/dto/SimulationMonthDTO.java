@@ -0,0 +1,21 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class SimulationMonthDTO {
+    private int year;
+    private int month;
+    private BigDecimal p5;
+    private BigDecimal p25;
+    private BigDecimal p50;
+    private BigDecimal p75;
+    private BigDecimal p95;
+    private double probabilityNegative;
+}
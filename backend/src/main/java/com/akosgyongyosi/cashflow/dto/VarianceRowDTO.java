@@ -0,0 +1,24 @@
+package com.akosgyongyosi.cashflow.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@Setter
+@Getter
+public class VarianceRowDTO {
+    private int year;
+    private int month;
+    private Long categoryId;
+    private String category;
+    // signed by the KPI direction rule: expenses are negative
+    private BigDecimal planned;
+    private BigDecimal actual;
+    // actual minus planned; negative is worse for the balance
+    private BigDecimal delta;
+    // delta relative to the planned magnitude; null when nothing was planned
+    private BigDecimal deviationPercent;
+}
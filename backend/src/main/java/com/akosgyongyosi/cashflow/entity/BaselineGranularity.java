@@ -0,0 +1,6 @@
+package com.akosgyongyosi.cashflow.entity;
+
+public enum BaselineGranularity {
+    MONTH,
+    WEEK
+}
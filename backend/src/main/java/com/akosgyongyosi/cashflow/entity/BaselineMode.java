@@ -0,0 +1,12 @@
+package com.akosgyongyosi.cashflow.entity;
+
+public enum BaselineMode {
+    // every transaction of the year before, shifted by one year
+    LAST_YEAR,
+    // per category and period, the mean of the prior years
+    AVERAGE,
+    // like AVERAGE, with linearly more weight on recent years
+    WEIGHTED,
+    // damped additive Holt-Winters fitted per category on the monthly actuals before the plan
+    HOLT_WINTERS
+}
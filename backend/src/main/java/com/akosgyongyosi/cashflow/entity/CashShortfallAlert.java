@@ -0,0 +1,55 @@
+package com.akosgyongyosi.cashflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Latest shortfall scan of one plan. A row exists for every scanned plan; the plan is short of cash when
+ * firstBreachDate is set. planFingerprint is the forecast fingerprint the scan saw, so a re-scan of an
+ * unchanged plan is skipped.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "cash_shortfall_alerts", indexes = {
+        @Index(name = "ix_shortfall_first_breach", columnList = "first_breach_date")
+})
+public class CashShortfallAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "plan_id", nullable = false, unique = true)
+    private Long planId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency", length = 3)
+    private Currency currency;
+
+    @Column(name = "threshold", precision = 18, scale = 2, nullable = false)
+    private BigDecimal threshold;
+
+    @Column(name = "first_breach_date")
+    private LocalDate firstBreachDate;
+
+    @Column(name = "first_breach_balance", precision = 18, scale = 2)
+    private BigDecimal firstBreachBalance;
+
+    @Column(name = "trough_date")
+    private LocalDate troughDate;
+
+    @Column(name = "trough_balance", precision = 18, scale = 2)
+    private BigDecimal troughBalance;
+
+    @Column(name = "plan_fingerprint", nullable = false)
+    private long planFingerprint;
+
+    @Column(name = "evaluated_at", nullable = false)
+    private Instant evaluatedAt;
+}
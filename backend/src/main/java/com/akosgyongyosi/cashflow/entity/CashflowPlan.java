@@ -53,4 +53,16 @@ public class CashflowPlan {
     @Enumerated(EnumType.STRING)
     @Column(name = "base_currency", length = 3, nullable = false)
     private Currency baseCurrency;  // functional currency for calculations
+
+    // how baselineTransactions were derived from actuals; null means LAST_YEAR
+    @Enumerated(EnumType.STRING)
+    @Column(name = "baseline_mode", length = 16)
+    private BaselineMode baselineMode;
+
+    @Column(name = "baseline_years")
+    private Integer baselineYears;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "baseline_granularity", length = 8)
+    private BaselineGranularity baselineGranularity;
 }
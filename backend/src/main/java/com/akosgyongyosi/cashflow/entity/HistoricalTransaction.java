@@ -2,6 +2,8 @@ package com.akosgyongyosi.cashflow.entity;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -41,6 +43,21 @@ public class HistoricalTransaction {
 
     private LocalDate snapshotDate; 
 
+    // assumption that materialized this row; null for rows copied from actuals
+    @Column(name = "source_assumption_id")
+    private Long sourceAssumptionId;
+
+    // amount before the first category adjustment scaled it; null when never adjusted or when an untagged
+    // adjustment made it unrecoverable
+    @Column(name = "unadjusted_amount")
+    @JsonIgnore
+    private BigDecimal unadjustedAmount;
+
+    // assumption ids of the category adjustments that scaled this row, in the order they ran, e.g. "7,12"
+    @Column(name = "adjusted_by")
+    @JsonIgnore
+    private String adjustedBy;
+
     @ManyToOne
     @JsonBackReference
     private CashflowPlan cashflowPlan; 
@@ -54,4 +71,20 @@ public class HistoricalTransaction {
     public String getOriginalCurrencyCode() {
         return originalCurrency != null ? originalCurrency.name() : null;
     }
+
+    public List<Long> adjustedByIds() {
+        List<Long> ids = new ArrayList<>();
+        if (adjustedBy != null && !adjustedBy.isBlank()) {
+            for (String id : adjustedBy.split(",")) {
+                ids.add(Long.valueOf(id.trim()));
+            }
+        }
+        return ids;
+    }
+
+    @JsonIgnore
+    public void setAdjustedByIds(List<Long> ids) {
+        this.adjustedBy = ids == null || ids.isEmpty() ? null
+                : String.join(",", ids.stream().map(String::valueOf).toList());
+    }
 }
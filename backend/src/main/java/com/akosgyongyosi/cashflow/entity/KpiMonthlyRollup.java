@@ -0,0 +1,47 @@
+package com.akosgyongyosi.cashflow.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Actuals summed per booking month, category and currency. Kept up to date by the writes that change
+ * transactions; accounting code and direction come from the category when the rollup is read, so renaming
+ * or re-mapping a category does not leave stale rows behind.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "kpi_monthly_rollups", indexes = {
+        @Index(name = "ux_kpi_rollup_key", columnList = "rollup_year, rollup_month, category_id, currency", unique = true)
+})
+public class KpiMonthlyRollup {
+
+    // stands in for "no category": NULLs never collide in a unique index, so they would defeat the upsert
+    public static final long UNCATEGORIZED = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_year", nullable = false)
+    private int year;
+
+    @Column(name = "rollup_month", nullable = false)
+    private int month;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency", length = 3, nullable = false)
+    private Currency currency;
+
+    @Column(name = "amount_sum", precision = 19, scale = 2, nullable = false)
+    private BigDecimal amountSum;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+}
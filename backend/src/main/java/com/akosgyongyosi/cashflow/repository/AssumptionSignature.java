@@ -0,0 +1,15 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Frequency;
+import com.akosgyongyosi.cashflow.entity.LineItemType;
+
+import java.time.LocalDate;
+
+// the fields a new line item is matched on to reuse the assumption id of an existing one
+public record AssumptionSignature(String title,
+                                  LineItemType type,
+                                  LocalDate transactionDate,
+                                  LocalDate startDate,
+                                  Frequency frequency,
+                                  Double percentChange,
+                                  Long assumptionId) {}
@@ -0,0 +1,8 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Cheap summary of a plan's stored baseline; changes whenever rows are added, removed or rescaled.
+ */
+public record BaselineStats(Long rowCount, BigDecimal amountSum, Long maxId) {}
@@ -0,0 +1,15 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.CashShortfallAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CashShortfallAlertRepository extends JpaRepository<CashShortfallAlert, Long> {
+
+    Optional<CashShortfallAlert> findByPlanId(Long planId);
+
+    // plans that are short of cash, earliest breach first
+    List<CashShortfallAlert> findByFirstBreachDateIsNotNullOrderByFirstBreachDateAsc();
+}
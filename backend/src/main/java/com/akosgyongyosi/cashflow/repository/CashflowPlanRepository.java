@@ -1,6 +1,7 @@
 package com.akosgyongyosi.cashflow.repository;
 
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,4 +12,7 @@ import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 @Repository
 public interface CashflowPlanRepository extends JpaRepository<CashflowPlan, Long> {
     List<CashflowPlan> findByGroupKey(String groupKey);
+
+    // plans whose horizon ends on or after the given date
+    List<CashflowPlan> findByEndDateGreaterThanEqual(LocalDate date);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// one booking day's transactions in one currency, signed by category direction and summed
+public record DailyFlowSum(LocalDate bookingDate,
+                           Currency currency,
+                           BigDecimal signedSum) {}
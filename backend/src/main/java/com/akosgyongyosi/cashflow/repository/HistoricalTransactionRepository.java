@@ -2,6 +2,9 @@ package com.akosgyongyosi.cashflow.repository;
 
 import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -11,4 +14,21 @@ import java.util.List;
 public interface HistoricalTransactionRepository extends JpaRepository<HistoricalTransaction, Long> {
     List<HistoricalTransaction> findByCashflowPlanId(Long cashflowPlanId);
     List<HistoricalTransaction> findByTransactionDateBetween(LocalDate startDate, LocalDate endDate);
+    List<HistoricalTransaction> findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(Long cashflowPlanId, Long categoryId, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.BaselineStats(COUNT(h), SUM(h.amount), MAX(h.id)) " +
+           "FROM HistoricalTransaction h WHERE h.cashflowPlan.id = :planId")
+    BaselineStats baselineStats(@Param("planId") Long planId);
+
+    // baseline amounts are stored in the plan base currency, so no currency group
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiAggregate(YEAR(h.transactionDate), MONTH(h.transactionDate), " +
+           "c.name, a.code, c.direction, SUM(h.amount), COUNT(h)) " +
+           "FROM HistoricalTransaction h LEFT JOIN h.category c LEFT JOIN c.accountingCategory a " +
+           "WHERE h.cashflowPlan.id = :planId " +
+           "GROUP BY YEAR(h.transactionDate), MONTH(h.transactionDate), c.id, c.name, a.code, c.direction")
+    List<KpiAggregate> sumForKpi(@Param("planId") Long planId);
+
+    @Modifying
+    @Query("DELETE FROM HistoricalTransaction h WHERE h.cashflowPlan.id = :planId AND h.sourceAssumptionId = :assumptionId")
+    int deleteByPlanIdAndSourceAssumptionId(@Param("planId") Long planId, @Param("assumptionId") Long assumptionId);
 }
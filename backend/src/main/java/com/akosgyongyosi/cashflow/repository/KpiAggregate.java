@@ -0,0 +1,25 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts summed per calendar month, currency, category name, accounting code and direction: everything
+ * a KPI dashboard groups by. currency is null for sums that are already in the plan base currency.
+ */
+public record KpiAggregate(Integer year,
+                           Integer month,
+                           Currency currency,
+                           String category,
+                           String accountingCode,
+                           TransactionDirection direction,
+                           BigDecimal amountSum,
+                           Long rowCount) {
+
+    public KpiAggregate(Integer year, Integer month, String category, String accountingCode,
+                        TransactionDirection direction, BigDecimal amountSum, Long rowCount) {
+        this(year, month, null, category, accountingCode, direction, amountSum, rowCount);
+    }
+}
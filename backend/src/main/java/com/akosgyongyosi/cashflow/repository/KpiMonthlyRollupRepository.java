@@ -0,0 +1,41 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.KpiMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface KpiMonthlyRollupRepository extends JpaRepository<KpiMonthlyRollup, Long> {
+
+    // periods are yyyyMM, both ends inclusive
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiAggregate(r.year, r.month, r.currency, c.name, a.code, " +
+           "c.direction, SUM(r.amountSum), SUM(r.rowCount)) " +
+           "FROM KpiMonthlyRollup r LEFT JOIN TransactionCategory c ON c.id = r.categoryId LEFT JOIN c.accountingCategory a " +
+           "WHERE r.rowCount > 0 AND r.year * 100 + r.month BETWEEN :fromPeriod AND :toPeriod " +
+           "GROUP BY r.year, r.month, r.currency, c.id, c.name, a.code, c.direction")
+    List<KpiAggregate> sumForKpi(@Param("fromPeriod") int fromPeriod, @Param("toPeriod") int toPeriod);
+
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiRollupRow(r.year, r.month, r.categoryId, r.currency, " +
+           "r.amountSum, r.rowCount) FROM KpiMonthlyRollup r WHERE r.rowCount > 0")
+    List<KpiRollupRow> findAllRows();
+
+    // a single statement per key: the unique key turns a concurrent insert of the same new key into an increment
+    @Modifying
+    @Query(value = "INSERT INTO kpi_monthly_rollups (rollup_year, rollup_month, category_id, currency, amount_sum, row_count) " +
+           "VALUES (:year, :month, :categoryId, :currency, :amount, :count) " +
+           "ON DUPLICATE KEY UPDATE amount_sum = amount_sum + :amount, row_count = row_count + :count",
+           nativeQuery = true)
+    int upsert(@Param("year") int year,
+               @Param("month") int month,
+               @Param("categoryId") long categoryId,
+               @Param("currency") String currency,
+               @Param("amount") BigDecimal amount,
+               @Param("count") long count);
+
+    // rows written before uncategorized actuals were keyed by KpiMonthlyRollup.UNCATEGORIZED
+    boolean existsByCategoryIdIsNull();
+}
@@ -0,0 +1,13 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+
+import java.math.BigDecimal;
+
+// one rollup key with its sum and row count; read from the rollup table or computed from raw transactions
+public record KpiRollupRow(Integer year,
+                           Integer month,
+                           Long categoryId,
+                           Currency currency,
+                           BigDecimal amountSum,
+                           Long rowCount) {}
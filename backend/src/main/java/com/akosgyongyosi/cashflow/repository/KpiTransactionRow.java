@@ -0,0 +1,15 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// the columns of one transaction a KPI dashboard reads; direction is the category's
+public record KpiTransactionRow(LocalDate bookingDate,
+                                BigDecimal amount,
+                                Currency currency,
+                                String category,
+                                String accountingCode,
+                                TransactionDirection direction) {}
@@ -2,9 +2,12 @@ package com.akosgyongyosi.cashflow.repository;
 
 import com.akosgyongyosi.cashflow.entity.PlanLineItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import com.akosgyongyosi.cashflow.entity.LineItemType;
 
@@ -15,4 +18,10 @@ public interface PlanLineItemRepository extends JpaRepository<PlanLineItem, Long
     PlanLineItem findFirstByTitleIgnoreCaseAndTypeAndTransactionDate(String title, LineItemType type, LocalDate transactionDate);
     PlanLineItem findFirstByTitleIgnoreCaseAndTypeAndStartDateAndFrequency(String title, LineItemType type, LocalDate startDate, com.akosgyongyosi.cashflow.entity.Frequency frequency);
     PlanLineItem findFirstByTitleIgnoreCaseAndTypeAndStartDateAndPercentChange(String title, LineItemType type, LocalDate startDate, Double percentChange);
+
+    // reuse candidates for a whole batch in one query; titles are upper-cased, oldest item first
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.AssumptionSignature(li.title, li.type, li.transactionDate, " +
+           "li.startDate, li.frequency, li.percentChange, li.assumptionId) FROM PlanLineItem li " +
+           "WHERE UPPER(li.title) IN :titles AND li.assumptionId IS NOT NULL ORDER BY li.id")
+    List<AssumptionSignature> findSignaturesByTitles(@Param("titles") Collection<String> titles);
 }
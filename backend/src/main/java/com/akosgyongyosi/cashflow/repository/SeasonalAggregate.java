@@ -0,0 +1,23 @@
+package com.akosgyongyosi.cashflow.repository;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+
+import java.math.BigDecimal;
+
+/**
+ * Actuals summed per category, calendar month (and ISO week when grouped weekly) and currency.
+ */
+public record SeasonalAggregate(TransactionCategory category,
+                                Integer year,
+                                Integer month,
+                                Integer week,
+                                Currency currency,
+                                BigDecimal amountSum,
+                                Long rowCount) {
+
+    public SeasonalAggregate(TransactionCategory category, Integer year, Integer month, Currency currency,
+                             BigDecimal amountSum, Long rowCount) {
+        this(category, year, month, null, currency, amountSum, rowCount);
+    }
+}
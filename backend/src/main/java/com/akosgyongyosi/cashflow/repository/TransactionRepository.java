@@ -1,12 +1,18 @@
 package com.akosgyongyosi.cashflow.repository;
 
+import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -15,4 +21,56 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findAllWithCategory();
     List<Transaction> findByBookingDateBetween(LocalDate start, LocalDate end);
     Long countByCategoryId(Long categoryId);
+
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.SeasonalAggregate(c, YEAR(t.bookingDate), MONTH(t.bookingDate), " +
+           "t.currency, SUM(t.amount), COUNT(t)) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.bookingDate BETWEEN :from AND :to " +
+           "GROUP BY c, YEAR(t.bookingDate), MONTH(t.bookingDate), t.currency")
+    List<SeasonalAggregate> sumByCategoryAndMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // a week that spans two months yields one group per month
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.SeasonalAggregate(c, YEAR(t.bookingDate), MONTH(t.bookingDate), " +
+           "EXTRACT(WEEK FROM t.bookingDate), t.currency, SUM(t.amount), COUNT(t)) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.bookingDate BETWEEN :from AND :to " +
+           "GROUP BY c, YEAR(t.bookingDate), MONTH(t.bookingDate), EXTRACT(WEEK FROM t.bookingDate), t.currency")
+    List<SeasonalAggregate> sumByCategoryAndWeek(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiAggregate(YEAR(t.bookingDate), MONTH(t.bookingDate), " +
+           "t.currency, c.name, a.code, c.direction, SUM(t.amount), COUNT(t)) " +
+           "FROM Transaction t LEFT JOIN t.category c LEFT JOIN c.accountingCategory a " +
+           "WHERE t.bookingDate BETWEEN :from AND :to " +
+           "GROUP BY YEAR(t.bookingDate), MONTH(t.bookingDate), t.currency, c.id, c.name, a.code, c.direction")
+    List<KpiAggregate> sumForKpi(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // negative categories count as outflows whatever the stored sign, like ForecastRow.signedAmount
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.DailyFlowSum(t.bookingDate, t.currency, " +
+           "SUM(CASE WHEN c.direction = com.akosgyongyosi.cashflow.entity.TransactionDirection.NEGATIVE " +
+           "THEN -ABS(t.amount) ELSE t.amount END)) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.bookingDate BETWEEN :from AND :to " +
+           "GROUP BY t.bookingDate, t.currency")
+    List<DailyFlowSum> sumSignedByDayAndCurrency(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiRollupRow(YEAR(t.bookingDate), MONTH(t.bookingDate), " +
+           "c.id, t.currency, SUM(t.amount), COUNT(t)) " +
+           "FROM Transaction t LEFT JOIN t.category c " +
+           "GROUP BY YEAR(t.bookingDate), MONTH(t.bookingDate), c.id, t.currency")
+    List<KpiRollupRow> sumForRollup();
+
+    // read in fetch-size batches; consume inside a transaction and close the stream
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.akosgyongyosi.cashflow.repository.KpiTransactionRow(t.bookingDate, t.amount, t.currency, " +
+           "c.name, a.code, c.direction) " +
+           "FROM Transaction t LEFT JOIN t.category c LEFT JOIN c.accountingCategory a " +
+           "WHERE t.bookingDate BETWEEN :from AND :to " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:accountingCode IS NULL OR a.code = :accountingCode) " +
+           "AND (:currency IS NULL OR t.currency = :currency)")
+    Stream<KpiTransactionRow> streamForKpi(@Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           @Param("categoryId") Long categoryId,
+                                           @Param("accountingCode") String accountingCode,
+                                           @Param("currency") Currency currency);
 }
@@ -4,9 +4,11 @@ import com.akosgyongyosi.cashflow.entity.AccountingCategory;
 import com.akosgyongyosi.cashflow.entity.TransactionCategory;
 import com.akosgyongyosi.cashflow.repository.AccountingCategoryRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,11 +17,14 @@ public class AccountingCategoryService {
 
     private final AccountingCategoryRepository accountingCategoryRepository;
     private final TransactionCategoryRepository transactionCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AccountingCategoryService(AccountingCategoryRepository accountingCategoryRepository,
-                                     TransactionCategoryRepository transactionCategoryRepository) {
+                                     TransactionCategoryRepository transactionCategoryRepository,
+                                     ApplicationEventPublisher eventPublisher) {
         this.accountingCategoryRepository = accountingCategoryRepository;
         this.transactionCategoryRepository = transactionCategoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<AccountingCategory> getAllAccountingCategories() {
@@ -35,13 +40,18 @@ public class AccountingCategoryService {
 
         AccountingCategory accountingCategory = optionalAccountingCategory.get();
 
+        List<Long> remapped = new ArrayList<>();
         for (Long transactionCategoryId : transactionCategoryIds) {
             Optional<TransactionCategory> optionalTransactionCategory = transactionCategoryRepository.findById(transactionCategoryId);
             if (optionalTransactionCategory.isPresent()) {
                 TransactionCategory transactionCategory = optionalTransactionCategory.get();
                 transactionCategory.setAccountingCategory(accountingCategory);
                 transactionCategoryRepository.save(transactionCategory);
+                remapped.add(transactionCategoryId);
             }
         }
+        if (!remapped.isEmpty()) {
+            eventPublisher.publishEvent(new CategoryMappingChangedEvent(remapped));
+        }
     }
 }
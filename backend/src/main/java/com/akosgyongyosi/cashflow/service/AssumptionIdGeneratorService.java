@@ -16,6 +16,17 @@ public class AssumptionIdGeneratorService {
 
     @Transactional
     public Long getNextAssumptionId() {
+        return reserveBlock(1);
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids with a single sequence update and returns the first one.
+     */
+    @Transactional
+    public Long reserveBlock(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + count);
+        }
         AssumptionIdSequence seq = seqRepo.findById("ASSUMPTION_ID").orElse(null);
 
         if (seq == null) {
@@ -26,7 +37,7 @@ public class AssumptionIdGeneratorService {
         }
 
         Long val = seq.getNextVal();
-        seq.setNextVal(val + 1);
+        seq.setNextVal(val + count);
         seqRepo.save(seq);
         return val;
     }
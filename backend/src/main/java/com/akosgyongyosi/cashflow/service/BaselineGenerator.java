@@ -0,0 +1,28 @@
+package com.akosgyongyosi.cashflow.service;
+
+import com.akosgyongyosi.cashflow.entity.BaselineMode;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+
+import java.util.List;
+
+/**
+ * Derives a plan's baseline from actuals for a {@link BaselineMode} other than LAST_YEAR, which copies
+ * transactions one by one in {@link CashflowPlanService}.
+ */
+public interface BaselineGenerator {
+
+    int MAX_YEARS = 10;
+
+    boolean supports(BaselineMode mode);
+
+    // rows for the plan's horizon and baseline settings; not attached to the plan
+    List<HistoricalTransaction> build(CashflowPlan plan, FxRequestCache cache);
+
+    static void validate(BaselineMode mode, Integer years) {
+        if (mode != null && mode != BaselineMode.LAST_YEAR && (years == null || years < 1 || years > MAX_YEARS)) {
+            throw new IllegalArgumentException("baselineYears must be between 1 and " + MAX_YEARS);
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.akosgyongyosi.cashflow.service;
 import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
 import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+import com.akosgyongyosi.cashflow.service.kpi.PlanChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,14 +23,23 @@ public class CashflowPlanService {
 
     private final CashflowPlanRepository planRepository;
     private final TransactionRepository transactionRepository;
+    private final HistoricalTransactionRepository historicalTransactionRepository;
     private final FxService fxService;
+    private final List<BaselineGenerator> baselineGenerators;
+    private final ApplicationEventPublisher eventPublisher;
     
     public CashflowPlanService(CashflowPlanRepository planRepository,
                                TransactionRepository transactionRepository,
-                               FxService fxService) {
+                               HistoricalTransactionRepository historicalTransactionRepository,
+                               FxService fxService,
+                               List<BaselineGenerator> baselineGenerators,
+                               ApplicationEventPublisher eventPublisher) {
         this.planRepository = planRepository;
         this.transactionRepository = transactionRepository;
+        this.historicalTransactionRepository = historicalTransactionRepository;
         this.fxService = fxService;
+        this.baselineGenerators = baselineGenerators;
+        this.eventPublisher = eventPublisher;
     }
 
     public Optional<CashflowPlan> getPlan(Long planId) {
@@ -38,7 +52,7 @@ public class CashflowPlanService {
 
     @Transactional
     public CashflowPlan createPlanForInterval(String planName, LocalDate start, LocalDate end, String groupKey) {
-        return doCreatePlan(planName, start, end, ScenarioType.REALISTIC, BigDecimal.ZERO, groupKey, null);
+        return doCreatePlan(planName, start, end, ScenarioType.REALISTIC, BigDecimal.ZERO, groupKey, null, null, null, null);
     }
 
     @Transactional
@@ -48,7 +62,20 @@ public class CashflowPlanService {
                                               ScenarioType scenario,
                                               BigDecimal startBalance,
                                               String groupKey) {
-        return doCreatePlan(planName, start, end, scenario, startBalance, groupKey, null);
+        return doCreatePlan(planName, start, end, scenario, startBalance, groupKey, null, null, null, null);
+    }
+
+    @Transactional
+    public CashflowPlan createPlanForInterval(String planName,
+                                              LocalDate start,
+                                              LocalDate end,
+                                              String groupKey,
+                                              BaselineMode baselineMode,
+                                              Integer baselineYears,
+                                              BaselineGranularity baselineGranularity) {
+        BaselineGenerator.validate(baselineMode, baselineYears);
+        return doCreatePlan(planName, start, end, ScenarioType.REALISTIC, BigDecimal.ZERO, groupKey, null,
+                baselineMode, baselineYears, baselineGranularity);
     }
 
     private CashflowPlan doCreatePlan(String planName,
@@ -57,7 +84,10 @@ public class CashflowPlanService {
                                       ScenarioType scenario,
                                       BigDecimal startBalance,
                                       String groupKey,
-                                      Currency baseCurrency) {
+                                      Currency baseCurrency,
+                                      BaselineMode baselineMode,
+                                      Integer baselineYears,
+                                      BaselineGranularity baselineGranularity) {
         CashflowPlan plan = new CashflowPlan();
         plan.setPlanName(planName);
         plan.setStartDate(start);
@@ -66,12 +96,26 @@ public class CashflowPlanService {
         plan.setGroupKey(groupKey);
         plan.setScenario(scenario);
         plan.setStartBalance(startBalance);
+        plan.setBaselineMode(baselineMode);
+        plan.setBaselineYears(baselineYears);
+        plan.setBaselineGranularity(baselineGranularity);
     plan.setBaselineTransactions(new ArrayList<>());
-    Currency effectiveBaseCurrency = (baseCurrency != null) ? baseCurrency : inferBaseCurrency(start, end);
-    plan.setBaseCurrency(effectiveBaseCurrency);
+
+    if (isAggregated(plan)) {
+        if (baseCurrency == null) {
+            baseCurrency = inferBaseCurrency(transactionRepository.sumByCategoryAndMonth(start.minusYears(1), end.minusYears(1))
+                    .stream().map(SeasonalAggregate::currency).toList());
+        }
+        plan.setBaseCurrency(baseCurrency);
+        plan.getBaselineTransactions().addAll(generatorFor(plan).build(plan, new FxRequestCache(fxService)));
+        return saved(plan);
+    }
 
     List<Transaction> lastYearTransactions = transactionRepository
         .findByBookingDateBetween(start.minusYears(1), end.minusYears(1));
+    Currency effectiveBaseCurrency = (baseCurrency != null) ? baseCurrency
+            : inferBaseCurrency(lastYearTransactions.stream().map(Transaction::getCurrency).toList());
+    plan.setBaseCurrency(effectiveBaseCurrency);
     FxRequestCache cache = new FxRequestCache(fxService);
 
     for (Transaction tx : lastYearTransactions) {
@@ -79,16 +123,23 @@ public class CashflowPlanService {
         plan.getBaselineTransactions().add(hist);
     }
 
-        return planRepository.save(plan);
+        return saved(plan);
     }
 
     @Transactional
     public List<CashflowPlan> createAllScenarioPlans(String basePlanName, LocalDate start, LocalDate end, BigDecimal startBalance, Currency baseCurrency) {
+        return createAllScenarioPlans(basePlanName, start, end, startBalance, baseCurrency, null, null, null);
+    }
+
+    @Transactional
+    public List<CashflowPlan> createAllScenarioPlans(String basePlanName, LocalDate start, LocalDate end, BigDecimal startBalance, Currency baseCurrency,
+                                                     BaselineMode baselineMode, Integer baselineYears, BaselineGranularity baselineGranularity) {
+        BaselineGenerator.validate(baselineMode, baselineYears);
         String groupKey = UUID.randomUUID().toString(); 
 
-    CashflowPlan worst = doCreatePlan(basePlanName + "-WORST", start, end, ScenarioType.WORST, startBalance, groupKey, baseCurrency);
-    CashflowPlan real = doCreatePlan(basePlanName + "-REALISTIC", start, end, ScenarioType.REALISTIC, startBalance, groupKey, baseCurrency);
-    CashflowPlan best = doCreatePlan(basePlanName + "-BEST", start, end, ScenarioType.BEST, startBalance, groupKey, baseCurrency);
+    CashflowPlan worst = doCreatePlan(basePlanName + "-WORST", start, end, ScenarioType.WORST, startBalance, groupKey, baseCurrency, baselineMode, baselineYears, baselineGranularity);
+    CashflowPlan real = doCreatePlan(basePlanName + "-REALISTIC", start, end, ScenarioType.REALISTIC, startBalance, groupKey, baseCurrency, baselineMode, baselineYears, baselineGranularity);
+    CashflowPlan best = doCreatePlan(basePlanName + "-BEST", start, end, ScenarioType.BEST, startBalance, groupKey, baseCurrency, baselineMode, baselineYears, baselineGranularity);
 
         return List.of(worst, real, best);
     }
@@ -115,13 +166,23 @@ public class CashflowPlanService {
         return hist;
     }
 
-    private Currency inferBaseCurrency(LocalDate start, LocalDate end) {
-        List<Transaction> lastYear = transactionRepository.findByBookingDateBetween(start.minusYears(1), end.minusYears(1));
-        boolean hasHuf = lastYear.stream().anyMatch(t -> t.getCurrency() == Currency.HUF);
-        boolean hasEur = lastYear.stream().anyMatch(t -> t.getCurrency() == Currency.EUR);
+    private Currency inferBaseCurrency(List<Currency> lastYear) {
+        boolean hasHuf = lastYear.contains(Currency.HUF);
+        boolean hasEur = lastYear.contains(Currency.EUR);
         if (hasHuf) return Currency.HUF;
         if (hasEur) return Currency.EUR;
-        return lastYear.stream().map(Transaction::getCurrency).findFirst().orElse(Currency.HUF);
+        return lastYear.stream().filter(Objects::nonNull).findFirst().orElse(Currency.HUF);
+    }
+
+    private boolean isAggregated(CashflowPlan plan) {
+        return plan.getBaselineMode() != null && plan.getBaselineMode() != BaselineMode.LAST_YEAR;
+    }
+
+    private BaselineGenerator generatorFor(CashflowPlan plan) {
+        return baselineGenerators.stream()
+                .filter(g -> g.supports(plan.getBaselineMode()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported baseline mode: " + plan.getBaselineMode()));
     }
 
     @Transactional
@@ -130,12 +191,111 @@ public class CashflowPlanService {
                 .orElseThrow(() -> new NoSuchElementException("Plan not found: " + planId));
         plan.getBaselineTransactions().clear();
         FxRequestCache cache = new FxRequestCache(fxService);
+        if (isAggregated(plan)) {
+            plan.getBaselineTransactions().addAll(generatorFor(plan).build(plan, cache));
+            return saved(plan);
+        }
         List<Transaction> lastYearTransactions = transactionRepository
                 .findByBookingDateBetween(plan.getStartDate().minusYears(1), plan.getEndDate().minusYears(1));
         for (Transaction tx : lastYearTransactions) {
             plan.getBaselineTransactions().add(convertTransactionToHistorical(tx, plan, cache));
         }
-        return planRepository.save(plan);
+        return saved(plan);
+    }
+
+    // a new or rebuilt baseline changes the plan's forecast like any line item edit
+    private CashflowPlan saved(CashflowPlan plan) {
+        CashflowPlan saved = planRepository.save(plan);
+        if (saved.getId() != null) {
+            eventPublisher.publishEvent(new PlanChangedEvent(saved.getId()));
+        }
+        return saved;
+    }
+
+    /**
+     * Undoes what a materialized line item wrote into the stored baseline, without touching other assumptions.
+     * Returns false when the contribution cannot be identified (rows written before they were tagged with their
+     * source assumption), in which case the caller has to rebuild the baseline.
+     */
+    @Transactional
+    public boolean revertAppliedAssumption(CashflowPlan plan, PlanLineItem item) {
+        if (!Boolean.TRUE.equals(item.getIsApplied())) {
+            return true;
+        }
+        if (item.getType() == LineItemType.CATEGORY_ADJUSTMENT) {
+            return revertCategoryAdjustment(plan, item);
+        }
+        if (item.getAssumptionId() == null) {
+            return false;
+        }
+        return historicalTransactionRepository.deleteByPlanIdAndSourceAssumptionId(plan.getId(), item.getAssumptionId()) > 0;
+    }
+
+    /**
+     * Recomputes the rows the adjustment scaled from their unadjusted amount and the adjustments that remain,
+     * in the order they originally ran, so the result matches a rebuild to the cent. Returns false when a row
+     * lacks that record (scaled before adjustments were recorded, or by an adjustment without an assumption id).
+     */
+    private boolean revertCategoryAdjustment(CashflowPlan plan, PlanLineItem item) {
+        if (item.getAssumptionId() == null) {
+            return false;
+        }
+        if (item.getCategory() == null || item.getCategory().getId() == null) {
+            return true;
+        }
+        LocalDate start = item.getStartDate() != null ? item.getStartDate() : plan.getStartDate();
+        LocalDate end = item.getEndDate() != null ? item.getEndDate() : plan.getEndDate();
+
+        Map<Long, BigDecimal> factorByAssumption = new HashMap<>();
+        if (plan.getLineItems() != null) {
+            for (PlanLineItem li : plan.getLineItems()) {
+                if (li != item && li.getType() == LineItemType.CATEGORY_ADJUSTMENT
+                        && li.getAssumptionId() != null && li.getPercentChange() != null) {
+                    factorByAssumption.put(li.getAssumptionId(), BigDecimal.valueOf(li.getPercentChange()));
+                }
+            }
+        }
+
+        List<HistoricalTransaction> slice = historicalTransactionRepository
+                .findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(plan.getId(), item.getCategory().getId(), start, end);
+        List<HistoricalTransaction> reverted = new ArrayList<>();
+        List<BigDecimal> amounts = new ArrayList<>();
+        List<List<Long>> remainingIds = new ArrayList<>();
+        for (HistoricalTransaction ht : slice) {
+            List<Long> ids = ht.adjustedByIds();
+            if (!ids.contains(item.getAssumptionId())) {
+                continue;
+            }
+            if (ht.getUnadjustedAmount() == null) {
+                return false;
+            }
+            ids.remove(item.getAssumptionId());
+            BigDecimal amount = ht.getUnadjustedAmount();
+            for (Long id : ids) {
+                BigDecimal factor = factorByAssumption.get(id);
+                if (factor == null) {
+                    return false;
+                }
+                amount = MinorUnits.scale(amount, factor);
+            }
+            reverted.add(ht);
+            amounts.add(amount);
+            remainingIds.add(ids);
+        }
+        // rows of the slice exist but none records the adjustment: they were scaled before it was recorded
+        if (reverted.isEmpty() && !slice.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < reverted.size(); i++) {
+            HistoricalTransaction ht = reverted.get(i);
+            ht.setAmount(amounts.get(i));
+            ht.setAdjustedByIds(remainingIds.get(i));
+            if (remainingIds.get(i).isEmpty()) {
+                ht.setUnadjustedAmount(null);
+            }
+        }
+        historicalTransactionRepository.saveAll(reverted);
+        return true;
     }
 
     @Transactional
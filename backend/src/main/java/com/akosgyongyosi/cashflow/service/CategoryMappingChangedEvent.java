@@ -0,0 +1,6 @@
+package com.akosgyongyosi.cashflow.service;
+
+import java.util.List;
+
+// published after the accounting category of these transaction categories changed
+public record CategoryMappingChangedEvent(List<Long> transactionCategoryIds) {}
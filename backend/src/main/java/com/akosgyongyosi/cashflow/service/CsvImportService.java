@@ -4,11 +4,14 @@ import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.repository.BankAccountRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.kpi.KpiRollupService;
+import com.akosgyongyosi.cashflow.service.kpi.TransactionsImportedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,6 +37,8 @@ public class CsvImportService {
     private final BankAccountRepository bankAccountRepository;
     private final TransactionCategoryRepository categoryRepository;
     private final com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService fxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KpiRollupService kpiRollupService;
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy.MM.dd");
     private static final char CSV_DELIMITER = ';';
@@ -41,11 +46,15 @@ public class CsvImportService {
     public CsvImportService(TransactionRepository transactionRepository,
                             BankAccountRepository bankAccountRepository,
                             TransactionCategoryRepository categoryRepository,
-                            com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService fxService) {
+                            com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService fxService,
+                            ApplicationEventPublisher eventPublisher,
+                            KpiRollupService kpiRollupService) {
         this.transactionRepository = transactionRepository;
         this.bankAccountRepository = bankAccountRepository;
         this.categoryRepository = categoryRepository;
         this.fxService = fxService;
+        this.eventPublisher = eventPublisher;
+        this.kpiRollupService = kpiRollupService;
     }
 
     @Transactional
@@ -106,6 +115,7 @@ public class CsvImportService {
     private int parseCsv(BufferedReader reader, Currency fileCurrency) throws IOException {
         int recordCount = 0;
         java.util.Set<LocalDate> transactionDates = new java.util.HashSet<>();
+        KpiRollupService.Delta rollup = new KpiRollupService.Delta();
 
         CSVFormat fmt = CSVFormat.Builder.create(CSVFormat.DEFAULT)
                 .setDelimiter(CSV_DELIMITER)
@@ -125,12 +135,16 @@ public class CsvImportService {
                 Transaction tx = mapToTransaction(rec, fileCurrency);
                 if (tx != null) {
                     transactionRepository.save(tx);
+                    rollup.add(tx);
                     transactionDates.add(tx.getBookingDate());
                     transactionDates.add(tx.getValueDate());
                     recordCount++;
                 }
             }
         }
+        if (!rollup.isEmpty()) {
+            kpiRollupService.apply(rollup);
+        }
         
         if (!transactionDates.isEmpty()) {
             try {
@@ -138,6 +152,8 @@ public class CsvImportService {
             } catch (Exception ex) {
                 log.warn("Failed to pre-fetch FX rates for imported transactions: {}", ex.getMessage());
             }
+            eventPublisher.publishEvent(new TransactionsImportedEvent(
+                    java.util.Collections.min(transactionDates), java.util.Collections.max(transactionDates)));
         }
         
         return recordCount;
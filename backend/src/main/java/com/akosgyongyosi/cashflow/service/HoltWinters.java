@@ -0,0 +1,129 @@
+package com.akosgyongyosi.cashflow.service;
+
+/**
+ * Additive Holt-Winters with a damped trend (ETS(A,Ad,A)) on a monthly series. Smoothing parameters are
+ * picked from a small grid by one-step-ahead squared error; series shorter than two seasons fall back to
+ * simple exponential smoothing of the level.
+ */
+final class HoltWinters {
+
+    static final int SEASON = 12;
+    private static final double PHI = 0.9;
+    private static final double[] ALPHAS = {0.1, 0.2, 0.4, 0.6, 0.8};
+    private static final double[] BETAS = {0.0, 0.05, 0.2};
+    private static final double[] GAMMAS = {0.05, 0.2, 0.4};
+
+    private final double level;
+    private final double trend;
+    private final double[] season;
+    private final int lastIndex;
+
+    private HoltWinters(double level, double trend, double[] season, int lastIndex) {
+        this.level = level;
+        this.trend = trend;
+        this.season = season;
+        this.lastIndex = lastIndex;
+    }
+
+    static HoltWinters fit(double[] y) {
+        if (y.length == 0) {
+            return new HoltWinters(0d, 0d, new double[SEASON], -1);
+        }
+        if (y.length < 2 * SEASON) {
+            return fitLevel(y);
+        }
+        double[] seas = new double[y.length];
+        double[] state = new double[2];
+        double bestSse = Double.POSITIVE_INFINITY;
+        double[] best = null;
+        for (double a : ALPHAS) {
+            for (double b : BETAS) {
+                for (double g : GAMMAS) {
+                    double sse = run(y, a, b, g, seas, state);
+                    if (sse < bestSse) {
+                        bestSse = sse;
+                        best = new double[] {a, b, g};
+                    }
+                }
+            }
+        }
+        run(y, best[0], best[1], best[2], seas, state);
+        // latest seasonal term per calendar slot
+        double[] season = new double[SEASON];
+        for (int t = y.length - SEASON; t < y.length; t++) {
+            season[Math.floorMod(t, SEASON)] = seas[t];
+        }
+        return new HoltWinters(state[0], state[1], season, y.length - 1);
+    }
+
+    /**
+     * Value h steps after the last observation (h = 1 is the month that follows the series).
+     */
+    double forecast(int h) {
+        double damped = 0d;
+        double p = 1d;
+        for (int i = 1; i <= h; i++) {
+            p *= PHI;
+            damped += p;
+        }
+        int idx = Math.floorMod(lastIndex + h, SEASON);
+        return level + damped * trend + season[idx];
+    }
+
+    private static HoltWinters fitLevel(double[] y) {
+        double bestSse = Double.POSITIVE_INFINITY;
+        double bestLevel = y[0];
+        for (double a : ALPHAS) {
+            double l = y[0];
+            double sse = 0d;
+            for (int t = 1; t < y.length; t++) {
+                double err = y[t] - l;
+                sse += err * err;
+                l += a * err;
+            }
+            if (sse < bestSse) {
+                bestSse = sse;
+                bestLevel = l;
+            }
+        }
+        return new HoltWinters(bestLevel, 0d, new double[SEASON], y.length - 1);
+    }
+
+    // seas[t] is the seasonal term at observation t; leaves the final level and trend in state
+    private static double run(double[] y, double a, double b, double g, double[] seas, double[] state) {
+        double l = init(y, seas);
+        double tr = initTrend(y);
+        double sse = 0d;
+        for (int t = SEASON; t < y.length; t++) {
+            double prevSeason = seas[t - SEASON];
+            double err = y[t] - (l + PHI * tr + prevSeason);
+            sse += err * err;
+            double nl = a * (y[t] - prevSeason) + (1 - a) * (l + PHI * tr);
+            tr = b * (nl - l) + (1 - b) * PHI * tr;
+            l = nl;
+            seas[t] = g * (y[t] - l) + (1 - g) * prevSeason;
+        }
+        state[0] = l;
+        state[1] = tr;
+        return sse;
+    }
+
+    // level at the end of the first season; its seasonal terms as deviations from the initial trend line
+    private static double init(double[] y, double[] seas) {
+        double mean = 0d;
+        for (int t = 0; t < SEASON; t++) mean += y[t];
+        mean /= SEASON;
+        double tr = initTrend(y);
+        double mid = (SEASON - 1) / 2d;
+        for (int t = 0; t < SEASON; t++) {
+            seas[t] = y[t] - (mean + (t - mid) * tr);
+        }
+        return mean + mid * tr;
+    }
+
+    private static double initTrend(double[] y) {
+        double diff = 0d;
+        for (int t = 0; t < SEASON; t++) diff += y[t + SEASON] - y[t];
+        return diff / (SEASON * SEASON);
+    }
+}
@@ -0,0 +1,147 @@
+package com.akosgyongyosi.cashflow.service;
+
+import com.akosgyongyosi.cashflow.entity.BaselineGranularity;
+import com.akosgyongyosi.cashflow.entity.BaselineMode;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Baseline of a plan from several prior years, one row per category, currency and month (or ISO week).
+ * Each prior year is summed by the database; only the aggregates are combined and persisted.
+ */
+@Service
+public class SeasonalBaselineService implements BaselineGenerator {
+
+    private record Key(Long categoryId, Currency currency, LocalDate date) {}
+
+    private static final class Acc {
+        TransactionCategory category;
+        BigDecimal weightedNative = BigDecimal.ZERO;
+        BigDecimal weightedBase = BigDecimal.ZERO;
+    }
+
+    private final TransactionRepository transactionRepository;
+
+    public SeasonalBaselineService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Override
+    public boolean supports(BaselineMode mode) {
+        return mode == BaselineMode.AVERAGE || mode == BaselineMode.WEIGHTED;
+    }
+
+    @Override
+    public List<HistoricalTransaction> build(CashflowPlan plan, FxRequestCache cache) {
+        if (!supports(plan.getBaselineMode())) {
+            throw new IllegalStateException("Plan " + plan.getId() + " does not use an averaged baseline");
+        }
+        BaselineGenerator.validate(plan.getBaselineMode(), plan.getBaselineYears());
+        int years = plan.getBaselineYears();
+        BaselineGranularity granularity = plan.getBaselineGranularity() != null
+                ? plan.getBaselineGranularity() : BaselineGranularity.MONTH;
+        LocalDate start = plan.getStartDate();
+        LocalDate end = plan.getEndDate();
+
+        Map<Key, Acc> combined = new LinkedHashMap<>();
+        BigDecimal totalWeight = BigDecimal.ZERO;
+        for (int k = 1; k <= years; k++) {
+            LocalDate from = start.minusYears(k);
+            LocalDate to = end.minusYears(k);
+            List<SeasonalAggregate> sums = granularity == BaselineGranularity.WEEK
+                    ? transactionRepository.sumByCategoryAndWeek(from, to)
+                    : transactionRepository.sumByCategoryAndMonth(from, to);
+            if (sums.isEmpty()) {
+                // no actuals that far back; the remaining years carry the average
+                continue;
+            }
+            BigDecimal weight = BigDecimal.valueOf(plan.getBaselineMode() == BaselineMode.WEIGHTED ? years - k + 1 : 1);
+            totalWeight = totalWeight.add(weight);
+
+            for (SeasonalAggregate agg : sums) {
+                if (agg.amountSum() == null || agg.currency() == null) continue;
+                YearMonth month = YearMonth.of(agg.year(), agg.month());
+                LocalDate source;
+                LocalDate target;
+                if (granularity == BaselineGranularity.WEEK && agg.week() != null) {
+                    int weekYear = weekBasedYear(agg.year(), agg.month(), agg.week());
+                    source = clamp(isoMonday(weekYear, agg.week()), month.atDay(1), month.atEndOfMonth());
+                    YearMonth targetMonth = month.plusYears(k);
+                    target = clamp(isoMonday(weekYear + k, agg.week()), targetMonth.atDay(1), targetMonth.atEndOfMonth());
+                } else {
+                    source = month.atDay(15);
+                    target = month.plusYears(k).atDay(15);
+                }
+                source = clamp(source, from, to);
+                target = clamp(target, start, end);
+
+                BigDecimal inBase = agg.currency() == plan.getBaseCurrency()
+                        ? agg.amountSum()
+                        : cache.convert(agg.amountSum(), agg.currency(), plan.getBaseCurrency(), source);
+                Long categoryId = agg.category() != null ? agg.category().getId() : null;
+                Acc acc = combined.computeIfAbsent(new Key(categoryId, agg.currency(), target), x -> new Acc());
+                acc.category = agg.category();
+                acc.weightedNative = acc.weightedNative.add(agg.amountSum().multiply(weight));
+                acc.weightedBase = acc.weightedBase.add(inBase.multiply(weight));
+            }
+        }
+
+        List<HistoricalTransaction> rows = new ArrayList<>(combined.size());
+        if (totalWeight.signum() == 0) {
+            return rows;
+        }
+        LocalDate snapshot = LocalDate.now();
+        for (Map.Entry<Key, Acc> e : combined.entrySet()) {
+            Acc acc = e.getValue();
+            BigDecimal amount = acc.weightedBase.divide(totalWeight, 2, RoundingMode.HALF_UP);
+            if (amount.signum() == 0) continue;
+            HistoricalTransaction hist = new HistoricalTransaction();
+            hist.setTransactionDate(e.getKey().date());
+            hist.setAmount(amount);
+            hist.setOriginalAmount(acc.weightedNative.divide(totalWeight, 4, RoundingMode.HALF_UP));
+            hist.setOriginalCurrency(e.getKey().currency());
+            hist.setCategory(acc.category);
+            hist.setCashflowPlan(plan);
+            hist.setSnapshotDate(snapshot);
+            rows.add(hist);
+        }
+        return rows;
+    }
+
+    // YEAR() is the calendar year; the first and last days of a year can belong to a neighbouring ISO year
+    static int weekBasedYear(int year, int month, int week) {
+        if (month == 1 && week >= 52) return year - 1;
+        if (month == 12 && week == 1) return year + 1;
+        return year;
+    }
+
+    static LocalDate isoMonday(int weekBasedYear, int week) {
+        LocalDate jan4 = LocalDate.of(weekBasedYear, 1, 4);
+        int weeks = (int) IsoFields.WEEK_OF_WEEK_BASED_YEAR.rangeRefinedBy(jan4).getMaximum();
+        return jan4.with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, Math.min(week, weeks))
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static LocalDate clamp(LocalDate date, LocalDate min, LocalDate max) {
+        if (date.isBefore(min)) return min;
+        return date.isAfter(max) ? max : date;
+    }
+}
@@ -0,0 +1,144 @@
+package com.akosgyongyosi.cashflow.service;
+
+import com.akosgyongyosi.cashflow.entity.BaselineMode;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline projected by a Holt-Winters model per category. The monthly history comes from one aggregate
+ * query and is converted to the plan base in the caller thread; the categories are then fitted in
+ * parallel on the baseline fork-join pool and each model projects one row per month of the horizon.
+ */
+@Service
+@Slf4j
+public class SmoothingBaselineService implements BaselineGenerator {
+
+    private record Series(TransactionCategory category, double[] values) {}
+
+    private record Fitted(TransactionCategory category, HoltWinters model) {}
+
+    private final TransactionRepository transactionRepository;
+    private final ForkJoinPool baselinePool;
+
+    public SmoothingBaselineService(TransactionRepository transactionRepository,
+                                    @Qualifier("baselineForkJoinPool") ForkJoinPool baselinePool) {
+        this.transactionRepository = transactionRepository;
+        this.baselinePool = baselinePool;
+    }
+
+    @Override
+    public boolean supports(BaselineMode mode) {
+        return mode == BaselineMode.HOLT_WINTERS;
+    }
+
+    @Override
+    public List<HistoricalTransaction> build(CashflowPlan plan, FxRequestCache cache) {
+        if (!supports(plan.getBaselineMode())) {
+            throw new IllegalStateException("Plan " + plan.getId() + " does not use a smoothed baseline");
+        }
+        BaselineGenerator.validate(plan.getBaselineMode(), plan.getBaselineYears());
+        long started = System.nanoTime();
+        YearMonth lastObserved = YearMonth.from(plan.getStartDate()).minusMonths(1);
+        YearMonth firstObserved = lastObserved.minusYears(plan.getBaselineYears()).plusMonths(1);
+        List<Series> history = history(plan, cache, firstObserved, lastObserved);
+
+        List<Fitted> fitted = fitAll(history);
+
+        List<HistoricalTransaction> rows = new ArrayList<>();
+        LocalDate snapshot = LocalDate.now();
+        YearMonth lastMonth = YearMonth.from(plan.getEndDate());
+        for (Fitted f : fitted) {
+            for (YearMonth m = YearMonth.from(plan.getStartDate()); !m.isAfter(lastMonth); m = m.plusMonths(1)) {
+                int h = (int) lastObserved.until(m, ChronoUnit.MONTHS);
+                BigDecimal amount = BigDecimal.valueOf(f.model().forecast(h)).setScale(2, RoundingMode.HALF_UP);
+                if (amount.signum() == 0) continue;
+                HistoricalTransaction hist = new HistoricalTransaction();
+                hist.setTransactionDate(clamp(m.atDay(15), plan.getStartDate(), plan.getEndDate()));
+                hist.setAmount(amount);
+                hist.setOriginalAmount(amount);
+                hist.setOriginalCurrency(plan.getBaseCurrency());
+                hist.setCategory(f.category());
+                hist.setCashflowPlan(plan);
+                hist.setSnapshotDate(snapshot);
+                rows.add(hist);
+            }
+        }
+        log.debug("[BASELINE-HW] planId={} categories={} rows={} elapsedMs={}", plan.getId(), fitted.size(),
+                rows.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return rows;
+    }
+
+    // monthly totals per category in plan base, starting at the category's first month with actuals
+    private List<Series> history(CashflowPlan plan, FxRequestCache cache, YearMonth first, YearMonth last) {
+        int months = (int) first.until(last, ChronoUnit.MONTHS) + 1;
+        Map<Object, TransactionCategory> categories = new LinkedHashMap<>();
+        Map<Object, double[]> values = new LinkedHashMap<>();
+        for (SeasonalAggregate agg : transactionRepository.sumByCategoryAndMonth(first.atDay(1), last.atEndOfMonth())) {
+            if (agg.amountSum() == null || agg.currency() == null) continue;
+            YearMonth month = YearMonth.of(agg.year(), agg.month());
+            int m = (int) first.until(month, ChronoUnit.MONTHS);
+            if (m < 0 || m >= months) continue;
+            BigDecimal inBase = agg.currency() == plan.getBaseCurrency()
+                    ? agg.amountSum()
+                    : cache.convert(agg.amountSum(), agg.currency(), plan.getBaseCurrency(), month.atDay(15));
+            Object key = agg.category() != null ? agg.category().getId() : "";
+            categories.putIfAbsent(key, agg.category());
+            values.computeIfAbsent(key, k -> new double[months])[m] += inBase.doubleValue();
+        }
+        List<Series> out = new ArrayList<>(values.size());
+        for (Map.Entry<Object, double[]> e : values.entrySet()) {
+            double[] v = e.getValue();
+            int lead = 0;
+            while (lead < v.length && v[lead] == 0d) lead++;
+            out.add(new Series(categories.get(e.getKey()), Arrays.copyOfRange(v, lead, v.length)));
+        }
+        return out;
+    }
+
+    private List<Fitted> fitAll(List<Series> history) {
+        List<Callable<Fitted>> tasks = new ArrayList<>(history.size());
+        for (Series s : history) {
+            tasks.add(() -> new Fitted(s.category(), HoltWinters.fit(s.values())));
+        }
+        List<Fitted> out = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Fitted> f : baselinePool.invokeAll(tasks)) {
+                out.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fitting baseline models", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Baseline model fit failed", e.getCause());
+        }
+        return out;
+    }
+
+    private static LocalDate clamp(LocalDate date, LocalDate min, LocalDate max) {
+        if (date.isBefore(min)) return min;
+        return date.isAfter(max) ? max : date;
+    }
+}
@@ -0,0 +1,347 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.BacktestCategoryDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestCellDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestRequestDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestResultDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.BaselineGenerator;
+import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.fx.PlanCurrencyResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the assumptions of a plan on past years and compares the result with what was actually booked.
+ * Window k is the plan horizon moved back k years, built like a last-year plan from the actuals one year
+ * before it. The actuals of all windows are summed per category and month by one query into a compact
+ * in-memory table; the windows are then evaluated concurrently on the forecast pool.
+ */
+@Service
+@Slf4j
+public class BacktestService {
+
+    private record Replay(int years, Map<Object, TransactionCategory> categories, Map<Object, double[]> forecast) {}
+
+    private final TransactionRepository transactionRepository;
+    private final CashflowCalculationService calculationService;
+    private final FxService fxService;
+    private final ExecutorService forecastExecutor;
+
+    public BacktestService(TransactionRepository transactionRepository,
+                           CashflowCalculationService calculationService,
+                           FxService fxService,
+                           @Qualifier("forecastExecutor") ExecutorService forecastExecutor) {
+        this.transactionRepository = transactionRepository;
+        this.calculationService = calculationService;
+        this.fxService = fxService;
+        this.forecastExecutor = forecastExecutor;
+    }
+
+    @Transactional(readOnly = true)
+    public BacktestResultDTO backtest(CashflowPlan plan, BacktestRequestDTO request) {
+        int windows = request.getWindows();
+        if (windows < 1 || windows > BaselineGenerator.MAX_YEARS) {
+            throw new IllegalArgumentException("windows must be between 1 and " + BaselineGenerator.MAX_YEARS);
+        }
+        if (plan.getStartDate() == null || plan.getEndDate() == null) {
+            throw new IllegalArgumentException("Plan " + plan.getId() + " has no forecast horizon");
+        }
+        long started = System.nanoTime();
+        Currency base = PlanCurrencyResolver.resolve(plan);
+        YearMonth first = YearMonth.from(plan.getStartDate());
+        int months = (int) first.until(YearMonth.from(plan.getEndDate()), ChronoUnit.MONTHS) + 1;
+
+        FxRequestCache cache = new FxRequestCache(fxService);
+        // from the baseline year of the oldest window to the last month of the newest window
+        Actuals actuals = Actuals.load(transactionRepository, cache, base, first.minusYears(windows + 1L),
+                12 * windows + months);
+        // line items are lazy; copy them here, the workers have no persistence context
+        List<PlanLineItem> items = plan.getLineItems() != null ? List.copyOf(plan.getLineItems()) : List.of();
+
+        List<Future<Replay>> futures = new ArrayList<>(windows);
+        FxConversionContext.open(base, cache);
+        try {
+            for (int k = 1; k <= windows; k++) {
+                int years = k;
+                int offset = 12 * (windows - k);
+                futures.add(forecastExecutor.submit(FxConversionContext.wrap(
+                        () -> replay(plan, items, base, years, actuals, offset, months))));
+            }
+        } finally {
+            FxConversionContext.close();
+        }
+
+        Metric overall = new Metric();
+        Map<Object, Metric> byCategory = new LinkedHashMap<>();
+        Map<Object, TransactionCategory> categories = new LinkedHashMap<>(actuals.categories);
+        List<BacktestCellDTO> cells = new ArrayList<>();
+        int evaluated = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Replay replay = await(futures, i, plan);
+            int offset = 12 * (windows - replay.years()) + 12;
+            if (!actuals.hasData(offset, months)) {
+                continue;
+            }
+            evaluated++;
+            replay.categories().forEach(categories::putIfAbsent);
+            YearMonth windowFirst = first.minusYears(replay.years());
+            for (Object key : union(replay.forecast().keySet(), actuals.values.keySet())) {
+                TransactionCategory category = categories.get(key);
+                double[] predicted = replay.forecast().get(key);
+                double[] booked = actuals.values.get(key);
+                for (int m = 0; m < months; m++) {
+                    double f = predicted != null ? predicted[m] : 0d;
+                    double raw = booked != null ? booked[offset + m] : 0d;
+                    if (f == 0d && raw == 0d) continue;
+                    double a = new ForecastRow(null, BigDecimal.valueOf(raw), null, null, category, null)
+                            .signedAmount().doubleValue();
+                    overall.add(f, a);
+                    byCategory.computeIfAbsent(key, x -> new Metric()).add(f, a);
+                    cells.add(cell(windowFirst.plusMonths(m), plan.getStartDate().minusYears(replay.years()),
+                            category, f, a));
+                }
+            }
+        }
+
+        List<BacktestCategoryDTO> perCategory = new ArrayList<>(byCategory.size());
+        byCategory.forEach((key, metric) -> {
+            TransactionCategory category = categories.get(key);
+            BacktestCategoryDTO dto = new BacktestCategoryDTO();
+            dto.setCategoryId(category != null ? category.getId() : null);
+            dto.setCategory(category != null ? category.getName() : null);
+            dto.setMape(metric.mape());
+            dto.setBias(metric.bias());
+            dto.setMonths(metric.months);
+            perCategory.add(dto);
+        });
+
+        BacktestResultDTO out = new BacktestResultDTO();
+        out.setPlanId(plan.getId());
+        out.setBaseCurrency(base.name());
+        out.setWindows(evaluated);
+        out.setMape(overall.mape());
+        out.setBias(overall.bias());
+        out.setCategories(perCategory);
+        out.setCells(cells);
+        out.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.debug("[BACKTEST] planId={} windows={} cells={} mape={} bias={} elapsedMs={}", plan.getId(), evaluated,
+                cells.size(), out.getMape(), out.getBias(), out.getElapsedMs());
+        return out;
+    }
+
+    // runs on a pool thread: builds the window's plan in memory and evaluates it
+    private Replay replay(CashflowPlan plan, List<PlanLineItem> items, Currency base, int years,
+                          Actuals actuals, int baselineOffset, int months) {
+        CashflowPlan window = new CashflowPlan();
+        window.setPlanName(plan.getPlanName());
+        window.setStartDate(plan.getStartDate().minusYears(years));
+        window.setEndDate(plan.getEndDate().minusYears(years));
+        window.setStartBalance(plan.getStartBalance());
+        window.setBaseCurrency(base);
+
+        YearMonth windowFirst = YearMonth.from(window.getStartDate());
+        for (Map.Entry<Object, double[]> e : actuals.values.entrySet()) {
+            double[] v = e.getValue();
+            for (int m = 0; m < months; m++) {
+                double amount = v[baselineOffset + m];
+                if (amount == 0d) continue;
+                HistoricalTransaction hist = new HistoricalTransaction();
+                hist.setTransactionDate(clamp(windowFirst.plusMonths(m).atDay(15), window.getStartDate(), window.getEndDate()));
+                hist.setAmount(BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP));
+                hist.setOriginalAmount(hist.getAmount());
+                hist.setOriginalCurrency(base);
+                hist.setCategory(actuals.categories.get(e.getKey()));
+                hist.setCashflowPlan(window);
+                window.getBaselineTransactions().add(hist);
+            }
+        }
+        for (PlanLineItem item : items) {
+            // applied items too: the stored baseline they were folded into is not used here
+            window.getLineItems().add(shifted(item, window, years));
+        }
+
+        ForecastResult forecast = calculationService.evaluate(window);
+        Map<Object, TransactionCategory> categories = new LinkedHashMap<>();
+        Map<Object, double[]> predicted = new LinkedHashMap<>();
+        for (ForecastRow row : forecast.rows()) {
+            int m = monthIndex(windowFirst, months, row.date());
+            if (m < 0 || row.amount() == null) continue;
+            Object key = key(row.category());
+            categories.putIfAbsent(key, row.category());
+            predicted.computeIfAbsent(key, k -> new double[months])[m] += row.signedAmount().doubleValue();
+        }
+        for (RecurringSeries series : forecast.series()) {
+            Object key = key(series.category());
+            categories.putIfAbsent(key, series.category());
+            double[] flow = predicted.computeIfAbsent(key, k -> new double[months]);
+            double amount = new ForecastRow(null, series.amount(), null, null, series.category(), null)
+                    .signedAmount().doubleValue();
+            series.recurrence().countByMonth().forEach((month, count) -> {
+                int m = (int) windowFirst.until(month, ChronoUnit.MONTHS);
+                if (m >= 0 && m < months) {
+                    flow[m] += amount * count;
+                }
+            });
+        }
+        return new Replay(years, categories, predicted);
+    }
+
+    private static PlanLineItem shifted(PlanLineItem src, CashflowPlan window, int years) {
+        PlanLineItem item = new PlanLineItem();
+        item.setPlan(window);
+        item.setAssumptionId(src.getAssumptionId());
+        item.setType(src.getType());
+        item.setTitle(src.getTitle());
+        item.setAmount(src.getAmount());
+        item.setTransactionDate(src.getTransactionDate() != null ? src.getTransactionDate().minusYears(years) : null);
+        item.setFrequency(src.getFrequency());
+        item.setStartDate(src.getStartDate() != null ? src.getStartDate().minusYears(years) : null);
+        item.setEndDate(src.getEndDate() != null ? src.getEndDate().minusYears(years) : null);
+        item.setCategory(src.getCategory());
+        item.setPercentChange(src.getPercentChange());
+        item.setIsApplied(false);
+        item.setCurrency(src.getCurrency());
+        return item;
+    }
+
+    private static BacktestCellDTO cell(YearMonth month, LocalDate windowStart, TransactionCategory category,
+                                        double forecast, double actual) {
+        BacktestCellDTO dto = new BacktestCellDTO();
+        dto.setWindowStart(windowStart);
+        dto.setCategoryId(category != null ? category.getId() : null);
+        dto.setCategory(category != null ? category.getName() : null);
+        dto.setYear(month.getYear());
+        dto.setMonth(month.getMonthValue());
+        dto.setForecast(money(forecast));
+        dto.setActual(money(actual));
+        dto.setAbsolutePercentageError(actual != 0d ? Math.abs(forecast - actual) / Math.abs(actual) : null);
+        return dto;
+    }
+
+    private Replay await(List<Future<Replay>> futures, int index, CashflowPlan plan) {
+        try {
+            return futures.get(index).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while backtesting plan " + plan.getId(), e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Backtest failed for plan " + plan.getId(), e.getCause());
+        }
+    }
+
+    private static List<Object> union(Iterable<Object> a, Iterable<Object> b) {
+        Map<Object, Boolean> keys = new LinkedHashMap<>();
+        a.forEach(k -> keys.put(k, Boolean.TRUE));
+        b.forEach(k -> keys.put(k, Boolean.TRUE));
+        return new ArrayList<>(keys.keySet());
+    }
+
+    private static Object key(TransactionCategory category) {
+        return category != null && category.getId() != null ? category.getId() : "";
+    }
+
+    private static int monthIndex(YearMonth first, int months, LocalDate date) {
+        if (date == null) return -1;
+        int m = (int) first.until(YearMonth.from(date), ChronoUnit.MONTHS);
+        return m >= 0 && m < months ? m : -1;
+    }
+
+    private static LocalDate clamp(LocalDate date, LocalDate min, LocalDate max) {
+        if (date.isBefore(min)) return min;
+        return date.isAfter(max) ? max : date;
+    }
+
+    private static BigDecimal money(double v) {
+        return BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Booked amounts in plan base currency, one array of consecutive months per category. Read-only once
+     * loaded, so the windows share it without copying.
+     */
+    static final class Actuals {
+        final Map<Object, TransactionCategory> categories = new LinkedHashMap<>();
+        final Map<Object, double[]> values = new LinkedHashMap<>();
+
+        static Actuals load(TransactionRepository repository, FxRequestCache cache, Currency base,
+                            YearMonth first, int months) {
+            Actuals actuals = new Actuals();
+            YearMonth last = first.plusMonths(months - 1L);
+            for (SeasonalAggregate agg : repository.sumByCategoryAndMonth(first.atDay(1), last.atEndOfMonth())) {
+                if (agg.amountSum() == null || agg.currency() == null) continue;
+                YearMonth month = YearMonth.of(agg.year(), agg.month());
+                int m = (int) first.until(month, ChronoUnit.MONTHS);
+                if (m < 0 || m >= months) continue;
+                BigDecimal inBase = agg.currency() == base
+                        ? agg.amountSum()
+                        : cache.convert(agg.amountSum(), agg.currency(), base, month.atDay(15));
+                Object key = key(agg.category());
+                actuals.categories.putIfAbsent(key, agg.category());
+                actuals.values.computeIfAbsent(key, k -> new double[months])[m] += inBase.doubleValue();
+            }
+            return actuals;
+        }
+
+        boolean hasData(int offset, int months) {
+            for (double[] v : values.values()) {
+                for (int m = offset; m < offset + months; m++) {
+                    if (v[m] != 0d) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Metric {
+        double apeSum;
+        int apeCount;
+        double errorSum;
+        double actualAbsSum;
+        int months;
+
+        void add(double forecast, double actual) {
+            months++;
+            errorSum += forecast - actual;
+            actualAbsSum += Math.abs(actual);
+            if (actual != 0d) {
+                apeSum += Math.abs(forecast - actual) / Math.abs(actual);
+                apeCount++;
+            }
+        }
+
+        Double mape() {
+            return apeCount > 0 ? apeSum / apeCount : null;
+        }
+
+        Double bias() {
+            return actualAbsSum > 0d ? errorSum / actualAbsSum : null;
+        }
+    }
+}
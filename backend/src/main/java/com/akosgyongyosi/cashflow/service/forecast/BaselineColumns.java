@@ -0,0 +1,177 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only columnar copy of a plan's stored baseline: one primitive array per field instead of an entity
+ * plus a row record per transaction, about 23 bytes a row. Built once per baseline version and shared by
+ * every evaluation of the plan; {@link ForecastRow}s are materialized on access and not retained.
+ */
+public final class BaselineColumns {
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    // original_amount is stored with four decimals
+    private static final int ORIGINAL_SCALE = 4;
+    private static final Currency[] CURRENCIES = Currency.values();
+    static final long[] NOT_ADJUSTED = new long[0];
+
+    static final BaselineColumns EMPTY = of(List.of());
+
+    private final int[] epochDays;
+    private final long[] amounts;          // minor units of the plan base currency
+    private final long[] originalAmounts;  // units of 10^-4 of the original currency
+    private final short[] categories;      // index into categoryTable, -1 when uncategorized
+    private final byte[] currencies;       // Currency ordinal, -1 when unknown
+    private final long[] assumptionIds;    // null when no row was materialized from an assumption
+    private final long[][] adjustedBy;     // category adjustments that scaled each row; null when none did
+    private final TransactionCategory[] categoryTable;
+    private volatile CategoryDateIndex categoryIndex;  // built on first use; a racing rebuild is identical
+
+    private BaselineColumns(int[] epochDays, long[] amounts, long[] originalAmounts, short[] categories,
+                            byte[] currencies, long[] assumptionIds, long[][] adjustedBy,
+                            TransactionCategory[] categoryTable) {
+        this.epochDays = epochDays;
+        this.amounts = amounts;
+        this.originalAmounts = originalAmounts;
+        this.categories = categories;
+        this.currencies = currencies;
+        this.assumptionIds = assumptionIds;
+        this.adjustedBy = adjustedBy;
+        this.categoryTable = categoryTable;
+    }
+
+    public static BaselineColumns of(Collection<HistoricalTransaction> baseline) {
+        int n = baseline.size();
+        int[] epochDays = new int[n];
+        long[] amounts = new long[n];
+        long[] originalAmounts = new long[n];
+        short[] categories = new short[n];
+        byte[] currencies = new byte[n];
+        long[] assumptionIds = null;
+        long[][] adjustedBy = null;
+        // categories are shared entity instances, so identity lookup keeps one table slot per instance
+        Map<TransactionCategory, Short> slots = new IdentityHashMap<>();
+        List<TransactionCategory> table = new ArrayList<>();
+
+        int i = 0;
+        for (HistoricalTransaction ht : baseline) {
+            LocalDate date = ht.getTransactionDate();
+            epochDays[i] = date != null ? Math.toIntExact(date.toEpochDay()) : NO_DATE;
+            amounts[i] = ht.getAmount() != null ? MinorUnits.of(ht.getAmount()) : NO_VALUE;
+            originalAmounts[i] = ht.getOriginalAmount() != null
+                    ? ht.getOriginalAmount().movePointRight(ORIGINAL_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact()
+                    : NO_VALUE;
+            currencies[i] = ht.getOriginalCurrency() != null ? (byte) ht.getOriginalCurrency().ordinal() : -1;
+            TransactionCategory category = ht.getCategory();
+            if (category == null) {
+                categories[i] = -1;
+            } else {
+                Short slot = slots.get(category);
+                if (slot == null) {
+                    if (table.size() == Short.MAX_VALUE) {
+                        throw new IllegalStateException("Baseline has more than " + Short.MAX_VALUE + " categories");
+                    }
+                    slot = (short) table.size();
+                    slots.put(category, slot);
+                    table.add(category);
+                }
+                categories[i] = slot;
+            }
+            if (ht.getSourceAssumptionId() != null) {
+                if (assumptionIds == null) {
+                    assumptionIds = new long[n];
+                    Arrays.fill(assumptionIds, NO_VALUE);
+                }
+                assumptionIds[i] = ht.getSourceAssumptionId();
+            }
+            if (ht.getAdjustedBy() != null) {
+                if (adjustedBy == null) {
+                    adjustedBy = new long[n][];
+                }
+                adjustedBy[i] = ht.adjustedByIds().stream().mapToLong(Long::longValue).toArray();
+            }
+            i++;
+        }
+        return new BaselineColumns(epochDays, amounts, originalAmounts, categories, currencies, assumptionIds, adjustedBy,
+                table.toArray(new TransactionCategory[0]));
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public ForecastRow row(int index) {
+        return row(index, amounts[index]);
+    }
+
+    // the stored row with its amount replaced by a rescaled one, in minor units
+    ForecastRow row(int index, long amountMinor) {
+        int day = epochDays[index];
+        long original = originalAmounts[index];
+        byte currency = currencies[index];
+        return new ForecastRow(
+                day != NO_DATE ? LocalDate.ofEpochDay(day) : null,
+                amountMinor != NO_VALUE ? MinorUnits.toDecimal(amountMinor) : null,
+                original != NO_VALUE ? originalDecimal(original) : null,
+                currency >= 0 ? CURRENCIES[currency] : null,
+                category(index),
+                assumptionIds != null && assumptionIds[index] != NO_VALUE ? assumptionIds[index] : null);
+    }
+
+    public TransactionCategory category(int index) {
+        short slot = categories[index];
+        return slot >= 0 ? categoryTable[slot] : null;
+    }
+
+    // assumption ids of the stored category adjustments that scaled the row, 0 for one without an id
+    long[] adjustedBy(int index) {
+        long[] ids = adjustedBy != null ? adjustedBy[index] : null;
+        return ids != null ? ids : NOT_ADJUSTED;
+    }
+
+    boolean hasDate(int index) {
+        return epochDays[index] != NO_DATE;
+    }
+
+    long epochDay(int index) {
+        return epochDays[index];
+    }
+
+    CategoryDateIndex categoryIndex() {
+        CategoryDateIndex index = categoryIndex;
+        if (index == null) {
+            index = CategoryDateIndex.ofBaseline(this);
+            categoryIndex = index;
+        }
+        return index;
+    }
+
+    long[] copyOfAmounts() {
+        return amounts.clone();
+    }
+
+    public long footprintBytes() {
+        long perRow = Integer.BYTES + 2L * Long.BYTES + Short.BYTES + Byte.BYTES
+                + (assumptionIds != null ? Long.BYTES : 0) + (adjustedBy != null ? Long.BYTES : 0);
+        return perRow * size() + 8L * categoryTable.length;
+    }
+
+    private static BigDecimal originalDecimal(long units) {
+        BigDecimal value = BigDecimal.valueOf(units, ORIGINAL_SCALE).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+}
@@ -11,7 +11,12 @@ import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
@@ -19,6 +24,7 @@ public class CashflowCalculationService {
 
     private final List<ForecastStrategy> forecastStrategies;
     private final FxService fxService;
+    private final Map<LineItemType, List<ForecastStrategy>> strategiesByType = new ConcurrentHashMap<>();
 
     public CashflowCalculationService(List<ForecastStrategy> forecastStrategies,
                                       FxService fxService) {
@@ -47,16 +53,104 @@ public class CashflowCalculationService {
         }
     }
 
-    private void applyItemWithResilience(CashflowPlan plan, PlanLineItem item) {
-        for (ForecastStrategy strategy : forecastStrategies) {
-            if (strategy.supports(item.getType())) {
-                try {
-                    strategy.applyForecast(plan, item);
-                } catch (Exception ex) {
-                    log.error("[ASSUMPTION-APPLY-ERROR] planId={} itemId={} type={} assumptionId={} message={}",
-                            plan.getId(), item.getId(), item.getType(), item.getAssumptionId(), ex.getMessage(), ex);
+    public ForecastResult evaluate(CashflowPlan plan) {
+        return evaluate(plan, BaselineColumns.of(plan.getBaselineTransactions()));
+    }
+
+    /**
+     * Evaluates the plan on an already built baseline; the plan's baseline collection is not read.
+     */
+    public ForecastResult evaluate(CashflowPlan plan, BaselineColumns baseline) {
+        Currency base = PlanCurrencyResolver.resolve(plan);
+        ForecastProjection projection = ForecastProjection.fromBaseline(baseline);
+        // rates are keyed by currency pair and date, so an enclosing context's cache can be reused as is
+        FxRequestCache cache = FxConversionContext.isOpen()
+                ? FxConversionContext.current().cache()
+                : new FxRequestCache(fxService);
+        FxConversionContext.open(base, cache);
+        try {
+            for (PlanLineItem item : plan.getLineItems()) {
+                if (item.getType() == LineItemType.CATEGORY_ADJUSTMENT && isPending(item)) {
+                    projectItemWithResilience(plan, item, projection);
+                }
+            }
+            for (PlanLineItem item : plan.getLineItems()) {
+                if (item.getType() != LineItemType.CATEGORY_ADJUSTMENT && isPending(item)) {
+                    projectItemWithResilience(plan, item, projection);
                 }
             }
+        } finally {
+            FxConversionContext.close();
+        }
+        return projection.toResult(plan, base);
+    }
+
+    /**
+     * Adds one unsaved line item on top of an already evaluated plan, reusing its baseline columns, rescaled
+     * amounts and category index, so a preview only pays for the rows the candidate touches. A candidate
+     * adjustment only scales what saving it would scale: the stored baseline, not rows of other pending items.
+     */
+    public ForecastResult extend(CashflowPlan plan, ForecastResult evaluated, PlanLineItem candidate) {
+        Set<Long> pending = new HashSet<>();
+        if (candidate.getType() == LineItemType.CATEGORY_ADJUSTMENT) {
+            for (PlanLineItem item : plan.getLineItems()) {
+                if (isPending(item) && item.getAssumptionId() != null) {
+                    pending.add(item.getAssumptionId());
+                }
+            }
+        }
+        Predicate<ForecastRow> ofPendingItem = row -> row.assumptionId() != null && pending.contains(row.assumptionId());
+        ForecastProjection projection = ForecastProjection.continuing(evaluated, ofPendingItem.negate());
+        evaluated.series().forEach(projection::addSeries);
+
+        FxRequestCache cache = FxConversionContext.isOpen()
+                ? FxConversionContext.current().cache()
+                : new FxRequestCache(fxService);
+        FxConversionContext.open(evaluated.baseCurrency(), cache);
+        try {
+            projectItemWithResilience(plan, candidate, projection);
+        } finally {
+            FxConversionContext.close();
+        }
+        if (!pending.isEmpty()) {
+            ForecastProjection.addedRows(evaluated).stream().filter(ofPendingItem).forEach(projection::add);
+        }
+        return projection.toResult(plan, evaluated.baseCurrency());
+    }
+
+    // applied items are already materialized in the persisted baseline
+    private boolean isPending(PlanLineItem item) {
+        return !Boolean.TRUE.equals(item.getIsApplied());
+    }
+
+    private void projectItemWithResilience(CashflowPlan plan, PlanLineItem item, ForecastProjection projection) {
+        for (ForecastStrategy strategy : strategiesFor(item.getType())) {
+            try {
+                strategy.project(plan, item, projection);
+            } catch (Exception ex) {
+                log.error("[ASSUMPTION-PROJECT-ERROR] planId={} itemId={} type={} assumptionId={} message={}",
+                        plan.getId(), item.getId(), item.getType(), item.getAssumptionId(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void applyItemWithResilience(CashflowPlan plan, PlanLineItem item) {
+        for (ForecastStrategy strategy : strategiesFor(item.getType())) {
+            try {
+                strategy.applyForecast(plan, item);
+            } catch (Exception ex) {
+                log.error("[ASSUMPTION-APPLY-ERROR] planId={} itemId={} type={} assumptionId={} message={}",
+                        plan.getId(), item.getId(), item.getType(), item.getAssumptionId(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    // resolved once per type instead of asking every strategy for every item
+    private List<ForecastStrategy> strategiesFor(LineItemType type) {
+        if (type == null) {
+            return List.of();
         }
+        return strategiesByType.computeIfAbsent(type,
+                t -> forecastStrategies.stream().filter(s -> s.supports(t)).toList());
     }
 }
@@ -0,0 +1,121 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// per-evaluation lookup of row positions by category, sorted by date inside each category; layered over the
+// baseline's shared index so an evaluation only sorts the rows its assumptions added
+public final class CategoryDateIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final CategoryDateIndex below;    // the shared index of the baseline rows, or null
+    private final Map<Object, Slice> byCategory;
+
+    private record Slice(long[] epochDays, int[] rows) {}
+
+    private CategoryDateIndex(CategoryDateIndex below, Map<Object, Slice> byCategory) {
+        this.below = below;
+        this.byCategory = byCategory;
+    }
+
+    public static CategoryDateIndex build(List<ForecastRow> rows) {
+        return build(BaselineColumns.EMPTY, rows);
+    }
+
+    // positions of the appended rows follow the baseline's, as in ForecastProjection; the baseline part is
+    // the index its BaselineColumns built once, so only the appended rows are sorted here
+    static CategoryDateIndex build(BaselineColumns baseline, List<ForecastRow> appended) {
+        Map<Object, long[]> packed = new HashMap<>();
+        Map<Object, Integer> counts = new HashMap<>();
+        int offset = baseline.size();
+        for (int i = 0; i < appended.size(); i++) {
+            ForecastRow row = appended.get(i);
+            if (row.date() == null) continue;
+            put(packed, counts, keyOf(row.category()), row.date().toEpochDay(), offset + i);
+        }
+        return new CategoryDateIndex(offset > 0 ? baseline.categoryIndex() : null, slices(packed, counts));
+    }
+
+    // the baseline rows alone; built by BaselineColumns and shared by every evaluation on it
+    static CategoryDateIndex ofBaseline(BaselineColumns baseline) {
+        Map<Object, long[]> packed = new HashMap<>();
+        Map<Object, Integer> counts = new HashMap<>();
+        for (int i = 0; i < baseline.size(); i++) {
+            if (!baseline.hasDate(i)) continue;
+            put(packed, counts, keyOf(baseline.category(i)), baseline.epochDay(i), i);
+        }
+        return new CategoryDateIndex(null, slices(packed, counts));
+    }
+
+    private static Map<Object, Slice> slices(Map<Object, long[]> packed, Map<Object, Integer> counts) {
+        Map<Object, Slice> byCategory = new HashMap<>(packed.size() * 2);
+        for (Map.Entry<Object, long[]> e : packed.entrySet()) {
+            int n = counts.get(e.getKey());
+            long[] sorted = Arrays.copyOf(e.getValue(), n);
+            Arrays.sort(sorted);
+            long[] days = new long[n];
+            int[] positions = new int[n];
+            for (int j = 0; j < n; j++) {
+                days[j] = sorted[j] >> 32;
+                positions[j] = (int) sorted[j];
+            }
+            byCategory.put(e.getKey(), new Slice(days, positions));
+        }
+        return byCategory;
+    }
+
+    private static void put(Map<Object, long[]> packed, Map<Object, Integer> counts, Object key, long epochDay, int i) {
+        if (key == null) return;
+        int n = counts.merge(key, 1, Integer::sum);
+        long[] buf = packed.get(key);
+        if (buf == null || buf.length < n) {
+            buf = buf == null ? new long[8] : Arrays.copyOf(buf, buf.length * 2);
+            packed.put(key, buf);
+        }
+        // epoch day in the high half, row position in the low half: one primitive sort orders both
+        buf[n - 1] = (epochDay << 32) | i;
+    }
+
+    // baseline rows first, each part sorted by date
+    public int[] rowsBetween(TransactionCategory category, LocalDate from, LocalDate to) {
+        int[] own = ownRowsBetween(category, from, to);
+        int[] under = below != null ? below.rowsBetween(category, from, to) : NONE;
+        if (under.length == 0) return own;
+        if (own.length == 0) return under;
+        int[] all = Arrays.copyOf(under, under.length + own.length);
+        System.arraycopy(own, 0, all, under.length, own.length);
+        return all;
+    }
+
+    private int[] ownRowsBetween(TransactionCategory category, LocalDate from, LocalDate to) {
+        Object key = keyOf(category);
+        Slice slice = key != null ? byCategory.get(key) : null;
+        if (slice == null || from.isAfter(to)) return NONE;
+        int lo = lowerBound(slice.epochDays(), from.toEpochDay());
+        int hi = lowerBound(slice.epochDays(), to.toEpochDay() + 1);
+        return lo < hi ? Arrays.copyOfRange(slice.rows(), lo, hi) : NONE;
+    }
+
+    private static int lowerBound(long[] days, long day) {
+        int lo = 0;
+        int hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // id when persisted, otherwise the (unique) name; avoids entity equals() walking lazy collections
+    static Object keyOf(TransactionCategory category) {
+        if (category == null) return null;
+        return category.getId() != null ? category.getId() : category.getName();
+    }
+}
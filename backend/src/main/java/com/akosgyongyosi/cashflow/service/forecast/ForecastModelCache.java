@@ -0,0 +1,209 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.repository.BaselineStats;
+import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.service.CategoryMappingChangedEvent;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps the evaluated forecast of recently used plans. An entry is only reused while the plan's
+ * fingerprint (settings, line items and a summary of the stored baseline) is unchanged, so edits
+ * never need explicit invalidation; least recently used plans are evicted first. Inputs outside the
+ * fingerprint drop entries by event: FX ingestion the models whose horizon ends on or after its first rate, a category mapping
+ * change everything, including the baseline columns that hold the categories. The baseline is kept
+ * separately as {@link BaselineColumns} per baseline version, so a line item edit re-evaluates the plan
+ * without loading its stored transactions again.
+ */
+@Component
+@Slf4j
+public class ForecastModelCache {
+
+    private record Entry(long fingerprint, ForecastResult model) {}
+
+    // columns is null until a miss builds them for this version
+    private record Baseline(int version, BaselineColumns columns) {}
+
+    private final CashflowCalculationService calculationService;
+    private final HistoricalTransactionRepository historicalTransactionRepository;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Baseline> baselines;
+    private long generation;                  // bumped by every event eviction, guarded by entries
+
+    public ForecastModelCache(CashflowCalculationService calculationService,
+                              HistoricalTransactionRepository historicalTransactionRepository,
+                              ForecastProperties props) {
+        this.calculationService = calculationService;
+        this.historicalTransactionRepository = historicalTransactionRepository;
+        int capacity = Math.max(1, props.getModelCacheSize());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.baselines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Baseline> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public ForecastResult evaluate(CashflowPlan plan) {
+        return evaluate(plan, fingerprint(plan));
+    }
+
+    /**
+     * Needs the plan's baseline and line items loaded only on a miss; safe to call off the request thread.
+     */
+    public ForecastResult evaluate(CashflowPlan plan, long fingerprint) {
+        Optional<ForecastResult> cached = peek(plan.getId(), fingerprint);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long seen;
+        synchronized (entries) {
+            seen = generation;
+        }
+        ForecastResult model = calculationService.evaluate(plan, baselineColumns(plan));
+        if (plan.getId() != null) {
+            synchronized (entries) {
+                // a model built from rates or categories an event has since replaced is not kept
+                if (generation == seen) {
+                    entries.put(plan.getId(), new Entry(fingerprint, model));
+                }
+            }
+        }
+        log.debug("[FORECAST-MODEL] built planId={} rows={} series={}", plan.getId(), model.rows().size(), model.series().size());
+        return model;
+    }
+
+    public Optional<ForecastResult> peek(Long planId, long fingerprint) {
+        if (planId == null) {
+            return Optional.empty();
+        }
+        synchronized (entries) {
+            Entry e = entries.get(planId);
+            return e != null && e.fingerprint() == fingerprint ? Optional.of(e.model()) : Optional.empty();
+        }
+    }
+
+    public void evict(Long planId) {
+        synchronized (entries) {
+            entries.remove(planId);
+        }
+        synchronized (baselines) {
+            baselines.remove(planId);
+        }
+    }
+
+    // ahead of KpiResultCache, so a dashboard recomputed after its eviction never reads a stale model
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onFxRatesIngested(FxRatesIngestedEvent event) {
+        int removed;
+        synchronized (entries) {
+            generation++;
+            int before = entries.size();
+            entries.values().removeIf(e -> readsRatesFrom(e.model(), event.from()));
+            removed = before - entries.size();
+        }
+        log.debug("[FORECAST-MODEL] FX {} - {} evicted {} models", event.from(), event.to(), removed);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryMappingChanged(CategoryMappingChangedEvent event) {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+        synchronized (baselines) {
+            baselines.clear();
+        }
+    }
+
+    // a rate dated D is the fallback for every later date and future dates convert at today's rate, so any
+    // model whose horizon ends on or after D may have converted with a rate that has just changed
+    private static boolean readsRatesFrom(ForecastResult model, LocalDate from) {
+        return model.endDate() == null || from == null || !model.endDate().isBefore(from);
+    }
+
+    // true when the columns of the baseline version seen by the last fingerprint are built
+    public boolean hasBaselineColumns(Long planId) {
+        if (planId == null) {
+            return false;
+        }
+        synchronized (baselines) {
+            Baseline b = baselines.get(planId);
+            return b != null && b.columns() != null;
+        }
+    }
+
+    private BaselineColumns baselineColumns(CashflowPlan plan) {
+        Baseline known;
+        synchronized (baselines) {
+            known = plan.getId() != null ? baselines.get(plan.getId()) : null;
+        }
+        if (known != null && known.columns() != null) {
+            return known.columns();
+        }
+        BaselineColumns columns = BaselineColumns.of(plan.getBaselineTransactions());
+        if (known != null) {
+            synchronized (baselines) {
+                // a newer version may have been fingerprinted meanwhile; only fill the one this was built for
+                if (baselines.get(plan.getId()) == known) {
+                    baselines.put(plan.getId(), new Baseline(known.version(), columns));
+                }
+            }
+        }
+        log.debug("[FORECAST-MODEL] baseline columns planId={} rows={} bytes={}", plan.getId(), columns.size(), columns.footprintBytes());
+        return columns;
+    }
+
+    /**
+     * Reads the line items and one aggregate row of the baseline; the baseline itself is not loaded.
+     */
+    public long fingerprint(CashflowPlan plan) {
+        long h = Objects.hash(plan.getStartDate(), plan.getEndDate(), plan.getStartBalance(), plan.getBaseCurrency());
+        if (plan.getId() != null) {
+            BaselineStats stats = historicalTransactionRepository.baselineStats(plan.getId());
+            int version = Objects.hashCode(stats);
+            synchronized (baselines) {
+                Baseline known = baselines.get(plan.getId());
+                if (known == null || known.version() != version) {
+                    baselines.put(plan.getId(), new Baseline(version, null));
+                }
+            }
+            h = mix(h, version);
+        }
+        if (plan.getLineItems() != null) {
+            for (PlanLineItem li : plan.getLineItems()) {
+                h = mix(h, Objects.hash(li.getId(), li.getAssumptionId(), li.getType(), li.getAmount(),
+                        li.getTransactionDate(), li.getFrequency(), li.getStartDate(), li.getEndDate(),
+                        li.getCategory() != null ? li.getCategory().getId() : null,
+                        li.getPercentChange(), li.getIsApplied(), li.getCurrency()));
+            }
+        }
+        return h;
+    }
+
+    private static long mix(long h, int v) {
+        return h * 0x9E3779B97F4A7C15L + v;
+    }
+}
@@ -0,0 +1,189 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Working set of one evaluation; strategies write here instead of into plan entities. The stored baseline
+ * is read from shared {@link BaselineColumns} and only the amounts are copied, on the first rescale; rows
+ * added by assumptions follow the baseline positions.
+ */
+public final class ForecastProjection {
+
+    private final BaselineColumns baseline;
+    private long[] amounts;                   // rescaled baseline amounts in minor units; null while untouched
+    private boolean amountsShared;            // handed to a result, copy before the next write
+    private final Map<Integer, ForecastRow> replaced = new HashMap<>();
+    private final List<ForecastRow> added;
+    private final List<RecurringSeries> series = new ArrayList<>();
+    private CategoryDateIndex categoryIndex;
+
+    public ForecastProjection(Collection<ForecastRow> seed) {
+        this(BaselineColumns.EMPTY, seed);
+    }
+
+    private ForecastProjection(BaselineColumns baseline, Collection<ForecastRow> seed) {
+        this.baseline = baseline;
+        this.added = new ArrayList<>(seed);
+    }
+
+    public static ForecastProjection fromBaseline(Collection<HistoricalTransaction> baseline) {
+        return fromBaseline(BaselineColumns.of(baseline));
+    }
+
+    public static ForecastProjection fromBaseline(BaselineColumns baseline) {
+        return new ForecastProjection(baseline, List.of());
+    }
+
+    /**
+     * Continues an evaluated forecast on its own baseline columns: rescaled amounts are shared until the
+     * first write and only the added rows that carried accepts are copied over.
+     */
+    public static ForecastProjection continuing(ForecastResult evaluated, Predicate<ForecastRow> carried) {
+        List<ForecastRow> seed = addedRows(evaluated).stream().filter(carried).toList();
+        if (!(evaluated.rows() instanceof Rows snapshot)) {
+            return new ForecastProjection(seed);
+        }
+        ForecastProjection projection = new ForecastProjection(snapshot.baseline, seed);
+        projection.amounts = snapshot.amounts;
+        projection.amountsShared = snapshot.amounts != null;
+        projection.replaced.putAll(snapshot.replaced);
+        return projection;
+    }
+
+    // rows an evaluation added on top of its baseline columns; every row when it was not built on columns
+    public static List<ForecastRow> addedRows(ForecastResult evaluated) {
+        return evaluated.rows() instanceof Rows snapshot ? snapshot.added : evaluated.rows();
+    }
+
+    public int size() {
+        return baseline.size() + added.size();
+    }
+
+    public ForecastRow get(int index) {
+        return row(baseline, amounts, replaced, added, index);
+    }
+
+    public void set(int index, ForecastRow row) {
+        if (index >= baseline.size()) {
+            added.set(index - baseline.size(), row);
+        } else {
+            replaced.put(index, row);
+        }
+    }
+
+    // same row with a new amount; for baseline rows only the amount column is written
+    public void setAmount(int index, BigDecimal amount) {
+        if (index >= baseline.size() || amount == null || replaced.containsKey(index)) {
+            set(index, get(index).withAmount(amount));
+            return;
+        }
+        if (amounts == null || amountsShared) {
+            amounts = amounts == null ? baseline.copyOfAmounts() : amounts.clone();
+            amountsShared = false;
+        }
+        amounts[index] = MinorUnits.of(amount);
+    }
+
+    public void add(ForecastRow row) {
+        added.add(row);
+        categoryIndex = null;
+    }
+
+    public void addSeries(RecurringSeries recurring) {
+        series.add(recurring);
+    }
+
+    public List<RecurringSeries> series() {
+        return Collections.unmodifiableList(series);
+    }
+
+    public CategoryDateIndex categoryIndex() {
+        if (categoryIndex == null) {
+            categoryIndex = replaced.isEmpty()
+                    ? CategoryDateIndex.build(baseline, added)
+                    : CategoryDateIndex.build(rows());
+        }
+        return categoryIndex;
+    }
+
+    public List<ForecastRow> rows() {
+        return new AbstractList<>() {
+            @Override
+            public ForecastRow get(int index) {
+                return ForecastProjection.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return ForecastProjection.this.size();
+            }
+        };
+    }
+
+    public ForecastResult toResult(CashflowPlan plan, Currency base) {
+        BigDecimal opening = plan.getStartBalance() != null ? plan.getStartBalance() : BigDecimal.ZERO;
+        amountsShared = amounts != null;
+        Rows snapshot = new Rows(baseline, amounts, Map.copyOf(replaced), List.copyOf(added));
+        return new ForecastResult(plan.getId(), base, plan.getStartDate(), plan.getEndDate(), opening, snapshot, series);
+    }
+
+    private static ForecastRow row(BaselineColumns baseline, long[] amounts, Map<Integer, ForecastRow> replaced,
+                                   List<ForecastRow> added, int index) {
+        if (index >= baseline.size()) {
+            return added.get(index - baseline.size());
+        }
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        ForecastRow row = replaced.isEmpty() ? null : replaced.get(index);
+        if (row != null) {
+            return row;
+        }
+        return amounts != null ? baseline.row(index, amounts[index]) : baseline.row(index);
+    }
+
+    // immutable rows of an evaluated forecast; baseline rows are materialized per access
+    static final class Rows extends AbstractList<ForecastRow> implements RandomAccess {
+
+        private final BaselineColumns baseline;
+        private final long[] amounts;
+        private final Map<Integer, ForecastRow> replaced;
+        private final List<ForecastRow> added;
+
+        private Rows(BaselineColumns baseline, long[] amounts, Map<Integer, ForecastRow> replaced, List<ForecastRow> added) {
+            this.baseline = baseline;
+            this.amounts = amounts;
+            this.replaced = replaced;
+            this.added = added;
+        }
+
+        @Override
+        public ForecastRow get(int index) {
+            return row(baseline, amounts, replaced, added, index);
+        }
+
+        @Override
+        public int size() {
+            return baseline.size() + added.size();
+        }
+
+        // rows added by assumptions were never scaled by a stored adjustment
+        long[] adjustedBy(int index) {
+            return index < baseline.size() ? baseline.adjustedBy(index) : BaselineColumns.NOT_ADJUSTED;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public record ForecastResult(Long planId,
+                             Currency baseCurrency,
+                             LocalDate startDate,
+                             LocalDate endDate,
+                             BigDecimal startBalance,
+                             List<ForecastRow> rows,
+                             List<RecurringSeries> series) {
+
+    public ForecastResult {
+        // projection snapshots are already immutable and share the plan's baseline columns
+        rows = rows instanceof ForecastProjection.Rows ? rows : List.copyOf(rows);
+        series = List.copyOf(series);
+    }
+
+    public ForecastResult(Long planId, Currency baseCurrency, LocalDate startDate, LocalDate endDate,
+                          BigDecimal startBalance, List<ForecastRow> rows) {
+        this(planId, baseCurrency, startDate, endDate, startBalance, rows, List.of());
+    }
+
+    // stored category adjustments that scaled the row at index; rows not read from the stored baseline have none
+    public long[] adjustedBy(int index) {
+        return rows instanceof ForecastProjection.Rows snapshot ? snapshot.adjustedBy(index) : BaselineColumns.NOT_ADJUSTED;
+    }
+
+    // individual rows including lazily expanded recurring series; only for consumers that need per-date detail
+    public Stream<ForecastRow> expandedRows() {
+        return Stream.concat(rows.stream(), series.stream().flatMap(RecurringSeries::rows));
+    }
+}
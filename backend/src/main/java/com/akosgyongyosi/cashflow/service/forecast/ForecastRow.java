@@ -0,0 +1,38 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// a single projected cash movement in plan base currency; assumptionId is null for rows copied from actuals
+public record ForecastRow(LocalDate date,
+                          BigDecimal amount,
+                          BigDecimal originalAmount,
+                          Currency originalCurrency,
+                          TransactionCategory category,
+                          Long assumptionId) {
+
+    public static ForecastRow of(HistoricalTransaction ht) {
+        return new ForecastRow(ht.getTransactionDate(), ht.getAmount(), ht.getOriginalAmount(),
+                ht.getOriginalCurrency(), ht.getCategory(), ht.getSourceAssumptionId());
+    }
+
+    public ForecastRow withAmount(BigDecimal newAmount) {
+        return new ForecastRow(date, newAmount, originalAmount, originalCurrency, category, assumptionId);
+    }
+
+    // effect on the bank balance, using the KPI direction rule: income as is, expenses by magnitude
+    public BigDecimal signedAmount() {
+        boolean positive = category == null || category.getDirection() == null
+                || category.getDirection() == TransactionDirection.POSITIVE;
+        return positive ? amount : amount.abs().negate();
+    }
+
+    public boolean isAssumptionBased() {
+        return assumptionId != null;
+    }
+}
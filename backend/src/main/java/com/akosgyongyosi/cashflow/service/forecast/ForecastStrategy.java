@@ -9,4 +9,6 @@ public interface ForecastStrategy {
     boolean supports(LineItemType type);
 
     void applyForecast(CashflowPlan plan, PlanLineItem item);
+
+    void project(CashflowPlan plan, PlanLineItem item, ForecastProjection projection);
 }
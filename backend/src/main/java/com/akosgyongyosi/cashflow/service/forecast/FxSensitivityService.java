@@ -0,0 +1,149 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRequestDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityResultDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRowDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closing and lowest month-end balance of a plan under a grid of FX shocks. Every evaluated row already
+ * carries its base amount as native amount times the rate of its date, so the forecast is split once into
+ * one monthly flow vector per currency; a shock of a currency only rescales its own vector and no rate is
+ * looked up again.
+ */
+@Service
+@Slf4j
+public class FxSensitivityService {
+
+    private final ForecastModelCache forecastModelCache;
+
+    public FxSensitivityService(ForecastModelCache forecastModelCache) {
+        this.forecastModelCache = forecastModelCache;
+    }
+
+    @Transactional(readOnly = true)
+    public FxSensitivityResultDTO sensitivity(CashflowPlan plan, FxSensitivityRequestDTO request) {
+        List<Double> shocks = request.getShocks() != null ? request.getShocks() : List.of();
+        for (Double s : shocks) {
+            if (s == null || s <= -1d) {
+                throw new IllegalArgumentException("FX shocks must be greater than -100%");
+            }
+        }
+        ForecastResult forecast = forecastModelCache.evaluate(plan);
+        if (forecast.startDate() == null || forecast.endDate() == null) {
+            throw new IllegalArgumentException("Plan " + forecast.planId() + " has no forecast horizon");
+        }
+        Currency base = forecast.baseCurrency();
+        YearMonth first = YearMonth.from(forecast.startDate());
+        int months = (int) first.until(YearMonth.from(forecast.endDate()), ChronoUnit.MONTHS) + 1;
+
+        double[] domestic = new double[months];
+        Map<Currency, double[]> foreign = new EnumMap<>(Currency.class);
+        for (ForecastRow row : forecast.rows()) {
+            int m = monthIndex(first, months, row.date());
+            if (m < 0 || row.amount() == null) continue;
+            flowsFor(row.originalCurrency(), base, domestic, foreign, months)[m] += row.signedAmount().doubleValue();
+        }
+        for (RecurringSeries series : forecast.series()) {
+            double[] flow = flowsFor(series.originalCurrency(), base, domestic, foreign, months);
+            double amount = new ForecastRow(null, series.amount(), null, null, series.category(), null)
+                    .signedAmount().doubleValue();
+            series.recurrence().countByMonth().forEach((month, count) -> {
+                int m = (int) first.until(month, ChronoUnit.MONTHS);
+                if (m >= 0 && m < months) {
+                    flow[m] += amount * count;
+                }
+            });
+        }
+
+        List<Currency> shocked = request.getCurrencies() != null && !request.getCurrencies().isEmpty()
+                ? request.getCurrencies()
+                : new ArrayList<>(foreign.keySet());
+        for (Currency c : shocked) {
+            if (c == null || c == base) {
+                throw new IllegalArgumentException("Cannot shock the plan base currency " + base);
+            }
+        }
+
+        // unshocked month-end path; a shock s on currency c adds s times c's cumulative flow
+        double opening = forecast.startBalance() != null ? forecast.startBalance().doubleValue() : 0d;
+        double[] balance = new double[months];
+        double running = opening;
+        for (int m = 0; m < months; m++) {
+            running += domestic[m];
+            for (double[] flow : foreign.values()) {
+                running += flow[m];
+            }
+            balance[m] = running;
+        }
+
+        List<FxSensitivityRowDTO> rows = new ArrayList<>(shocked.size());
+        for (Currency c : shocked) {
+            double[] cumulative = new double[months];
+            double[] flow = foreign.get(c);
+            double sum = 0d;
+            for (int m = 0; m < months; m++) {
+                sum += flow != null ? flow[m] : 0d;
+                cumulative[m] = sum;
+            }
+            List<BigDecimal> closing = new ArrayList<>(shocks.size());
+            List<BigDecimal> lowest = new ArrayList<>(shocks.size());
+            for (double s : shocks) {
+                double min = months > 0 ? Double.POSITIVE_INFINITY : opening;
+                for (int m = 0; m < months; m++) {
+                    min = Math.min(min, balance[m] + s * cumulative[m]);
+                }
+                double close = months > 0 ? balance[months - 1] + s * cumulative[months - 1] : opening;
+                closing.add(money(close));
+                lowest.add(money(min));
+            }
+            FxSensitivityRowDTO row = new FxSensitivityRowDTO();
+            row.setCurrency(c.name());
+            row.setExposure(money(months > 0 ? cumulative[months - 1] : 0d));
+            row.setClosingBalances(closing);
+            row.setLowestBalances(lowest);
+            rows.add(row);
+        }
+
+        FxSensitivityResultDTO out = new FxSensitivityResultDTO();
+        out.setPlanId(plan.getId());
+        out.setBaseCurrency(base != null ? base.name() : null);
+        out.setClosingBalance(money(months > 0 ? balance[months - 1] : opening));
+        out.setShocks(shocks);
+        out.setRows(rows);
+        log.debug("[FX-SENSITIVITY] planId={} currencies={} shocks={}", plan.getId(), shocked, shocks.size());
+        return out;
+    }
+
+    private static double[] flowsFor(Currency original, Currency base, double[] domestic,
+                                     Map<Currency, double[]> foreign, int months) {
+        if (original == null || original == base) {
+            return domestic;
+        }
+        return foreign.computeIfAbsent(original, k -> new double[months]);
+    }
+
+    private static int monthIndex(YearMonth first, int months, LocalDate date) {
+        if (date == null) return -1;
+        int m = (int) first.until(YearMonth.from(date), ChronoUnit.MONTHS);
+        return m >= 0 && m < months ? m : -1;
+    }
+
+    private static BigDecimal money(double v) {
+        return BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,272 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.GoalSeekRequestDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekResultDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekStatus;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the percentChange of a new category adjustment that keeps every month-end balance at or above a
+ * target. The cached forecast is split once into the monthly flows the adjustment would scale and
+ * everything else, so one iteration is a pass over the months instead of a re-evaluation of the plan.
+ * The lowest balance is concave in the multiplier, so the values that meet the target form one interval
+ * and its edge is found by bisection.
+ */
+@Service
+@Slf4j
+public class GoalSeekService {
+
+    private final ForecastModelCache forecastModelCache;
+    private final ForecastProperties props;
+
+    public GoalSeekService(ForecastModelCache forecastModelCache, ForecastProperties props) {
+        this.forecastModelCache = forecastModelCache;
+        this.props = props;
+    }
+
+    @Transactional(readOnly = true)
+    public GoalSeekResultDTO solve(CashflowPlan plan, GoalSeekRequestDTO request) {
+        validate(request);
+        long started = System.nanoTime();
+        ForecastResult forecast = forecastModelCache.evaluate(plan);
+        Slice slice = Slice.build(plan, forecast, request);
+        Search search = new Search(slice, request.getMinBalance().doubleValue(),
+                props.getGoalSeekMaxIterations(),
+                started + TimeUnit.MILLISECONDS.toNanos(props.getGoalSeekBudgetMs()));
+
+        double lo = request.getLowerBound();
+        double hi = request.getUpperBound();
+        double tol = Math.max(request.getTolerance(), 1e-12);
+        GoalSeekStatus status;
+        Double answer;
+
+        double fLo = search.margin(lo);
+        double fHi = search.margin(hi);
+        if (fLo >= 0 && fHi >= 0) {
+            status = GoalSeekStatus.ALWAYS_MET;
+            answer = fHi >= fLo ? lo : hi;
+        } else if (fLo < 0 && fHi < 0) {
+            double peak = search.peak(lo, hi, tol);
+            if (search.margin(peak) < 0) {
+                status = search.exhausted() ? GoalSeekStatus.BUDGET_EXHAUSTED : GoalSeekStatus.INFEASIBLE;
+                answer = null;
+            } else {
+                // two edges; report the one in the direction the category pushes the balance
+                answer = slice.total() >= 0 ? search.edge(lo, peak, tol) : search.edge(hi, peak, tol);
+                status = search.exhausted() ? GoalSeekStatus.BUDGET_EXHAUSTED : GoalSeekStatus.SOLVED;
+            }
+        } else {
+            answer = fLo < 0 ? search.edge(lo, hi, tol) : search.edge(hi, lo, tol);
+            status = search.exhausted() ? GoalSeekStatus.BUDGET_EXHAUSTED : GoalSeekStatus.SOLVED;
+        }
+
+        GoalSeekResultDTO out = new GoalSeekResultDTO();
+        out.setPlanId(plan.getId());
+        out.setCategoryId(request.getCategoryId());
+        out.setBaseCurrency(forecast.baseCurrency() != null ? forecast.baseCurrency().name() : null);
+        out.setMinBalance(request.getMinBalance());
+        out.setStatus(status);
+        out.setPercentChange(answer);
+        out.setIterations(search.iterations);
+        if (answer != null && slice.months > 0) {
+            int month = slice.lowestMonth(answer);
+            YearMonth ym = slice.firstMonth.plusMonths(month);
+            out.setLowestBalance(BigDecimal.valueOf(slice.balanceAt(answer, month)).setScale(2, RoundingMode.HALF_UP));
+            out.setLowestBalanceYear(ym.getYear());
+            out.setLowestBalanceMonth(ym.getMonthValue());
+        }
+        out.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.debug("[GOAL-SEEK] planId={} categoryId={} status={} percentChange={} iterations={} elapsedMs={}",
+                plan.getId(), request.getCategoryId(), status, answer, search.iterations, out.getElapsedMs());
+        return out;
+    }
+
+    private static void validate(GoalSeekRequestDTO request) {
+        if (request.getCategoryId() == null || request.getMinBalance() == null) {
+            throw new IllegalArgumentException("categoryId and minBalance are required");
+        }
+        // below zero an expense would flip sign and the lowest balance is no longer concave in the multiplier
+        if (request.getLowerBound() < 0 || request.getUpperBound() <= request.getLowerBound()) {
+            throw new IllegalArgumentException("Search range must satisfy 0 <= lowerBound < upperBound");
+        }
+        if (request.getTolerance() <= 0) {
+            throw new IllegalArgumentException("tolerance must be positive");
+        }
+    }
+
+    /**
+     * Monthly flows of the forecast split into the part a candidate adjustment scales and the rest.
+     */
+    static final class Slice {
+        final YearMonth firstMonth;
+        final int months;
+        final double startBalance;
+        final double[] fixed;
+        final double[] scaled;
+
+        private Slice(YearMonth firstMonth, int months, double startBalance, double[] fixed, double[] scaled) {
+            this.firstMonth = firstMonth;
+            this.months = months;
+            this.startBalance = startBalance;
+            this.fixed = fixed;
+            this.scaled = scaled;
+        }
+
+        static Slice build(CashflowPlan plan, ForecastResult forecast, GoalSeekRequestDTO request) {
+            if (forecast.startDate() == null || forecast.endDate() == null) {
+                throw new IllegalArgumentException("Plan " + forecast.planId() + " has no forecast horizon");
+            }
+            YearMonth first = YearMonth.from(forecast.startDate());
+            int months = (int) first.until(YearMonth.from(forecast.endDate()), ChronoUnit.MONTHS) + 1;
+            double[] fixed = new double[months];
+            double[] scaled = new double[months];
+
+            LocalDate from = request.getStartDate() != null ? request.getStartDate() : plan.getStartDate();
+            LocalDate to = request.getEndDate() != null ? request.getEndDate() : plan.getEndDate();
+            // same rows CashflowCalculationService.extend would scale: stored baseline only, not pending items
+            Set<Long> pending = new HashSet<>();
+            if (plan.getLineItems() != null) {
+                for (PlanLineItem item : plan.getLineItems()) {
+                    if (!Boolean.TRUE.equals(item.getIsApplied()) && item.getAssumptionId() != null) {
+                        pending.add(item.getAssumptionId());
+                    }
+                }
+            }
+
+            for (ForecastRow row : forecast.rows()) {
+                int m = monthIndex(first, months, row.date());
+                if (m < 0 || row.amount() == null) continue;
+                boolean inSlice = row.category() != null
+                        && request.getCategoryId().equals(row.category().getId())
+                        && (from == null || !row.date().isBefore(from))
+                        && (to == null || !row.date().isAfter(to))
+                        && (row.assumptionId() == null || !pending.contains(row.assumptionId()));
+                (inSlice ? scaled : fixed)[m] += row.signedAmount().doubleValue();
+            }
+            for (RecurringSeries series : forecast.series()) {
+                double amount = new ForecastRow(null, series.amount(), null, null, series.category(), null)
+                        .signedAmount().doubleValue();
+                series.recurrence().countByMonth().forEach((month, count) -> {
+                    int m = (int) first.until(month, ChronoUnit.MONTHS);
+                    if (m >= 0 && m < months) {
+                        fixed[m] += amount * count;
+                    }
+                });
+            }
+            double start = forecast.startBalance() != null ? forecast.startBalance().doubleValue() : 0d;
+            return new Slice(first, months, start, fixed, scaled);
+        }
+
+        double total() {
+            double t = 0d;
+            for (double v : scaled) t += v;
+            return t;
+        }
+
+        double lowestBalance(double factor) {
+            double balance = startBalance;
+            double min = months > 0 ? Double.POSITIVE_INFINITY : startBalance;
+            for (int m = 0; m < months; m++) {
+                balance += fixed[m] + factor * scaled[m];
+                if (balance < min) min = balance;
+            }
+            return min;
+        }
+
+        int lowestMonth(double factor) {
+            double balance = startBalance;
+            double min = Double.POSITIVE_INFINITY;
+            int at = 0;
+            for (int m = 0; m < months; m++) {
+                balance += fixed[m] + factor * scaled[m];
+                if (balance < min) {
+                    min = balance;
+                    at = m;
+                }
+            }
+            return at;
+        }
+
+        double balanceAt(double factor, int month) {
+            double balance = startBalance;
+            for (int m = 0; m <= month; m++) {
+                balance += fixed[m] + factor * scaled[m];
+            }
+            return balance;
+        }
+
+        private static int monthIndex(YearMonth first, int months, LocalDate date) {
+            if (date == null) return -1;
+            int m = (int) first.until(YearMonth.from(date), ChronoUnit.MONTHS);
+            return m >= 0 && m < months ? m : -1;
+        }
+    }
+
+    /**
+     * Counts every evaluation against the iteration and time budget.
+     */
+    private static final class Search {
+        private final Slice slice;
+        private final double target;
+        private final int maxIterations;
+        private final long deadline;
+        private int iterations;
+
+        Search(Slice slice, double target, int maxIterations, long deadline) {
+            this.slice = slice;
+            this.target = target;
+            this.maxIterations = maxIterations;
+            this.deadline = deadline;
+        }
+
+        double margin(double factor) {
+            iterations++;
+            return slice.lowestBalance(factor) - target;
+        }
+
+        boolean exhausted() {
+            return iterations >= maxIterations || System.nanoTime() > deadline;
+        }
+
+        // narrows [missed, met] down to the edge of the values that meet the target; returns a value that does
+        double edge(double missed, double met, double tol) {
+            while (Math.abs(met - missed) > tol && !exhausted()) {
+                double mid = (missed + met) / 2;
+                if (margin(mid) >= 0) {
+                    met = mid;
+                } else {
+                    missed = mid;
+                }
+            }
+            return met;
+        }
+
+        // ternary search for the multiplier with the highest lowest balance
+        double peak(double lo, double hi, double tol) {
+            while (hi - lo > tol && !exhausted()) {
+                double a = lo + (hi - lo) / 3;
+                double b = hi - (hi - lo) / 3;
+                if (margin(a) < margin(b)) {
+                    lo = a;
+                } else {
+                    hi = b;
+                }
+            }
+            return (lo + hi) / 2;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.MonteCarloRequestDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloResultDTO;
+import com.akosgyongyosi.cashflow.dto.PerturbationDistribution;
+import com.akosgyongyosi.cashflow.dto.SimulationMonthDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Monte Carlo over a plan's evaluated forecast. Each path draws one factor per line item, per foreign
+ * currency and per category adjustment, rescales the precomputed monthly flows and records month-end
+ * balances. Paths run in chunks on the forecast pool, each chunk with its own split of the seeded RNG,
+ * and stop at the latency budget; the result then covers the paths that finished.
+ */
+@Service
+@Slf4j
+public class MonteCarloSimulationService {
+
+    private static final double[] PERCENTILES = {0.05, 0.25, 0.50, 0.75, 0.95};
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long GRACE_MS = 250;
+
+    private final ForecastModelCache forecastModelCache;
+    private final ForecastProperties props;
+    private final ExecutorService forecastExecutor;
+
+    public MonteCarloSimulationService(ForecastModelCache forecastModelCache,
+                                       ForecastProperties props,
+                                       @Qualifier("forecastExecutor") ExecutorService forecastExecutor) {
+        this.forecastModelCache = forecastModelCache;
+        this.props = props;
+        this.forecastExecutor = forecastExecutor;
+    }
+
+    @Transactional(readOnly = true)
+    public MonteCarloResultDTO simulate(CashflowPlan plan, MonteCarloRequestDTO request) {
+        long started = System.nanoTime();
+        ForecastResult forecast = forecastModelCache.evaluate(plan);
+        SimulationModel model = SimulationModel.build(plan, forecast);
+
+        int paths = request.getPaths() != null && request.getPaths() > 0 ? request.getPaths() : props.getMonteCarloDefaultPaths();
+        paths = Math.min(paths, props.getMonteCarloMaxPaths());
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(props.getMonteCarloBudgetMs());
+
+        double[][] balances = new double[model.months][paths];
+        int chunks = Math.max(1, Math.min(paths, props.getEvaluationThreads() * CHUNKS_PER_THREAD));
+        SplittableRandom root = request.getSeed() != null ? new SplittableRandom(request.getSeed()) : new SplittableRandom();
+
+        List<Chunk> work = new ArrayList<>(chunks);
+        List<Future<?>> futures = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            Chunk chunk = new Chunk(model, request, balances, (int) ((long) paths * c / chunks),
+                    (int) ((long) paths * (c + 1) / chunks), root.split(), deadline);
+            work.add(chunk);
+            futures.add(forecastExecutor.submit(chunk));
+        }
+        awaitAll(futures, deadline);
+        // a chunk still running after the grace period is dropped as a whole
+        List<Chunk> finished = work.stream().filter(c -> c.finished).toList();
+
+        int completed = 0;
+        int anyNegative = 0;
+        int[] negativeByMonth = new int[model.months];
+        for (Chunk chunk : finished) {
+            completed += chunk.done;
+            anyNegative += chunk.anyNegative;
+            for (int m = 0; m < model.months; m++) {
+                negativeByMonth[m] += chunk.negativeByMonth[m];
+            }
+        }
+
+        MonteCarloResultDTO out = new MonteCarloResultDTO();
+        out.setPlanId(plan.getId());
+        out.setBaseCurrency(forecast.baseCurrency() != null ? forecast.baseCurrency().name() : null);
+        out.setPathsRequested(paths);
+        out.setPathsCompleted(completed);
+        out.setBudgetExhausted(completed < paths);
+        out.setProbabilityOfNegativeBalance(completed > 0 ? (double) anyNegative / completed : 0d);
+        out.setMonths(bands(model, balances, finished, completed, negativeByMonth));
+        out.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.debug("[MONTE-CARLO] planId={} paths={}/{} components={} elapsedMs={}",
+                plan.getId(), completed, paths, model.components(), out.getElapsedMs());
+        return out;
+    }
+
+    private void awaitAll(List<Future<?>> futures, long deadline) {
+        try {
+            for (Future<?> f : futures) {
+                long left = Math.max(0, deadline - System.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(GRACE_MS);
+                f.get(left, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while simulating", e);
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+    }
+
+    private List<SimulationMonthDTO> bands(SimulationModel model, double[][] balances, List<Chunk> work,
+                                           int completed, int[] negativeByMonth) {
+        List<SimulationMonthDTO> months = new ArrayList<>(model.months);
+        double[] sample = new double[completed];
+        for (int m = 0; m < model.months; m++) {
+            int n = 0;
+            for (Chunk chunk : work) {
+                System.arraycopy(balances[m], chunk.from, sample, n, chunk.done);
+                n += chunk.done;
+            }
+            Arrays.sort(sample);
+            YearMonth ym = model.firstMonth.plusMonths(m);
+            SimulationMonthDTO dto = new SimulationMonthDTO();
+            dto.setYear(ym.getYear());
+            dto.setMonth(ym.getMonthValue());
+            if (completed > 0) {
+                dto.setP5(percentile(sample, PERCENTILES[0]));
+                dto.setP25(percentile(sample, PERCENTILES[1]));
+                dto.setP50(percentile(sample, PERCENTILES[2]));
+                dto.setP75(percentile(sample, PERCENTILES[3]));
+                dto.setP95(percentile(sample, PERCENTILES[4]));
+                dto.setProbabilityNegative((double) negativeByMonth[m] / completed);
+            }
+            months.add(dto);
+        }
+        return months;
+    }
+
+    // nearest-rank on a sorted sample
+    private static BigDecimal percentile(double[] sorted, double q) {
+        int idx = Math.min(sorted.length - 1, Math.max(0, (int) Math.ceil(q * sorted.length) - 1));
+        return BigDecimal.valueOf(sorted[idx]).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static double noise(PerturbationDistribution dist, double spread, SplittableRandom rnd) {
+        if (spread <= 0d) return 0d;
+        return switch (dist != null ? dist : PerturbationDistribution.NORMAL) {
+            case NORMAL -> spread * rnd.nextGaussian();
+            case UNIFORM -> spread * (2d * rnd.nextDouble() - 1d);
+            case TRIANGULAR -> spread * (rnd.nextDouble() + rnd.nextDouble() - 1d);
+        };
+    }
+
+    /**
+     * A contiguous range of paths; writes only its own columns of the shared balance matrix.
+     */
+    private static final class Chunk implements Runnable {
+        private final SimulationModel model;
+        private final MonteCarloRequestDTO request;
+        private final double[][] balances;
+        private final int from;
+        private final int to;
+        private final SplittableRandom rnd;
+        private final long deadline;
+        private final int[] negativeByMonth;
+        private int done;
+        private int anyNegative;
+        private volatile boolean finished;
+
+        Chunk(SimulationModel model, MonteCarloRequestDTO request, double[][] balances,
+              int from, int to, SplittableRandom rnd, long deadline) {
+            this.model = model;
+            this.request = request;
+            this.balances = balances;
+            this.from = from;
+            this.to = to;
+            this.rnd = rnd;
+            this.deadline = deadline;
+            this.negativeByMonth = new int[model.months];
+        }
+
+        @Override
+        public void run() {
+            double[] itemFactor = new double[model.items];
+            double[] fxFactor = new double[model.currencies];
+            double[] adjustmentFactor = new double[model.adjustmentPercent.length];
+            double[] net = new double[model.months];
+            int negatives = 0;
+            int p = from;
+            for (; p < to; p++) {
+                if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                for (int i = 0; i < itemFactor.length; i++) {
+                    itemFactor[i] = Math.max(0d, 1d + noise(request.getAmountDistribution(), request.getAmountSpread(), rnd));
+                }
+                for (int i = 0; i < fxFactor.length; i++) {
+                    fxFactor[i] = Math.max(0d, 1d + noise(request.getFxDistribution(), request.getFxSpread(), rnd));
+                }
+                for (int a = 0; a < adjustmentFactor.length; a++) {
+                    double pct = model.adjustmentPercent[a];
+                    double drawn = pct + noise(request.getPercentChangeDistribution(), request.getPercentChangeSpread(), rnd);
+                    adjustmentFactor[a] = Math.max(0d, drawn) / pct;
+                }
+
+                Arrays.fill(net, 0d);
+                for (int c = 0; c < model.flows.length; c++) {
+                    double f = 1d;
+                    if (model.itemIndex[c] >= 0) f *= itemFactor[model.itemIndex[c]];
+                    if (model.currencyIndex[c] >= 0) f *= fxFactor[model.currencyIndex[c]];
+                    long mask = model.adjustmentMask[c];
+                    while (mask != 0L) {
+                        f *= adjustmentFactor[Long.numberOfTrailingZeros(mask)];
+                        mask &= mask - 1;
+                    }
+                    double[] flow = model.flows[c];
+                    for (int m = 0; m < net.length; m++) {
+                        net[m] += f * flow[m];
+                    }
+                }
+
+                double balance = model.startBalance;
+                boolean wentNegative = false;
+                for (int m = 0; m < net.length; m++) {
+                    balance += net[m];
+                    balances[m][p] = balance;
+                    if (balance < 0d) {
+                        negativeByMonth[m]++;
+                        wentNegative = true;
+                    }
+                }
+                if (wentNegative) negatives++;
+            }
+            anyNegative = negatives;
+            done = p - from;
+            finished = true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Frequency;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// occurrence k of a schedule is always derived from the start date, so month-based steps never drift after a short month
+public final class Recurrence {
+
+    private final LocalDate start;
+    private final LocalDate end;
+    private final boolean monthBased;
+    private final int step;
+
+    private Recurrence(LocalDate start, LocalDate end, boolean monthBased, int step) {
+        this.start = start;
+        this.end = end;
+        this.monthBased = monthBased;
+        this.step = step;
+    }
+
+    public static Recurrence of(Frequency frequency, LocalDate start, LocalDate end) {
+        if (frequency == null || start == null || end == null) {
+            throw new IllegalArgumentException("Recurrence needs frequency, start and end date");
+        }
+        switch (frequency) {
+            case DAILY:       return new Recurrence(start, end, false, 1);
+            case WEEKLY:      return new Recurrence(start, end, false, 7);
+            case BI_WEEKLY:   return new Recurrence(start, end, false, 14);
+            case MONTHLY:     return new Recurrence(start, end, true, 1);
+            case QUARTERLY:   return new Recurrence(start, end, true, 3);
+            case SEMI_ANNUAL: return new Recurrence(start, end, true, 6);
+            case ANNUAL:      return new Recurrence(start, end, true, 12);
+            default:
+                throw new IllegalArgumentException("Unsupported frequency: " + frequency);
+        }
+    }
+
+    public LocalDate start() {
+        return start;
+    }
+
+    public LocalDate end() {
+        return end;
+    }
+
+    public LocalDate occurrence(long k) {
+        return monthBased ? start.plusMonths(k * step) : start.plusDays(k * step);
+    }
+
+    public long count() {
+        return countBetween(start, end);
+    }
+
+    public long countBetween(LocalDate from, LocalDate to) {
+        LocalDate lo = from.isBefore(start) ? start : from;
+        LocalDate hi = to.isAfter(end) ? end : to;
+        if (lo.isAfter(hi)) return 0;
+        long first = firstIndexOnOrAfter(lo);
+        long last = lastIndexOnOrBefore(hi);
+        return Math.max(0, last - first + 1);
+    }
+
+    public SortedMap<YearMonth, Long> countByMonth() {
+        SortedMap<YearMonth, Long> out = new TreeMap<>();
+        if (start.isAfter(end)) return out;
+        for (YearMonth ym = YearMonth.from(start); !ym.isAfter(YearMonth.from(end)); ym = ym.plusMonths(1)) {
+            long n = countBetween(ym.atDay(1), ym.atEndOfMonth());
+            if (n > 0) out.put(ym, n);
+        }
+        return out;
+    }
+
+    // keyed by the Monday that opens the ISO week
+    public SortedMap<LocalDate, Long> countByWeek() {
+        return countByWeek(start, end);
+    }
+
+    // only occurrences within from..to are counted, so a week cut by either bound holds just its part inside
+    public SortedMap<LocalDate, Long> countByWeek(LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> out = new TreeMap<>();
+        LocalDate lo = from.isBefore(start) ? start : from;
+        LocalDate hi = to.isAfter(end) ? end : to;
+        if (lo.isAfter(hi)) return out;
+        LocalDate monday = lo.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        for (; !monday.isAfter(hi); monday = monday.plusWeeks(1)) {
+            LocalDate sunday = monday.plusDays(6);
+            long n = countBetween(monday.isBefore(lo) ? lo : monday, sunday.isAfter(hi) ? hi : sunday);
+            if (n > 0) out.put(monday, n);
+        }
+        return out;
+    }
+
+    public Stream<LocalDate> occurrences() {
+        return LongStream.range(0, count()).mapToObj(this::occurrence);
+    }
+
+    // jumps straight to the first occurrence on or after from instead of walking the schedule from its start
+    public Stream<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        LocalDate lo = from.isBefore(start) ? start : from;
+        LocalDate hi = to.isAfter(end) ? end : to;
+        if (lo.isAfter(hi)) return Stream.empty();
+        return LongStream.rangeClosed(firstIndexOnOrAfter(lo), lastIndexOnOrBefore(hi)).mapToObj(this::occurrence);
+    }
+
+    private long firstIndexOnOrAfter(LocalDate date) {
+        if (!monthBased) {
+            long days = ChronoUnit.DAYS.between(start, date);
+            return days <= 0 ? 0 : Math.floorDiv(days + step - 1, step);
+        }
+        long months = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date));
+        long k = Math.max(0, Math.floorDiv(months + step - 1, step));
+        // day-of-month clamping can put the candidate just before the bound
+        return occurrence(k).isBefore(date) ? k + 1 : k;
+    }
+
+    private long lastIndexOnOrBefore(LocalDate date) {
+        if (!monthBased) {
+            return Math.floorDiv(ChronoUnit.DAYS.between(start, date), step);
+        }
+        long months = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date));
+        long k = Math.floorDiv(months, step);
+        return occurrence(k).isAfter(date) ? k - 1 : k;
+    }
+}
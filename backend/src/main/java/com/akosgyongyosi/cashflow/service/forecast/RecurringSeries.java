@@ -0,0 +1,29 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+// a recurring assumption kept in compact form: same base amount on every occurrence of the schedule
+public record RecurringSeries(Recurrence recurrence,
+                              BigDecimal amount,
+                              BigDecimal originalAmount,
+                              Currency originalCurrency,
+                              TransactionCategory category,
+                              Long assumptionId) {
+
+    public Stream<ForecastRow> rows() {
+        return recurrence.occurrences().map(this::row);
+    }
+
+    public Stream<ForecastRow> rowsBetween(LocalDate from, LocalDate to) {
+        return recurrence.occurrencesBetween(from, to).map(this::row);
+    }
+
+    private ForecastRow row(LocalDate date) {
+        return new ForecastRow(date, amount, originalAmount, originalCurrency, category, assumptionId);
+    }
+}
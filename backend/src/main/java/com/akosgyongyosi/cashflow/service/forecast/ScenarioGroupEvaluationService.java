@@ -0,0 +1,121 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.ScenarioKpiDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.fx.PlanCurrencyResolver;
+import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates every plan of a scenario group concurrently on the bounded forecast pool.
+ * Plans are fingerprinted and loaded in the calling thread; workers only run the in-memory evaluation.
+ */
+@Service
+@Slf4j
+public class ScenarioGroupEvaluationService {
+
+    private final CashflowPlanRepository planRepository;
+    private final ForecastModelCache forecastModelCache;
+    private final KpiCalculationService kpiService;
+    private final KpiDisplayCurrencyConverter displayConverter;
+    private final FxService fxService;
+    private final ExecutorService forecastExecutor;
+
+    public ScenarioGroupEvaluationService(CashflowPlanRepository planRepository,
+                                          ForecastModelCache forecastModelCache,
+                                          KpiCalculationService kpiService,
+                                          KpiDisplayCurrencyConverter displayConverter,
+                                          FxService fxService,
+                                          @Qualifier("forecastExecutor") ExecutorService forecastExecutor) {
+        this.planRepository = planRepository;
+        this.forecastModelCache = forecastModelCache;
+        this.kpiService = kpiService;
+        this.displayConverter = displayConverter;
+        this.fxService = fxService;
+        this.forecastExecutor = forecastExecutor;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScenarioKpiDTO> evaluateGroup(String groupKey, Currency displayCurrency) {
+        List<CashflowPlan> plans = new ArrayList<>(planRepository.findByGroupKey(groupKey));
+        if (plans.isEmpty()) {
+            return List.of();
+        }
+        plans.sort(Comparator.comparing(CashflowPlan::getScenario, Comparator.nullsLast(Comparator.naturalOrder())));
+        // the persistence context is bound to this thread: fingerprint and load everything here
+        long[] fingerprints = new long[plans.size()];
+        for (int i = 0; i < plans.size(); i++) {
+            CashflowPlan plan = plans.get(i);
+            fingerprints[i] = forecastModelCache.fingerprint(plan);
+            if (forecastModelCache.peek(plan.getId(), fingerprints[i]).isEmpty()
+                    && !forecastModelCache.hasBaselineColumns(plan.getId())) {
+                Hibernate.initialize(plan.getBaselineTransactions());
+            }
+        }
+
+        List<Future<KpiDashboardDTO>> futures = new ArrayList<>(plans.size());
+        FxConversionContext.open(PlanCurrencyResolver.resolve(plans.get(0)), new FxRequestCache(fxService));
+        try {
+            for (int i = 0; i < plans.size(); i++) {
+                CashflowPlan plan = plans.get(i);
+                long fingerprint = fingerprints[i];
+                futures.add(forecastExecutor.submit(FxConversionContext.wrap(
+                        () -> kpiService.calculateForForecast(forecastModelCache.evaluate(plan, fingerprint)))));
+            }
+        } finally {
+            FxConversionContext.close();
+        }
+
+        List<ScenarioKpiDTO> out = new ArrayList<>(plans.size());
+        for (int i = 0; i < plans.size(); i++) {
+            CashflowPlan plan = plans.get(i);
+            KpiDashboardDTO dash = await(futures, i, plan);
+            Currency base = PlanCurrencyResolver.resolve(plan);
+            if (displayCurrency != null && displayCurrency != base) {
+                dash = displayConverter.toDisplayCurrency(dash, plan.getStartDate(), base, displayCurrency);
+            }
+            if (dash.getBaseCurrency() == null) {
+                dash.setBaseCurrency(base.name());
+            }
+            ScenarioKpiDTO dto = new ScenarioKpiDTO();
+            dto.setPlanId(plan.getId());
+            dto.setPlanName(plan.getPlanName());
+            dto.setScenario(plan.getScenario());
+            dto.setKpi(dash);
+            out.add(dto);
+        }
+        log.debug("[GROUP-EVAL] groupKey={} plans={}", groupKey, plans.size());
+        return out;
+    }
+
+    private KpiDashboardDTO await(List<Future<KpiDashboardDTO>> futures, int index, CashflowPlan plan) {
+        try {
+            return futures.get(index).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while evaluating plan " + plan.getId(), e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Evaluation failed for plan " + plan.getId(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.LineItemType;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An evaluated forecast reduced to primitive arrays for simulation: one signed monthly flow vector per
+ * component, where a component groups every row sharing the same line item, foreign currency and set of
+ * category adjustments. A path only has to scale these vectors, it never touches entities or BigDecimal.
+ */
+final class SimulationModel {
+
+    // adjustments are tracked in a bit mask; beyond this many the rest are left unperturbed
+    static final int MAX_ADJUSTMENTS = 64;
+
+    private record ComponentKey(int item, int currency, long adjustments) {}
+
+    final YearMonth firstMonth;
+    final int months;
+    final double startBalance;
+    final int items;
+    final int currencies;
+    final double[] adjustmentPercent;
+    final double[][] flows;
+    final int[] itemIndex;
+    final int[] currencyIndex;
+    final long[] adjustmentMask;
+
+    private SimulationModel(YearMonth firstMonth, int months, double startBalance, int items, int currencies,
+                            double[] adjustmentPercent, Map<ComponentKey, double[]> components) {
+        this.firstMonth = firstMonth;
+        this.months = months;
+        this.startBalance = startBalance;
+        this.items = items;
+        this.currencies = currencies;
+        this.adjustmentPercent = adjustmentPercent;
+        int n = components.size();
+        this.flows = new double[n][];
+        this.itemIndex = new int[n];
+        this.currencyIndex = new int[n];
+        this.adjustmentMask = new long[n];
+        int c = 0;
+        for (Map.Entry<ComponentKey, double[]> e : components.entrySet()) {
+            flows[c] = e.getValue();
+            itemIndex[c] = e.getKey().item();
+            currencyIndex[c] = e.getKey().currency();
+            adjustmentMask[c] = e.getKey().adjustments();
+            c++;
+        }
+    }
+
+    int components() {
+        return flows.length;
+    }
+
+    static SimulationModel build(CashflowPlan plan, ForecastResult forecast) {
+        if (forecast.startDate() == null || forecast.endDate() == null) {
+            throw new IllegalArgumentException("Plan " + forecast.planId() + " has no forecast horizon");
+        }
+        YearMonth first = YearMonth.from(forecast.startDate());
+        int months = (int) first.until(YearMonth.from(forecast.endDate()), ChronoUnit.MONTHS) + 1;
+
+        List<PlanLineItem> lineItems = plan.getLineItems() != null ? plan.getLineItems() : List.of();
+        Map<Long, PlanLineItem> itemByAssumption = new HashMap<>();
+        Map<Long, Integer> itemIndexByAssumption = new HashMap<>();
+        List<PlanLineItem> adjustments = new ArrayList<>();
+        for (PlanLineItem li : lineItems) {
+            if (li.getType() == LineItemType.CATEGORY_ADJUSTMENT) {
+                if (adjustments.size() < MAX_ADJUSTMENTS && li.getCategory() != null
+                        && li.getPercentChange() != null && li.getPercentChange() != 0d) {
+                    adjustments.add(li);
+                }
+            } else if (li.getAssumptionId() != null) {
+                itemByAssumption.put(li.getAssumptionId(), li);
+                itemIndexByAssumption.putIfAbsent(li.getAssumptionId(), itemIndexByAssumption.size());
+            }
+        }
+        double[] adjustmentPercent = adjustments.stream().mapToDouble(PlanLineItem::getPercentChange).toArray();
+
+        Currency base = forecast.baseCurrency();
+        Map<Currency, Integer> currencyIndex = new HashMap<>();
+        Map<ComponentKey, double[]> components = new LinkedHashMap<>();
+
+        List<ForecastRow> rows = forecast.rows();
+        for (int r = 0; r < rows.size(); r++) {
+            ForecastRow row = rows.get(r);
+            int m = monthIndex(first, months, row.date());
+            if (m < 0 || row.amount() == null) continue;
+            PlanLineItem source = row.assumptionId() != null ? itemByAssumption.get(row.assumptionId()) : null;
+            int item = row.assumptionId() != null ? itemIndexByAssumption.getOrDefault(row.assumptionId(), -1) : -1;
+            int currency = row.originalCurrency() != null && row.originalCurrency() != base
+                    ? currencyIndex.computeIfAbsent(row.originalCurrency(), k -> currencyIndex.size())
+                    : -1;
+            long mask = 0L;
+            for (int a = 0; a < adjustments.size(); a++) {
+                if (covers(plan, adjustments.get(a), row, source, forecast.adjustedBy(r))) {
+                    mask |= 1L << a;
+                }
+            }
+            components.computeIfAbsent(new ComponentKey(item, currency, mask), k -> new double[months])[m]
+                    += signed(row.amount(), row.category());
+        }
+
+        for (RecurringSeries series : forecast.series()) {
+            int item = series.assumptionId() != null ? itemIndexByAssumption.getOrDefault(series.assumptionId(), -1) : -1;
+            double[] flow = components.computeIfAbsent(new ComponentKey(item, -1, 0L), k -> new double[months]);
+            double amount = signed(series.amount(), series.category());
+            series.recurrence().countByMonth().forEach((month, count) -> {
+                int m = (int) first.until(month, ChronoUnit.MONTHS);
+                if (m >= 0 && m < months) {
+                    flow[m] += amount * count;
+                }
+            });
+        }
+
+        double start = forecast.startBalance() != null ? forecast.startBalance().doubleValue() : 0d;
+        return new SimulationModel(first, months, start, itemIndexByAssumption.size(), currencyIndex.size(),
+                adjustmentPercent, components);
+    }
+
+    // pending adjustments are projected before other pending items, so they scale every stored row; a stored
+    // adjustment covers exactly the rows that recorded it when it was applied
+    private static boolean covers(CashflowPlan plan, PlanLineItem adjustment, ForecastRow row, PlanLineItem source,
+                                  long[] adjustedBy) {
+        if (!Objects.equals(CategoryDateIndex.keyOf(adjustment.getCategory()), CategoryDateIndex.keyOf(row.category()))) {
+            return false;
+        }
+        LocalDate start = adjustment.getStartDate() != null ? adjustment.getStartDate() : plan.getStartDate();
+        LocalDate end = adjustment.getEndDate() != null ? adjustment.getEndDate() : plan.getEndDate();
+        if ((start != null && row.date().isBefore(start)) || (end != null && row.date().isAfter(end))) {
+            return false;
+        }
+        boolean sourcePending = source != null && !Boolean.TRUE.equals(source.getIsApplied());
+        if (sourcePending) {
+            return false;
+        }
+        if (!Boolean.TRUE.equals(adjustment.getIsApplied())) {
+            return true;
+        }
+        long id = adjustment.getAssumptionId() != null ? adjustment.getAssumptionId() : 0L;
+        for (long applied : adjustedBy) {
+            if (applied == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int monthIndex(YearMonth first, int months, LocalDate date) {
+        if (date == null) return -1;
+        int m = (int) first.until(YearMonth.from(date), ChronoUnit.MONTHS);
+        return m < months ? m : -1;
+    }
+
+    // same direction rule as the KPI dashboard: income counts as is, expenses by magnitude
+    private static double signed(BigDecimal amount, TransactionCategory category) {
+        boolean positive = category == null || category.getDirection() == null
+                || category.getDirection() == TransactionDirection.POSITIVE;
+        double v = amount.doubleValue();
+        return positive ? v : -Math.abs(v);
+    }
+}
@@ -0,0 +1,118 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.ForecastResponseDTO;
+import com.akosgyongyosi.cashflow.dto.ForecastTransactionDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluated plan bucketed by ISO week. Totals of the requested page of weeks come from one pass over
+ * the rows plus a closed-form count per recurring series; series occurrences are generated only for the
+ * page, and both rows and series are bounded by the plan horizon.
+ */
+@Service
+public class WeeklyForecastService {
+
+    private final ForecastModelCache forecastModelCache;
+    private final ForecastProperties props;
+
+    public WeeklyForecastService(ForecastModelCache forecastModelCache, ForecastProperties props) {
+        this.forecastModelCache = forecastModelCache;
+        this.props = props;
+    }
+
+    @Transactional(readOnly = true)
+    public ForecastResponseDTO weekly(CashflowPlan plan, int page, Integer size) {
+        int pageSize = size != null && size > 0 ? Math.min(size, props.getWeeklyMaxPageSize()) : props.getWeeklyPageSize();
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        ForecastResult forecast = forecastModelCache.evaluate(plan);
+        if (forecast.startDate() == null || forecast.endDate() == null) {
+            throw new IllegalArgumentException("Plan " + forecast.planId() + " has no forecast horizon");
+        }
+
+        LocalDate firstMonday = forecast.startDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int totalWeeks = (int) (ChronoUnit.DAYS.between(firstMonday, forecast.endDate()) / 7) + 1;
+        int fromWeek = (int) Math.min((long) page * pageSize, totalWeeks);
+        int toWeek = Math.min(fromWeek + pageSize, totalWeeks);
+        LocalDate pageStart = firstMonday.plusWeeks(fromWeek);
+        LocalDate pageEnd = pageStart.plusWeeks(toWeek - fromWeek).minusDays(1);
+
+        BigDecimal[] totals = new BigDecimal[toWeek - fromWeek];
+        Arrays.fill(totals, BigDecimal.ZERO);
+        List<ForecastTransactionDTO> transactions = new ArrayList<>();
+        for (ForecastRow row : forecast.rows()) {
+            int w = weekIndex(firstMonday, row.date()) - fromWeek;
+            if (w < 0 || w >= totals.length || row.amount() == null || outsideHorizon(forecast, row.date())) continue;
+            BigDecimal signed = row.signedAmount();
+            totals[w] = totals[w].add(signed);
+            transactions.add(toDto(row, signed));
+        }
+        // series use the same bound as plain rows: the page clipped to the plan horizon
+        LocalDate from = pageStart.isBefore(forecast.startDate()) ? forecast.startDate() : pageStart;
+        LocalDate to = pageEnd.isAfter(forecast.endDate()) ? forecast.endDate() : pageEnd;
+        for (RecurringSeries series : forecast.series()) {
+            if (from.isAfter(to)) break;
+            BigDecimal signed = new ForecastRow(null, series.amount(), null, null, series.category(), null).signedAmount();
+            series.recurrence().countByWeek(from, to).forEach((monday, count) -> {
+                int w = weekIndex(firstMonday, monday) - fromWeek;
+                totals[w] = totals[w].add(signed.multiply(BigDecimal.valueOf(count)));
+            });
+            series.rowsBetween(from, to).forEach(r -> transactions.add(toDto(r, signed)));
+        }
+        transactions.sort(Comparator.comparing(ForecastTransactionDTO::getTransactionDate));
+
+        Map<Integer, BigDecimal> weeklyTotals = new LinkedHashMap<>();
+        for (int w = 0; w < totals.length; w++) {
+            weeklyTotals.put(weekKey(firstMonday.plusWeeks(fromWeek + w)), totals[w]);
+        }
+
+        ForecastResponseDTO dto = new ForecastResponseDTO();
+        dto.setCashflowPlanId(plan.getId());
+        dto.setBaseCurrency(forecast.baseCurrency() != null ? forecast.baseCurrency().name() : null);
+        dto.setWeeklyTotals(weeklyTotals);
+        dto.setForecastTransactions(transactions);
+        dto.setPage(page);
+        dto.setSize(pageSize);
+        dto.setTotalWeeks(totalWeeks);
+        return dto;
+    }
+
+    static int weekKey(LocalDate date) {
+        return date.get(IsoFields.WEEK_BASED_YEAR) * 100 + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+
+    private static int weekIndex(LocalDate firstMonday, LocalDate date) {
+        if (date == null) return -1;
+        return (int) Math.floorDiv(ChronoUnit.DAYS.between(firstMonday, date), 7L);
+    }
+
+    private static boolean outsideHorizon(ForecastResult forecast, LocalDate date) {
+        return date.isBefore(forecast.startDate()) || date.isAfter(forecast.endDate());
+    }
+
+    private static ForecastTransactionDTO toDto(ForecastRow row, BigDecimal signed) {
+        ForecastTransactionDTO dto = new ForecastTransactionDTO();
+        dto.setCategory(row.category() != null ? row.category().getName() : null);
+        dto.setAmount(signed);
+        dto.setTransactionDate(row.date());
+        dto.setAssumptionBased(row.isAssumptionBased());
+        return dto;
+    }
+}
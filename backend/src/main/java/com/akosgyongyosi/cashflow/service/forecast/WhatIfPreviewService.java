@@ -0,0 +1,56 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.LineItemPreviewDTO;
+import com.akosgyongyosi.cashflow.dto.MonthlyKpiDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * KPI effect of a line item that has not been saved: the candidate is projected onto the cached
+ * evaluation of the plan, so nothing is written and no assumption id is allocated.
+ */
+@Service
+public class WhatIfPreviewService {
+
+    private final ForecastModelCache forecastModelCache;
+    private final CashflowCalculationService calculationService;
+    private final KpiCalculationService kpiService;
+
+    public WhatIfPreviewService(ForecastModelCache forecastModelCache,
+                                CashflowCalculationService calculationService,
+                                KpiCalculationService kpiService) {
+        this.forecastModelCache = forecastModelCache;
+        this.calculationService = calculationService;
+        this.kpiService = kpiService;
+    }
+
+    public LineItemPreviewDTO preview(CashflowPlan plan, PlanLineItem candidate) {
+        ForecastResult current = forecastModelCache.evaluate(plan);
+        ForecastResult withCandidate = calculationService.extend(plan, current, candidate);
+
+        KpiDashboardDTO before = kpiService.calculateForForecast(current);
+        KpiDashboardDTO after = kpiService.calculateForForecast(withCandidate);
+
+        LineItemPreviewDTO dto = new LineItemPreviewDTO();
+        dto.setBefore(before);
+        dto.setAfter(after);
+        dto.setTotalRevenueDelta(after.getTotalRevenue().subtract(before.getTotalRevenue()));
+        dto.setTotalExpensesDelta(after.getTotalExpenses().subtract(before.getTotalExpenses()));
+        dto.setClosingBalanceDelta(closingBalance(after).subtract(closingBalance(before)));
+        return dto;
+    }
+
+    private BigDecimal closingBalance(KpiDashboardDTO dash) {
+        List<MonthlyKpiDTO> months = dash.getMonthlyData();
+        if (months == null || months.isEmpty()) {
+            return dash.getStartBalance() != null ? dash.getStartBalance() : BigDecimal.ZERO;
+        }
+        return months.get(months.size() - 1).getBankBalance();
+    }
+}
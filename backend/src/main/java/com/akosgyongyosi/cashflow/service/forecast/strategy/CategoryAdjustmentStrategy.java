@@ -4,11 +4,14 @@ import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
 import com.akosgyongyosi.cashflow.entity.LineItemType;
 import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastProjection;
 import com.akosgyongyosi.cashflow.service.forecast.ForecastStrategy;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @Component
 public class CategoryAdjustmentStrategy implements ForecastStrategy {
@@ -32,7 +35,8 @@ public class CategoryAdjustmentStrategy implements ForecastStrategy {
             if (tx.getCategory() != null && tx.getCategory().equals(item.getCategory())) {
                 LocalDate txDate = tx.getTransactionDate();
                 if (!txDate.isBefore(startDate) && !txDate.isAfter(endDate)) {
-                    BigDecimal adjusted = tx.getAmount().multiply(factor);
+                    BigDecimal adjusted = MinorUnits.scale(tx.getAmount(), factor);
+                    recordAdjustment(tx, item);
                     tx.setAmount(adjusted);
                 }
             }
@@ -40,4 +44,29 @@ public class CategoryAdjustmentStrategy implements ForecastStrategy {
         
         item.setIsApplied(true); 
     }
+
+    // lets a later delete of the adjustment recompute exactly the rows it scaled; an adjustment without an
+    // assumption id is recorded as 0 and leaves the row unrecoverable, so deletes fall back to a rebuild
+    private static void recordAdjustment(HistoricalTransaction tx, PlanLineItem item) {
+        List<Long> ids = tx.adjustedByIds();
+        if (ids.isEmpty()) {
+            tx.setUnadjustedAmount(tx.getAmount());
+        }
+        if (item.getAssumptionId() == null) {
+            tx.setUnadjustedAmount(null);
+        }
+        ids.add(item.getAssumptionId() != null ? item.getAssumptionId() : 0L);
+        tx.setAdjustedByIds(ids);
+    }
+
+    @Override
+    public void project(CashflowPlan plan, PlanLineItem item, ForecastProjection projection) {
+        BigDecimal factor = BigDecimal.valueOf(item.getPercentChange());
+        LocalDate startDate = item.getStartDate() != null ? item.getStartDate() : plan.getStartDate();
+        LocalDate endDate   = item.getEndDate()   != null ? item.getEndDate()   : plan.getEndDate();
+
+        for (int i : projection.categoryIndex().rowsBetween(item.getCategory(), startDate, endDate)) {
+            projection.setAmount(i, MinorUnits.scale(projection.get(i).amount(), factor));
+        }
+    }
 }
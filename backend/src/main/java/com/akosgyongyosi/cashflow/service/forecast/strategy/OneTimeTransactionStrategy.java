@@ -5,6 +5,8 @@ import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
 import com.akosgyongyosi.cashflow.entity.LineItemType;
 import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastProjection;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
 import com.akosgyongyosi.cashflow.service.forecast.ForecastStrategy;
 import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
 import org.springframework.stereotype.Component;
@@ -41,10 +43,21 @@ public class OneTimeTransactionStrategy implements ForecastStrategy {
             newTx.setOriginalAmount(nativeAmt);
             newTx.setOriginalCurrency(fromCurrency);
             newTx.setCategory(item.getCategory());
+            newTx.setSourceAssumptionId(item.getAssumptionId());
 
             plan.getBaselineTransactions().add(newTx);
         } else {
             return;
         }
     }
+
+    @Override
+    public void project(CashflowPlan plan, PlanLineItem item, ForecastProjection projection) {
+        LocalDate txDate = item.getTransactionDate() != null ? item.getTransactionDate() : plan.getStartDate();
+        BigDecimal nativeAmt = item.getAmount() != null ? item.getAmount() : BigDecimal.ZERO;
+        Currency fromCurrency = item.getCurrency() != null ? item.getCurrency() : FxConversionContext.base();
+        BigDecimal amountBase = FxConversionContext.convert(txDate, fromCurrency, nativeAmt);
+
+        projection.add(new ForecastRow(txDate, amountBase, nativeAmt, fromCurrency, item.getCategory(), item.getAssumptionId()));
+    }
 }
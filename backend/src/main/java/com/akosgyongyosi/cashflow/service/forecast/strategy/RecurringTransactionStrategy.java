@@ -5,7 +5,11 @@ import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
 import com.akosgyongyosi.cashflow.entity.LineItemType;
 import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastProjection;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
 import com.akosgyongyosi.cashflow.service.forecast.ForecastStrategy;
+import com.akosgyongyosi.cashflow.service.forecast.Recurrence;
+import com.akosgyongyosi.cashflow.service.forecast.RecurringSeries;
 import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
 import org.slf4j.Logger;
@@ -14,8 +18,7 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
 @Component
 public class RecurringTransactionStrategy implements ForecastStrategy {
@@ -44,15 +47,16 @@ public class RecurringTransactionStrategy implements ForecastStrategy {
             return;
         }
 
-        List<LocalDate> transactionDates;
+        Recurrence recurrence;
         try {
-            transactionDates = calculateRecurringDates(item);
+            recurrence = Recurrence.of(item.getFrequency(), item.getStartDate(), item.getEndDate());
         } catch (Exception ex) {
             log.error("RecurringStrategy DATE_CALC_ERROR itemId={} message={}", item.getId(), ex.getMessage());
             return; 
         }
 
-        if (transactionDates.isEmpty()) {
+        long planned = recurrence.count();
+        if (planned == 0) {
             log.warn("RecurringStrategy NO_DATES itemId={} startDate={} endDate={} frequency={}", item.getId(), item.getStartDate(), item.getEndDate(), item.getFrequency());
             return;
         }
@@ -61,11 +65,9 @@ public class RecurringTransactionStrategy implements ForecastStrategy {
         Currency fromCurrency = item.getCurrency() != null ? item.getCurrency() : FxConversionContext.base();
 
         int success = 0;
-        for (LocalDate date : transactionDates) {
-            if (date == null) { 
-                log.warn("RecurringStrategy NULL_DATE itemId={} frequency={} listSize={}", item.getId(), item.getFrequency(), transactionDates.size());
-                continue;
-            }
+        Iterator<LocalDate> dates = recurrence.occurrences().iterator();
+        while (dates.hasNext()) {
+            LocalDate date = dates.next();
             try {
                 HistoricalTransaction newTx = new HistoricalTransaction();
                 newTx.setCashflowPlan(plan);
@@ -75,6 +77,7 @@ public class RecurringTransactionStrategy implements ForecastStrategy {
                 newTx.setOriginalAmount(nativeAmt);
                 newTx.setOriginalCurrency(fromCurrency);
                 newTx.setCategory(item.getCategory());
+                newTx.setSourceAssumptionId(item.getAssumptionId());
                 plan.getBaselineTransactions().add(newTx);
                 success++;
                 log.trace("RecurringStrategy TX_CREATED itemId={} date={} origCur={} origAmt={} baseAmt={}", item.getId(), date, fromCurrency, nativeAmt, amountBase);
@@ -85,49 +88,34 @@ public class RecurringTransactionStrategy implements ForecastStrategy {
 
         if (success > 0) {
             item.setIsApplied(true); 
-            log.debug("RecurringStrategy COMPLETE itemId={} successTx={} totalPlanned={}", item.getId(), success, transactionDates.size());
+            log.debug("RecurringStrategy COMPLETE itemId={} successTx={} totalPlanned={}", item.getId(), success, planned);
         } else {
-            log.warn("RecurringStrategy NO_SUCCESS itemId={} plannedDates={}", item.getId(), transactionDates.size());
+            log.warn("RecurringStrategy NO_SUCCESS itemId={} plannedDates={}", item.getId(), planned);
         }
     }
 
-    private List<LocalDate> calculateRecurringDates(PlanLineItem item) {
-        List<LocalDate> dates = new ArrayList<>();
-        LocalDate startDate = item.getStartDate();
-        LocalDate endDate = item.getEndDate();
-
-        switch (item.getFrequency()) {
-            case WEEKLY:
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusWeeks(1)) {
-                    dates.add(date);
-                }
-                break;
-            case BI_WEEKLY:
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusWeeks(2)) {
-                    dates.add(date);
-                }
-                break;
-            case MONTHLY:
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusMonths(1)) {
-                    dates.add(date);
-                }
-                break;
-            case QUARTERLY:
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusMonths(3)) {
-                    dates.add(date);
-                }
-                break;
-            case SEMI_ANNUAL:
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusMonths(6)) {
-                    dates.add(date);
-                }
-                break;
-            case ANNUAL:
-                dates.add(startDate);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported frequency: " + item.getFrequency());
+    @Override
+    public void project(CashflowPlan plan, PlanLineItem item, ForecastProjection projection) {
+        if (item.getStartDate() == null || item.getEndDate() == null || item.getFrequency() == null) {
+            log.warn("RecurringStrategy MISSING_FIELDS itemId={} startDate={} endDate={} frequency={} -> SKIP", item.getId(), item.getStartDate(), item.getEndDate(), item.getFrequency());
+            return;
+        }
+
+        Recurrence recurrence = Recurrence.of(item.getFrequency(), item.getStartDate(), item.getEndDate());
+        BigDecimal nativeAmt = item.getAmount() != null ? item.getAmount() : BigDecimal.ZERO;
+        Currency fromCurrency = item.getCurrency() != null ? item.getCurrency() : FxConversionContext.base();
+
+        if (fromCurrency == FxConversionContext.base()) {
+            // no per-date FX: every occurrence carries the same amount, so keep the schedule unexpanded
+            projection.addSeries(new RecurringSeries(recurrence, nativeAmt, nativeAmt, fromCurrency, item.getCategory(), item.getAssumptionId()));
+            return;
+        }
+
+        Iterator<LocalDate> dates = recurrence.occurrences().iterator();
+        while (dates.hasNext()) {
+            LocalDate date = dates.next();
+            BigDecimal amountBase = FxConversionContext.convert(date, fromCurrency, nativeAmt);
+            projection.add(new ForecastRow(date, amountBase, nativeAmt, fromCurrency, item.getCategory(), item.getAssumptionId()));
         }
-        return dates;
     }
 }
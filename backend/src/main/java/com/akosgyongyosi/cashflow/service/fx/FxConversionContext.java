@@ -4,33 +4,62 @@ import com.akosgyongyosi.cashflow.entity.Currency;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
 
 public final class FxConversionContext {
 
     public record Ctx(Currency base, FxRequestCache cache) {}
 
-    private static final ThreadLocal<Ctx> CTX = new ThreadLocal<>();
+    // contexts nest: close() restores whatever was open before the matching open()
+    private static final ThreadLocal<Deque<Ctx>> CTX = ThreadLocal.withInitial(ArrayDeque::new);
 
     private FxConversionContext() {}
 
     public static void open(Currency base, FxRequestCache cache) {
-        CTX.set(new Ctx(base, cache));
+        CTX.get().push(new Ctx(base, cache));
     }
 
     public static void close() {
-        CTX.remove();
+        Deque<Ctx> stack = CTX.get();
+        stack.poll();
+        if (stack.isEmpty()) {
+            CTX.remove();
+        }
+    }
+
+    public static boolean isOpen() {
+        return !CTX.get().isEmpty();
     }
 
     public static Ctx current() {
-        Ctx c = CTX.get();
+        Ctx c = CTX.get().peek();
         if (c == null) throw new IllegalStateException("FxConversionContext not initialized");
         return c;
     }
 
+    /**
+     * Captures the caller's context so the task sees it when it runs on a pool thread.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Ctx captured = CTX.get().peek();
+        if (captured == null) return task;
+        return () -> {
+            open(captured.base(), captured.cache());
+            try {
+                return task.call();
+            } finally {
+                close();
+            }
+        };
+    }
+
     public static BigDecimal convert(LocalDate date, Currency from, BigDecimal amount) {
         Ctx c = current();
         if (from == c.base()) return amount;
-        return c.cache().convert(amount, from, c.base(), date);
+        // FX boundary: base amounts of projected rows are kept at minor-unit precision
+        return MinorUnits.round(c.cache().convert(amount, from, c.base(), date));
     }
 
     public static Currency base() {
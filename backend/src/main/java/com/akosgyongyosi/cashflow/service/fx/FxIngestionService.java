@@ -9,6 +9,7 @@ import com.akosgyongyosi.cashflow.repository.ExchangeRateRepository;
 import com.akosgyongyosi.cashflow.service.fx.provider.FxProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +29,7 @@ public class FxIngestionService {
     private final FxProvider provider;
     private final ExchangeRateRepository repo;
     private final FxProperties props;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final AtomicLong INSERTED = new AtomicLong();
     private static final AtomicLong UPDATED  = new AtomicLong();
@@ -35,10 +37,12 @@ public class FxIngestionService {
 
     public FxIngestionService(FxProvider provider,
                               ExchangeRateRepository repo,
-                              FxProperties props) {
+                              FxProperties props,
+                              ApplicationEventPublisher eventPublisher) {
         this.provider = provider;
         this.repo = repo;
         this.props = props;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -76,6 +80,9 @@ public class FxIngestionService {
                     INSERTED.get(), UPDATED.get());
 
             warnIfStale();
+            if (inserted + updated > 0) {
+                eventPublisher.publishEvent(new FxRatesIngestedEvent(date, date));
+            }
             return new IngestionSummaryDTO(date, inserted, updated, base, quotes.size());
         } catch (Exception ex) {
             long f = FAILURES.incrementAndGet();
@@ -115,6 +122,9 @@ public class FxIngestionService {
             }
             log.info("FX ingest (range optimized) {}..{} -> inserted={} updated={}", startInclusive, endInclusive, sum.getTotalInserted(), sum.getTotalUpdated());
             warnIfStale();
+            if (sum.getTotalInserted() + sum.getTotalUpdated() > 0) {
+                eventPublisher.publishEvent(new FxRatesIngestedEvent(startInclusive, endInclusive));
+            }
             return sum;
         }
         for (LocalDate d = startInclusive; !d.isAfter(endInclusive); d = d.plusDays(1)) {
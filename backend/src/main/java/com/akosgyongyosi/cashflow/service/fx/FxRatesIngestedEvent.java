@@ -0,0 +1,6 @@
+package com.akosgyongyosi.cashflow.service.fx;
+
+import java.time.LocalDate;
+
+// published after rates dated from..to were inserted or updated
+public record FxRatesIngestedEvent(LocalDate from, LocalDate to) {}
@@ -5,12 +5,13 @@ import com.akosgyongyosi.cashflow.entity.Currency;
 import java.math.BigDecimal;
 import java.util.List;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class FxRequestCache {
     private final FxService fx;
-    private final Map<String, BigDecimal> rateByKey = new HashMap<>();
+    // shared by the workers of a group evaluation
+    private final Map<String, BigDecimal> rateByKey = new ConcurrentHashMap<>();
 
     public FxRequestCache(FxService fx) {
         this.fx = fx;
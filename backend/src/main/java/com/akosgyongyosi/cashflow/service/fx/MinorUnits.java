@@ -0,0 +1,37 @@
+package com.akosgyongyosi.cashflow.service.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a long count of hundredths of the plan base currency. Sums of minor units are exact and
+ * allocation free; rounding (half up) happens only where a rate or a percentage is applied, which also
+ * keeps the BigDecimal amounts on rows at two decimals instead of growing a digit per adjustment.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {}
+
+    public static long of(BigDecimal amount) {
+        if (amount == null) return 0L;
+        return amount.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // shortest non-negative scale, so whole amounts come back as e.g. 3000 rather than 3000.00
+    public static BigDecimal toDecimal(long minor) {
+        if (minor % 100 == 0) return BigDecimal.valueOf(minor / 100);
+        if (minor % 10 == 0) return BigDecimal.valueOf(minor / 10, 1);
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static BigDecimal round(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    // percentage boundary: amount times a multiplier such as a percentChange of 1.1
+    public static BigDecimal scale(BigDecimal amount, BigDecimal factor) {
+        return round(amount.multiply(factor));
+    }
+}
@@ -0,0 +1,120 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.DailyBalanceDTO;
+import com.akosgyongyosi.cashflow.dto.DailyCashPositionDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.DailyFlowSum;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.fx.AmountInBase;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class CashPositionService {
+
+    private record Built(ForecastResult source, DailyBalanceSeries series) {}
+
+    private final ForecastModelCache forecastModelCache;
+    private final TransactionRepository transactionRepository;
+    private final FxService fxService;
+    private final Map<Long, Built> byPlan;
+
+    public CashPositionService(ForecastModelCache forecastModelCache,
+                               TransactionRepository transactionRepository,
+                               FxService fxService,
+                               ForecastProperties props) {
+        this.forecastModelCache = forecastModelCache;
+        this.transactionRepository = transactionRepository;
+        this.fxService = fxService;
+        int capacity = Math.max(1, props.getModelCacheSize());
+        this.byPlan = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Built> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Built once per evaluated model: reused for as long as the model cache hands out the same forecast.
+     */
+    public DailyBalanceSeries forPlan(CashflowPlan plan) {
+        return forForecast(plan, forecastModelCache.evaluate(plan));
+    }
+
+    // for callers that already fingerprinted the plan
+    public DailyBalanceSeries forPlan(CashflowPlan plan, long fingerprint) {
+        return forForecast(plan, forecastModelCache.evaluate(plan, fingerprint));
+    }
+
+    private DailyBalanceSeries forForecast(CashflowPlan plan, ForecastResult forecast) {
+        synchronized (byPlan) {
+            Built built = byPlan.get(plan.getId());
+            if (built != null && built.source() == forecast) {
+                return built.series();
+            }
+        }
+        DailyBalanceSeries series = DailyBalanceSeries.build(forecast.startDate(), forecast.endDate(),
+                forecast.startBalance(), sink -> forecast.expandedRows().forEach(r -> {
+                    if (r.amount() != null) sink.accept(r.date(), MinorUnits.of(r.signedAmount()));
+                }));
+        if (plan.getId() != null) {
+            synchronized (byPlan) {
+                byPlan.put(plan.getId(), new Built(forecast, series));
+            }
+        }
+        return series;
+    }
+
+    // one row per booking day and currency; conversion is linear, so converting the day's sum equals summing its conversions
+    public DailyBalanceSeries forActuals(LocalDate start, LocalDate end, BigDecimal startBalance, Currency base) {
+        FxRequestCache cache = new FxRequestCache(fxService);
+        List<DailyFlowSum> sums = transactionRepository.sumSignedByDayAndCurrency(start, end);
+        return DailyBalanceSeries.build(start, end, startBalance, sink -> {
+            for (DailyFlowSum sum : sums) {
+                if (sum.signedSum() == null) continue;
+                BigDecimal amt = AmountInBase.of(sum.bookingDate(), sum.currency(), sum.signedSum(), base, cache);
+                sink.accept(sum.bookingDate(), MinorUnits.of(amt));
+            }
+        });
+    }
+
+    public DailyCashPositionDTO toDto(DailyBalanceSeries series, LocalDate from, LocalDate to, Currency currency) {
+        LocalDate f = from != null && from.isAfter(series.start()) ? from : series.start();
+        LocalDate t = to != null && to.isBefore(series.end()) ? to : series.end();
+        DailyBalanceSeries.Low low = series.minBalance(f, t);
+
+        DailyCashPositionDTO dto = new DailyCashPositionDTO();
+        dto.setCurrency(currency != null ? currency.name() : null);
+        dto.setFrom(f);
+        dto.setTo(t);
+        dto.setOpeningBalance(series.openingBalance(f));
+        dto.setClosingBalance(series.closingBalance(t));
+        dto.setNetFlow(series.netFlow(f, t));
+        dto.setMinBalance(low.balance());
+        dto.setMinBalanceDate(low.date());
+        List<DailyBalanceDTO> days = new ArrayList<>();
+        for (LocalDate d = f; !d.isAfter(t); d = d.plusDays(1)) {
+            DailyBalanceDTO day = new DailyBalanceDTO();
+            day.setDate(d);
+            day.setNetFlow(series.netFlow(d, d));
+            day.setBalance(series.closingBalance(d));
+            days.add(day);
+        }
+        dto.setDays(days);
+        return dto;
+    }
+}
@@ -0,0 +1,139 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.CashShortfallAlertDTO;
+import com.akosgyongyosi.cashflow.entity.CashShortfallAlert;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.repository.CashShortfallAlertRepository;
+import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import com.akosgyongyosi.cashflow.service.fx.PlanCurrencyResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Early warning for plans that run short of cash. A plan is re-scanned only when something that feeds
+ * its forecast changed: plan creation, baseline rebuilds and line item edits publish plan events, and a
+ * scan whose plan fingerprint and threshold match the stored alert is skipped. FX rates are outside the
+ * fingerprint, so an ingestion forces a re-scan of every plan that may convert with the new rates.
+ * Imports are not listened for: a plan reads its own baseline copy, which changes only through a baseline
+ * rebuild and its plan event. A scan is one pass over the plan's daily balance series.
+ */
+@Service
+@Slf4j
+public class CashShortfallAlertService {
+
+    private final CashShortfallAlertRepository alertRepository;
+    private final CashflowPlanRepository planRepository;
+    private final ForecastModelCache forecastModelCache;
+    private final CashPositionService cashPositionService;
+    private final ForecastProperties props;
+
+    public CashShortfallAlertService(CashShortfallAlertRepository alertRepository,
+                                     CashflowPlanRepository planRepository,
+                                     ForecastModelCache forecastModelCache,
+                                     CashPositionService cashPositionService,
+                                     ForecastProperties props) {
+        this.alertRepository = alertRepository;
+        this.planRepository = planRepository;
+        this.forecastModelCache = forecastModelCache;
+        this.cashPositionService = cashPositionService;
+        this.props = props;
+    }
+
+    // after commit, so the scan reads what the edit stored
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPlanChanged(PlanChangedEvent event) {
+        planRepository.findById(event.planId()).ifPresent(plan -> scanQuietly(plan, false));
+    }
+
+    // runs after ForecastModelCache dropped the models of these plans, so the re-scan converts at the new rates;
+    // a rate dated D is the fallback for every later date, hence every plan ending on or after D
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onFxRatesIngested(FxRatesIngestedEvent event) {
+        List<CashflowPlan> plans = event.from() != null
+                ? planRepository.findByEndDateGreaterThanEqual(event.from())
+                : planRepository.findAll();
+        log.debug("[SHORTFALL] FX {} - {} re-scans {} plans", event.from(), event.to(), plans.size());
+        plans.forEach(plan -> scanQuietly(plan, true));
+    }
+
+    @Transactional
+    public CashShortfallAlert scan(CashflowPlan plan) {
+        return scan(plan, false);
+    }
+
+    // force re-scans even when fingerprint and threshold match, for inputs the fingerprint does not cover
+    @Transactional
+    public CashShortfallAlert scan(CashflowPlan plan, boolean force) {
+        BigDecimal threshold = props.getShortfallThreshold() != null ? props.getShortfallThreshold() : BigDecimal.ZERO;
+        long fingerprint = forecastModelCache.fingerprint(plan);
+        CashShortfallAlert alert = alertRepository.findByPlanId(plan.getId()).orElse(null);
+        if (!force && alert != null && alert.getPlanFingerprint() == fingerprint && alert.getThreshold().compareTo(threshold) == 0) {
+            return alert;
+        }
+
+        DailyBalanceSeries series = cashPositionService.forPlan(plan, fingerprint);
+        DailyBalanceSeries.Low first = series.firstBelow(threshold);
+        DailyBalanceSeries.Low trough = series.minBalance(series.start(), series.end());
+
+        if (alert == null) {
+            alert = new CashShortfallAlert();
+            alert.setPlanId(plan.getId());
+        }
+        alert.setCurrency(PlanCurrencyResolver.resolve(plan));
+        alert.setThreshold(threshold);
+        alert.setFirstBreachDate(first != null ? first.date() : null);
+        alert.setFirstBreachBalance(first != null ? first.balance() : null);
+        alert.setTroughDate(trough.date());
+        alert.setTroughBalance(trough.balance());
+        alert.setPlanFingerprint(fingerprint);
+        alert.setEvaluatedAt(Instant.now());
+        log.debug("[SHORTFALL] planId={} threshold={} firstBreach={} trough={} {}", plan.getId(), threshold,
+                alert.getFirstBreachDate(), alert.getTroughDate(), alert.getTroughBalance());
+        return alertRepository.save(alert);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CashShortfallAlertDTO> activeAlerts() {
+        return alertRepository.findByFirstBreachDateIsNotNullOrderByFirstBreachDateAsc().stream().map(this::toDto).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<CashShortfallAlertDTO> alertForPlan(Long planId) {
+        return alertRepository.findByPlanId(planId).map(this::toDto);
+    }
+
+    // a failed scan must not fail the edit that triggered it; the next change re-scans the plan
+    private void scanQuietly(CashflowPlan plan, boolean force) {
+        try {
+            scan(plan, force);
+        } catch (Exception ex) {
+            log.error("[SHORTFALL-ERROR] planId={} message={}", plan.getId(), ex.getMessage(), ex);
+        }
+    }
+
+    private CashShortfallAlertDTO toDto(CashShortfallAlert alert) {
+        CashShortfallAlertDTO dto = new CashShortfallAlertDTO();
+        dto.setPlanId(alert.getPlanId());
+        dto.setCurrency(alert.getCurrency() != null ? alert.getCurrency().name() : null);
+        dto.setThreshold(alert.getThreshold());
+        dto.setFirstBreachDate(alert.getFirstBreachDate());
+        dto.setFirstBreachBalance(alert.getFirstBreachBalance());
+        dto.setTroughDate(alert.getTroughDate());
+        dto.setTroughBalance(alert.getTroughBalance());
+        dto.setEvaluatedAt(alert.getEvaluatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,148 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Closing balance for every day of a horizon, indexed by epoch day and held as long minor units. Net flow
+ * and closing balance of any range come from the prefix array directly; the lowest balance of a range
+ * comes from a sparse table built alongside it. Every query is O(1) after the O(n log n) build.
+ */
+public final class DailyBalanceSeries {
+
+    public record Low(LocalDate date, BigDecimal balance) {}
+
+    // one flow of a day in minor units of the series currency
+    @FunctionalInterface
+    public interface FlowSink {
+        void accept(LocalDate date, long minor);
+    }
+
+    private final long firstEpochDay;
+    private final long opening;
+    private final long[] closing;
+    private final int[][] minIndex;
+
+    private DailyBalanceSeries(long firstEpochDay, long opening, long[] closing) {
+        this.firstEpochDay = firstEpochDay;
+        this.opening = opening;
+        this.closing = closing;
+        this.minIndex = sparseTable(closing);
+    }
+
+    /**
+     * Flows dated outside [start, end] are ignored.
+     */
+    public static DailyBalanceSeries build(LocalDate start, LocalDate end, BigDecimal opening, Consumer<FlowSink> flows) {
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new IllegalArgumentException("Invalid horizon: " + start + " - " + end);
+        }
+        long first = start.toEpochDay();
+        int days = (int) (end.toEpochDay() - first) + 1;
+        long[] closing = new long[days];
+        flows.accept((date, minor) -> {
+            if (date == null) return;
+            long d = date.toEpochDay() - first;
+            if (d < 0 || d >= days) return;
+            closing[(int) d] += minor;
+        });
+        long openingMinor = MinorUnits.of(opening);
+        long running = openingMinor;
+        for (int i = 0; i < days; i++) {
+            running += closing[i];
+            closing[i] = running;
+        }
+        return new DailyBalanceSeries(first, openingMinor, closing);
+    }
+
+    public LocalDate start() {
+        return LocalDate.ofEpochDay(firstEpochDay);
+    }
+
+    public LocalDate end() {
+        return LocalDate.ofEpochDay(firstEpochDay + closing.length - 1);
+    }
+
+    public BigDecimal closingBalance(LocalDate date) {
+        return MinorUnits.toDecimal(closing[index(date)]);
+    }
+
+    // balance before any flow of the given day
+    public BigDecimal openingBalance(LocalDate date) {
+        return MinorUnits.toDecimal(openingMinor(index(date)));
+    }
+
+    public BigDecimal netFlow(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return MinorUnits.toDecimal(closing[index(to)] - openingMinor(index(from)));
+    }
+
+    public Low minBalance(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        int l = index(from);
+        int r = index(to);
+        int k = 31 - Integer.numberOfLeadingZeros(r - l + 1);
+        int a = minIndex[k][l];
+        int b = minIndex[k][r - (1 << k) + 1];
+        int i = closing[b] < closing[a] ? b : a;
+        return low(i);
+    }
+
+    // earliest day closing below the threshold, or null; one forward pass that stops at the first breach
+    public Low firstBelow(BigDecimal threshold) {
+        // whole minor units below the threshold are exactly those below its ceiling
+        long limit = threshold.movePointRight(MinorUnits.SCALE).setScale(0, RoundingMode.CEILING).longValueExact();
+        for (int i = 0; i < closing.length; i++) {
+            if (closing[i] < limit) {
+                return low(i);
+            }
+        }
+        return null;
+    }
+
+    private long openingMinor(int i) {
+        return i == 0 ? opening : closing[i - 1];
+    }
+
+    private Low low(int i) {
+        return new Low(LocalDate.ofEpochDay(firstEpochDay + i), MinorUnits.toDecimal(closing[i]));
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end " + to + " is before start " + from);
+        }
+    }
+
+    private int index(LocalDate date) {
+        long i = date.toEpochDay() - firstEpochDay;
+        if (i < 0 || i >= closing.length) {
+            throw new IllegalArgumentException(date + " is outside " + start() + " - " + end());
+        }
+        return (int) i;
+    }
+
+    // minIndex[k][i] = position of the lowest balance in [i, i + 2^k); ties keep the earlier day
+    private static int[][] sparseTable(long[] values) {
+        int n = values.length;
+        int levels = 32 - Integer.numberOfLeadingZeros(n);
+        int[][] table = new int[levels][];
+        table[0] = new int[n];
+        for (int i = 0; i < n; i++) table[0][i] = i;
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int len = n - (1 << k) + 1;
+            table[k] = new int[len];
+            for (int i = 0; i < len; i++) {
+                int a = table[k - 1][i];
+                int b = table[k - 1][i + half];
+                table[k][i] = values[b] < values[a] ? b : a;
+            }
+        }
+        return table;
+    }
+}
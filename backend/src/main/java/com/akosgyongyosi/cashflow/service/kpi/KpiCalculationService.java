@@ -6,18 +6,28 @@ import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.repository.KpiAggregate;
+import com.akosgyongyosi.cashflow.repository.KpiMonthlyRollupRepository;
+import com.akosgyongyosi.cashflow.repository.KpiTransactionRow;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
+import com.akosgyongyosi.cashflow.service.forecast.RecurringSeries;
 import com.akosgyongyosi.cashflow.service.fx.AmountInBase;
 import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
 import com.akosgyongyosi.cashflow.service.fx.PlanCurrencyResolver;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class KpiCalculationService {
@@ -26,30 +36,39 @@ public class KpiCalculationService {
     private final HistoricalTransactionRepository historicalTransactionRepository;
     private final CashflowPlanRepository cashflowPlanRepository;
     private final FxService fxService;
+    private final KpiMonthlyRollupRepository rollupRepository;
 
     @Autowired
     public KpiCalculationService(TransactionRepository transactionRepository,
                                  HistoricalTransactionRepository historicalTransactionRepository,
                                  CashflowPlanRepository cashflowPlanRepository,
-                                 FxService fxService) {
+                                 FxService fxService,
+                                 KpiMonthlyRollupRepository rollupRepository) {
         this.transactionRepository = transactionRepository;
         this.historicalTransactionRepository = historicalTransactionRepository;
         this.cashflowPlanRepository = cashflowPlanRepository;
         this.fxService = fxService;
+        this.rollupRepository = rollupRepository;
     }
 
     public KpiDashboardDTO calculateForPeriod(LocalDate start, LocalDate end, BigDecimal startBalance) {
         return calculateForPeriod(start, end, startBalance, Currency.HUF);
     }
 
+    /**
+     * Sums the actuals per month, currency, category, accounting code and direction; only those aggregate rows
+     * reach the JVM, each converted once at its mid-month rate. Whole months are read from the monthly rollup,
+     * partial months at either end of the period from the transactions.
+     */
     public KpiDashboardDTO calculateForPeriod(LocalDate start, LocalDate end, BigDecimal startBalance, Currency baseCurrency) {
         FxRequestCache cache = new FxRequestCache(fxService);
-        List<Transaction> txs = transactionRepository.findByBookingDateBetween(start, end);
-        List<KpiEntry> entries = txs.stream()
-                .map(tx -> toEntry(tx, baseCurrency, cache))
-                .collect(Collectors.toList());
+        List<KpiEntry> entries = new ArrayList<>();
+        for (KpiAggregate agg : aggregatesForPeriod(start, end)) {
+            KpiEntry entry = toEntry(agg, baseCurrency, cache);
+            if (entry != null) entries.add(entry);
+        }
         BigDecimal opening = startBalance != null ? startBalance : BigDecimal.ZERO;
-        return build(entries, opening);
+        return build(entries, opening, start, end);
     }
 
     public KpiDashboardDTO calculateForPlan(Long planId) {
@@ -57,89 +76,241 @@ public class KpiCalculationService {
                 .orElseThrow(() -> new NoSuchElementException("Plan not found: " + planId));
         Currency base = PlanCurrencyResolver.resolve(plan);
         FxRequestCache cache = new FxRequestCache(fxService);
-        List<HistoricalTransaction> hist = historicalTransactionRepository.findByCashflowPlanId(planId);
-        List<KpiEntry> entries = hist.stream().map(this::toEntry).collect(Collectors.toList());
+        List<KpiEntry> entries = new ArrayList<>();
+        for (KpiAggregate agg : historicalTransactionRepository.sumForKpi(planId)) {
+            KpiEntry entry = toEntry(agg, base, cache);
+            if (entry != null) entries.add(entry);
+        }
         BigDecimal opening = plan.getStartBalance() != null ? plan.getStartBalance() : BigDecimal.ZERO;
-        return build(entries, opening);
+        return build(entries, opening, plan.getStartDate(), plan.getEndDate());
     }
 
-    private KpiEntry toEntry(Transaction tx, Currency base, FxRequestCache cache) {
-        String acct = Optional.ofNullable(tx.getCategory())
-                .map(TransactionCategory::getAccountingCategory)
-                .map(AccountingCategory::getCode)
-                .orElse("");
-        String tcat = Optional.ofNullable(tx.getCategory()).map(TransactionCategory::getName).orElse("");
-        boolean pos = Optional.ofNullable(tx.getCategory())
-                .map(TransactionCategory::getDirection)
-                .map(d -> d == TransactionDirection.POSITIVE)
-                .orElse(true);
-        BigDecimal amt = AmountInBase.of(tx, Transaction::getBookingDate, Transaction::getCurrency, Transaction::getAmount, base, cache);
-        return new KpiEntry(tx.getBookingDate(), amt, acct, tcat, pos);
+    public KpiDashboardDTO calculateForForecast(ForecastResult forecast) {
+        List<KpiEntry> entries = forecast.rows().stream().map(this::toEntry).collect(Collectors.toCollection(ArrayList::new));
+        for (RecurringSeries series : forecast.series()) {
+            KpiEntry template = toEntry(new ForecastRow(series.recurrence().start(), series.amount(),
+                    series.originalAmount(), series.originalCurrency(), series.category(), series.assumptionId()));
+            series.recurrence().countByMonth().forEach((month, count) -> entries.add(new KpiEntry(month.atDay(1),
+                    series.amount().multiply(BigDecimal.valueOf(count)),
+                    template.getAcctCode(), template.getTxCategory(), template.isPositive())));
+        }
+        return build(entries, forecast.startBalance(), forecast.startDate(), forecast.endDate());
+    }
+
+    /**
+     * Fallback for ad-hoc filters the rollup cannot answer. Matching transactions are streamed through a
+     * projection and summed per month, currency and category as they arrive, so memory does not grow with
+     * the range; each sum is converted at the same mid-month rate as the rollup, so a filter that matches
+     * everything gives the unfiltered figures.
+     */
+    @Transactional(readOnly = true)
+    public KpiDashboardDTO calculateForPeriod(LocalDate start, LocalDate end, BigDecimal startBalance, Currency baseCurrency,
+                                              KpiFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return calculateForPeriod(start, end, startBalance, baseCurrency);
+        }
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new IllegalArgumentException("Invalid period: " + start + " - " + end);
+        }
+        Map<StreamGroup, long[]> groups = new LinkedHashMap<>();
+        String acctFilter = filter.accountingCode() != null && !filter.accountingCode().isBlank() ? filter.accountingCode() : null;
+        try (Stream<KpiTransactionRow> rows = transactionRepository.streamForKpi(start, end, filter.categoryId(), acctFilter, filter.currency())) {
+            rows.forEach(r -> {
+                if (r.bookingDate() == null || r.amount() == null) return;
+                StreamGroup group = new StreamGroup(YearMonth.from(r.bookingDate()), r.currency(),
+                        r.accountingCode() != null ? r.accountingCode() : "",
+                        r.category() != null ? r.category() : "",
+                        r.direction() == null || r.direction() == TransactionDirection.POSITIVE);
+                groups.computeIfAbsent(group, g -> new long[1])[0] += MinorUnits.of(r.amount());
+            });
+        }
+        FxRequestCache cache = new FxRequestCache(fxService);
+        MonthBuckets buckets = new MonthBuckets(YearMonth.from(start), YearMonth.from(end));
+        groups.forEach((g, sum) -> {
+            BigDecimal amount = MinorUnits.toDecimal(sum[0]);
+            BigDecimal amt = g.currency() == null
+                    ? amount
+                    : AmountInBase.of(g.month().atDay(15), g.currency(), amount, baseCurrency, cache);
+            buckets.accept(g.month().atDay(1), MinorUnits.of(amt), g.acctCode(), g.txCategory(), g.positive());
+        });
+        return buckets.toDashboard(startBalance != null ? startBalance : BigDecimal.ZERO);
     }
 
-    private KpiEntry toEntry(HistoricalTransaction ht) {
-        String acct = Optional.ofNullable(ht.getCategory())
+    private record StreamGroup(YearMonth month, Currency currency, String acctCode, String txCategory, boolean positive) {}
+
+    private List<KpiAggregate> aggregatesForPeriod(LocalDate start, LocalDate end) {
+        if (start == null || end == null) {
+            return transactionRepository.sumForKpi(start, end);
+        }
+        YearMonth firstFull = YearMonth.from(start.getDayOfMonth() == 1 ? start : start.plusMonths(1));
+        YearMonth lastFull = end.equals(YearMonth.from(end).atEndOfMonth()) ? YearMonth.from(end) : YearMonth.from(end).minusMonths(1);
+        if (firstFull.isAfter(lastFull)) {
+            return transactionRepository.sumForKpi(start, end);
+        }
+        List<KpiAggregate> out = new ArrayList<>(rollupRepository.sumForKpi(period(firstFull), period(lastFull)));
+        if (start.isBefore(firstFull.atDay(1))) {
+            out.addAll(transactionRepository.sumForKpi(start, firstFull.atDay(1).minusDays(1)));
+        }
+        if (end.isAfter(lastFull.atEndOfMonth())) {
+            out.addAll(transactionRepository.sumForKpi(lastFull.atEndOfMonth().plusDays(1), end));
+        }
+        return out;
+    }
+
+    private static int period(YearMonth ym) {
+        return ym.getYear() * 100 + ym.getMonthValue();
+    }
+
+    // one entry per aggregate row, dated the first of its month
+    private KpiEntry toEntry(KpiAggregate agg, Currency base, FxRequestCache cache) {
+        if (agg.year() == null || agg.month() == null || agg.amountSum() == null) {
+            return null;
+        }
+        LocalDate month = LocalDate.of(agg.year(), agg.month(), 1);
+        BigDecimal amt = agg.currency() == null
+                ? agg.amountSum()
+                : AmountInBase.of(month.withDayOfMonth(15), agg.currency(), agg.amountSum(), base, cache);
+        String acct = agg.accountingCode() != null ? agg.accountingCode() : "";
+        String tcat = agg.category() != null ? agg.category() : "";
+        boolean pos = agg.direction() == null || agg.direction() == TransactionDirection.POSITIVE;
+        return new KpiEntry(month, amt, acct, tcat, pos);
+    }
+
+    private KpiEntry toEntry(ForecastRow row) {
+        String acct = Optional.ofNullable(row.category())
                 .map(TransactionCategory::getAccountingCategory)
                 .map(AccountingCategory::getCode)
                 .orElse("");
-        String tcat = Optional.ofNullable(ht.getCategory()).map(TransactionCategory::getName).orElse("");
-        boolean pos = Optional.ofNullable(ht.getCategory())
+        String tcat = Optional.ofNullable(row.category()).map(TransactionCategory::getName).orElse("");
+        boolean pos = Optional.ofNullable(row.category())
                 .map(TransactionCategory::getDirection)
                 .map(d -> d == TransactionDirection.POSITIVE)
                 .orElse(true);
-        return new KpiEntry(ht.getTransactionDate(), ht.getAmount(), acct, tcat, pos);
-    }
-
-    private KpiDashboardDTO build(List<KpiEntry> all, BigDecimal startBalance) {
-        Map<Integer, List<KpiEntry>> byMonth = all.stream()
-                .collect(Collectors.groupingBy(e -> e.getDate().getMonthValue()));
-        List<MonthlyKpiDTO> monthly = new ArrayList<>();
-        BigDecimal runningBank = startBalance;
-
-        for (int m = 1; m <= 12; m++) {
-            List<KpiEntry> list = byMonth.getOrDefault(m, Collections.emptyList());
-            BigDecimal income = BigDecimal.ZERO;
-            BigDecimal expense = BigDecimal.ZERO;
-
-            MonthlyKpiDTO dto = new MonthlyKpiDTO();
-            dto.setMonth(m);
-
-            for (KpiEntry e : list) {
-                if (e.isPositive()) {
-                    income = income.add(e.getAmount());
-                    if (e.getAcctCode() != null && !e.getAcctCode().trim().isEmpty()) {
-                        dto.getIncomeAccountingCategorySums().merge(e.getAcctCode(), e.getAmount(), BigDecimal::add);
-                    }
-                } else {
-                    expense = expense.add(e.getAmount().abs()); 
-                    if (e.getAcctCode() != null && !e.getAcctCode().trim().isEmpty()) {
-                        dto.getExpenseAccountingCategorySums().merge(e.getAcctCode(), e.getAmount().abs(), BigDecimal::add);
-                    }
-                }
-                if (e.getAcctCode() != null && !e.getAcctCode().trim().isEmpty()) {
-                    dto.getAccountingCategorySums().merge(e.getAcctCode(), e.getAmount(), BigDecimal::add);
-                }
-                dto.getTransactionCategorySums().merge(e.getTxCategory(), e.getAmount(), BigDecimal::add);
-                dto.getTransactionCategoryDirections().putIfAbsent(
-                        e.getTxCategory(), e.isPositive() ? "POSITIVE" : "NEGATIVE");
-            }
+        return new KpiEntry(row.date(), row.amount(), acct, tcat, pos);
+    }
 
-            dto.setTotalIncome(income);
-            dto.setTotalExpense(expense);
-            dto.setNetCashFlow(income.subtract(expense));
-            runningBank = runningBank.add(dto.getNetCashFlow());
-            dto.setBankBalance(runningBank);
+    // amounts are summed as long minor units; BigDecimal is only created for the figures that reach the DTO.
+    // One bucket per YearMonth from the first to the last month of the horizon, so multi-year ranges keep
+    // their years apart; without a horizon the entries' calendar years are covered.
+    private KpiDashboardDTO build(List<KpiEntry> all, BigDecimal startBalance, LocalDate from, LocalDate to) {
+        YearMonth first = from != null ? YearMonth.from(from) : null;
+        YearMonth last = to != null ? YearMonth.from(to) : null;
+        if (first == null || last == null || last.isBefore(first)) {
+            first = null;
+            last = null;
+        }
+        boolean horizon = first != null;
+        for (KpiEntry e : all) {
+            if (e.getDate() == null) continue;
+            YearMonth ym = YearMonth.from(e.getDate());
+            if (first == null || ym.isBefore(first)) first = horizon ? ym : YearMonth.of(ym.getYear(), 1);
+            if (last == null || ym.isAfter(last)) last = horizon ? ym : YearMonth.of(ym.getYear(), 12);
+        }
+        if (first == null) {
+            first = YearMonth.of(LocalDate.now().getYear(), 1);
+            last = first.withMonth(12);
+        }
 
-            monthly.add(dto);
+        MonthBuckets buckets = new MonthBuckets(first, last);
+        for (KpiEntry e : all) {
+            if (e.getDate() == null) continue;
+            buckets.accept(e.getDate(), MinorUnits.of(e.getAmount()), e.getAcctCode(), e.getTxCategory(), e.isPositive());
         }
+        return buckets.toDashboard(startBalance);
+    }
 
-        KpiDashboardDTO out = new KpiDashboardDTO();
-        out.setStartBalance(startBalance);
-        out.setMonthlyData(monthly);
-        out.setTotalRevenue(monthly.stream().map(MonthlyKpiDTO::getTotalIncome)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        out.setTotalExpenses(monthly.stream().map(MonthlyKpiDTO::getTotalExpense)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        return out;
+    private static int monthIndex(YearMonth ym) {
+        return ym.getYear() * 12 + ym.getMonthValue() - 1;
+    }
+
+    private static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static void add(Map<String, long[]> sums, String key, long amount) {
+        sums.computeIfAbsent(key, k -> new long[1])[0] += amount;
+    }
+
+    private static void copy(Map<String, long[]> sums, Map<String, BigDecimal> target) {
+        sums.forEach((k, v) -> target.put(k, MinorUnits.toDecimal(v[0])));
+    }
+
+    private static final class MonthSums {
+        long income;
+        long expense;
+        final Map<String, long[]> incomeByAcct = new HashMap<>();
+        final Map<String, long[]> expenseByAcct = new HashMap<>();
+        final Map<String, long[]> byAcct = new HashMap<>();
+        final Map<String, long[]> byTxCategory = new HashMap<>();
+        final Map<String, String> directions = new HashMap<>();
+    }
+
+    // running sums of one dashboard, one bucket per month from first to last
+    private static final class MonthBuckets {
+
+        private final YearMonth first;
+        private final int firstIndex;
+        private final MonthSums[] sums;
+
+        MonthBuckets(YearMonth first, YearMonth last) {
+            this.first = first;
+            this.firstIndex = monthIndex(first);
+            this.sums = new MonthSums[monthIndex(last) - firstIndex + 1];
+            for (int m = 0; m < sums.length; m++) {
+                sums[m] = new MonthSums();
+            }
+        }
+
+        void accept(LocalDate date, long amount, String acctCode, String txCategory, boolean positive) {
+            MonthSums month = sums[monthIndex(date) - firstIndex];
+            String acct = acctCode != null && !acctCode.trim().isEmpty() ? acctCode : null;
+            if (positive) {
+                month.income += amount;
+                if (acct != null) add(month.incomeByAcct, acct, amount);
+            } else {
+                long magnitude = Math.abs(amount);
+                month.expense += magnitude;
+                if (acct != null) add(month.expenseByAcct, acct, magnitude);
+            }
+            if (acct != null) add(month.byAcct, acct, amount);
+            add(month.byTxCategory, txCategory, amount);
+            month.directions.putIfAbsent(txCategory, positive ? "POSITIVE" : "NEGATIVE");
+        }
+
+        KpiDashboardDTO toDashboard(BigDecimal startBalance) {
+            List<MonthlyKpiDTO> monthly = new ArrayList<>(sums.length);
+            long runningBank = MinorUnits.of(startBalance);
+            long totalIncome = 0L;
+            long totalExpense = 0L;
+            for (int m = 0; m < sums.length; m++) {
+                MonthSums month = sums[m];
+                YearMonth ym = first.plusMonths(m);
+                MonthlyKpiDTO dto = new MonthlyKpiDTO();
+                dto.setYear(ym.getYear());
+                dto.setMonth(ym.getMonthValue());
+                copy(month.incomeByAcct, dto.getIncomeAccountingCategorySums());
+                copy(month.expenseByAcct, dto.getExpenseAccountingCategorySums());
+                copy(month.byAcct, dto.getAccountingCategorySums());
+                copy(month.byTxCategory, dto.getTransactionCategorySums());
+                dto.getTransactionCategoryDirections().putAll(month.directions);
+
+                long net = month.income - month.expense;
+                runningBank += net;
+                dto.setTotalIncome(MinorUnits.toDecimal(month.income));
+                dto.setTotalExpense(MinorUnits.toDecimal(month.expense));
+                dto.setNetCashFlow(MinorUnits.toDecimal(net));
+                dto.setBankBalance(MinorUnits.toDecimal(runningBank));
+                totalIncome += month.income;
+                totalExpense += month.expense;
+                monthly.add(dto);
+            }
+
+            KpiDashboardDTO out = new KpiDashboardDTO();
+            out.setStartBalance(startBalance);
+            out.setMonthlyData(monthly);
+            out.setTotalRevenue(MinorUnits.toDecimal(totalIncome));
+            out.setTotalExpenses(MinorUnits.toDecimal(totalExpense));
+            return out;
+        }
     }
 }
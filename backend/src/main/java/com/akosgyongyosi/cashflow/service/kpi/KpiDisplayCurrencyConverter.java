@@ -36,8 +36,16 @@ public class KpiDisplayCurrencyConverter {
     src.setDisplayCurrency(display.name());
     src.setStartBalance(cache.convert(src.getStartBalance(), base, display, startConvDate));
 
+        // months without a year are taken as consecutive from periodStart
         int year = periodStart.getYear();
+        int previousMonth = 0;
         for (MonthlyKpiDTO m : src.getMonthlyData()) {
+            if (m.getYear() != 0) {
+                year = m.getYear();
+            } else if (m.getMonth() < previousMonth) {
+                year++;
+            }
+            previousMonth = m.getMonth();
             LocalDate monthStart = LocalDate.of(year, m.getMonth(), 1);
             LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
 
@@ -0,0 +1,11 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+
+// ad-hoc restriction of an actuals KPI; null fields do not filter
+public record KpiFilter(Long categoryId, String accountingCode, Currency currency) {
+
+    public boolean isEmpty() {
+        return categoryId == null && (accountingCode == null || accountingCode.isBlank()) && currency == null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.KpiCacheStatsDTO;
+import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.service.CategoryMappingChangedEvent;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Finished KPI dashboards of recently requested plans and periods, least recently used evicted first.
+ * Entries are dropped by the events that change their inputs: plan edits drop that plan, imports and
+ * recategorizations drop the actuals periods they overlap, FX ingestion drops every entry that reads a
+ * date on or after the first ingested rate and a category mapping change drops everything, since every dashboard groups by accounting
+ * code. Cached dashboards are shared between callers and must not be modified.
+ */
+@Component
+@Slf4j
+public class KpiResultCache {
+
+    /** planId is null for actuals periods; from, to and startBalance are unused for plans. */
+    public record Key(Long planId, LocalDate from, LocalDate to, long startBalanceMinor, Currency base, Currency display) {
+
+        public static Key forPlan(Long planId, Currency base, Currency display) {
+            return new Key(Objects.requireNonNull(planId), null, null, 0L, base, display);
+        }
+
+        public static Key forPeriod(LocalDate from, LocalDate to, BigDecimal startBalance, Currency base, Currency display) {
+            return new Key(null, from, to, MinorUnits.of(startBalance), base, display);
+        }
+    }
+
+    // from and to are the dates the dashboard covers; null when unknown, which any range event matches
+    private record Entry(KpiDashboardDTO value, LocalDate from, LocalDate to) {}
+
+    private final int capacity;
+    private final Map<Key, Entry> entries;
+    private long generation;                  // bumped by every invalidation, guarded by entries
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public KpiResultCache(ForecastProperties props) {
+        this.capacity = Math.max(1, props.getKpiCacheSize());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Computes outside the lock; a result is only stored when no invalidation ran meanwhile, so a dashboard
+     * computed from data an event has since replaced never outlives that event.
+     */
+    public KpiDashboardDTO get(Key key, LocalDate from, LocalDate to, Supplier<KpiDashboardDTO> compute) {
+        long seen;
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits++;
+                return e.value();
+            }
+            misses++;
+            seen = generation;
+        }
+        KpiDashboardDTO value = compute.get();
+        synchronized (entries) {
+            if (generation == seen) {
+                entries.put(key, new Entry(value, from, to));
+            }
+        }
+        return value;
+    }
+
+    public void invalidatePlan(Long planId) {
+        invalidate(key -> Objects.equals(key.planId(), planId), null);
+    }
+
+    public void invalidateActuals(LocalDate from, LocalDate to) {
+        invalidate(key -> key.planId() == null, overlapping(from, to));
+    }
+
+    public void invalidateRatesFrom(LocalDate from) {
+        invalidate(key -> true, readingOnOrAfter(from));
+    }
+
+    public void clear() {
+        invalidate(key -> true, null);
+    }
+
+    public KpiCacheStatsDTO stats() {
+        KpiCacheStatsDTO dto = new KpiCacheStatsDTO();
+        synchronized (entries) {
+            dto.setSize(entries.size());
+            dto.setCapacity(capacity);
+            dto.setHits(hits);
+            dto.setMisses(misses);
+            dto.setHitRate(hits + misses == 0 ? 0d : (double) hits / (hits + misses));
+            dto.setEvictions(evictions);
+            dto.setInvalidations(invalidations);
+        }
+        return dto;
+    }
+
+    // after commit, so a miss right after the event reads the new data
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        invalidatePlan(event.planId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsImported(TransactionsImportedEvent event) {
+        invalidateActuals(event.from(), event.to());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsRecategorized(TransactionsRecategorizedEvent event) {
+        invalidateActuals(event.from(), event.to());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFxRatesIngested(FxRatesIngestedEvent event) {
+        invalidateRatesFrom(event.from());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryMappingChanged(CategoryMappingChangedEvent event) {
+        clear();
+    }
+
+    // a dashboard also reads the rate of the day before it starts, for the opening balance
+    private static Predicate<Entry> overlapping(LocalDate from, LocalDate to) {
+        return e -> e.from() == null || e.to() == null || from == null || to == null
+                || (!e.from().minusDays(1).isAfter(to) && !e.to().isBefore(from));
+    }
+
+    // a rate dated D is the fallback for every later date and future dates convert at today's rate, so it
+    // changes every conversion on or after D; the opening-balance day before the start never reads later
+    // than the end, which is therefore the last date an entry reads
+    private static Predicate<Entry> readingOnOrAfter(LocalDate from) {
+        return e -> e.to() == null || from == null || !e.to().isBefore(from);
+    }
+
+    private void invalidate(Predicate<Key> keys, Predicate<Entry> dates) {
+        int removed = 0;
+        synchronized (entries) {
+            generation++;
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                if (keys.test(e.getKey()) && (dates == null || dates.test(e.getValue()))) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            invalidations += removed;
+        }
+        if (removed > 0) {
+            log.debug("[KPI-CACHE] invalidated {} entries", removed);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.dto.KpiRollupCheckDTO;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.KpiMonthlyRollup;
+import com.akosgyongyosi.cashflow.entity.Transaction;
+import com.akosgyongyosi.cashflow.repository.KpiMonthlyRollupRepository;
+import com.akosgyongyosi.cashflow.repository.KpiRollupRow;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.fx.MinorUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the monthly KPI rollup. Writers collect their changes in a {@link Delta} and apply it once, so
+ * an import touches one rollup row per month, category and currency instead of one per transaction.
+ * {@link #check()} compares the rollup with the raw transactions and {@link #rebuild()} recomputes it.
+ */
+@Service
+@Slf4j
+public class KpiRollupService {
+
+    private static final int MAX_REPORTED_MISMATCHES = 50;
+
+    private final KpiMonthlyRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+
+    public KpiRollupService(KpiMonthlyRollupRepository rollupRepository, TransactionRepository transactionRepository) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Transactional
+    public void apply(Delta delta) {
+        for (Map.Entry<Key, long[]> e : delta.sums.entrySet()) {
+            Key key = e.getKey();
+            long[] sum = e.getValue();
+            if (sum[0] == 0 && sum[1] == 0) {
+                continue;                       // moved out and back in, e.g. reassigned to the same category
+            }
+            rollupRepository.upsert(key.year(), key.month(), key.categoryId(), key.currency().name(),
+                    MinorUnits.toDecimal(sum[0]), sum[1]);
+        }
+        log.debug("[KPI-ROLLUP] applied {} keys", delta.sums.size());
+    }
+
+    @Transactional
+    public int rebuild() {
+        rollupRepository.deleteAllInBatch();
+        List<KpiMonthlyRollup> rows = transactionRepository.sumForRollup().stream()
+                .filter(r -> r.year() != null && r.month() != null && r.currency() != null)
+                .map(KpiRollupService::toEntity)
+                .toList();
+        rollupRepository.saveAll(rows);
+        log.info("[KPI-ROLLUP] rebuilt {} rows", rows.size());
+        return rows.size();
+    }
+
+    // actuals loaded outside the application (seed data, restores) only show up after a rebuild; so do
+    // uncategorized rows stored with a null category before the upsert keyed them by UNCATEGORIZED
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if ((rollupRepository.count() == 0 && transactionRepository.count() > 0) || rollupRepository.existsByCategoryIdIsNull()) {
+            rebuild();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KpiRollupCheckDTO check() {
+        Map<Key, KpiRollupRow> expected = index(transactionRepository.sumForRollup());
+        Map<Key, KpiRollupRow> actual = index(rollupRepository.findAllRows());
+        Set<Key> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+
+        KpiRollupCheckDTO out = new KpiRollupCheckDTO();
+        out.setRollupKeys(actual.size());
+        out.setTransactionKeys(expected.size());
+        int mismatches = 0;
+        for (Key key : keys) {
+            KpiRollupRow want = expected.get(key);
+            KpiRollupRow got = actual.get(key);
+            if (!matches(want, got)) {
+                mismatches++;
+                if (out.getMismatches().size() < MAX_REPORTED_MISMATCHES) {
+                    out.getMismatches().add(key + " expected " + describe(want) + " but rollup has " + describe(got));
+                }
+            }
+        }
+        out.setMismatchCount(mismatches);
+        out.setConsistent(mismatches == 0);
+        if (mismatches > 0) {
+            log.warn("[KPI-ROLLUP] {} keys differ from transactions", mismatches);
+        }
+        return out;
+    }
+
+    private static boolean matches(KpiRollupRow want, KpiRollupRow got) {
+        if (want == null || got == null) {
+            return want == got;
+        }
+        return MinorUnits.of(want.amountSum()) == MinorUnits.of(got.amountSum())
+                && want.rowCount().longValue() == got.rowCount().longValue();
+    }
+
+    private static String describe(KpiRollupRow row) {
+        return row == null ? "nothing" : row.amountSum() + " over " + row.rowCount() + " rows";
+    }
+
+    private static Map<Key, KpiRollupRow> index(List<KpiRollupRow> rows) {
+        Map<Key, KpiRollupRow> out = new LinkedHashMap<>();
+        for (KpiRollupRow r : rows) {
+            if (r.year() != null && r.month() != null && r.currency() != null) {
+                out.put(new Key(r.year(), r.month(), categoryKey(r.categoryId()), r.currency()), r);
+            }
+        }
+        return out;
+    }
+
+    private static KpiMonthlyRollup toEntity(KpiRollupRow r) {
+        KpiMonthlyRollup row = new KpiMonthlyRollup();
+        row.setYear(r.year());
+        row.setMonth(r.month());
+        row.setCategoryId(categoryKey(r.categoryId()));
+        row.setCurrency(r.currency());
+        row.setAmountSum(r.amountSum() != null ? r.amountSum() : BigDecimal.ZERO);
+        row.setRowCount(r.rowCount() != null ? r.rowCount() : 0L);
+        return row;
+    }
+
+    private static long categoryKey(Long categoryId) {
+        return categoryId != null ? categoryId : KpiMonthlyRollup.UNCATEGORIZED;
+    }
+
+    private record Key(int year, int month, long categoryId, Currency currency) {}
+
+    /** Changes to the rollup collected by one write; transactions are counted as they are when added or removed. */
+    public static final class Delta {
+
+        private final Map<Key, long[]> sums = new HashMap<>();
+
+        public Delta add(Transaction tx) {
+            return put(tx, 1);
+        }
+
+        public Delta remove(Transaction tx) {
+            return put(tx, -1);
+        }
+
+        public boolean isEmpty() {
+            return sums.isEmpty();
+        }
+
+        private Delta put(Transaction tx, int sign) {
+            if (tx.getBookingDate() == null || tx.getCurrency() == null || tx.getAmount() == null) {
+                return this;
+            }
+            long categoryId = categoryKey(tx.getCategory() != null ? tx.getCategory().getId() : null);
+            Key key = new Key(tx.getBookingDate().getYear(), tx.getBookingDate().getMonthValue(), categoryId, tx.getCurrency());
+            long[] sum = sums.computeIfAbsent(key, k -> new long[2]);
+            sum[0] += sign * MinorUnits.of(tx.getAmount());
+            sum[1] += sign;
+            return this;
+        }
+    }
+}
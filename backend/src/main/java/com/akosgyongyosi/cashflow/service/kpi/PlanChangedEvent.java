@@ -0,0 +1,4 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+// published after a plan's line items or baseline were edited
+public record PlanChangedEvent(Long planId) {}
@@ -0,0 +1,152 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.dto.PlanVarianceDTO;
+import com.akosgyongyosi.cashflow.dto.VarianceRowDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
+import com.akosgyongyosi.cashflow.service.forecast.RecurringSeries;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan versus actuals per month and category. The cached evaluation of the plan is summed into a hash
+ * table keyed by month and category; the actuals come from one aggregate query and are probed against it
+ * in a single pass, so neither side is materialized as a full KPI dashboard.
+ */
+@Service
+@Slf4j
+public class PlanVarianceService {
+
+    private record Key(YearMonth month, Long categoryId) {}
+
+    private static final class Cell {
+        TransactionCategory category;
+        BigDecimal planned = BigDecimal.ZERO;
+        BigDecimal actual = BigDecimal.ZERO;
+    }
+
+    private final ForecastModelCache forecastModelCache;
+    private final TransactionRepository transactionRepository;
+    private final FxService fxService;
+
+    public PlanVarianceService(ForecastModelCache forecastModelCache,
+                               TransactionRepository transactionRepository,
+                               FxService fxService) {
+        this.forecastModelCache = forecastModelCache;
+        this.transactionRepository = transactionRepository;
+        this.fxService = fxService;
+    }
+
+    @Transactional(readOnly = true)
+    public PlanVarianceDTO variance(CashflowPlan plan, LocalDate through) {
+        ForecastResult forecast = forecastModelCache.evaluate(plan);
+        if (forecast.startDate() == null || forecast.endDate() == null) {
+            throw new IllegalArgumentException("Plan " + forecast.planId() + " has no forecast horizon");
+        }
+        LocalDate start = forecast.startDate();
+        LocalDate last = through != null ? through : LocalDate.now();
+        if (last.isAfter(forecast.endDate())) {
+            last = forecast.endDate();
+        }
+        if (last.isBefore(start)) {
+            throw new IllegalArgumentException("through must not be before the plan start " + start);
+        }
+        final LocalDate cutoff = last;
+        Currency base = forecast.baseCurrency();
+
+        // build side: planned amounts per month and category, up to the cutoff
+        Map<Key, Cell> cells = new HashMap<>();
+        for (ForecastRow row : forecast.rows()) {
+            if (row.date() == null || row.amount() == null || row.date().isBefore(start) || row.date().isAfter(cutoff)) continue;
+            Cell c = cell(cells, YearMonth.from(row.date()), row.category());
+            c.planned = c.planned.add(row.signedAmount());
+        }
+        YearMonth lastMonth = YearMonth.from(cutoff);
+        for (RecurringSeries series : forecast.series()) {
+            BigDecimal signed = new ForecastRow(null, series.amount(), null, null, series.category(), null).signedAmount();
+            series.recurrence().countByMonth().forEach((month, count) -> {
+                if (month.isAfter(lastMonth)) return;
+                long n = month.equals(lastMonth) ? series.recurrence().countBetween(month.atDay(1), cutoff) : count;
+                if (n == 0) return;
+                Cell c = cell(cells, month, series.category());
+                c.planned = c.planned.add(signed.multiply(BigDecimal.valueOf(n)));
+            });
+        }
+
+        // probe side: one pass over the summed actuals; cells without a plan side are added as they come
+        FxRequestCache cache = new FxRequestCache(fxService);
+        for (SeasonalAggregate agg : transactionRepository.sumByCategoryAndMonth(start, cutoff)) {
+            if (agg.amountSum() == null || agg.currency() == null) continue;
+            YearMonth month = YearMonth.of(agg.year(), agg.month());
+            BigDecimal inBase = agg.currency() == base
+                    ? agg.amountSum()
+                    : cache.convert(agg.amountSum(), agg.currency(), base, month.atDay(15));
+            Cell c = cell(cells, month, agg.category());
+            c.actual = c.actual.add(new ForecastRow(null, inBase, null, null, agg.category(), null).signedAmount());
+        }
+
+        PlanVarianceDTO out = new PlanVarianceDTO();
+        List<VarianceRowDTO> rows = new ArrayList<>(cells.size());
+        cells.forEach((k, c) -> rows.add(row(k.month(), c.category, c.planned, c.actual)));
+        rows.sort(Comparator.comparingInt(VarianceRowDTO::getYear)
+                .thenComparingInt(VarianceRowDTO::getMonth)
+                .thenComparing(VarianceRowDTO::getCategory, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (VarianceRowDTO r : rows) {
+            out.setTotalPlanned(out.getTotalPlanned().add(r.getPlanned()));
+            out.setTotalActual(out.getTotalActual().add(r.getActual()));
+        }
+        out.setTotalDelta(out.getTotalActual().subtract(out.getTotalPlanned()));
+        out.setPlanId(plan.getId());
+        out.setBaseCurrency(base != null ? base.name() : null);
+        out.setStartDate(start);
+        out.setThrough(cutoff);
+        out.setRows(rows);
+        log.debug("[VARIANCE] planId={} through={} cells={}", plan.getId(), cutoff, rows.size());
+        return out;
+    }
+
+    private static Cell cell(Map<Key, Cell> cells, YearMonth month, TransactionCategory category) {
+        Cell c = cells.computeIfAbsent(key(month, category), k -> new Cell());
+        if (c.category == null) c.category = category;
+        return c;
+    }
+
+    private static Key key(YearMonth month, TransactionCategory category) {
+        return new Key(month, category != null ? category.getId() : null);
+    }
+
+    private static VarianceRowDTO row(YearMonth month, TransactionCategory category, BigDecimal planned, BigDecimal actual) {
+        VarianceRowDTO dto = new VarianceRowDTO();
+        dto.setYear(month.getYear());
+        dto.setMonth(month.getMonthValue());
+        dto.setCategoryId(category != null ? category.getId() : null);
+        dto.setCategory(category != null ? category.getName() : null);
+        dto.setPlanned(planned);
+        dto.setActual(actual);
+        BigDecimal delta = actual.subtract(planned);
+        dto.setDelta(delta);
+        if (planned.signum() != 0) {
+            dto.setDeviationPercent(delta.multiply(BigDecimal.valueOf(100)).divide(planned.abs(), 2, RoundingMode.HALF_UP));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,6 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import java.time.LocalDate;
+
+// published after an import stored actuals booked between from and to
+public record TransactionsImportedEvent(LocalDate from, LocalDate to) {}
@@ -0,0 +1,6 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import java.time.LocalDate;
+
+// published after transactions booked between from and to moved to another category
+public record TransactionsRecategorizedEvent(LocalDate from, LocalDate to) {}
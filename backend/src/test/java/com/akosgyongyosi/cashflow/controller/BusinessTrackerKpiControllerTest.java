@@ -2,13 +2,18 @@ package com.akosgyongyosi.cashflow.controller;
 
 import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
 import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.service.kpi.CashPositionService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiFilter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiResultCache;
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -26,6 +31,12 @@ class BusinessTrackerKpiControllerTest {
     @Mock
     private KpiDisplayCurrencyConverter displayConverter;
 
+    @Mock
+    private CashPositionService cashPositionService;
+
+    @Spy
+    private KpiResultCache kpiResultCache = new KpiResultCache(new ForecastProperties());
+
     @InjectMocks
     private BusinessTrackerKpiController businessTrackerKpiController;
 
@@ -158,4 +169,19 @@ class BusinessTrackerKpiControllerTest {
         assertThat(result).isNotNull();
         verify(displayConverter, never()).toDisplayCurrency(any(), any(), any(), any());
     }
+
+    @Test
+    void getFilteredBusinessKpi_passesFilterAndBypassesCache() {
+        KpiDashboardDTO dash = new KpiDashboardDTO();
+        KpiFilter filter = new KpiFilter(7L, null, Currency.EUR);
+        when(kpiService.calculateForPeriod(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 6, 30), BigDecimal.ZERO, Currency.HUF, filter))
+            .thenReturn(dash);
+
+        KpiDashboardDTO result = businessTrackerKpiController.getFilteredBusinessKpi(
+            "2024-01-01", "2024-06-30", null, null, null, 7L, null, Currency.EUR);
+
+        assertThat(result).isSameAs(dash);
+        assertThat(result.getBalanceCurrency()).isEqualTo("HUF");
+        verifyNoInteractions(kpiResultCache);
+    }
 }
@@ -1,15 +1,30 @@
 package com.akosgyongyosi.cashflow.controller;
 
+import com.akosgyongyosi.cashflow.dto.BacktestRequestDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestResultDTO;
 import com.akosgyongyosi.cashflow.dto.CreatePlanRequestDTO;
+import com.akosgyongyosi.cashflow.dto.ForecastResponseDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRequestDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityResultDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekRequestDTO;
 import com.akosgyongyosi.cashflow.dto.ScenarioPlanRequestDTO;
 import com.akosgyongyosi.cashflow.dto.MonthlyKpiDTO;
 import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloRequestDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloResultDTO;
+import com.akosgyongyosi.cashflow.dto.ScenarioKpiDTO;
 import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.entity.ScenarioType;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.service.AuditLogService;
 import com.akosgyongyosi.cashflow.service.CashflowPlanService;
+import com.akosgyongyosi.cashflow.service.forecast.BacktestService;
+import com.akosgyongyosi.cashflow.service.forecast.FxSensitivityService;
+import com.akosgyongyosi.cashflow.service.forecast.GoalSeekService;
+import com.akosgyongyosi.cashflow.service.forecast.MonteCarloSimulationService;
+import com.akosgyongyosi.cashflow.service.forecast.ScenarioGroupEvaluationService;
+import com.akosgyongyosi.cashflow.service.forecast.WeeklyForecastService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import org.junit.jupiter.api.BeforeEach;
 
@@ -25,6 +40,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class CashflowPlanControllerTest {
@@ -33,6 +49,12 @@ class CashflowPlanControllerTest {
     private KpiCalculationService kpiService;
     private CashflowPlanRepository planRepository;
     private AuditLogService auditLogService;
+    private ScenarioGroupEvaluationService groupEvaluationService;
+    private MonteCarloSimulationService simulationService;
+    private GoalSeekService goalSeekService;
+    private FxSensitivityService fxSensitivityService;
+    private WeeklyForecastService weeklyForecastService;
+    private BacktestService backtestService;
     private Principal principal;
     private CashflowPlanController controller;
 
@@ -42,9 +64,15 @@ class CashflowPlanControllerTest {
         kpiService = mock(KpiCalculationService.class);
         planRepository = mock(CashflowPlanRepository.class);
         auditLogService = mock(AuditLogService.class);
+        groupEvaluationService = mock(ScenarioGroupEvaluationService.class);
+        simulationService = mock(MonteCarloSimulationService.class);
+        goalSeekService = mock(GoalSeekService.class);
+        fxSensitivityService = mock(FxSensitivityService.class);
+        weeklyForecastService = mock(WeeklyForecastService.class);
+        backtestService = mock(BacktestService.class);
         principal = mock(Principal.class);
         when(principal.getName()).thenReturn("test@example.com");
-        controller = new CashflowPlanController(planService, kpiService, planRepository, auditLogService);
+        controller = new CashflowPlanController(planService, kpiService, planRepository, auditLogService, groupEvaluationService, simulationService, goalSeekService, fxSensitivityService, weeklyForecastService, backtestService);
     }
 
     @Test
@@ -265,4 +293,140 @@ class CashflowPlanControllerTest {
 
         assertThat(response.getStatusCode().is4xxClientError()).isTrue();
     }
+
+    @Test
+    void getGroupKpi_returns_one_dashboard_per_scenario() {
+        ScenarioKpiDTO worst = new ScenarioKpiDTO();
+        worst.setScenario(ScenarioType.WORST);
+        ScenarioKpiDTO best = new ScenarioKpiDTO();
+        best.setScenario(ScenarioType.BEST);
+        when(groupEvaluationService.evaluateGroup("g1", null)).thenReturn(List.of(worst, best));
+
+        var response = controller.getGroupKpi("g1", null);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getBody()).extracting(ScenarioKpiDTO::getScenario)
+                .containsExactly(ScenarioType.WORST, ScenarioType.BEST);
+    }
+
+    @Test
+    void getGroupKpi_returns_404_for_unknown_group() {
+        when(groupEvaluationService.evaluateGroup("missing", Currency.EUR)).thenReturn(List.of());
+
+        var response = controller.getGroupKpi("missing", Currency.EUR);
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+    }
+
+    @Test
+    void simulate_runs_with_defaults_when_body_missing() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        MonteCarloResultDTO result = new MonteCarloResultDTO();
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(simulationService.simulate(eq(plan), any(MonteCarloRequestDTO.class))).thenReturn(result);
+
+        var response = controller.simulate(4L, null);
+
+        assertThat(response.getBody()).isSameAs(result);
+    }
+
+    @Test
+    void simulate_rejects_negative_spread() {
+        MonteCarloRequestDTO req = new MonteCarloRequestDTO();
+        req.setFxSpread(-0.1);
+
+        var response = controller.simulate(4L, req);
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+        verifyNoInteractions(simulationService);
+    }
+
+    @Test
+    void goalSeek_maps_invalid_request_to_bad_request() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        GoalSeekRequestDTO req = new GoalSeekRequestDTO();
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(goalSeekService.solve(plan, req)).thenThrow(new IllegalArgumentException("categoryId and minBalance are required"));
+
+        var response = controller.goalSeek(4L, req);
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+    }
+
+    @Test
+    void goalSeek_returns_404_for_unknown_plan() {
+        when(planService.getPlan(9L)).thenReturn(Optional.empty());
+
+        var response = controller.goalSeek(9L, new GoalSeekRequestDTO());
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+        verifyNoInteractions(goalSeekService);
+    }
+
+    @Test
+    void fxSensitivity_uses_default_grid_when_body_missing() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        FxSensitivityResultDTO result = new FxSensitivityResultDTO();
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(fxSensitivityService.sensitivity(eq(plan), any(FxSensitivityRequestDTO.class))).thenReturn(result);
+
+        var response = controller.fxSensitivity(4L, null);
+
+        assertThat(response.getBody()).isSameAs(result);
+    }
+
+    @Test
+    void backtest_uses_default_windows_when_body_missing() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        BacktestResultDTO result = new BacktestResultDTO();
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(backtestService.backtest(eq(plan), argThat(r -> r.getWindows() == 3))).thenReturn(result);
+
+        var response = controller.backtest(4L, null);
+
+        assertThat(response.getBody()).isSameAs(result);
+    }
+
+    @Test
+    void backtest_returns_bad_request_for_invalid_windows() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        BacktestRequestDTO request = new BacktestRequestDTO();
+        request.setWindows(0);
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(backtestService.backtest(plan, request)).thenThrow(new IllegalArgumentException("windows"));
+
+        var response = controller.backtest(4L, request);
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+    }
+
+    @Test
+    void getWeeklyForecast_passes_paging_through() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        ForecastResponseDTO result = new ForecastResponseDTO();
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(weeklyForecastService.weekly(plan, 2, 26)).thenReturn(result);
+
+        var response = controller.getWeeklyForecast(4L, 2, 26);
+
+        assertThat(response.getBody()).isSameAs(result);
+    }
+
+    @Test
+    void getWeeklyForecast_rejects_negative_page() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(4L);
+        when(planService.getPlan(4L)).thenReturn(Optional.of(plan));
+        when(weeklyForecastService.weekly(plan, -1, null)).thenThrow(new IllegalArgumentException("page must not be negative"));
+
+        var response = controller.getWeeklyForecast(4L, -1, null);
+
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+    }
 }
@@ -1,19 +1,33 @@
 package com.akosgyongyosi.cashflow.controller;
 
+import com.akosgyongyosi.cashflow.dto.CashShortfallAlertDTO;
+import com.akosgyongyosi.cashflow.dto.DailyCashPositionDTO;
 import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.PlanVarianceDTO;
 import com.akosgyongyosi.cashflow.entity.CashflowPlan;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
-import com.akosgyongyosi.cashflow.service.forecast.CashflowCalculationService;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.kpi.CashPositionService;
+import com.akosgyongyosi.cashflow.service.kpi.CashShortfallAlertService;
+import com.akosgyongyosi.cashflow.service.kpi.DailyBalanceSeries;
 import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
 import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import com.akosgyongyosi.cashflow.service.kpi.KpiResultCache;
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.service.kpi.PlanVarianceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,11 +44,23 @@ class KpiDashboardControllerTest {
     private CashflowPlanRepository planRepository;
 
     @Mock
-    private CashflowCalculationService cashflowCalculationService;
+    private ForecastModelCache forecastModelCache;
 
     @Mock
     private KpiDisplayCurrencyConverter displayConverter;
 
+    @Mock
+    private CashPositionService cashPositionService;
+
+    @Mock
+    private PlanVarianceService varianceService;
+
+    @Mock
+    private CashShortfallAlertService shortfallAlertService;
+
+    @Spy
+    private KpiResultCache kpiResultCache = new KpiResultCache(new ForecastProperties());
+
     @InjectMocks
     private KpiDashboardController kpiDashboardController;
 
@@ -56,9 +82,11 @@ class KpiDashboardControllerTest {
         kpiDashboard.setTotalRevenue(new java.math.BigDecimal("10000.0"));
         kpiDashboard.setTotalExpenses(new java.math.BigDecimal("5000.0"));
 
+        ForecastResult forecast = forecastFor(plan);
+
         when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
-        doNothing().when(cashflowCalculationService).applyAllAssumptions(plan);
-        when(kpiService.calculateForPlan(planId)).thenReturn(kpiDashboard);
+        when(forecastModelCache.evaluate(plan)).thenReturn(forecast);
+        when(kpiService.calculateForForecast(forecast)).thenReturn(kpiDashboard);
 
         KpiDashboardDTO result = kpiDashboardController.getKpi(planId, null);
 
@@ -66,9 +94,26 @@ class KpiDashboardControllerTest {
         assertThat(result.getBaseCurrency()).isEqualTo("USD");
         assertThat(result.getTotalRevenue()).isEqualByComparingTo("10000.0");
         verify(planRepository).findById(planId);
-        verify(cashflowCalculationService).applyAllAssumptions(plan);
-        verify(kpiService).calculateForPlan(planId);
-        verify(planRepository).save(plan);
+        verify(forecastModelCache).evaluate(plan);
+        verify(kpiService).calculateForForecast(forecast);
+    }
+
+    @Test
+    void getKpi_shouldNotPersistAnything() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2024, 1, 1));
+        ForecastResult forecast = forecastFor(plan);
+
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(forecastModelCache.evaluate(plan)).thenReturn(forecast);
+        when(kpiService.calculateForForecast(forecast)).thenReturn(new KpiDashboardDTO());
+
+        kpiDashboardController.getKpi(planId, null);
+
+        verify(planRepository, never()).save(any());
     }
 
     @Test
@@ -89,9 +134,11 @@ class KpiDashboardControllerTest {
         convertedKpi.setBaseCurrency("EUR");
         convertedKpi.setTotalRevenue(new java.math.BigDecimal("9000.0"));
 
+        ForecastResult forecast = forecastFor(plan);
+
         when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
-        doNothing().when(cashflowCalculationService).applyAllAssumptions(plan);
-        when(kpiService.calculateForPlan(planId)).thenReturn(baseCurrencyKpi);
+        when(forecastModelCache.evaluate(plan)).thenReturn(forecast);
+        when(kpiService.calculateForForecast(forecast)).thenReturn(baseCurrencyKpi);
         when(displayConverter.toDisplayCurrency(baseCurrencyKpi, plan.getStartDate(), 
             Currency.USD, Currency.EUR)).thenReturn(convertedKpi);
 
@@ -115,9 +162,11 @@ class KpiDashboardControllerTest {
         KpiDashboardDTO kpiDashboard = new KpiDashboardDTO();
         kpiDashboard.setTotalRevenue(new java.math.BigDecimal("10000.0"));
 
+        ForecastResult forecast = forecastFor(plan);
+
         when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
-        doNothing().when(cashflowCalculationService).applyAllAssumptions(plan);
-        when(kpiService.calculateForPlan(planId)).thenReturn(kpiDashboard);
+        when(forecastModelCache.evaluate(plan)).thenReturn(forecast);
+        when(kpiService.calculateForForecast(forecast)).thenReturn(kpiDashboard);
 
         KpiDashboardDTO result = kpiDashboardController.getKpi(planId, null);
 
@@ -134,7 +183,53 @@ class KpiDashboardControllerTest {
             .hasMessageContaining("Plan not found");
         
         verify(planRepository).findById(planId);
-        verify(cashflowCalculationService, never()).applyAllAssumptions(any());
-        verify(kpiService, never()).calculateForPlan(any());
+        verify(forecastModelCache, never()).evaluate(any());
+        verify(kpiService, never()).calculateForForecast(any());
+    }
+
+    @Test
+    void getDailyPosition_buildsSeriesForPlan() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.EUR);
+        DailyBalanceSeries series = DailyBalanceSeries.build(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                BigDecimal.ZERO, sink -> {});
+        DailyCashPositionDTO dto = new DailyCashPositionDTO();
+        when(planRepository.findById(1L)).thenReturn(Optional.of(plan));
+        when(cashPositionService.forPlan(plan)).thenReturn(series);
+        when(cashPositionService.toDto(series, null, LocalDate.of(2025, 1, 15), Currency.EUR)).thenReturn(dto);
+
+        DailyCashPositionDTO result = kpiDashboardController.getDailyPosition(1L, null, LocalDate.of(2025, 1, 15));
+
+        assertThat(result).isSameAs(dto);
+    }
+
+    @Test
+    void getVariance_delegatesWithCutoff() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        PlanVarianceDTO dto = new PlanVarianceDTO();
+        when(planRepository.findById(1L)).thenReturn(Optional.of(plan));
+        when(varianceService.variance(plan, LocalDate.of(2025, 6, 30))).thenReturn(dto);
+
+        PlanVarianceDTO result = kpiDashboardController.getVariance(1L, LocalDate.of(2025, 6, 30));
+
+        assertThat(result).isSameAs(dto);
+    }
+
+    @Test
+    void getShortfallAlert_returnsStoredScanOrNotFound() {
+        CashShortfallAlertDTO dto = new CashShortfallAlertDTO();
+        when(shortfallAlertService.alertForPlan(1L)).thenReturn(Optional.of(dto));
+        when(shortfallAlertService.alertForPlan(2L)).thenReturn(Optional.empty());
+
+        assertThat(kpiDashboardController.getShortfallAlert(1L).getBody()).isSameAs(dto);
+        assertThat(kpiDashboardController.getShortfallAlert(2L).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(forecastModelCache, cashPositionService);
+    }
+
+    private ForecastResult forecastFor(CashflowPlan plan) {
+        return new ForecastResult(plan.getId(), plan.getBaseCurrency(), plan.getStartDate(),
+                plan.getStartDate().plusYears(1).minusDays(1), BigDecimal.ZERO, List.of());
     }
 }
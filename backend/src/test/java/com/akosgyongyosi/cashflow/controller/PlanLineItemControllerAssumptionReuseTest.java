@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
@@ -37,6 +38,7 @@ class PlanLineItemControllerAssumptionReuseTest {
     @Mock private com.akosgyongyosi.cashflow.service.fx.TransactionDateRangeFxService transactionDateRangeFxService;
     @Mock private com.akosgyongyosi.cashflow.service.CashflowPlanService cashflowPlanService;
     @Mock private AuditLogService auditLogService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private PlanLineItemController controller;
 
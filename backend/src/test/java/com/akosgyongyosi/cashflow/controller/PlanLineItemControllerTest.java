@@ -3,17 +3,22 @@ package com.akosgyongyosi.cashflow.controller;
 import com.akosgyongyosi.cashflow.dto.PlanLineItemRequestDTO;
 import com.akosgyongyosi.cashflow.dto.PlanLineItemResponseDTO;
 import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.repository.AssumptionSignature;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.repository.PlanLineItemRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import com.akosgyongyosi.cashflow.service.AssumptionIdGeneratorService;
 import com.akosgyongyosi.cashflow.service.AuditLogService;
 import com.akosgyongyosi.cashflow.service.forecast.CashflowCalculationService;
+import com.akosgyongyosi.cashflow.service.forecast.WhatIfPreviewService;
+import com.akosgyongyosi.cashflow.service.kpi.PlanChangedEvent;
+import com.akosgyongyosi.cashflow.dto.LineItemPreviewDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -23,10 +28,12 @@ import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SuppressWarnings({"null"})
@@ -59,6 +66,12 @@ class PlanLineItemControllerTest {
     @Mock
     private AuditLogService auditLogService;
 
+    @Mock
+    private WhatIfPreviewService whatIfPreviewService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PlanLineItemController planLineItemController;
 
@@ -225,6 +238,184 @@ class PlanLineItemControllerTest {
         verify(lineItemRepository).findByPlanId(planId);
     }
 
+    @Test
+    void previewLineItem_shouldEvaluateCandidateWithoutWrites() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setLineItems(new java.util.ArrayList<>());
+
+        PlanLineItemRequestDTO dto = new PlanLineItemRequestDTO();
+        dto.setTitle("Bonus");
+        dto.setType(LineItemType.ONE_TIME);
+        dto.setAmount(new BigDecimal("1000"));
+        dto.setTransactionDate(LocalDate.of(2025, 6, 1));
+
+        LineItemPreviewDTO preview = new LineItemPreviewDTO();
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(whatIfPreviewService.preview(eq(plan), any(PlanLineItem.class))).thenReturn(preview);
+
+        ResponseEntity<Object> response = planLineItemController.previewLineItem(planId, dto);
+
+        assertThat(response.getBody()).isSameAs(preview);
+        assertThat(plan.getLineItems()).isEmpty();
+        verify(whatIfPreviewService).preview(eq(plan), argThat(li ->
+                li.getAssumptionId() == null && li.getType() == LineItemType.ONE_TIME
+                        && li.getAmount().compareTo(new BigDecimal("1000")) == 0));
+        verifyNoInteractions(assumptionIdGenService, auditLogService);
+        verify(lineItemRepository, never()).save(any());
+        verify(lineItemRepository, never()).saveAll(anyList());
+        verify(planRepository, never()).save(any());
+        verify(cashflowCalculationService, never()).applyAllAssumptions(any());
+    }
+
+    @Test
+    void createLineItems_shouldAllocateIdsInOneBlockAndApplyOnce() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setLineItems(new java.util.ArrayList<>());
+
+        PlanLineItemRequestDTO rent = new PlanLineItemRequestDTO();
+        rent.setTitle("Rent");
+        rent.setType(LineItemType.RECURRING);
+        rent.setAmount(new BigDecimal("-500"));
+        rent.setFrequency(Frequency.MONTHLY);
+        rent.setStartDate(LocalDate.of(2025, 1, 1));
+        rent.setEndDate(LocalDate.of(2025, 12, 31));
+        PlanLineItemRequestDTO bonus = new PlanLineItemRequestDTO();
+        bonus.setTitle("Bonus");
+        bonus.setType(LineItemType.ONE_TIME);
+        bonus.setAmount(new BigDecimal("1000"));
+        bonus.setTransactionDate(LocalDate.of(2025, 6, 1));
+        PlanLineItemRequestDTO shared = new PlanLineItemRequestDTO();
+        shared.setTitle("Shared");
+        shared.setType(LineItemType.ONE_TIME);
+        shared.setAmount(new BigDecimal("10"));
+        shared.setTransactionDate(LocalDate.of(2025, 7, 1));
+        shared.setAssumptionId(99L);
+
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(assumptionIdGenService.reserveBlock(2)).thenReturn(40L);
+        when(lineItemRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        ResponseEntity<Object> response = planLineItemController.createLineItems(planId, List.of(rent, bonus, shared), principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(plan.getLineItems()).extracting(PlanLineItem::getAssumptionId).containsExactly(40L, 41L, 99L);
+        verify(assumptionIdGenService).reserveBlock(2);
+        verify(assumptionIdGenService, never()).getNextAssumptionId();
+        verify(transactionDateRangeFxService, times(1)).ensureRatesForTransactionsWithForwardCoverage(any());
+        verify(cashflowCalculationService, times(1)).applyAllAssumptions(plan);
+        verify(planRepository, times(1)).save(plan);
+    }
+
+    @Test
+    void createLineItems_shouldSkipItemsAlreadyInPlan() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        PlanLineItem existing = new PlanLineItem();
+        existing.setAssumptionId(7L);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(existing)));
+
+        PlanLineItemRequestDTO dup = new PlanLineItemRequestDTO();
+        dup.setTitle("Dup");
+        dup.setType(LineItemType.ONE_TIME);
+        dup.setAmount(BigDecimal.ONE);
+        dup.setTransactionDate(LocalDate.of(2025, 2, 1));
+        dup.setAssumptionId(7L);
+
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(lineItemRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        ResponseEntity<Object> response = planLineItemController.createLineItems(planId, List.of(dup), principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(plan.getLineItems()).containsExactly(existing);
+        verifyNoInteractions(assumptionIdGenService);
+    }
+
+    @Test
+    void createLineItems_shouldReuseIdsFromOneQueryAndFetchRatesForNewItemsOnly() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        PlanLineItem old = new PlanLineItem();
+        old.setAssumptionId(3L);
+        old.setTransactionDate(LocalDate.of(2020, 1, 1));
+        plan.setLineItems(new java.util.ArrayList<>(List.of(old)));
+
+        PlanLineItemRequestDTO rent = new PlanLineItemRequestDTO();
+        rent.setTitle("RENT");
+        rent.setType(LineItemType.RECURRING);
+        rent.setAmount(new BigDecimal("-500"));
+        rent.setFrequency(Frequency.MONTHLY);
+        rent.setStartDate(LocalDate.of(2025, 1, 1));
+        rent.setEndDate(LocalDate.of(2025, 12, 31));
+        PlanLineItemRequestDTO bonus = new PlanLineItemRequestDTO();
+        bonus.setTitle("Bonus");
+        bonus.setType(LineItemType.ONE_TIME);
+        bonus.setAmount(new BigDecimal("1000"));
+        bonus.setTransactionDate(LocalDate.of(2025, 6, 1));
+
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(lineItemRepository.findSignaturesByTitles(Set.of("RENT", "BONUS"))).thenReturn(List.of(
+                new AssumptionSignature("Rent", LineItemType.RECURRING, null, LocalDate.of(2025, 1, 1), Frequency.WEEKLY, null, 4L),
+                new AssumptionSignature("Rent", LineItemType.RECURRING, null, LocalDate.of(2025, 1, 1), Frequency.MONTHLY, null, 5L),
+                new AssumptionSignature("Bonus", LineItemType.ONE_TIME, LocalDate.of(2025, 5, 1), null, null, null, 6L)));
+        when(assumptionIdGenService.reserveBlock(1)).thenReturn(40L);
+        when(lineItemRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        ResponseEntity<Object> response = planLineItemController.createLineItems(planId, List.of(rent, bonus), principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(plan.getLineItems()).extracting(PlanLineItem::getAssumptionId).containsExactly(3L, 5L, 40L);
+        verify(lineItemRepository, times(1)).findSignaturesByTitles(any());
+        verify(lineItemRepository, never()).findFirstByTitleIgnoreCaseAndTypeAndTransactionDate(any(), any(), any());
+        verify(lineItemRepository, never()).findFirstByTitleIgnoreCaseAndTypeAndStartDateAndFrequency(any(), any(), any(), any());
+        verify(transactionDateRangeFxService).ensureRatesForTransactionsWithForwardCoverage(
+                Set.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), LocalDate.of(2025, 6, 1)));
+    }
+
+    @Test
+    void createLineItems_shouldReturnBadRequestWhenApplyingFails() {
+        Long planId = 1L;
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setLineItems(new java.util.ArrayList<>());
+
+        PlanLineItemRequestDTO bonus = new PlanLineItemRequestDTO();
+        bonus.setTitle("Bonus");
+        bonus.setType(LineItemType.ONE_TIME);
+        bonus.setAmount(new BigDecimal("1000"));
+        bonus.setTransactionDate(LocalDate.of(2025, 6, 1));
+        bonus.setAssumptionId(9L);
+
+        when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
+        when(lineItemRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        doThrow(new IllegalStateException("boom")).when(cashflowCalculationService).applyAllAssumptions(plan);
+
+        ResponseEntity<Object> response = planLineItemController.createLineItems(planId, List.of(bonus), principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(planRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createLineItems_shouldRejectEmptyBatch() {
+        ResponseEntity<Object> response = planLineItemController.createLineItems(1L, List.of(), principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(planRepository);
+    }
+
     @Test
     void deleteLineItem_shouldDeleteAndRecalculate() {
         Long planId = 1L;
@@ -240,6 +431,7 @@ class PlanLineItemControllerTest {
 
         when(lineItemRepository.findById(itemId)).thenReturn(Optional.of(item));
         doNothing().when(lineItemRepository).delete(item);
+        when(cashflowPlanService.revertAppliedAssumption(plan, item)).thenReturn(false);
         when(cashflowPlanService.regenerateBaseline(planId)).thenReturn(plan);
         when(planRepository.findById(planId)).thenReturn(Optional.of(plan));
         doNothing().when(cashflowCalculationService).applyAllAssumptions(plan);
@@ -249,12 +441,38 @@ class PlanLineItemControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         verify(lineItemRepository).delete(item);
         verify(cashflowPlanService).regenerateBaseline(planId);
-        verify(planRepository, times(2)).findById(planId);
+        verify(planRepository).findById(planId);
     verify(lineItemRepository).saveAll(anyList()); 
         verify(cashflowCalculationService).applyAllAssumptions(plan);
         verify(planRepository).save(plan);
     }
 
+    @Test
+    void deleteLineItem_shouldRevertOnlyTheDeletedAssumption() {
+        Long planId = 1L;
+        Long itemId = 10L;
+
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(planId);
+        PlanLineItem item = new PlanLineItem();
+        item.setId(itemId);
+        item.setPlan(plan);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(item)));
+
+        when(lineItemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(cashflowPlanService.revertAppliedAssumption(plan, item)).thenReturn(true);
+
+        ResponseEntity<Void> response = planLineItemController.deleteLineItem(planId, itemId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(plan.getLineItems()).isEmpty();
+        verify(lineItemRepository).delete(item);
+        verify(cashflowPlanService, never()).regenerateBaseline(any());
+        verify(cashflowCalculationService, never()).applyAllAssumptions(any());
+        verify(planRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new PlanChangedEvent(planId));
+    }
+
     @Test
     void deleteLineItem_shouldReturnForbiddenWhenPlanMismatch() {
         Long planId = 1L;
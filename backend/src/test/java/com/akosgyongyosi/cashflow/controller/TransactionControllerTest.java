@@ -8,6 +8,9 @@ import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiRollupService;
+import com.akosgyongyosi.cashflow.service.kpi.TransactionsRecategorizedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -29,6 +32,8 @@ class TransactionControllerTest {
     private TransactionRepository transactionRepository;
     private TransactionCategoryRepository categoryRepository;
     private FxService fxService;
+    private KpiRollupService kpiRollupService;
+    private ApplicationEventPublisher eventPublisher;
     private TransactionController controller;
 
     @BeforeEach
@@ -36,7 +41,9 @@ class TransactionControllerTest {
         transactionRepository = mock(TransactionRepository.class);
         categoryRepository = mock(TransactionCategoryRepository.class);
         fxService = mock(FxService.class);
-        controller = new TransactionController(transactionRepository, categoryRepository, fxService);
+        kpiRollupService = mock(KpiRollupService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        controller = new TransactionController(transactionRepository, categoryRepository, fxService, kpiRollupService, eventPublisher);
     }
 
     @Test
@@ -232,6 +239,8 @@ class TransactionControllerTest {
         assertThat(tx1.getCategory()).isEqualTo(cat);
         assertThat(tx2.getCategory()).isEqualTo(cat);
     verify(transactionRepository).saveAll(isNotNull());
+        verify(kpiRollupService).apply(any());
+        verify(eventPublisher).publishEvent(new TransactionsRecategorizedEvent(LocalDate.now(), LocalDate.now()));
     }
 
     @Test
@@ -6,6 +6,7 @@ import com.akosgyongyosi.cashflow.repository.AccountingCategoryRepository;
 import com.akosgyongyosi.cashflow.repository.TransactionCategoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,13 +19,15 @@ class AccountingCategoryServiceTest {
 
     private AccountingCategoryRepository acr;
     private TransactionCategoryRepository tcr;
+    private ApplicationEventPublisher eventPublisher;
     private AccountingCategoryService svc;
 
     @BeforeEach
     void setUp() {
         acr = mock(AccountingCategoryRepository.class);
         tcr = mock(TransactionCategoryRepository.class);
-        svc = new AccountingCategoryService(acr, tcr);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        svc = new AccountingCategoryService(acr, tcr, eventPublisher);
     }
 
     @Test
@@ -115,6 +118,7 @@ class AccountingCategoryServiceTest {
         assertThat(tc1.getAccountingCategory()).isSameAs(accountingCategory);
         verify(tcr).save(tc1);
         verify(tcr, times(1)).save(any()); // Only one save
+        verify(eventPublisher).publishEvent(new CategoryMappingChangedEvent(List.of(1L)));
     }
 
     @Test
@@ -161,5 +165,6 @@ class AccountingCategoryServiceTest {
         verify(tcr).findById(1L);
         verify(tcr).findById(2L);
         verify(tcr, never()).save(any()); // No saves
+        verifyNoInteractions(eventPublisher);
     }
 }
@@ -94,4 +94,25 @@ class AssumptionIdGeneratorServiceTest {
         seq.setNextVal(nextVal);
         return seq;
     }
+
+    @Test
+    void reserveBlock_shouldAdvanceSequenceByBlockSizeInOneSave() {
+        AssumptionIdSequence existingSeq = new AssumptionIdSequence();
+        existingSeq.setSeqName("ASSUMPTION_ID");
+        existingSeq.setNextVal(10L);
+        when(repo.findById("ASSUMPTION_ID")).thenReturn(Optional.of(existingSeq));
+
+        Long first = svc.reserveBlock(25);
+
+        assertThat(first).isEqualTo(10L);
+        assertThat(existingSeq.getNextVal()).isEqualTo(35L);
+        verify(repo, times(1)).save(any());
+    }
+
+    @Test
+    void reserveBlock_shouldRejectEmptyBlock() {
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> svc.reserveBlock(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repo);
+    }
 }
@@ -2,11 +2,18 @@ package com.akosgyongyosi.cashflow.service;
 
 import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.CashflowCalculationService;
+import com.akosgyongyosi.cashflow.service.forecast.strategy.CategoryAdjustmentStrategy;
+import com.akosgyongyosi.cashflow.service.forecast.strategy.OneTimeTransactionStrategy;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.kpi.PlanChangedEvent;
 import com.akosgyongyosi.cashflow.entity.Currency;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,15 +28,21 @@ class CashflowPlanServiceTest {
 
     private CashflowPlanRepository planRepo;
     private TransactionRepository txRepo;
+    private HistoricalTransactionRepository histRepo;
     private FxService fxService;
+    private SeasonalBaselineService seasonalBaselineService;
+    private ApplicationEventPublisher eventPublisher;
     private CashflowPlanService svc;
 
     @BeforeEach
     void setUp() {
         planRepo = mock(CashflowPlanRepository.class);
         txRepo = mock(TransactionRepository.class);
+        histRepo = mock(HistoricalTransactionRepository.class);
         fxService = mock(FxService.class);
-        svc = new CashflowPlanService(planRepo, txRepo, fxService);
+        seasonalBaselineService = mock(SeasonalBaselineService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        svc = new CashflowPlanService(planRepo, txRepo, histRepo, fxService, List.of(seasonalBaselineService), eventPublisher);
     }
 
     @Test
@@ -83,6 +96,81 @@ class CashflowPlanServiceTest {
             .allMatch(key -> key.equals(list.get(0).getGroupKey()));
     }
 
+    @Test
+    void createPlanForInterval_withAggregatedBaseline_persistsOnlyAggregates() {
+        LocalDate start = LocalDate.of(2025,1,1);
+        LocalDate end = LocalDate.of(2025,12,31);
+        HistoricalTransaction aggregated = new HistoricalTransaction();
+        when(txRepo.sumByCategoryAndMonth(start.minusYears(1), end.minusYears(1)))
+            .thenReturn(List.of(new SeasonalAggregate(null, 2024, 3, Currency.EUR, BigDecimal.TEN, 4L)));
+        when(seasonalBaselineService.supports(BaselineMode.AVERAGE)).thenReturn(true);
+        when(seasonalBaselineService.build(any(CashflowPlan.class), any())).thenReturn(List.of(aggregated));
+        when(planRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        CashflowPlan plan = svc.createPlanForInterval("Seasonal", start, end, "g", BaselineMode.AVERAGE, 3, BaselineGranularity.WEEK);
+
+        assertThat(plan.getBaselineTransactions()).containsExactly(aggregated);
+        assertThat(plan.getBaseCurrency()).isEqualTo(Currency.EUR);
+        assertThat(plan.getBaselineYears()).isEqualTo(3);
+        assertThat(plan.getBaselineGranularity()).isEqualTo(BaselineGranularity.WEEK);
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    @Test
+    void createPlanForInterval_rejectsOutOfRangeBaselineYears() {
+        LocalDate s = LocalDate.of(2025,1,1);
+        org.assertj.core.api.Assertions.assertThatThrownBy(() ->
+                svc.createPlanForInterval("X", s, s, "g", BaselineMode.WEIGHTED, 0, BaselineGranularity.MONTH))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(planRepo);
+    }
+
+    @Test
+    void regenerateBaseline_keepsTheAggregatedMode() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaselineMode(BaselineMode.AVERAGE);
+        plan.setBaselineYears(2);
+        plan.setBaselineTransactions(new java.util.ArrayList<>(List.of(new HistoricalTransaction())));
+        HistoricalTransaction aggregated = new HistoricalTransaction();
+        when(planRepo.findById(1L)).thenReturn(Optional.of(plan));
+        when(seasonalBaselineService.supports(BaselineMode.AVERAGE)).thenReturn(true);
+        when(seasonalBaselineService.build(eq(plan), any())).thenReturn(List.of(aggregated));
+        when(planRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        svc.regenerateBaseline(1L);
+
+        assertThat(plan.getBaselineTransactions()).containsExactly(aggregated);
+        verifyNoInteractions(txRepo);
+        verify(eventPublisher).publishEvent(new PlanChangedEvent(1L));
+    }
+
+    @Test
+    void createAllScenarioPlans_publishesPlanChangedPerPlan() {
+        LocalDate s = LocalDate.of(2025, 1, 1);
+        long[] ids = {10L};
+        when(planRepo.save(any())).thenAnswer(inv -> {
+            CashflowPlan p = inv.getArgument(0);
+            p.setId(ids[0]++);
+            return p;
+        });
+
+        svc.createAllScenarioPlans("X", s, s, BigDecimal.ZERO, Currency.HUF);
+
+        verify(eventPublisher).publishEvent(new PlanChangedEvent(10L));
+        verify(eventPublisher).publishEvent(new PlanChangedEvent(11L));
+        verify(eventPublisher).publishEvent(new PlanChangedEvent(12L));
+    }
+
+    @Test
+    void createPlanForInterval_rejectsModeWithoutGenerator() {
+        LocalDate s = LocalDate.of(2025,1,1);
+        org.assertj.core.api.Assertions.assertThatThrownBy(() ->
+                svc.createPlanForInterval("X", s, s, "g", BaselineMode.HOLT_WINTERS, 3, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(planRepo, never()).save(any());
+    }
+
     @Test
     void findAllByGroupKey_delegates() {
         when(planRepo.findByGroupKey("k")).thenReturn(List.of(new CashflowPlan()));
@@ -125,4 +213,169 @@ class CashflowPlanServiceTest {
             .findFirst().orElseThrow();
         assertThat(hufHist.getAmount()).isEqualByComparingTo("10000");
     }
+
+    @Test
+    void revertAppliedAssumption_deletesOnlyRowsTaggedWithTheAssumption() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.ONE_TIME);
+        item.setAssumptionId(42L);
+        item.setIsApplied(true);
+        when(histRepo.deleteByPlanIdAndSourceAssumptionId(1L, 42L)).thenReturn(1);
+
+        assertThat(svc.revertAppliedAssumption(plan, item)).isTrue();
+        verify(histRepo).deleteByPlanIdAndSourceAssumptionId(1L, 42L);
+    }
+
+    @Test
+    void revertAppliedAssumption_reportsUntaggedLegacyRows() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.RECURRING);
+        item.setAssumptionId(42L);
+        item.setIsApplied(true);
+        when(histRepo.deleteByPlanIdAndSourceAssumptionId(1L, 42L)).thenReturn(0);
+
+        assertThat(svc.revertAppliedAssumption(plan, item)).isFalse();
+    }
+
+    @Test
+    void revertAppliedAssumption_skipsPendingItems() {
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.ONE_TIME);
+        item.setIsApplied(false);
+
+        assertThat(svc.revertAppliedAssumption(new CashflowPlan(), item)).isTrue();
+        verifyNoInteractions(histRepo);
+    }
+
+    @Test
+    void revertAppliedAssumption_unscalesRowsTheAdjustmentTouched() {
+        CashflowPlan plan = adjustablePlan();
+        PlanLineItem adjustment = adjustment(2L, 8L, 1.25);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(adjustment)));
+
+        HistoricalTransaction actual = historical(new BigDecimal("125.00"), null);
+        actual.setUnadjustedAmount(new BigDecimal("100.00"));
+        actual.setAdjustedByIds(List.of(8L));
+        HistoricalTransaction materialized = historical(new BigDecimal("300.00"), 9L);
+        when(histRepo.findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(1L, 5L, plan.getStartDate(), plan.getEndDate()))
+            .thenReturn(List.of(actual, materialized));
+
+        assertThat(svc.revertAppliedAssumption(plan, adjustment)).isTrue();
+        assertThat(actual.getAmount()).isEqualByComparingTo("100");
+        assertThat(actual.getAdjustedBy()).isNull();
+        assertThat(materialized.getAmount()).isEqualByComparingTo("300");
+        verify(histRepo).saveAll(List.of(actual));
+    }
+
+    @Test
+    void revertAppliedAssumption_afterRebuildKeepsRowsMaterializedAfterTheAdjustment() {
+        CashflowPlan plan = adjustablePlan();
+        PlanLineItem oneTime = oneTime(1L, 7L, "200.00");
+        PlanLineItem adjustment = adjustment(2L, 8L, 1.25);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(oneTime, adjustment)));
+        HistoricalTransaction actual = historical(new BigDecimal("100.00"), null);
+        actual.setTransactionDate(LocalDate.of(2025, 3, 1));
+        actual.setCategory(adjustment.getCategory());
+        plan.getBaselineTransactions().add(actual);
+
+        // a rebuild applies adjustments before everything else, whatever the item ids
+        calculation().applyAllAssumptions(plan);
+        assertThat(actual.getAmount()).isEqualByComparingTo("125");
+        when(histRepo.findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(1L, 5L, plan.getStartDate(), plan.getEndDate()))
+            .thenReturn(List.copyOf(plan.getBaselineTransactions()));
+
+        assertThat(svc.revertAppliedAssumption(plan, adjustment)).isTrue();
+        assertThat(plan.getBaselineTransactions())
+            .extracting(HistoricalTransaction::getAmount)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(new BigDecimal("100"), new BigDecimal("200"));
+    }
+
+    @Test
+    void revertAppliedAssumption_afterMixedBatchReappliesRemainingAdjustmentsExactly() {
+        CashflowPlan plan = adjustablePlan();
+        PlanLineItem first = adjustment(1L, 7L, 1.1);
+        PlanLineItem oneTime = oneTime(2L, 8L, "50.00");
+        PlanLineItem second = adjustment(3L, 9L, 1.25);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(first, oneTime, second)));
+        HistoricalTransaction actual = historical(new BigDecimal("33.33"), null);
+        actual.setTransactionDate(LocalDate.of(2025, 3, 1));
+        actual.setCategory(first.getCategory());
+        plan.getBaselineTransactions().add(actual);
+
+        calculation().applyAllAssumptions(plan);
+        when(histRepo.findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(1L, 5L, plan.getStartDate(), plan.getEndDate()))
+            .thenReturn(List.copyOf(plan.getBaselineTransactions()));
+
+        assertThat(svc.revertAppliedAssumption(plan, first)).isTrue();
+        // 33.33 * 1.25, not 33.33 * 1.1 * 1.25 / 1.1 with two roundings in between
+        assertThat(actual.getAmount()).isEqualByComparingTo("41.66");
+        assertThat(actual.adjustedByIds()).containsExactly(9L);
+        assertThat(plan.getBaselineTransactions().get(1).getAmount()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void revertAppliedAssumption_rebuildsWhenRowsPredateTheAdjustmentRecord() {
+        CashflowPlan plan = adjustablePlan();
+        PlanLineItem adjustment = adjustment(2L, 8L, 1.25);
+        plan.setLineItems(new java.util.ArrayList<>(List.of(adjustment)));
+        when(histRepo.findByCashflowPlanIdAndCategoryIdAndTransactionDateBetween(1L, 5L, plan.getStartDate(), plan.getEndDate()))
+            .thenReturn(List.of(historical(new BigDecimal("125.00"), null)));
+
+        assertThat(svc.revertAppliedAssumption(plan, adjustment)).isFalse();
+        verify(histRepo, never()).saveAll(any());
+    }
+
+    private CashflowPlan adjustablePlan() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setBaselineTransactions(new java.util.ArrayList<>());
+        return plan;
+    }
+
+    private PlanLineItem adjustment(Long id, Long assumptionId, double factor) {
+        TransactionCategory cat = new TransactionCategory();
+        cat.setId(5L);
+        PlanLineItem item = new PlanLineItem();
+        item.setId(id);
+        item.setAssumptionId(assumptionId);
+        item.setType(LineItemType.CATEGORY_ADJUSTMENT);
+        item.setCategory(cat);
+        item.setPercentChange(factor);
+        item.setIsApplied(false);
+        return item;
+    }
+
+    private PlanLineItem oneTime(Long id, Long assumptionId, String amount) {
+        TransactionCategory cat = new TransactionCategory();
+        cat.setId(5L);
+        PlanLineItem item = new PlanLineItem();
+        item.setId(id);
+        item.setAssumptionId(assumptionId);
+        item.setType(LineItemType.ONE_TIME);
+        item.setCategory(cat);
+        item.setAmount(new BigDecimal(amount));
+        item.setCurrency(Currency.HUF);
+        item.setTransactionDate(LocalDate.of(2025, 3, 2));
+        item.setIsApplied(false);
+        return item;
+    }
+
+    private CashflowCalculationService calculation() {
+        return new CashflowCalculationService(List.of(new CategoryAdjustmentStrategy(), new OneTimeTransactionStrategy()), fxService);
+    }
+
+    private HistoricalTransaction historical(BigDecimal amount, Long sourceAssumptionId) {
+        HistoricalTransaction ht = new HistoricalTransaction();
+        ht.setAmount(amount);
+        ht.setSourceAssumptionId(sourceAssumptionId);
+        return ht;
+    }
 }
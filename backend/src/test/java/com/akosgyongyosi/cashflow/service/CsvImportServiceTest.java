@@ -9,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -21,6 +22,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import com.akosgyongyosi.cashflow.entity.*;
 import org.mockito.ArgumentCaptor;
+import com.akosgyongyosi.cashflow.service.kpi.KpiRollupService;
+import com.akosgyongyosi.cashflow.service.kpi.TransactionsImportedEvent;
+import java.time.LocalDate;
 
 @ExtendWith(MockitoExtension.class)
 class CsvImportServiceTest {
@@ -34,6 +38,12 @@ class CsvImportServiceTest {
     @Mock
     private TransactionCategoryRepository categoryRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private KpiRollupService kpiRollupService;
+
     @InjectMocks
     private CsvImportService service;
 
@@ -79,6 +89,26 @@ class CsvImportServiceTest {
             .containsExactly("Partner A", "Partner B");
     }
 
+    @org.junit.jupiter.api.Test
+    void parseSingleFile_shouldPublishImportedDateRange() {
+        String content = """
+            2025.02.03;2025.02.04;123;Partner B;789;200,75;J;CODE2;memo2
+            2025.01.01;2025.01.02;123;Partner A;456;100,50;T;CODE1;memo1
+            """;
+        InputStream in = new ByteArrayInputStream(content.getBytes());
+
+        when(bankAccountRepository.findByAccountNumber("123")).thenReturn(Optional.empty());
+        when(bankAccountRepository.save(any())).thenReturn(mockBankAccount);
+        when(categoryRepository.findByName(any())).thenReturn(Optional.empty());
+        when(categoryRepository.save(any())).thenReturn(mockCategory);
+        when(transactionRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.parseSingleFile(in, "sample_huf.csv");
+
+        verify(eventPublisher).publishEvent(new TransactionsImportedEvent(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 4)));
+        verify(kpiRollupService, times(1)).apply(any());
+    }
+
     @org.junit.jupiter.api.Test
     void parseSingleFile_shouldParseCurrencyFromFilename() {
         String content = "2025.01.01;2025.01.02;123;Partner;456;100,50;T;CODE;memo";
@@ -0,0 +1,47 @@
+package com.akosgyongyosi.cashflow.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HoltWintersTest {
+
+    @Test
+    void seasonalSeries_isProjectedWithItsSeasonalShape() {
+        double[] y = new double[36];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = 1000 + 200 * Math.sin(2 * Math.PI * t / 12);
+        }
+
+        HoltWinters model = HoltWinters.fit(y);
+
+        for (int h = 1; h <= 12; h++) {
+            double expected = 1000 + 200 * Math.sin(2 * Math.PI * (35 + h) / 12);
+            assertThat(model.forecast(h)).isCloseTo(expected, within(5d));
+        }
+    }
+
+    @Test
+    void trendIsDampedOverLongHorizons() {
+        double[] y = new double[36];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = 100 + 10 * t;
+        }
+
+        HoltWinters model = HoltWinters.fit(y);
+
+        assertThat(model.forecast(1)).isCloseTo(460, within(10d));
+        assertThat(model.forecast(60) - model.forecast(48)).isLessThan(10 * 12);
+        assertThat(model.forecast(60)).isGreaterThan(model.forecast(12));
+    }
+
+    @Test
+    void shortSeries_fallsBackToAFlatLevel() {
+        HoltWinters model = HoltWinters.fit(new double[] {50, 50, 50, 50, 50});
+
+        assertThat(model.forecast(1)).isEqualTo(50d);
+        assertThat(model.forecast(7)).isEqualTo(50d);
+        assertThat(HoltWinters.fit(new double[0]).forecast(3)).isZero();
+    }
+}
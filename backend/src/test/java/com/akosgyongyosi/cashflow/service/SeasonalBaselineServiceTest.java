@@ -0,0 +1,111 @@
+package com.akosgyongyosi.cashflow.service;
+
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SeasonalBaselineServiceTest {
+
+    private TransactionRepository txRepo;
+    private FxService fxService;
+    private SeasonalBaselineService svc;
+    private TransactionCategory sales;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        txRepo = mock(TransactionRepository.class);
+        fxService = mock(FxService.class);
+        svc = new SeasonalBaselineService(txRepo);
+        sales = new TransactionCategory();
+        sales.setId(1L);
+        sales.setName("Sales");
+        plan = new CashflowPlan();
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setBaselineMode(BaselineMode.AVERAGE);
+        plan.setBaselineYears(3);
+        plan.setBaselineGranularity(BaselineGranularity.MONTH);
+    }
+
+    @Test
+    void average_combinesTheSameMonthOfEveryPriorYearIntoOneRow() {
+        givenMonthly(2024, new SeasonalAggregate(sales, 2024, 3, Currency.HUF, new BigDecimal("300"), 10L));
+        givenMonthly(2023, new SeasonalAggregate(sales, 2023, 3, Currency.HUF, new BigDecimal("100"), 8L));
+        givenMonthly(2022, new SeasonalAggregate(sales, 2022, 3, Currency.HUF, new BigDecimal("200"), 9L));
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getTransactionDate()).isEqualTo(LocalDate.of(2025, 3, 15));
+        assertThat(rows.get(0).getAmount()).isEqualByComparingTo("200");
+        assertThat(rows.get(0).getCategory()).isSameAs(sales);
+        assertThat(rows.get(0).getCashflowPlan()).isSameAs(plan);
+    }
+
+    @Test
+    void weighted_favoursRecentYearsAndSkipsYearsWithoutActuals() {
+        plan.setBaselineMode(BaselineMode.WEIGHTED);
+        givenMonthly(2024, new SeasonalAggregate(sales, 2024, 3, Currency.HUF, new BigDecimal("300"), 10L));
+        givenMonthly(2023, new SeasonalAggregate(sales, 2023, 3, Currency.HUF, new BigDecimal("0"), 8L));
+        givenMonthly(2022);
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        // weights 3 and 2; the empty third year does not dilute the result
+        assertThat(rows.get(0).getAmount()).isEqualByComparingTo("180");
+    }
+
+    @Test
+    void foreignCurrencySums_areConvertedAtTheirSourceMonth() {
+        plan.setBaselineYears(1);
+        givenMonthly(2024, new SeasonalAggregate(sales, 2024, 6, Currency.EUR, new BigDecimal("10"), 2L));
+        when(fxService.convert(BigDecimal.ONE, Currency.EUR, Currency.HUF, LocalDate.of(2024, 6, 15)))
+                .thenReturn(BigDecimal.valueOf(400));
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        assertThat(rows.get(0).getAmount()).isEqualByComparingTo("4000");
+        assertThat(rows.get(0).getOriginalAmount()).isEqualByComparingTo("10");
+        assertThat(rows.get(0).getOriginalCurrency()).isEqualTo(Currency.EUR);
+    }
+
+    @Test
+    void weekly_mapsIsoWeeksOntoThePlanYear() {
+        plan.setBaselineYears(1);
+        plan.setBaselineGranularity(BaselineGranularity.WEEK);
+        // 2024-W10 starts on Monday 2024-03-04; 2025-W10 on 2025-03-03
+        when(txRepo.sumByCategoryAndWeek(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)))
+                .thenReturn(List.of(new SeasonalAggregate(sales, 2024, 3, 10, Currency.HUF, new BigDecimal("70"), 7L)));
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        assertThat(rows.get(0).getTransactionDate()).isEqualTo(LocalDate.of(2025, 3, 3));
+        verify(txRepo, never()).sumByCategoryAndMonth(any(), any());
+    }
+
+    @Test
+    void weekBasedYear_followsIsoBoundaries() {
+        assertThat(SeasonalBaselineService.weekBasedYear(2021, 1, 53)).isEqualTo(2020);
+        assertThat(SeasonalBaselineService.weekBasedYear(2024, 12, 1)).isEqualTo(2025);
+        assertThat(SeasonalBaselineService.isoMonday(2025, 1)).isEqualTo(LocalDate.of(2024, 12, 30));
+        assertThat(SeasonalBaselineService.isoMonday(2025, 53)).isEqualTo(LocalDate.of(2025, 12, 22));
+    }
+
+    private void givenMonthly(int year, SeasonalAggregate... sums) {
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31))).thenReturn(List.of(sums));
+    }
+}
@@ -0,0 +1,103 @@
+package com.akosgyongyosi.cashflow.service;
+
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+class SmoothingBaselineServiceTest {
+
+    private TransactionRepository txRepo;
+    private FxService fxService;
+    private ForkJoinPool pool;
+    private SmoothingBaselineService svc;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        txRepo = mock(TransactionRepository.class);
+        fxService = mock(FxService.class);
+        pool = new ForkJoinPool(2);
+        svc = new SmoothingBaselineService(txRepo, pool);
+        plan = new CashflowPlan();
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setBaselineMode(BaselineMode.HOLT_WINTERS);
+        plan.setBaselineYears(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void projectsOneRowPerCategoryAndMonthFromTheHistoryBeforeThePlan() {
+        TransactionCategory rent = category(1L);
+        TransactionCategory sales = category(2L);
+        List<SeasonalAggregate> history = new ArrayList<>();
+        for (int t = 0; t < 36; t++) {
+            LocalDate month = LocalDate.of(2022, 1, 1).plusMonths(t);
+            history.add(new SeasonalAggregate(rent, month.getYear(), month.getMonthValue(), Currency.HUF, new BigDecimal("-500"), 1L));
+            BigDecimal seasonal = BigDecimal.valueOf(month.getMonthValue() == 12 ? 3000 : 1000);
+            history.add(new SeasonalAggregate(sales, month.getYear(), month.getMonthValue(), Currency.HUF, seasonal, 3L));
+        }
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(2022, 1, 1), LocalDate.of(2024, 12, 31))).thenReturn(history);
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        assertThat(rows).hasSize(24);
+        assertThat(rows).filteredOn(h -> h.getCategory() == rent)
+                .allSatisfy(h -> assertThat(h.getAmount().doubleValue()).isCloseTo(-500d, within(1d)));
+        HistoricalTransaction december = rows.stream()
+                .filter(h -> h.getCategory() == sales && h.getTransactionDate().equals(LocalDate.of(2025, 12, 15)))
+                .findFirst().orElseThrow();
+        assertThat(december.getAmount().doubleValue()).isCloseTo(3000d, within(50d));
+        assertThat(rows).allSatisfy(h -> assertThat(h.getCashflowPlan()).isSameAs(plan));
+    }
+
+    @Test
+    void foreignCurrencyHistory_isFittedInPlanBase() {
+        plan.setBaselineYears(1);
+        TransactionCategory sales = category(2L);
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)))
+                .thenReturn(List.of(new SeasonalAggregate(sales, 2024, 11, Currency.EUR, new BigDecimal("10"), 1L),
+                        new SeasonalAggregate(sales, 2024, 12, Currency.EUR, new BigDecimal("10"), 1L)));
+        when(fxService.convert(eq(BigDecimal.ONE), eq(Currency.EUR), eq(Currency.HUF), any())).thenReturn(BigDecimal.valueOf(400));
+
+        List<HistoricalTransaction> rows = svc.build(plan, new FxRequestCache(fxService));
+
+        assertThat(rows).hasSize(12).allSatisfy(h -> {
+            assertThat(h.getAmount()).isEqualByComparingTo("4000");
+            assertThat(h.getOriginalCurrency()).isEqualTo(Currency.HUF);
+        });
+    }
+
+    @Test
+    void supportsOnlyHoltWinters() {
+        assertThat(svc.supports(BaselineMode.HOLT_WINTERS)).isTrue();
+        assertThat(svc.supports(BaselineMode.AVERAGE)).isFalse();
+    }
+
+    private TransactionCategory category(Long id) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        return c;
+    }
+}
@@ -0,0 +1,154 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.BacktestCellDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestRequestDTO;
+import com.akosgyongyosi.cashflow.dto.BacktestResultDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.LineItemType;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.strategy.CategoryAdjustmentStrategy;
+import com.akosgyongyosi.cashflow.service.forecast.strategy.OneTimeTransactionStrategy;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BacktestServiceTest {
+
+    private TransactionRepository txRepo;
+    private ExecutorService executor;
+    private BacktestService service;
+    private TransactionCategory sales;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        txRepo = mock(TransactionRepository.class);
+        FxService fxService = mock(FxService.class);
+        executor = Executors.newFixedThreadPool(2);
+        CashflowCalculationService calculation = new CashflowCalculationService(
+                List.of(new CategoryAdjustmentStrategy(), new OneTimeTransactionStrategy()), fxService);
+        service = new BacktestService(txRepo, calculation, fxService, executor);
+
+        sales = new TransactionCategory();
+        sales.setId(7L);
+        sales.setName("Sales");
+        sales.setDirection(TransactionDirection.POSITIVE);
+
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartBalance(BigDecimal.ZERO);
+        PlanLineItem growth = new PlanLineItem();
+        growth.setType(LineItemType.CATEGORY_ADJUSTMENT);
+        growth.setCategory(sales);
+        growth.setPercentChange(1.1);
+        growth.setIsApplied(true);
+        growth.setCurrency(Currency.HUF);
+        plan.getLineItems().add(growth);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void replaysAssumptionsOnEachPastYearFromOneActualsQuery() {
+        List<SeasonalAggregate> actuals = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            actuals.add(new SeasonalAggregate(sales, 2022, month, Currency.HUF, new BigDecimal("1000"), 4L));
+            actuals.add(new SeasonalAggregate(sales, 2023, month, Currency.HUF, new BigDecimal("1000"), 4L));
+            actuals.add(new SeasonalAggregate(sales, 2024, month, Currency.HUF, new BigDecimal("1100"), 4L));
+        }
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(2022, 1, 1), LocalDate.of(2024, 12, 31))).thenReturn(actuals);
+        BacktestRequestDTO request = new BacktestRequestDTO();
+        request.setWindows(2);
+
+        BacktestResultDTO result = service.backtest(plan, request);
+
+        assertThat(result.getWindows()).isEqualTo(2);
+        assertThat(result.getCells()).hasSize(24);
+        // 2024 from 2023 + 10% is exact; 2023 from 2022 + 10% overshoots by 10%
+        assertThat(result.getMape()).isCloseTo(0.05, within(1e-9));
+        assertThat(result.getBias()).isCloseTo(1200d / 25200d, within(1e-9));
+        BacktestCellDTO march2023 = result.getCells().stream()
+                .filter(c -> c.getYear() == 2023 && c.getMonth() == 3)
+                .findFirst().orElseThrow();
+        assertThat(march2023.getWindowStart()).isEqualTo(LocalDate.of(2023, 1, 1));
+        assertThat(march2023.getForecast()).isEqualByComparingTo("1100");
+        assertThat(march2023.getActual()).isEqualByComparingTo("1000");
+        assertThat(march2023.getAbsolutePercentageError()).isCloseTo(0.1, within(1e-9));
+        assertThat(result.getCategories()).singleElement().satisfies(c -> {
+            assertThat(c.getCategoryId()).isEqualTo(7L);
+            assertThat(c.getMonths()).isEqualTo(24);
+        });
+        verify(txRepo, times(1)).sumByCategoryAndMonth(any(), any());
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    @Test
+    void oneTimeItemIsMovedIntoTheWindow() {
+        PlanLineItem bonus = new PlanLineItem();
+        bonus.setType(LineItemType.ONE_TIME);
+        bonus.setCategory(sales);
+        bonus.setAmount(new BigDecimal("500"));
+        bonus.setTransactionDate(LocalDate.of(2025, 6, 10));
+        bonus.setCurrency(Currency.HUF);
+        plan.getLineItems().clear();
+        plan.getLineItems().add(bonus);
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)))
+                .thenReturn(List.of(new SeasonalAggregate(sales, 2024, 6, Currency.HUF, new BigDecimal("500"), 1L)));
+        BacktestRequestDTO request = new BacktestRequestDTO();
+        request.setWindows(1);
+
+        BacktestResultDTO result = service.backtest(plan, request);
+
+        assertThat(result.getCells()).singleElement().satisfies(c -> {
+            assertThat(c.getMonth()).isEqualTo(6);
+            assertThat(c.getForecast()).isEqualByComparingTo("500");
+            assertThat(c.getAbsolutePercentageError()).isZero();
+        });
+    }
+
+    @Test
+    void windowsWithoutActualsAreSkipped() {
+        when(txRepo.sumByCategoryAndMonth(any(), any())).thenReturn(List.of());
+
+        BacktestResultDTO result = service.backtest(plan, new BacktestRequestDTO());
+
+        assertThat(result.getWindows()).isZero();
+        assertThat(result.getMape()).isNull();
+        assertThat(result.getCells()).isEmpty();
+    }
+
+    @Test
+    void rejectsWindowCountOutsideRange() {
+        BacktestRequestDTO request = new BacktestRequestDTO();
+        request.setWindows(0);
+        assertThatThrownBy(() -> service.backtest(plan, request)).isInstanceOf(IllegalArgumentException.class);
+        request.setWindows(11);
+        assertThatThrownBy(() -> service.backtest(plan, request)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(txRepo);
+    }
+}
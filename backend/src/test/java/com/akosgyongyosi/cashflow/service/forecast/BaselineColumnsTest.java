@@ -0,0 +1,79 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaselineColumnsTest {
+
+    @Test
+    void rowsRoundTripThroughColumns() {
+        TransactionCategory sales = category(1L, "Sales");
+        HistoricalTransaction eur = tx(LocalDate.of(2025, 3, 1), "4000.00", sales);
+        eur.setOriginalAmount(new BigDecimal("10.1250"));
+        eur.setOriginalCurrency(Currency.EUR);
+        eur.setSourceAssumptionId(42L);
+        HistoricalTransaction plain = tx(LocalDate.of(2025, 3, 2), "12.50", sales);
+        HistoricalTransaction empty = new HistoricalTransaction();
+
+        BaselineColumns columns = BaselineColumns.of(List.of(eur, plain, empty));
+
+        assertThat(columns.size()).isEqualTo(3);
+        ForecastRow first = columns.row(0);
+        assertThat(first.date()).isEqualTo(LocalDate.of(2025, 3, 1));
+        assertThat(first.amount()).isEqualByComparingTo("4000");
+        assertThat(first.originalAmount()).isEqualByComparingTo("10.125");
+        assertThat(first.originalCurrency()).isEqualTo(Currency.EUR);
+        assertThat(first.category()).isSameAs(sales);
+        assertThat(first.assumptionId()).isEqualTo(42L);
+        assertThat(columns.row(1)).isEqualTo(new ForecastRow(LocalDate.of(2025, 3, 2), new BigDecimal("12.5"),
+                null, null, sales, null));
+        assertThat(columns.row(2)).isEqualTo(new ForecastRow(null, null, null, null, null, null));
+        assertThat(columns.footprintBytes()).isLessThan(3 * 40L);
+    }
+
+    @Test
+    void projectionCopiesAmountsOnlyOnWriteAndLeavesResultsUntouched() {
+        TransactionCategory sales = category(1L, "Sales");
+        BaselineColumns columns = BaselineColumns.of(List.of(
+                tx(LocalDate.of(2025, 1, 10), "100", sales),
+                tx(LocalDate.of(2025, 2, 10), "200", sales)));
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+
+        ForecastProjection projection = ForecastProjection.fromBaseline(columns);
+        projection.setAmount(1, new BigDecimal("220"));
+        projection.add(new ForecastRow(LocalDate.of(2025, 2, 15), new BigDecimal("5"), null, null, sales, 9L));
+        ForecastResult first = projection.toResult(plan, Currency.HUF);
+        projection.setAmount(0, new BigDecimal("110"));
+
+        assertThat(first.rows()).extracting(ForecastRow::amount).map(BigDecimal::intValue).containsExactly(100, 220, 5);
+        assertThat(projection.rows()).extracting(ForecastRow::amount).map(BigDecimal::intValue).containsExactly(110, 220, 5);
+        assertThat(columns.row(1).amount()).isEqualByComparingTo("200");
+        assertThat(projection.categoryIndex().rowsBetween(sales, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)))
+                .containsExactly(1, 2);
+    }
+
+    private static TransactionCategory category(Long id, String name) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        return c;
+    }
+
+    private static HistoricalTransaction tx(LocalDate date, String amount, TransactionCategory category) {
+        HistoricalTransaction ht = new HistoricalTransaction();
+        ht.setTransactionDate(date);
+        ht.setAmount(new BigDecimal(amount));
+        ht.setCategory(category);
+        return ht;
+    }
+}
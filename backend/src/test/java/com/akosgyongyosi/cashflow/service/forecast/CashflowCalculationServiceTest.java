@@ -156,6 +156,128 @@ class CashflowCalculationServiceTest {
         verify(mockStrategy2).applyForecast(plan, recurringItem);
     }
 
+    @Test
+    void evaluate_shouldProjectOnlyPendingItemsWithoutTouchingPlan() {
+        CashflowPlan plan = createTestPlan();
+        HistoricalTransaction baseline = new HistoricalTransaction();
+        baseline.setTransactionDate(LocalDate.of(2024, 3, 1));
+        baseline.setAmount(BigDecimal.valueOf(500));
+        plan.getBaselineTransactions().add(baseline);
+        PlanLineItem pending = createLineItem(LineItemType.ONE_TIME);
+        PlanLineItem applied = createLineItem(LineItemType.ONE_TIME);
+        applied.setIsApplied(true);
+        plan.setLineItems(Arrays.asList(pending, applied));
+
+        when(mockStrategy1.supports(LineItemType.ONE_TIME)).thenReturn(true);
+        when(mockStrategy2.supports(LineItemType.ONE_TIME)).thenReturn(false);
+        doAnswer(inv -> {
+            ForecastProjection projection = inv.getArgument(2);
+            projection.add(new ForecastRow(LocalDate.of(2024, 4, 1), BigDecimal.TEN, BigDecimal.TEN, Currency.HUF, null, 7L));
+            return null;
+        }).when(mockStrategy1).project(eq(plan), eq(pending), any(ForecastProjection.class));
+
+        ForecastResult result = service.evaluate(plan);
+
+        assertThat(result.rows()).hasSize(2);
+        assertThat(result.rows().get(0).isAssumptionBased()).isFalse();
+        assertThat(result.rows().get(1).assumptionId()).isEqualTo(7L);
+        assertThat(result.baseCurrency()).isEqualTo(Currency.HUF);
+        assertThat(plan.getBaselineTransactions()).hasSize(1);
+        assertThat(pending.getIsApplied()).isFalse();
+        verify(mockStrategy1, never()).project(eq(plan), eq(applied), any());
+        verify(mockStrategy1, never()).applyForecast(any(), any());
+    }
+
+    @Test
+    void evaluate_shouldKeepGoingWhenStrategyFails() {
+        CashflowPlan plan = createTestPlan();
+        PlanLineItem item = createLineItem(LineItemType.RECURRING);
+        plan.setLineItems(Arrays.asList(item));
+
+        when(mockStrategy1.supports(LineItemType.RECURRING)).thenReturn(true);
+        doThrow(new IllegalStateException("boom")).when(mockStrategy1).project(any(), any(), any());
+
+        ForecastResult result = service.evaluate(plan);
+
+        assertThat(result.rows()).isEmpty();
+    }
+
+    @Test
+    void extend_shouldScaleOnlyStoredRowsForCandidateAdjustment() {
+        CashflowPlan plan = createTestPlan();
+        PlanLineItem pending = createLineItem(LineItemType.ONE_TIME);
+        pending.setAssumptionId(7L);
+        plan.setLineItems(Arrays.asList(pending));
+        ForecastRow stored = new ForecastRow(LocalDate.of(2024, 3, 1), BigDecimal.valueOf(100), null, Currency.HUF, null, null);
+        ForecastRow fromPending = new ForecastRow(LocalDate.of(2024, 3, 2), BigDecimal.valueOf(50), null, Currency.HUF, null, 7L);
+        ForecastResult evaluated = new ForecastResult(null, Currency.HUF, plan.getStartDate(), plan.getEndDate(),
+                BigDecimal.ZERO, List.of(stored, fromPending));
+        PlanLineItem candidate = createLineItem(LineItemType.CATEGORY_ADJUSTMENT);
+
+        when(mockStrategy1.supports(LineItemType.CATEGORY_ADJUSTMENT)).thenReturn(true);
+        when(mockStrategy2.supports(LineItemType.CATEGORY_ADJUSTMENT)).thenReturn(false);
+        doAnswer(inv -> {
+            ForecastProjection projection = inv.getArgument(2);
+            assertThat(projection.size()).isEqualTo(1);
+            projection.set(0, projection.get(0).withAmount(BigDecimal.valueOf(200)));
+            return null;
+        }).when(mockStrategy1).project(eq(plan), eq(candidate), any(ForecastProjection.class));
+
+        ForecastResult result = service.extend(plan, evaluated, candidate);
+
+        assertThat(result.rows()).extracting(ForecastRow::amount)
+                .containsExactlyInAnyOrder(BigDecimal.valueOf(200), BigDecimal.valueOf(50));
+        assertThat(evaluated.rows()).containsExactly(stored, fromPending);
+        assertThat(plan.getLineItems()).containsExactly(pending);
+    }
+
+    @Test
+    void extend_shouldContinueOnCachedBaselineColumns() {
+        CashflowPlan plan = createTestPlan();
+        TransactionCategory sales = new TransactionCategory();
+        sales.setId(1L);
+        sales.setName("Sales");
+        HistoricalTransaction first = stored(LocalDate.of(2024, 3, 1), "100", sales);
+        HistoricalTransaction second = stored(LocalDate.of(2024, 4, 1), "200", sales);
+        second.setAdjustedByIds(List.of(3L));
+        BaselineColumns columns = BaselineColumns.of(List.of(first, second));
+        PlanLineItem pending = createLineItem(LineItemType.ONE_TIME);
+        pending.setAssumptionId(7L);
+        plan.setLineItems(Arrays.asList(pending));
+        ForecastProjection evaluation = ForecastProjection.fromBaseline(columns);
+        evaluation.setAmount(0, BigDecimal.valueOf(110));
+        evaluation.add(new ForecastRow(LocalDate.of(2024, 3, 2), BigDecimal.valueOf(50), null, Currency.HUF, sales, 7L));
+        ForecastResult evaluated = evaluation.toResult(plan, Currency.HUF);
+        CategoryDateIndex baselineIndex = columns.categoryIndex();
+        PlanLineItem candidate = createLineItem(LineItemType.CATEGORY_ADJUSTMENT);
+
+        when(mockStrategy1.supports(LineItemType.CATEGORY_ADJUSTMENT)).thenReturn(true);
+        when(mockStrategy2.supports(LineItemType.CATEGORY_ADJUSTMENT)).thenReturn(false);
+        doAnswer(inv -> {
+            ForecastProjection projection = inv.getArgument(2);
+            assertThat(projection.size()).isEqualTo(2);
+            for (int i : projection.categoryIndex().rowsBetween(sales, plan.getStartDate(), plan.getEndDate())) {
+                projection.setAmount(i, projection.get(i).amount().multiply(BigDecimal.valueOf(2)));
+            }
+            return null;
+        }).when(mockStrategy1).project(eq(plan), eq(candidate), any(ForecastProjection.class));
+
+        ForecastResult result = service.extend(plan, evaluated, candidate);
+
+        assertThat(result.rows()).extracting(ForecastRow::amount).map(BigDecimal::intValue).containsExactly(220, 400, 50);
+        assertThat(result.adjustedBy(1)).containsExactly(3L);
+        assertThat(evaluated.rows()).extracting(ForecastRow::amount).map(BigDecimal::intValue).containsExactly(110, 200, 50);
+        assertThat(columns.categoryIndex()).isSameAs(baselineIndex);
+    }
+
+    private static HistoricalTransaction stored(LocalDate date, String amount, TransactionCategory category) {
+        HistoricalTransaction ht = new HistoricalTransaction();
+        ht.setTransactionDate(date);
+        ht.setAmount(new BigDecimal(amount));
+        ht.setCategory(category);
+        return ht;
+    }
+
     private CashflowPlan createTestPlan() {
         CashflowPlan plan = new CashflowPlan();
         plan.setBaseCurrency(Currency.HUF);
@@ -0,0 +1,64 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryDateIndexTest {
+
+    @Test
+    void rowsBetween_shouldReturnOnlyMatchingCategoryWithinInclusiveRange() {
+        TransactionCategory rent = category(1L, "Rent");
+        TransactionCategory sales = category(2L, "Sales");
+        List<ForecastRow> rows = List.of(
+                row(LocalDate.of(2025, 3, 31), rent),
+                row(LocalDate.of(2025, 1, 10), rent),
+                row(LocalDate.of(2025, 2, 1), sales),
+                row(LocalDate.of(2025, 2, 1), rent),
+                row(LocalDate.of(2025, 2, 28), rent),
+                row(LocalDate.of(2025, 2, 15), null));
+
+        CategoryDateIndex index = CategoryDateIndex.build(rows);
+
+        assertThat(index.rowsBetween(rent, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 31)))
+                .containsExactly(3, 4, 0);
+        assertThat(index.rowsBetween(sales, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)))
+                .containsExactly(2);
+    }
+
+    @Test
+    void rowsBetween_shouldReturnEmptyForUnknownCategoryOrEmptyRange() {
+        TransactionCategory rent = category(1L, "Rent");
+        CategoryDateIndex index = CategoryDateIndex.build(List.of(row(LocalDate.of(2025, 5, 5), rent)));
+
+        assertThat(index.rowsBetween(category(9L, "Other"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31))).isEmpty();
+        assertThat(index.rowsBetween(rent, LocalDate.of(2025, 5, 6), LocalDate.of(2025, 12, 31))).isEmpty();
+        assertThat(index.rowsBetween(null, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31))).isEmpty();
+    }
+
+    @Test
+    void rowsBetween_shouldMatchUnsavedCategoriesByName() {
+        TransactionCategory stored = category(null, "Fuel");
+        TransactionCategory lookup = category(null, "Fuel");
+        CategoryDateIndex index = CategoryDateIndex.build(List.of(row(LocalDate.of(2025, 7, 1), stored)));
+
+        assertThat(index.rowsBetween(lookup, LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 1))).containsExactly(0);
+    }
+
+    private TransactionCategory category(Long id, String name) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        return c;
+    }
+
+    private ForecastRow row(LocalDate date, TransactionCategory category) {
+        return new ForecastRow(date, BigDecimal.ONE, BigDecimal.ONE, Currency.HUF, category, null);
+    }
+}
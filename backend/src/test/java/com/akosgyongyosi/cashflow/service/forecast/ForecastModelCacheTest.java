@@ -0,0 +1,191 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.HistoricalTransaction;
+import com.akosgyongyosi.cashflow.entity.LineItemType;
+import com.akosgyongyosi.cashflow.entity.PlanLineItem;
+import com.akosgyongyosi.cashflow.repository.BaselineStats;
+import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.service.CategoryMappingChangedEvent;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ForecastModelCacheTest {
+
+    private CashflowCalculationService calculationService;
+    private HistoricalTransactionRepository historicalRepo;
+    private ForecastModelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        calculationService = mock(CashflowCalculationService.class);
+        historicalRepo = mock(HistoricalTransactionRepository.class);
+        ForecastProperties props = new ForecastProperties();
+        props.setModelCacheSize(2);
+        cache = new ForecastModelCache(calculationService, historicalRepo, props);
+        when(historicalRepo.baselineStats(anyLong())).thenReturn(new BaselineStats(3L, new BigDecimal("300"), 30L));
+        when(calculationService.evaluate(any(), any())).thenAnswer(inv -> {
+            CashflowPlan p = inv.getArgument(0);
+            return new ForecastResult(p.getId(), Currency.HUF, p.getStartDate(), p.getEndDate(), BigDecimal.ZERO, List.of());
+        });
+    }
+
+    @Test
+    void unchangedPlan_isServedFromCache() {
+        CashflowPlan plan = plan(1L);
+
+        ForecastResult first = cache.evaluate(plan);
+        ForecastResult second = cache.evaluate(plan);
+
+        assertThat(second).isSameAs(first);
+        verify(calculationService, times(1)).evaluate(eq(plan), any());
+    }
+
+    @Test
+    void lineItemChange_rebuildsModel() {
+        CashflowPlan plan = plan(1L);
+        cache.evaluate(plan);
+
+        plan.getLineItems().get(0).setAmount(new BigDecimal("999"));
+        cache.evaluate(plan);
+
+        verify(calculationService, times(2)).evaluate(eq(plan), any());
+    }
+
+    @Test
+    void baselineChange_rebuildsModel() {
+        CashflowPlan plan = plan(1L);
+        cache.evaluate(plan);
+
+        when(historicalRepo.baselineStats(1L)).thenReturn(new BaselineStats(2L, new BigDecimal("200"), 30L));
+        cache.evaluate(plan);
+
+        verify(calculationService, times(2)).evaluate(eq(plan), any());
+    }
+
+    @Test
+    void lineItemChange_reusesBaselineColumns() {
+        CashflowPlan plan = plan(1L);
+        plan.getBaselineTransactions().add(new HistoricalTransaction());
+        cache.evaluate(plan);
+        plan.getLineItems().get(0).setAmount(new BigDecimal("999"));
+        plan.getBaselineTransactions().clear();
+
+        cache.evaluate(plan);
+
+        ArgumentCaptor<BaselineColumns> columns = ArgumentCaptor.forClass(BaselineColumns.class);
+        verify(calculationService, times(2)).evaluate(eq(plan), columns.capture());
+        assertThat(columns.getAllValues().get(1)).isSameAs(columns.getAllValues().get(0));
+        assertThat(columns.getValue().size()).isEqualTo(1);
+        assertThat(cache.hasBaselineColumns(1L)).isTrue();
+    }
+
+    @Test
+    void baselineChange_rebuildsBaselineColumns() {
+        CashflowPlan plan = plan(1L);
+        cache.evaluate(plan);
+
+        when(historicalRepo.baselineStats(1L)).thenReturn(new BaselineStats(4L, new BigDecimal("400"), 31L));
+        plan.getBaselineTransactions().add(new HistoricalTransaction());
+        cache.evaluate(plan);
+
+        ArgumentCaptor<BaselineColumns> columns = ArgumentCaptor.forClass(BaselineColumns.class);
+        verify(calculationService, times(2)).evaluate(eq(plan), columns.capture());
+        assertThat(columns.getAllValues().get(0).size()).isZero();
+        assertThat(columns.getAllValues().get(1).size()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedPlan_isEvicted() {
+        CashflowPlan a = plan(1L);
+        CashflowPlan b = plan(2L);
+        CashflowPlan c = plan(3L);
+        cache.evaluate(a);
+        cache.evaluate(b);
+        cache.evaluate(a);
+        cache.evaluate(c);
+
+        assertThat(cache.peek(1L, cache.fingerprint(a))).isPresent();
+        assertThat(cache.peek(2L, cache.fingerprint(b))).isEmpty();
+        assertThat(cache.peek(3L, cache.fingerprint(c))).isPresent();
+    }
+
+    @Test
+    void fxIngestion_evictsModelsEndingOnOrAfterTheFirstRate() {
+        CashflowPlan plan = plan(1L);
+        cache.evaluate(plan);
+
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2)));
+        assertThat(cache.peek(1L, cache.fingerprint(plan))).isPresent();
+
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 1)));
+        assertThat(cache.peek(1L, cache.fingerprint(plan))).isEmpty();
+        assertThat(cache.hasBaselineColumns(1L)).isTrue();
+    }
+
+    @Test
+    void fxIngestionForToday_evictsPlanStartingNextMonth() {
+        // future dates convert at today's rate, so today's rate feeds a plan that starts later
+        LocalDate nextMonth = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        CashflowPlan plan = plan(1L);
+        plan.setStartDate(nextMonth);
+        plan.setEndDate(nextMonth.plusMonths(6));
+        cache.evaluate(plan);
+
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.now(), LocalDate.now()));
+
+        assertThat(cache.peek(1L, cache.fingerprint(plan))).isEmpty();
+    }
+
+    @Test
+    void categoryMappingChange_dropsModelsAndBaselineColumns() {
+        CashflowPlan plan = plan(1L);
+        cache.evaluate(plan);
+
+        cache.onCategoryMappingChanged(new CategoryMappingChangedEvent(List.of(7L)));
+
+        assertThat(cache.hasBaselineColumns(1L)).isFalse();
+        cache.evaluate(plan);
+        verify(calculationService, times(2)).evaluate(eq(plan), any());
+    }
+
+    @Test
+    void modelBuiltAcrossAnFxIngestion_isNotKept() {
+        CashflowPlan plan = plan(1L);
+        when(calculationService.evaluate(any(), any())).thenAnswer(inv -> {
+            cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 1)));
+            return new ForecastResult(1L, Currency.HUF, plan.getStartDate(), plan.getEndDate(), BigDecimal.ZERO, List.of());
+        });
+
+        cache.evaluate(plan);
+
+        assertThat(cache.peek(1L, cache.fingerprint(plan))).isEmpty();
+    }
+
+    private CashflowPlan plan(Long id) {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(id);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        PlanLineItem item = new PlanLineItem();
+        item.setId(10L);
+        item.setType(LineItemType.ONE_TIME);
+        item.setAmount(new BigDecimal("100"));
+        item.setTransactionDate(LocalDate.of(2025, 3, 1));
+        plan.setLineItems(new ArrayList<>(List.of(item)));
+        return plan;
+    }
+}
@@ -0,0 +1,124 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRequestDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityResultDTO;
+import com.akosgyongyosi.cashflow.dto.FxSensitivityRowDTO;
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class FxSensitivityServiceTest {
+
+    private ForecastModelCache modelCache;
+    private FxSensitivityService service;
+    private TransactionCategory sales;
+    private TransactionCategory rent;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        service = new FxSensitivityService(modelCache);
+
+        sales = category(1L, "Sales", TransactionDirection.POSITIVE);
+        rent = category(2L, "Rent", TransactionDirection.NEGATIVE);
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 3, 31));
+        plan.setLineItems(new ArrayList<>());
+    }
+
+    @Test
+    void shock_rescalesOnlyFlowsInTheShockedCurrency() {
+        givenForecast("1000", List.of(
+                row(LocalDate.of(2025, 1, 10), "4000", "10", Currency.EUR, sales),
+                row(LocalDate.of(2025, 2, 10), "-3000", "-3000", Currency.HUF, rent),
+                row(LocalDate.of(2025, 3, 10), "-2000", "-5", Currency.USD, rent)));
+        FxSensitivityRequestDTO req = new FxSensitivityRequestDTO();
+        req.setCurrencies(List.of(Currency.EUR));
+        req.setShocks(List.of(-0.1, 0d, 0.2));
+
+        FxSensitivityResultDTO result = service.sensitivity(plan, req);
+
+        assertThat(result.getClosingBalance()).isEqualByComparingTo("0");
+        FxSensitivityRowDTO eur = result.getRows().get(0);
+        assertThat(eur.getCurrency()).isEqualTo("EUR");
+        assertThat(eur.getExposure()).isEqualByComparingTo("4000");
+        assertThat(eur.getClosingBalances()).extracting(BigDecimal::doubleValue).containsExactly(-400d, 0d, 800d);
+        // the low is the March close in every scenario
+        assertThat(eur.getLowestBalances()).extracting(BigDecimal::doubleValue).containsExactly(-400d, 0d, 800d);
+    }
+
+    @Test
+    void withoutCurrencies_everyForeignCurrencyGetsARow() {
+        givenForecast("0", List.of(
+                row(LocalDate.of(2025, 1, 10), "4000", "10", Currency.EUR, sales),
+                row(LocalDate.of(2025, 2, 10), "-2000", "-5", Currency.USD, rent),
+                row(LocalDate.of(2025, 2, 11), "-100", "-100", Currency.HUF, rent)));
+
+        FxSensitivityResultDTO result = service.sensitivity(plan, new FxSensitivityRequestDTO());
+
+        assertThat(result.getRows()).extracting(FxSensitivityRowDTO::getCurrency).containsExactly("EUR", "USD");
+        FxSensitivityRowDTO usd = result.getRows().get(1);
+        assertThat(usd.getExposure()).isEqualByComparingTo("-2000");
+        // USD 20% dearer: the expense grows to 2400
+        assertThat(usd.getClosingBalances().get(6)).isEqualByComparingTo("1500");
+        assertThat(result.getShocks()).hasSize(7);
+    }
+
+    @Test
+    void rejectsShockOfBaseCurrencyAndWipeout() {
+        givenForecast("0", List.of());
+        FxSensitivityRequestDTO base = new FxSensitivityRequestDTO();
+        base.setCurrencies(List.of(Currency.HUF));
+        FxSensitivityRequestDTO wipeout = new FxSensitivityRequestDTO();
+        wipeout.setShocks(List.of(-1d));
+
+        assertThatThrownBy(() -> service.sensitivity(plan, base)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.sensitivity(plan, wipeout)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recurringSeriesCountTowardsTheirCurrency() {
+        Recurrence monthly = Recurrence.of(Frequency.MONTHLY, LocalDate.of(2025, 1, 15), plan.getEndDate());
+        RecurringSeries salary = new RecurringSeries(monthly, new BigDecimal("-400"), new BigDecimal("-1"), Currency.EUR, rent, 9L);
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(plan.getId(), Currency.HUF, plan.getStartDate(),
+                plan.getEndDate(), new BigDecimal("2000"), List.of(), List.of(salary)));
+        FxSensitivityRequestDTO req = new FxSensitivityRequestDTO();
+        req.setShocks(List.of(0.5));
+
+        FxSensitivityResultDTO result = service.sensitivity(plan, req);
+
+        assertThat(result.getRows().get(0).getExposure()).isEqualByComparingTo("-1200");
+        assertThat(result.getRows().get(0).getClosingBalances().get(0)).isEqualByComparingTo("200");
+    }
+
+    private void givenForecast(String startBalance, List<ForecastRow> rows) {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(plan.getId(), Currency.HUF,
+                plan.getStartDate(), plan.getEndDate(), new BigDecimal(startBalance), rows));
+    }
+
+    private ForecastRow row(LocalDate date, String amount, String original, Currency currency, TransactionCategory cat) {
+        return new ForecastRow(date, new BigDecimal(amount), new BigDecimal(original), currency, cat, null);
+    }
+
+    private TransactionCategory category(Long id, String name, TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        c.setDirection(direction);
+        return c;
+    }
+}
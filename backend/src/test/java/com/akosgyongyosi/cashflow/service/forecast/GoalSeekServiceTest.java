@@ -0,0 +1,165 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.GoalSeekRequestDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekResultDTO;
+import com.akosgyongyosi.cashflow.dto.GoalSeekStatus;
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+class GoalSeekServiceTest {
+
+    private ForecastModelCache modelCache;
+    private ForecastProperties props;
+    private GoalSeekService service;
+    private TransactionCategory sales;
+    private TransactionCategory rent;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        props = new ForecastProperties();
+        service = new GoalSeekService(modelCache, props);
+
+        sales = category(1L, "Sales", TransactionDirection.POSITIVE);
+        rent = category(2L, "Rent", TransactionDirection.NEGATIVE);
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setLineItems(new ArrayList<>());
+    }
+
+    @Test
+    void expenseCategory_findsLargestMultiplierThatKeepsTheFloor() {
+        // balance after month m: 1000 + m * (500 - 400p), lowest in December
+        givenMonthly("1000", "500", "-400");
+
+        GoalSeekResultDTO result = service.solve(plan, request(rent, "0"));
+
+        assertThat(result.getStatus()).isEqualTo(GoalSeekStatus.SOLVED);
+        assertThat(result.getPercentChange()).isCloseTo(1.4583, within(1e-3));
+        assertThat(result.getPercentChange()).isLessThanOrEqualTo(1.45834);
+        assertThat(result.getLowestBalance()).isBetween(BigDecimal.ZERO, new BigDecimal("1"));
+        assertThat(result.getLowestBalanceMonth()).isEqualTo(12);
+        verify(modelCache, times(1)).evaluate(plan);
+    }
+
+    @Test
+    void incomeCategory_findsSmallestMultiplierThatKeepsTheFloor() {
+        // 1000 + 12 * (500p - 600) >= 0  =>  p >= 1.0333
+        givenMonthly("1000", "500", "-600");
+
+        GoalSeekResultDTO result = service.solve(plan, request(sales, "0"));
+
+        assertThat(result.getStatus()).isEqualTo(GoalSeekStatus.SOLVED);
+        assertThat(result.getPercentChange()).isCloseTo(1.0333, within(1e-3));
+        assertThat(result.getPercentChange()).isGreaterThanOrEqualTo(1.03333);
+    }
+
+    @Test
+    void unreachableTarget_isInfeasible() {
+        givenMonthly("1000", "500", "-400");
+
+        GoalSeekResultDTO result = service.solve(plan, request(rent, "1000000"));
+
+        assertThat(result.getStatus()).isEqualTo(GoalSeekStatus.INFEASIBLE);
+        assertThat(result.getPercentChange()).isNull();
+    }
+
+    @Test
+    void targetMetAcrossTheRange_reportsTheBoundTheCategoryPushesAgainst() {
+        givenMonthly("100000", "500", "-400");
+
+        GoalSeekResultDTO result = service.solve(plan, request(rent, "0"));
+
+        assertThat(result.getStatus()).isEqualTo(GoalSeekStatus.ALWAYS_MET);
+        assertThat(result.getPercentChange()).isEqualTo(3d);
+    }
+
+    @Test
+    void iterationBudget_returnsBestKnownValueThatMeetsTheTarget() {
+        props.setGoalSeekMaxIterations(6);
+        givenMonthly("1000", "500", "-400");
+
+        GoalSeekResultDTO result = service.solve(plan, request(rent, "0"));
+
+        assertThat(result.getStatus()).isEqualTo(GoalSeekStatus.BUDGET_EXHAUSTED);
+        assertThat(result.getIterations()).isEqualTo(6);
+        assertThat(result.getPercentChange()).isLessThanOrEqualTo(1.45834);
+        assertThat(result.getLowestBalance()).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void rowsOfPendingItems_areNotScaled() {
+        PlanLineItem pending = new PlanLineItem();
+        pending.setAssumptionId(30L);
+        pending.setType(LineItemType.ONE_TIME);
+        plan.getLineItems().add(pending);
+        List<ForecastRow> rows = new ArrayList<>();
+        rows.add(row(LocalDate.of(2025, 1, 15), "-400", rent, null));
+        rows.add(row(LocalDate.of(2025, 1, 20), "-10000", rent, 30L));
+        givenForecast("10500", rows);
+
+        GoalSeekResultDTO result = service.solve(plan, request(rent, "0"));
+
+        // only the stored 400 scales: 10500 - 10000 - 400p >= 0  =>  p <= 1.25
+        assertThat(result.getPercentChange()).isCloseTo(1.25, within(1e-3));
+    }
+
+    @Test
+    void negativeLowerBound_isRejected() {
+        GoalSeekRequestDTO req = request(rent, "0");
+        req.setLowerBound(-1d);
+
+        assertThatThrownBy(() -> service.solve(plan, req)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(modelCache);
+    }
+
+    private void givenMonthly(String startBalance, String salesPerMonth, String rentPerMonth) {
+        List<ForecastRow> rows = new ArrayList<>();
+        for (int m = 1; m <= 12; m++) {
+            rows.add(row(LocalDate.of(2025, m, 5), salesPerMonth, sales, null));
+            rows.add(row(LocalDate.of(2025, m, 10), rentPerMonth, rent, null));
+        }
+        givenForecast(startBalance, rows);
+    }
+
+    private void givenForecast(String startBalance, List<ForecastRow> rows) {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(plan.getId(), Currency.HUF,
+                plan.getStartDate(), plan.getEndDate(), new BigDecimal(startBalance), rows));
+    }
+
+    private GoalSeekRequestDTO request(TransactionCategory category, String minBalance) {
+        GoalSeekRequestDTO req = new GoalSeekRequestDTO();
+        req.setCategoryId(category.getId());
+        req.setMinBalance(new BigDecimal(minBalance));
+        return req;
+    }
+
+    private ForecastRow row(LocalDate date, String amount, TransactionCategory cat, Long assumptionId) {
+        return new ForecastRow(date, new BigDecimal(amount), new BigDecimal(amount), Currency.HUF, cat, assumptionId);
+    }
+
+    private TransactionCategory category(Long id, String name, TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        c.setDirection(direction);
+        return c;
+    }
+}
@@ -0,0 +1,209 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.MonteCarloRequestDTO;
+import com.akosgyongyosi.cashflow.dto.MonteCarloResultDTO;
+import com.akosgyongyosi.cashflow.dto.PerturbationDistribution;
+import com.akosgyongyosi.cashflow.dto.SimulationMonthDTO;
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class MonteCarloSimulationServiceTest {
+
+    private ForecastModelCache modelCache;
+    private ForecastProperties props;
+    private ExecutorService executor;
+    private MonteCarloSimulationService service;
+    private TransactionCategory sales;
+    private TransactionCategory rent;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        props = new ForecastProperties();
+        props.setEvaluationThreads(2);
+        executor = Executors.newFixedThreadPool(2);
+        service = new MonteCarloSimulationService(modelCache, props, executor);
+
+        sales = category(1L, "Sales", TransactionDirection.POSITIVE);
+        rent = category(2L, "Rent", TransactionDirection.NEGATIVE);
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setLineItems(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void withoutSpread_everyPathEqualsTheForecast() {
+        givenForecast(new BigDecimal("100"), List.of(
+                row(LocalDate.of(2025, 2, 10), "300", sales, null),
+                row(LocalDate.of(2025, 3, 5), "-500", rent, null)));
+
+        MonteCarloResultDTO result = service.simulate(plan, request(0, 0, 0, 500));
+
+        assertThat(result.getPathsCompleted()).isEqualTo(500);
+        assertThat(result.isBudgetExhausted()).isFalse();
+        SimulationMonthDTO march = result.getMonths().get(2);
+        assertThat(march.getP5()).isEqualByComparingTo("-100");
+        assertThat(march.getP95()).isEqualByComparingTo("-100");
+        assertThat(march.getProbabilityNegative()).isEqualTo(1d);
+        assertThat(result.getMonths().get(1).getP50()).isEqualByComparingTo("400");
+        assertThat(result.getProbabilityOfNegativeBalance()).isEqualTo(1d);
+        assertThat(result.getMonths()).hasSize(12);
+    }
+
+    @Test
+    void amountSpread_onlyPerturbsLineItemRows() {
+        PlanLineItem item = new PlanLineItem();
+        item.setId(3L);
+        item.setAssumptionId(30L);
+        item.setType(LineItemType.ONE_TIME);
+        plan.getLineItems().add(item);
+        givenForecast(BigDecimal.ZERO, List.of(
+                row(LocalDate.of(2025, 1, 10), "1000", sales, null),
+                row(LocalDate.of(2025, 2, 10), "1000", sales, 30L)));
+        MonteCarloRequestDTO req = request(0.5, 0, 0, 2_000);
+        req.setAmountDistribution(PerturbationDistribution.UNIFORM);
+
+        MonteCarloResultDTO result = service.simulate(plan, req);
+
+        SimulationMonthDTO jan = result.getMonths().get(0);
+        SimulationMonthDTO feb = result.getMonths().get(1);
+        assertThat(jan.getP5()).isEqualByComparingTo(jan.getP95());
+        assertThat(feb.getP5()).isGreaterThanOrEqualTo(new BigDecimal("1500"));
+        assertThat(feb.getP95()).isLessThanOrEqualTo(new BigDecimal("2500"));
+        assertThat(feb.getP5()).isLessThan(feb.getP95());
+    }
+
+    @Test
+    void percentChangeSpread_rescalesAdjustedCategory() {
+        PlanLineItem adjustment = new PlanLineItem();
+        adjustment.setId(5L);
+        adjustment.setType(LineItemType.CATEGORY_ADJUSTMENT);
+        adjustment.setCategory(sales);
+        adjustment.setPercentChange(2.0);
+        plan.getLineItems().add(adjustment);
+        givenForecast(BigDecimal.ZERO, List.of(row(LocalDate.of(2025, 3, 1), "200", sales, null)));
+        MonteCarloRequestDTO req = request(0, 1.0, 0, 2_000);
+        req.setPercentChangeDistribution(PerturbationDistribution.UNIFORM);
+
+        MonteCarloResultDTO result = service.simulate(plan, req);
+
+        SimulationMonthDTO march = result.getMonths().get(2);
+        assertThat(march.getP5()).isGreaterThanOrEqualTo(new BigDecimal("100"));
+        assertThat(march.getP95()).isLessThanOrEqualTo(new BigDecimal("300"));
+        assertThat(march.getP50()).isBetween(new BigDecimal("180"), new BigDecimal("220"));
+    }
+
+    @Test
+    void percentChangeSpread_storedAdjustmentOnlyRescalesRowsItScaled() {
+        PlanLineItem adjustment = new PlanLineItem();
+        adjustment.setId(5L);
+        adjustment.setAssumptionId(50L);
+        adjustment.setType(LineItemType.CATEGORY_ADJUSTMENT);
+        adjustment.setCategory(sales);
+        adjustment.setPercentChange(2.0);
+        adjustment.setIsApplied(true);
+        plan.getLineItems().add(adjustment);
+        HistoricalTransaction materializedLater = historical(LocalDate.of(2025, 2, 1), "100", null);
+        HistoricalTransaction scaled = historical(LocalDate.of(2025, 3, 1), "200", "50");
+        when(modelCache.evaluate(plan)).thenReturn(ForecastProjection
+                .fromBaseline(List.of(materializedLater, scaled)).toResult(plan, Currency.HUF));
+        MonteCarloRequestDTO req = request(0, 1.0, 0, 2_000);
+        req.setPercentChangeDistribution(PerturbationDistribution.UNIFORM);
+
+        MonteCarloResultDTO result = service.simulate(plan, req);
+
+        SimulationMonthDTO feb = result.getMonths().get(1);
+        SimulationMonthDTO march = result.getMonths().get(2);
+        assertThat(feb.getP5()).isEqualByComparingTo("100");
+        assertThat(feb.getP95()).isEqualByComparingTo("100");
+        assertThat(march.getP5()).isLessThan(march.getP95());
+    }
+
+    @Test
+    void sameSeed_reproducesBands() {
+        givenForecast(new BigDecimal("50"), List.of(
+                row(LocalDate.of(2025, 1, 15), "-100", rent, null, Currency.EUR),
+                row(LocalDate.of(2025, 2, 15), "80", sales, null)));
+
+        MonteCarloResultDTO first = service.simulate(plan, request(0, 0, 0.3, 1_000));
+        MonteCarloResultDTO second = service.simulate(plan, request(0, 0, 0.3, 1_000));
+
+        assertThat(second.getMonths()).isEqualTo(first.getMonths());
+        assertThat(first.getProbabilityOfNegativeBalance()).isBetween(0.0, 1.0);
+    }
+
+    @Test
+    void exhaustedBudget_returnsWhatFinished() {
+        props.setMonteCarloBudgetMs(0);
+        givenForecast(BigDecimal.ZERO, List.of(row(LocalDate.of(2025, 1, 1), "10", sales, null)));
+
+        MonteCarloResultDTO result = service.simulate(plan, request(0.1, 0, 0, 50_000));
+
+        assertThat(result.isBudgetExhausted()).isTrue();
+        assertThat(result.getPathsCompleted()).isLessThan(50_000);
+        assertThat(result.getMonths()).hasSize(12);
+    }
+
+    private void givenForecast(BigDecimal startBalance, List<ForecastRow> rows) {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(plan.getId(), Currency.HUF,
+                plan.getStartDate(), plan.getEndDate(), startBalance, rows));
+    }
+
+    private MonteCarloRequestDTO request(double amountSpread, double percentSpread, double fxSpread, int paths) {
+        MonteCarloRequestDTO req = new MonteCarloRequestDTO();
+        req.setSeed(42L);
+        req.setPaths(paths);
+        req.setAmountSpread(amountSpread);
+        req.setPercentChangeSpread(percentSpread);
+        req.setFxSpread(fxSpread);
+        return req;
+    }
+
+    private ForecastRow row(LocalDate date, String amount, TransactionCategory cat, Long assumptionId) {
+        return row(date, amount, cat, assumptionId, Currency.HUF);
+    }
+
+    private ForecastRow row(LocalDate date, String amount, TransactionCategory cat, Long assumptionId, Currency original) {
+        return new ForecastRow(date, new BigDecimal(amount), new BigDecimal(amount), original, cat, assumptionId);
+    }
+
+    private HistoricalTransaction historical(LocalDate date, String amount, String adjustedBy) {
+        HistoricalTransaction ht = new HistoricalTransaction();
+        ht.setTransactionDate(date);
+        ht.setAmount(new BigDecimal(amount));
+        ht.setCategory(sales);
+        ht.setAdjustedBy(adjustedBy);
+        return ht;
+    }
+
+    private TransactionCategory category(Long id, String name, TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        c.setDirection(direction);
+        return c;
+    }
+}
@@ -0,0 +1,90 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.entity.Frequency;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecurrenceTest {
+
+    @Test
+    void countByMonth_shouldCountDailyOccurrencesWithoutExpanding() {
+        Recurrence daily = Recurrence.of(Frequency.DAILY, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 10));
+
+        SortedMap<YearMonth, Long> byMonth = daily.countByMonth();
+
+        assertThat(byMonth).containsEntry(YearMonth.of(2024, 1), 17L)
+                .containsEntry(YearMonth.of(2024, 2), 29L)
+                .containsEntry(YearMonth.of(2024, 3), 10L);
+        assertThat(daily.count()).isEqualTo(56);
+    }
+
+    @Test
+    void monthlyOccurrences_shouldNotDriftAfterShortMonth() {
+        Recurrence monthly = Recurrence.of(Frequency.MONTHLY, LocalDate.of(2025, 1, 31), LocalDate.of(2025, 4, 30));
+
+        assertThat(monthly.occurrences().collect(Collectors.toList())).containsExactly(
+                LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28),
+                LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30));
+    }
+
+    @Test
+    void countBetween_shouldMatchExpandedOccurrences() {
+        Recurrence biWeekly = Recurrence.of(Frequency.BI_WEEKLY, LocalDate.of(2025, 1, 3), LocalDate.of(2025, 12, 31));
+        Recurrence quarterly = Recurrence.of(Frequency.QUARTERLY, LocalDate.of(2025, 1, 31), LocalDate.of(2027, 1, 1));
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 10, 30);
+
+        for (Recurrence r : new Recurrence[]{biWeekly, quarterly}) {
+            long expanded = r.occurrences().filter(d -> !d.isBefore(from) && !d.isAfter(to)).count();
+            assertThat(r.countBetween(from, to)).isEqualTo(expanded);
+        }
+    }
+
+    @Test
+    void occurrencesBetween_shouldMatchFilteredOccurrencesAndCountByWeek() {
+        Recurrence biWeekly = Recurrence.of(Frequency.BI_WEEKLY, LocalDate.of(2025, 1, 3), LocalDate.of(2025, 12, 31));
+        Recurrence monthly = Recurrence.of(Frequency.MONTHLY, LocalDate.of(2025, 1, 31), LocalDate.of(2026, 6, 30));
+        // a Wednesday and a Tuesday, so both bounds cut a week
+        LocalDate from = LocalDate.of(2025, 3, 5);
+        LocalDate to = LocalDate.of(2025, 9, 30);
+
+        for (Recurrence r : new Recurrence[]{biWeekly, monthly}) {
+            assertThat(r.occurrencesBetween(from, to).collect(Collectors.toList())).isEqualTo(
+                    r.occurrences().filter(d -> !d.isBefore(from) && !d.isAfter(to)).collect(Collectors.toList()));
+            assertThat(r.countByWeek(from, to).values().stream().mapToLong(Long::longValue).sum())
+                    .isEqualTo(r.countBetween(from, to));
+        }
+        assertThat(biWeekly.occurrencesBetween(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1))).isEmpty();
+        assertThat(biWeekly.countByWeek(LocalDate.of(2025, 1, 4), LocalDate.of(2025, 1, 16))).isEmpty();
+    }
+
+    @Test
+    void annual_shouldRepeatEveryYearAndCountByWeek() {
+        Recurrence annual = Recurrence.of(Frequency.ANNUAL, LocalDate.of(2024, 2, 29), LocalDate.of(2026, 12, 31));
+
+        assertThat(annual.occurrences().collect(Collectors.toList())).containsExactly(
+                LocalDate.of(2024, 2, 29), LocalDate.of(2025, 2, 28), LocalDate.of(2026, 2, 28));
+        assertThat(annual.countByWeek()).hasSize(3).containsKey(LocalDate.of(2024, 2, 26));
+    }
+
+    @Test
+    void of_shouldRejectNonRecurringFrequencies() {
+        assertThatThrownBy(() -> Recurrence.of(Frequency.ONE_TIME, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void count_shouldBeZeroWhenEndBeforeStart() {
+        Recurrence weekly = Recurrence.of(Frequency.WEEKLY, LocalDate.of(2025, 5, 1), LocalDate.of(2025, 4, 1));
+
+        assertThat(weekly.count()).isZero();
+        assertThat(weekly.countByMonth()).isEmpty();
+    }
+}
@@ -0,0 +1,137 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.dto.ScenarioKpiDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.ScenarioType;
+import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiCalculationService;
+import com.akosgyongyosi.cashflow.service.kpi.KpiDisplayCurrencyConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ScenarioGroupEvaluationServiceTest {
+
+    private CashflowPlanRepository planRepository;
+    private ForecastModelCache modelCache;
+    private KpiCalculationService kpiService;
+    private KpiDisplayCurrencyConverter displayConverter;
+    private ExecutorService executor;
+    private ScenarioGroupEvaluationService service;
+
+    @BeforeEach
+    void setUp() {
+        planRepository = mock(CashflowPlanRepository.class);
+        modelCache = mock(ForecastModelCache.class);
+        kpiService = mock(KpiCalculationService.class);
+        displayConverter = mock(KpiDisplayCurrencyConverter.class);
+        executor = Executors.newFixedThreadPool(3);
+        service = new ScenarioGroupEvaluationService(planRepository, modelCache, kpiService,
+                displayConverter, mock(FxService.class), executor);
+        when(kpiService.calculateForForecast(any())).thenAnswer(inv -> new KpiDashboardDTO());
+        when(modelCache.peek(any(), anyLong())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void evaluateGroup_runsPlansConcurrentlyWithPropagatedFxContext() {
+        CashflowPlan best = plan(3L, ScenarioType.BEST);
+        CashflowPlan worst = plan(1L, ScenarioType.WORST);
+        CashflowPlan realistic = plan(2L, ScenarioType.REALISTIC);
+        when(planRepository.findByGroupKey("g")).thenReturn(List.of(best, worst, realistic));
+
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Set<Object> caches = ConcurrentHashMap.newKeySet();
+        when(modelCache.evaluate(any(), anyLong())).thenAnswer(inv -> {
+            threads.add(Thread.currentThread().getName());
+            caches.add(FxConversionContext.current().cache());
+            allStarted.countDown();
+            assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            CashflowPlan p = inv.getArgument(0);
+            return new ForecastResult(p.getId(), Currency.HUF, p.getStartDate(), p.getEndDate(), BigDecimal.ZERO, List.of());
+        });
+
+        List<ScenarioKpiDTO> result = service.evaluateGroup("g", null);
+
+        assertThat(result).extracting(ScenarioKpiDTO::getScenario)
+                .containsExactly(ScenarioType.WORST, ScenarioType.REALISTIC, ScenarioType.BEST);
+        assertThat(result).allSatisfy(r -> assertThat(r.getKpi().getBaseCurrency()).isEqualTo("HUF"));
+        assertThat(threads).hasSize(3).doesNotContain(Thread.currentThread().getName());
+        assertThat(caches).hasSize(1);
+        assertThat(FxConversionContext.isOpen()).isFalse();
+        verifyNoInteractions(displayConverter);
+    }
+
+    @Test
+    void evaluateGroup_returnsEmptyForUnknownGroup() {
+        when(planRepository.findByGroupKey("none")).thenReturn(List.of());
+
+        assertThat(service.evaluateGroup("none", null)).isEmpty();
+        verifyNoInteractions(modelCache);
+    }
+
+    @Test
+    void evaluateGroup_convertsToDisplayCurrencyInCallerThread() {
+        CashflowPlan p = plan(1L, ScenarioType.REALISTIC);
+        when(planRepository.findByGroupKey("g")).thenReturn(List.of(p));
+        when(modelCache.evaluate(eq(p), anyLong())).thenReturn(
+                new ForecastResult(1L, Currency.HUF, p.getStartDate(), p.getEndDate(), BigDecimal.ZERO, List.of()));
+        KpiDashboardDTO converted = new KpiDashboardDTO();
+        converted.setBaseCurrency("HUF");
+        when(displayConverter.toDisplayCurrency(any(), any(), any(), any())).thenReturn(converted);
+
+        List<ScenarioKpiDTO> result = service.evaluateGroup("g", Currency.EUR);
+
+        assertThat(result.get(0).getKpi()).isSameAs(converted);
+        verify(displayConverter).toDisplayCurrency(any(), any(), any(), any());
+    }
+
+    @Test
+    void evaluateGroup_surfacesWorkerFailure() {
+        CashflowPlan p = plan(7L, ScenarioType.WORST);
+        when(planRepository.findByGroupKey("g")).thenReturn(List.of(p));
+        when(modelCache.evaluate(eq(p), anyLong())).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> service.evaluateGroup("g", null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("7")
+                .hasRootCauseMessage("boom");
+    }
+
+    private CashflowPlan plan(Long id, ScenarioType scenario) {
+        CashflowPlan p = new CashflowPlan();
+        p.setId(id);
+        p.setScenario(scenario);
+        p.setBaseCurrency(Currency.HUF);
+        p.setStartDate(LocalDate.of(2025, 1, 1));
+        p.setEndDate(LocalDate.of(2025, 12, 31));
+        return p;
+    }
+}
@@ -0,0 +1,121 @@
+package com.akosgyongyosi.cashflow.service.forecast;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.ForecastResponseDTO;
+import com.akosgyongyosi.cashflow.dto.ForecastTransactionDTO;
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class WeeklyForecastServiceTest {
+
+    private ForecastModelCache modelCache;
+    private ForecastProperties props;
+    private WeeklyForecastService service;
+    private TransactionCategory sales;
+    private TransactionCategory rent;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        props = new ForecastProperties();
+        service = new WeeklyForecastService(modelCache, props);
+
+        sales = category(1L, "Sales", TransactionDirection.POSITIVE);
+        rent = category(2L, "Rent", TransactionDirection.NEGATIVE);
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        // 2024-12-30 is the Monday of ISO week 2025-W01
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        plan.setLineItems(new ArrayList<>());
+    }
+
+    @Test
+    void bucketsRowsByIsoWeekAndFlagsAssumptionRows() {
+        givenForecast(List.of(
+                row(LocalDate.of(2025, 1, 3), "100", sales, null),
+                row(LocalDate.of(2025, 1, 5), "40", rent, 7L),
+                row(LocalDate.of(2025, 1, 6), "250", sales, 8L)), List.of());
+
+        ForecastResponseDTO result = service.weekly(plan, 0, 2);
+
+        assertThat(result.getWeeklyTotals()).containsOnlyKeys(202501, 202502);
+        assertThat(result.getWeeklyTotals().get(202501)).isEqualByComparingTo("60");
+        assertThat(result.getWeeklyTotals().get(202502)).isEqualByComparingTo("250");
+        assertThat(result.getForecastTransactions()).extracting(ForecastTransactionDTO::isAssumptionBased)
+                .containsExactly(false, true, true);
+        assertThat(result.getForecastTransactions().get(1).getAmount()).isEqualByComparingTo("-40");
+        assertThat(result.getTotalWeeks()).isEqualTo(53);
+    }
+
+    @Test
+    void pagesThroughWeeksAndOnlyExpandsSeriesForThePage() {
+        Recurrence weekly = Recurrence.of(Frequency.WEEKLY, LocalDate.of(2025, 1, 2), plan.getEndDate());
+        RecurringSeries wages = new RecurringSeries(weekly, new BigDecimal("-10"), new BigDecimal("-10"), Currency.HUF, rent, 5L);
+        givenForecast(List.of(row(LocalDate.of(2025, 3, 4), "500", sales, null)), List.of(wages));
+
+        ForecastResponseDTO result = service.weekly(plan, 1, 5);
+
+        // weeks 6..10 of the horizon: 2025-W10 holds the sale
+        assertThat(result.getWeeklyTotals()).containsOnlyKeys(202506, 202507, 202508, 202509, 202510);
+        assertThat(result.getWeeklyTotals().get(202507)).isEqualByComparingTo("-10");
+        assertThat(result.getWeeklyTotals().get(202510)).isEqualByComparingTo("490");
+        assertThat(result.getForecastTransactions()).hasSize(6);
+        assertThat(result.getForecastTransactions().get(0).getTransactionDate()).isEqualTo(LocalDate.of(2025, 2, 6));
+    }
+
+    @Test
+    void seriesAreClippedToTheHorizonLikeRows() {
+        // ISO week 2026-W01 starts on Monday 2025-12-29 and reaches past the plan end
+        Recurrence daily = Recurrence.of(Frequency.DAILY, LocalDate.of(2025, 12, 20), LocalDate.of(2026, 1, 10));
+        RecurringSeries fees = new RecurringSeries(daily, new BigDecimal("-1"), new BigDecimal("-1"), Currency.HUF, rent, 5L);
+        givenForecast(List.of(row(LocalDate.of(2026, 1, 2), "100", sales, null)), List.of(fees));
+
+        ForecastResponseDTO result = service.weekly(plan, 52, 1);
+
+        assertThat(result.getWeeklyTotals()).containsOnlyKeys(202601);
+        assertThat(result.getWeeklyTotals().get(202601)).isEqualByComparingTo("-3");
+        assertThat(result.getForecastTransactions()).extracting(ForecastTransactionDTO::getTransactionDate)
+                .containsExactly(LocalDate.of(2025, 12, 29), LocalDate.of(2025, 12, 30), LocalDate.of(2025, 12, 31));
+    }
+
+    @Test
+    void pageSizeIsCappedAndPastTheEndIsEmpty() {
+        givenForecast(List.of(), List.of());
+        props.setWeeklyMaxPageSize(10);
+
+        assertThat(service.weekly(plan, 0, 500).getWeeklyTotals()).hasSize(10);
+        assertThat(service.weekly(plan, 99, null).getWeeklyTotals()).isEmpty();
+        assertThatThrownBy(() -> service.weekly(plan, -1, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void givenForecast(List<ForecastRow> rows, List<RecurringSeries> series) {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(plan.getId(), Currency.HUF,
+                plan.getStartDate(), plan.getEndDate(), BigDecimal.ZERO, rows, series));
+    }
+
+    private ForecastRow row(LocalDate date, String amount, TransactionCategory cat, Long assumptionId) {
+        return new ForecastRow(date, new BigDecimal(amount), new BigDecimal(amount), Currency.HUF, cat, assumptionId);
+    }
+
+    private TransactionCategory category(Long id, String name, TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        c.setDirection(direction);
+        return c;
+    }
+}
@@ -1,6 +1,7 @@
 package com.akosgyongyosi.cashflow.service.forecast.strategy;
 
 import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastProjection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -238,4 +239,58 @@ class CategoryAdjustmentStrategyTest {
         assertThat(tx1.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(1500));
         assertThat(tx2.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(2000));
     }
+
+    @Test
+    void project_shouldScaleProjectionRowsAndLeaveEntitiesUntouched() {
+        HistoricalTransaction inRange = new HistoricalTransaction();
+        inRange.setCategory(cat);
+        inRange.setTransactionDate(LocalDate.of(2025, 5, 15));
+        inRange.setAmount(BigDecimal.valueOf(1000));
+        plan.getBaselineTransactions().add(inRange);
+
+        HistoricalTransaction outOfRange = new HistoricalTransaction();
+        outOfRange.setCategory(cat);
+        outOfRange.setTransactionDate(LocalDate.of(2025, 6, 15));
+        outOfRange.setAmount(BigDecimal.valueOf(1000));
+        plan.getBaselineTransactions().add(outOfRange);
+
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.CATEGORY_ADJUSTMENT);
+        item.setCategory(cat);
+        item.setPercentChange(1.5);
+        item.setStartDate(LocalDate.of(2025, 5, 1));
+        item.setEndDate(LocalDate.of(2025, 5, 31));
+        item.setIsApplied(false);
+
+        ForecastProjection projection = ForecastProjection.fromBaseline(plan.getBaselineTransactions());
+        strat.project(plan, item, projection);
+
+        assertThat(projection.get(0).amount()).isEqualByComparingTo(BigDecimal.valueOf(1500));
+        assertThat(projection.get(1).amount()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+        assertThat(inRange.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+        assertThat(item.getIsApplied()).isFalse();
+    }
+
+    @Test
+    void project_shouldRoundStackedAdjustmentsToMinorUnits() {
+        HistoricalTransaction tx = new HistoricalTransaction();
+        tx.setCategory(cat);
+        tx.setTransactionDate(LocalDate.of(2025, 5, 15));
+        tx.setAmount(new BigDecimal("1000.00"));
+        plan.getBaselineTransactions().add(tx);
+        ForecastProjection projection = ForecastProjection.fromBaseline(plan.getBaselineTransactions());
+
+        for (double pct : new double[] {1.07, 0.933, 1.015}) {
+            PlanLineItem item = new PlanLineItem();
+            item.setType(LineItemType.CATEGORY_ADJUSTMENT);
+            item.setCategory(cat);
+            item.setPercentChange(pct);
+            item.setEndDate(LocalDate.of(2025, 5, 31));
+            strat.project(plan, item, projection);
+        }
+
+        // 1070.00 -> 998.31 -> 1013.28 instead of an ever longer fraction
+        assertThat(projection.get(0).amount().scale()).isEqualTo(2);
+        assertThat(projection.get(0).amount()).isEqualByComparingTo("1013.28");
+    }
 }
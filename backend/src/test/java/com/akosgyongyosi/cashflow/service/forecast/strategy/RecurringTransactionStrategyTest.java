@@ -1,6 +1,7 @@
 package com.akosgyongyosi.cashflow.service.forecast.strategy;
 
 import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastProjection;
 import com.akosgyongyosi.cashflow.service.fx.FxConversionContext;
 import com.akosgyongyosi.cashflow.service.fx.FxRequestCache;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
@@ -268,4 +269,76 @@ class RecurringTransactionStrategyTest {
             assertThat(tx.getOriginalCurrency()).isEqualTo(Currency.EUR);
         }
     }
+
+    @Test
+    void applyForecast_shouldGenerateDailyTransactions() {
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.RECURRING);
+        item.setFrequency(Frequency.DAILY);
+        item.setAmount(BigDecimal.valueOf(10));
+        item.setCurrency(Currency.HUF);
+        item.setIsApplied(false);
+        item.setStartDate(LocalDate.of(2025, 2, 26));
+        item.setEndDate(LocalDate.of(2025, 3, 2));
+
+        strat.applyForecast(plan, item);
+
+        assertThat(plan.getBaselineTransactions()).hasSize(5);
+    }
+
+    @Test
+    void applyForecast_shouldRepeatAnnualAcrossYears() {
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.RECURRING);
+        item.setFrequency(Frequency.ANNUAL);
+        item.setAmount(BigDecimal.valueOf(100));
+        item.setCurrency(Currency.HUF);
+        item.setIsApplied(false);
+        item.setStartDate(LocalDate.of(2025, 3, 1));
+        item.setEndDate(LocalDate.of(2027, 12, 31));
+
+        strat.applyForecast(plan, item);
+
+        assertThat(plan.getBaselineTransactions())
+                .extracting(HistoricalTransaction::getTransactionDate)
+                .containsExactly(LocalDate.of(2025, 3, 1), LocalDate.of(2026, 3, 1), LocalDate.of(2027, 3, 1));
+    }
+
+    @Test
+    void project_shouldKeepBaseCurrencySeriesCompact() {
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.RECURRING);
+        item.setFrequency(Frequency.DAILY);
+        item.setAmount(BigDecimal.valueOf(10));
+        item.setCurrency(Currency.HUF);
+        item.setAssumptionId(5L);
+        item.setStartDate(LocalDate.of(2025, 1, 1));
+        item.setEndDate(LocalDate.of(2027, 12, 31));
+
+        ForecastProjection projection = new ForecastProjection(java.util.List.of());
+        strat.project(plan, item, projection);
+
+        assertThat(projection.size()).isZero();
+        assertThat(projection.series()).hasSize(1);
+        assertThat(projection.series().get(0).recurrence().count()).isEqualTo(1095);
+        assertThat(plan.getBaselineTransactions()).isEmpty();
+    }
+
+    @Test
+    void project_shouldExpandForeignCurrencySeriesIntoConvertedRows() {
+        PlanLineItem item = new PlanLineItem();
+        item.setType(LineItemType.RECURRING);
+        item.setFrequency(Frequency.MONTHLY);
+        item.setAmount(BigDecimal.valueOf(10));
+        item.setCurrency(Currency.EUR);
+        item.setStartDate(LocalDate.of(2020, 1, 1));
+        item.setEndDate(LocalDate.of(2020, 3, 1));
+
+        ForecastProjection projection = new ForecastProjection(java.util.List.of());
+        strat.project(plan, item, projection);
+
+        assertThat(projection.series()).isEmpty();
+        assertThat(projection.size()).isEqualTo(3);
+        assertThat(projection.get(0).originalCurrency()).isEqualTo(Currency.EUR);
+    }
 }
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.springframework.context.ApplicationEventPublisher;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -37,6 +38,9 @@ class FxIngestionServiceTest {
     @Mock
     private FxProperties props;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private FxIngestionService fxIngestionService;
 
@@ -74,6 +78,7 @@ class FxIngestionServiceTest {
         
         verify(repo, times(2)).save(any(ExchangeRate.class));
         verify(provider).getDailyQuotes(date, base, quotes);
+        verify(eventPublisher).publishEvent(new FxRatesIngestedEvent(date, date));
     }
 
     @Test
@@ -0,0 +1,36 @@
+package com.akosgyongyosi.cashflow.service.fx;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinorUnitsTest {
+
+    @Test
+    void convertsToHundredthsRoundingHalfUp() {
+        assertThat(MinorUnits.of(new BigDecimal("12.345"))).isEqualTo(1235L);
+        assertThat(MinorUnits.of(new BigDecimal("-12.345"))).isEqualTo(-1235L);
+        assertThat(MinorUnits.of(new BigDecimal("3000"))).isEqualTo(300000L);
+        assertThat(MinorUnits.of(null)).isZero();
+    }
+
+    @Test
+    void convertsBackWithTheShortestScale() {
+        assertThat(MinorUnits.toDecimal(300000L)).isEqualTo(BigDecimal.valueOf(3000));
+        assertThat(MinorUnits.toDecimal(1250L)).isEqualTo(new BigDecimal("12.5"));
+        assertThat(MinorUnits.toDecimal(-1235L)).isEqualTo(new BigDecimal("-12.35"));
+    }
+
+    @Test
+    void repeatedPercentagesKeepTwoDecimals() {
+        BigDecimal amount = new BigDecimal("1000.00");
+        for (int i = 0; i < 5; i++) {
+            amount = MinorUnits.scale(amount, BigDecimal.valueOf(1.07));
+        }
+
+        assertThat(amount.scale()).isEqualTo(2);
+        assertThat(amount).isEqualByComparingTo("1402.55");
+    }
+}
@@ -0,0 +1,80 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.DailyCashPositionDTO;
+import com.akosgyongyosi.cashflow.entity.*;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.repository.DailyFlowSum;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CashPositionServiceTest {
+
+    private ForecastModelCache modelCache;
+    private TransactionRepository txRepo;
+    private CashPositionService service;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        txRepo = mock(TransactionRepository.class);
+        service = new CashPositionService(modelCache, txRepo, mock(FxService.class), new ForecastProperties());
+    }
+
+    @Test
+    void forPlan_reusesSeriesWhileModelIsUnchanged() {
+        CashflowPlan plan = new CashflowPlan();
+        plan.setId(1L);
+        ForecastResult forecast = new ForecastResult(1L, Currency.HUF, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31),
+                new BigDecimal("10"), List.of(new ForecastRow(LocalDate.of(2025, 6, 1), new BigDecimal("-40"), null,
+                        Currency.HUF, category(TransactionDirection.NEGATIVE), null)));
+        when(modelCache.evaluate(plan)).thenReturn(forecast);
+
+        DailyBalanceSeries first = service.forPlan(plan);
+        DailyBalanceSeries second = service.forPlan(plan);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.minBalance(first.start(), first.end()).balance()).isEqualByComparingTo("-30");
+    }
+
+    @Test
+    void forActuals_readsSignedDailySums() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(txRepo.sumSignedByDayAndCurrency(start, end)).thenReturn(List.of(
+                new DailyFlowSum(LocalDate.of(2025, 1, 3), Currency.HUF, new BigDecimal("500")),
+                new DailyFlowSum(LocalDate.of(2025, 1, 4), Currency.HUF, new BigDecimal("-200"))));
+
+        DailyCashPositionDTO dto = service.toDto(service.forActuals(start, end, BigDecimal.ZERO, Currency.HUF),
+                LocalDate.of(2025, 1, 2), null, Currency.HUF);
+
+        assertThat(dto.getFrom()).isEqualTo(LocalDate.of(2025, 1, 2));
+        assertThat(dto.getTo()).isEqualTo(end);
+        assertThat(dto.getClosingBalance()).isEqualByComparingTo("300");
+        assertThat(dto.getNetFlow()).isEqualByComparingTo("300");
+        assertThat(dto.getMinBalance()).isEqualByComparingTo("0");
+        assertThat(dto.getDays()).hasSize(30);
+        assertThat(dto.getDays().get(2).getNetFlow()).isEqualByComparingTo("-200");
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    private TransactionCategory category(TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setName(direction.name());
+        c.setDirection(direction);
+        return c;
+    }
+}
@@ -0,0 +1,139 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.entity.CashShortfallAlert;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+import com.akosgyongyosi.cashflow.repository.CashShortfallAlertRepository;
+import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CashShortfallAlertServiceTest {
+
+    private CashShortfallAlertRepository alertRepo;
+    private CashflowPlanRepository planRepo;
+    private ForecastModelCache modelCache;
+    private ForecastProperties props;
+    private CashShortfallAlertService service;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        alertRepo = mock(CashShortfallAlertRepository.class);
+        planRepo = mock(CashflowPlanRepository.class);
+        modelCache = mock(ForecastModelCache.class);
+        props = new ForecastProperties();
+        CashPositionService cashPositionService = new CashPositionService(modelCache, mock(TransactionRepository.class),
+                mock(FxService.class), props);
+        service = new CashShortfallAlertService(alertRepo, planRepo, modelCache, cashPositionService, props);
+        when(alertRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+        TransactionCategory rent = category(TransactionDirection.NEGATIVE);
+        TransactionCategory sales = category(TransactionDirection.POSITIVE);
+        ForecastResult forecast = new ForecastResult(1L, Currency.HUF, plan.getStartDate(), plan.getEndDate(), new BigDecimal("100"),
+                List.of(row(LocalDate.of(2025, 6, 1), "150", rent),
+                        row(LocalDate.of(2025, 7, 1), "100", rent),
+                        row(LocalDate.of(2025, 8, 1), "300", sales)));
+        when(modelCache.fingerprint(plan)).thenReturn(42L);
+        when(modelCache.evaluate(plan, 42L)).thenReturn(forecast);
+    }
+
+    @Test
+    void scan_storesFirstBreachAndDeepestTrough() {
+        when(alertRepo.findByPlanId(1L)).thenReturn(Optional.empty());
+
+        CashShortfallAlert alert = service.scan(plan);
+
+        assertThat(alert.getPlanId()).isEqualTo(1L);
+        assertThat(alert.getFirstBreachDate()).isEqualTo(LocalDate.of(2025, 6, 1));
+        assertThat(alert.getFirstBreachBalance()).isEqualByComparingTo("-50");
+        assertThat(alert.getTroughDate()).isEqualTo(LocalDate.of(2025, 7, 1));
+        assertThat(alert.getTroughBalance()).isEqualByComparingTo("-150");
+        assertThat(alert.getPlanFingerprint()).isEqualTo(42L);
+        verify(alertRepo).save(alert);
+    }
+
+    @Test
+    void scan_clearsBreachWhenBalanceStaysAboveThreshold() {
+        props.setShortfallThreshold(new BigDecimal("-200"));
+        CashShortfallAlert stored = new CashShortfallAlert();
+        stored.setPlanId(1L);
+        stored.setThreshold(BigDecimal.ZERO);
+        stored.setPlanFingerprint(42L);
+        stored.setFirstBreachDate(LocalDate.of(2025, 6, 1));
+        when(alertRepo.findByPlanId(1L)).thenReturn(Optional.of(stored));
+
+        CashShortfallAlert alert = service.scan(plan);
+
+        assertThat(alert).isSameAs(stored);
+        assertThat(alert.getFirstBreachDate()).isNull();
+        assertThat(alert.getTroughBalance()).isEqualByComparingTo("-150");
+    }
+
+    @Test
+    void scan_skipsUnchangedPlan() {
+        CashShortfallAlert stored = new CashShortfallAlert();
+        stored.setThreshold(BigDecimal.ZERO);
+        stored.setPlanFingerprint(42L);
+        when(alertRepo.findByPlanId(1L)).thenReturn(Optional.of(stored));
+
+        assertThat(service.scan(plan)).isSameAs(stored);
+        verify(modelCache, never()).evaluate(any(), anyLong());
+        verify(alertRepo, never()).save(any());
+    }
+
+    @Test
+    void fxIngestion_rescansUnchangedPlansAndSurvivesBrokenOnes() {
+        CashflowPlan broken = new CashflowPlan();
+        broken.setId(2L);
+        when(modelCache.fingerprint(broken)).thenThrow(new IllegalStateException("boom"));
+        when(planRepo.findByEndDateGreaterThanEqual(LocalDate.of(2025, 3, 1))).thenReturn(List.of(broken, plan));
+        CashShortfallAlert stored = new CashShortfallAlert();
+        stored.setPlanId(1L);
+        stored.setThreshold(BigDecimal.ZERO);
+        stored.setPlanFingerprint(42L);
+        stored.setTroughBalance(new BigDecimal("-999"));
+        when(alertRepo.findByPlanId(1L)).thenReturn(Optional.of(stored));
+
+        service.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1)));
+
+        verify(modelCache).evaluate(plan, 42L);
+        verify(alertRepo, times(1)).save(stored);
+        assertThat(stored.getTroughBalance()).isEqualByComparingTo("-150");
+    }
+
+    private static ForecastRow row(LocalDate date, String amount, TransactionCategory category) {
+        return new ForecastRow(date, new BigDecimal(amount), null, Currency.HUF, category, null);
+    }
+
+    private static TransactionCategory category(TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setName(direction.name());
+        c.setDirection(direction);
+        return c;
+    }
+}
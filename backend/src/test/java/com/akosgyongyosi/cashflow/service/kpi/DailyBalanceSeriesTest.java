@@ -0,0 +1,84 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DailyBalanceSeriesTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void answersRangeQueriesFromPrefixBalances() {
+        DailyBalanceSeries s = DailyBalanceSeries.build(START, LocalDate.of(2025, 1, 31), new BigDecimal("100"), sink -> {
+            sink.accept(LocalDate.of(2025, 1, 5), -15_000);
+            sink.accept(LocalDate.of(2025, 1, 10), 8_000);
+            sink.accept(LocalDate.of(2025, 1, 10), 2_000);
+            sink.accept(LocalDate.of(2025, 2, 1), 99_900);
+        });
+
+        assertThat(s.openingBalance(START)).isEqualByComparingTo("100");
+        assertThat(s.closingBalance(LocalDate.of(2025, 1, 4))).isEqualByComparingTo("100");
+        assertThat(s.closingBalance(LocalDate.of(2025, 1, 5))).isEqualByComparingTo("-50");
+        assertThat(s.netFlow(LocalDate.of(2025, 1, 6), LocalDate.of(2025, 1, 31))).isEqualByComparingTo("100");
+        assertThat(s.closingBalance(LocalDate.of(2025, 1, 31))).isEqualByComparingTo("50");
+
+        DailyBalanceSeries.Low low = s.minBalance(START, LocalDate.of(2025, 1, 31));
+        assertThat(low.date()).isEqualTo(LocalDate.of(2025, 1, 5));
+        assertThat(low.balance()).isEqualByComparingTo("-50");
+        assertThat(s.minBalance(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 20)).date())
+                .isEqualTo(LocalDate.of(2025, 1, 10));
+    }
+
+    @Test
+    void keepsCentsExactAndComparesThresholdsBetweenCents() {
+        DailyBalanceSeries s = DailyBalanceSeries.build(START, START.plusDays(2), new BigDecimal("0.10"), sink -> {
+            sink.accept(START, 20);
+            sink.accept(START.plusDays(1), -1);
+        });
+
+        assertThat(s.closingBalance(START)).isEqualByComparingTo("0.30");
+        assertThat(s.netFlow(START, START.plusDays(2))).isEqualByComparingTo("0.19");
+        assertThat(s.firstBelow(new BigDecimal("0.285"))).isNull();
+        assertThat(s.firstBelow(new BigDecimal("0.291")).date()).isEqualTo(START.plusDays(1));
+        assertThat(s.firstBelow(new BigDecimal("0.291")).balance()).isEqualByComparingTo("0.29");
+    }
+
+    @Test
+    void minBalance_matchesLinearScan() {
+        Random rnd = new Random(7);
+        LocalDate end = START.plusDays(799);
+        long[] flows = new long[800];
+        for (int i = 0; i < flows.length; i++) {
+            flows[i] = rnd.nextInt(200_001) - 100_000;
+        }
+        DailyBalanceSeries s = DailyBalanceSeries.build(START, end, BigDecimal.ZERO, sink -> {
+            for (int i = 0; i < flows.length; i++) sink.accept(START.plusDays(i), flows[i]);
+        });
+
+        for (int q = 0; q < 2000; q++) {
+            int a = rnd.nextInt(800);
+            int b = a + rnd.nextInt(800 - a);
+            BigDecimal running = s.openingBalance(START.plusDays(a));
+            BigDecimal min = null;
+            for (int i = a; i <= b; i++) {
+                running = running.add(BigDecimal.valueOf(flows[i], 2));
+                if (min == null || running.compareTo(min) < 0) min = running;
+            }
+            assertThat(s.minBalance(START.plusDays(a), START.plusDays(b)).balance()).isEqualByComparingTo(min);
+        }
+    }
+
+    @Test
+    void rejectsDatesOutsideHorizon() {
+        DailyBalanceSeries s = DailyBalanceSeries.build(START, START.plusDays(9), BigDecimal.ZERO, sink -> {});
+
+        assertThatThrownBy(() -> s.closingBalance(START.minusDays(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> s.netFlow(START.plusDays(5), START.plusDays(2))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -5,7 +5,12 @@ import com.akosgyongyosi.cashflow.dto.MonthlyKpiDTO;
 import com.akosgyongyosi.cashflow.entity.*;
 import com.akosgyongyosi.cashflow.repository.CashflowPlanRepository;
 import com.akosgyongyosi.cashflow.repository.HistoricalTransactionRepository;
+import com.akosgyongyosi.cashflow.repository.KpiAggregate;
+import com.akosgyongyosi.cashflow.repository.KpiMonthlyRollupRepository;
+import com.akosgyongyosi.cashflow.repository.KpiTransactionRow;
 import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
 import com.akosgyongyosi.cashflow.service.fx.FxService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,8 +19,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class KpiCalculationServiceTest {
@@ -24,6 +33,7 @@ class KpiCalculationServiceTest {
     private HistoricalTransactionRepository histRepo;
     private CashflowPlanRepository planRepo;
     private FxService fxService;
+    private KpiMonthlyRollupRepository rollupRepo;
     private KpiCalculationService service;
 
     @BeforeEach
@@ -32,14 +42,15 @@ class KpiCalculationServiceTest {
         histRepo = mock(HistoricalTransactionRepository.class);
         planRepo = mock(CashflowPlanRepository.class);
         fxService = mock(FxService.class);
-        service = new KpiCalculationService(txRepo, histRepo, planRepo, fxService);
+        rollupRepo = mock(KpiMonthlyRollupRepository.class);
+        service = new KpiCalculationService(txRepo, histRepo, planRepo, fxService, rollupRepo);
     }
 
     @Test
     void calculateForPeriod_no_transactions_returns_zero_activity() {
         LocalDate start = LocalDate.of(2024, 1, 1);
         LocalDate end = LocalDate.of(2024, 12, 31);
-        when(txRepo.findByBookingDateBetween(start, end)).thenReturn(List.of());
+        when(rollupRepo.sumForKpi(202401, 202412)).thenReturn(List.of());
 
         KpiDashboardDTO result = service.calculateForPeriod(start, end, BigDecimal.ZERO);
 
@@ -52,8 +63,8 @@ class KpiCalculationServiceTest {
     @Test
     void calculateForPeriod_single_positive_transaction_adds_to_income() {
         LocalDate date = LocalDate.of(2024, 6, 15);
-        Transaction tx = createTransaction(date, BigDecimal.valueOf(1000), TransactionDirection.POSITIVE, Currency.HUF);
-        when(txRepo.findByBookingDateBetween(any(), any())).thenReturn(List.of(tx));
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(
+                aggregate(date, BigDecimal.valueOf(1000), TransactionDirection.POSITIVE, Currency.HUF)));
 
         KpiDashboardDTO result = service.calculateForPeriod(
                 LocalDate.of(2024, 1, 1),
@@ -68,11 +79,30 @@ class KpiCalculationServiceTest {
         assertThat(june.getBankBalance()).isEqualByComparingTo("1000");
     }
 
+    @Test
+    void calculateForPeriod_rounds_each_aggregate_to_minor_units_before_summing() {
+        LocalDate date = LocalDate.of(2024, 6, 15);
+        KpiAggregate a = aggregate(date, new BigDecimal("10.125"), TransactionDirection.POSITIVE, Currency.HUF);
+        KpiAggregate b = new KpiAggregate(2024, 6, Currency.HUF, "Other Category", "TEST", TransactionDirection.POSITIVE,
+                new BigDecimal("10.125"), 1L);
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(a, b));
+
+        KpiDashboardDTO result = service.calculateForPeriod(
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 12, 31),
+                BigDecimal.ZERO,
+                Currency.HUF);
+
+        MonthlyKpiDTO june = result.getMonthlyData().get(5);
+        assertThat(june.getTotalIncome()).isEqualByComparingTo("20.26");
+        assertThat(result.getTotalRevenue()).isEqualByComparingTo("20.26");
+    }
+
     @Test
     void calculateForPeriod_single_negative_transaction_adds_to_expense() {
         LocalDate date = LocalDate.of(2024, 3, 10);
-        Transaction tx = createTransaction(date, BigDecimal.valueOf(500), TransactionDirection.NEGATIVE, Currency.HUF);
-        when(txRepo.findByBookingDateBetween(any(), any())).thenReturn(List.of(tx));
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(
+                aggregate(date, BigDecimal.valueOf(500), TransactionDirection.NEGATIVE, Currency.HUF)));
 
         KpiDashboardDTO result = service.calculateForPeriod(
                 LocalDate.of(2024, 1, 1),
@@ -97,19 +127,9 @@ class KpiCalculationServiceTest {
         plan.setStartBalance(BigDecimal.valueOf(5000));
         plan.setBaseCurrency(Currency.HUF);
 
-        HistoricalTransaction ht = new HistoricalTransaction();
-        ht.setTransactionDate(LocalDate.of(2025, 2, 1));
-        ht.setAmount(BigDecimal.valueOf(3000));
-        TransactionCategory cat = new TransactionCategory();
-        cat.setDirection(TransactionDirection.POSITIVE);
-        cat.setName("Sales");
-        AccountingCategory acct = new AccountingCategory();
-        acct.setCode("REV");
-        cat.setAccountingCategory(acct);
-        ht.setCategory(cat);
-
         when(planRepo.findById(planId)).thenReturn(Optional.of(plan));
-        when(histRepo.findByCashflowPlanId(planId)).thenReturn(List.of(ht));
+        when(histRepo.sumForKpi(planId)).thenReturn(List.of(
+                new KpiAggregate(2025, 2, "Sales", "REV", TransactionDirection.POSITIVE, BigDecimal.valueOf(3000), 1L)));
 
         KpiDashboardDTO result = service.calculateForPlan(planId);
 
@@ -119,13 +139,32 @@ class KpiCalculationServiceTest {
         assertThat(feb.getTotalIncome()).isEqualByComparingTo("3000");
         assertThat(feb.getBankBalance()).isEqualByComparingTo("8000"); // 5000 + 3000
         assertThat(feb.getAccountingCategorySums()).containsEntry("REV", BigDecimal.valueOf(3000));
+        verify(histRepo, never()).findByCashflowPlanId(any());
+    }
+
+    @Test
+    void calculateForForecast_uses_projected_rows_without_repository_access() {
+        TransactionCategory cat = new TransactionCategory();
+        cat.setDirection(TransactionDirection.NEGATIVE);
+        cat.setName("Rent");
+        ForecastRow baseline = new ForecastRow(LocalDate.of(2025, 3, 5), BigDecimal.valueOf(400), BigDecimal.valueOf(400), Currency.HUF, cat, null);
+        ForecastRow assumption = new ForecastRow(LocalDate.of(2025, 3, 20), BigDecimal.valueOf(100), BigDecimal.valueOf(100), Currency.HUF, cat, 9L);
+        ForecastResult forecast = new ForecastResult(1L, Currency.HUF, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31),
+                BigDecimal.valueOf(1000), List.of(baseline, assumption));
+
+        KpiDashboardDTO result = service.calculateForForecast(forecast);
+
+        MonthlyKpiDTO march = result.getMonthlyData().get(2);
+        assertThat(march.getTotalExpense()).isEqualByComparingTo("500");
+        assertThat(march.getBankBalance()).isEqualByComparingTo("500");
+        verifyNoInteractions(histRepo, planRepo, txRepo);
     }
 
     @Test
     void calculateForPeriod_accumulates_bank_balance_across_months() {
-        Transaction jan = createTransaction(LocalDate.of(2024, 1, 15), BigDecimal.valueOf(1000), TransactionDirection.POSITIVE, Currency.HUF);
-        Transaction feb = createTransaction(LocalDate.of(2024, 2, 10), BigDecimal.valueOf(500), TransactionDirection.NEGATIVE, Currency.HUF);
-        when(txRepo.findByBookingDateBetween(any(), any())).thenReturn(List.of(jan, feb));
+        KpiAggregate jan = aggregate(LocalDate.of(2024, 1, 15), BigDecimal.valueOf(1000), TransactionDirection.POSITIVE, Currency.HUF);
+        KpiAggregate feb = aggregate(LocalDate.of(2024, 2, 10), BigDecimal.valueOf(500), TransactionDirection.NEGATIVE, Currency.HUF);
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(jan, feb));
 
         KpiDashboardDTO result = service.calculateForPeriod(
                 LocalDate.of(2024, 1, 1),
@@ -140,18 +179,145 @@ class KpiCalculationServiceTest {
         assertThat(febData.getBankBalance()).isEqualByComparingTo("10500"); // 11000 - 500
     }
 
-    private Transaction createTransaction(LocalDate date, BigDecimal amount, TransactionDirection direction, Currency currency) {
-        Transaction tx = new Transaction();
-        tx.setBookingDate(date);
-        tx.setAmount(amount);
-        tx.setCurrency(currency);
+    @Test
+    void calculateForPeriod_converts_each_foreign_aggregate_once_at_mid_month() {
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(
+                aggregate(LocalDate.of(2024, 4, 1), new BigDecimal("100"), TransactionDirection.POSITIVE, Currency.EUR),
+                new KpiAggregate(2024, 4, Currency.EUR, "Other Category", "TEST", TransactionDirection.NEGATIVE,
+                        new BigDecimal("40"), 12L)));
+        when(fxService.convert(BigDecimal.ONE, Currency.EUR, Currency.HUF, LocalDate.of(2024, 4, 15)))
+                .thenReturn(new BigDecimal("400"));
+
+        KpiDashboardDTO result = service.calculateForPeriod(
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 12, 31),
+                BigDecimal.ZERO,
+                Currency.HUF);
+
+        MonthlyKpiDTO april = result.getMonthlyData().get(3);
+        assertThat(april.getTotalIncome()).isEqualByComparingTo("40000");
+        assertThat(april.getTotalExpense()).isEqualByComparingTo("16000");
+        verify(fxService, times(1)).convert(any(), any(), any(), any());
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    @Test
+    void calculateForPeriod_reads_whole_months_from_rollup_and_partial_months_from_transactions() {
+        LocalDate start = LocalDate.of(2024, 1, 15);
+        LocalDate end = LocalDate.of(2024, 4, 10);
+        when(rollupRepo.sumForKpi(202402, 202403)).thenReturn(List.of(
+                aggregate(LocalDate.of(2024, 2, 1), BigDecimal.valueOf(200), TransactionDirection.POSITIVE, Currency.HUF)));
+        when(txRepo.sumForKpi(start, LocalDate.of(2024, 1, 31))).thenReturn(List.of(
+                aggregate(start, BigDecimal.valueOf(10), TransactionDirection.POSITIVE, Currency.HUF)));
+        when(txRepo.sumForKpi(LocalDate.of(2024, 4, 1), end)).thenReturn(List.of(
+                aggregate(end, BigDecimal.valueOf(30), TransactionDirection.NEGATIVE, Currency.HUF)));
+
+        KpiDashboardDTO result = service.calculateForPeriod(start, end, BigDecimal.ZERO, Currency.HUF);
+
+        assertThat(result.getMonthlyData()).hasSize(4);
+        assertThat(result.getTotalRevenue()).isEqualByComparingTo("210");
+        assertThat(result.getTotalExpenses()).isEqualByComparingTo("30");
+        verify(txRepo, never()).sumForKpi(start, end);
+    }
+
+    @Test
+    void calculateForPeriod_within_one_month_reads_transactions_only() {
+        LocalDate start = LocalDate.of(2024, 5, 2);
+        LocalDate end = LocalDate.of(2024, 5, 20);
+        when(txRepo.sumForKpi(start, end)).thenReturn(List.of());
+
+        service.calculateForPeriod(start, end, BigDecimal.ZERO, Currency.HUF);
+
+        verifyNoInteractions(rollupRepo);
+    }
+
+    @Test
+    void calculateForPeriod_keeps_years_apart_over_a_multi_year_horizon() {
+        when(rollupRepo.sumForKpi(anyInt(), anyInt())).thenReturn(List.of(
+                aggregate(LocalDate.of(2024, 3, 1), BigDecimal.valueOf(100), TransactionDirection.POSITIVE, Currency.HUF),
+                aggregate(LocalDate.of(2025, 3, 1), BigDecimal.valueOf(40), TransactionDirection.NEGATIVE, Currency.HUF)));
+
+        KpiDashboardDTO result = service.calculateForPeriod(
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2025, 12, 31),
+                BigDecimal.ZERO,
+                Currency.HUF);
+
+        assertThat(result.getMonthlyData()).hasSize(24);
+        MonthlyKpiDTO march2024 = result.getMonthlyData().get(2);
+        MonthlyKpiDTO march2025 = result.getMonthlyData().get(14);
+        assertThat(march2024.getYear()).isEqualTo(2024);
+        assertThat(march2024.getTotalIncome()).isEqualByComparingTo("100");
+        assertThat(march2024.getTotalExpense()).isEqualByComparingTo("0");
+        assertThat(march2025.getYear()).isEqualTo(2025);
+        assertThat(march2025.getMonth()).isEqualTo(3);
+        assertThat(march2025.getTotalExpense()).isEqualByComparingTo("40");
+        assertThat(march2025.getBankBalance()).isEqualByComparingTo("60");
+        assertThat(result.getMonthlyData().get(23).getBankBalance()).isEqualByComparingTo("60");
+    }
+
+    @Test
+    void calculateForForecast_buckets_a_horizon_that_starts_mid_year() {
         TransactionCategory cat = new TransactionCategory();
-        cat.setDirection(direction);
-        cat.setName("Test Category");
-        AccountingCategory acct = new AccountingCategory();
-        acct.setCode("TEST");
-        cat.setAccountingCategory(acct);
-        tx.setCategory(cat);
-        return tx;
+        cat.setDirection(TransactionDirection.POSITIVE);
+        ForecastRow jan = new ForecastRow(LocalDate.of(2026, 1, 10), BigDecimal.valueOf(70), null, null, cat, null);
+        ForecastResult forecast = new ForecastResult(1L, Currency.HUF, LocalDate.of(2025, 7, 1), LocalDate.of(2026, 6, 30),
+                BigDecimal.valueOf(10), List.of(jan));
+
+        KpiDashboardDTO result = service.calculateForForecast(forecast);
+
+        assertThat(result.getMonthlyData()).hasSize(12);
+        assertThat(result.getMonthlyData().get(0).getYear()).isEqualTo(2025);
+        assertThat(result.getMonthlyData().get(0).getMonth()).isEqualTo(7);
+        MonthlyKpiDTO january = result.getMonthlyData().get(6);
+        assertThat(january.getYear()).isEqualTo(2026);
+        assertThat(january.getMonth()).isEqualTo(1);
+        assertThat(january.getBankBalance()).isEqualByComparingTo("80");
+    }
+
+    @Test
+    void calculateForPeriod_with_filter_converts_monthly_sums_at_the_rollup_rate_date() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 3, 31);
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<KpiTransactionRow> rows = Stream.of(
+                new KpiTransactionRow(LocalDate.of(2024, 1, 5), new BigDecimal("100.10"), Currency.HUF, "Sales", "REV", TransactionDirection.POSITIVE),
+                new KpiTransactionRow(LocalDate.of(2024, 3, 9), new BigDecimal("10"), Currency.EUR, "Sales", "REV", TransactionDirection.POSITIVE),
+                new KpiTransactionRow(LocalDate.of(2024, 3, 20), new BigDecimal("40"), Currency.HUF, "Rent", "OPEX", TransactionDirection.NEGATIVE),
+                new KpiTransactionRow(LocalDate.of(2024, 3, 28), new BigDecimal("5"), Currency.EUR, "Sales", "REV", TransactionDirection.POSITIVE))
+                .onClose(() -> closed.set(true));
+        when(txRepo.streamForKpi(start, end, null, "REV", null)).thenReturn(rows);
+        when(fxService.convert(BigDecimal.ONE, Currency.EUR, Currency.HUF, LocalDate.of(2024, 3, 15)))
+                .thenReturn(new BigDecimal("400"));
+
+        KpiDashboardDTO result = service.calculateForPeriod(start, end, BigDecimal.valueOf(1000), Currency.HUF,
+                new KpiFilter(null, "REV", null));
+
+        assertThat(result.getMonthlyData()).hasSize(3);
+        assertThat(result.getMonthlyData().get(0).getTotalIncome()).isEqualByComparingTo("100.10");
+        MonthlyKpiDTO march = result.getMonthlyData().get(2);
+        assertThat(march.getTotalIncome()).isEqualByComparingTo("6000");
+        assertThat(march.getTotalExpense()).isEqualByComparingTo("40");
+        assertThat(march.getBankBalance()).isEqualByComparingTo("7060.10");
+        verify(fxService, never()).convert(any(), any(), any(), eq(LocalDate.of(2024, 3, 9)));
+        assertThat(closed).isTrue();
+        verifyNoInteractions(rollupRepo);
+        verify(txRepo, never()).sumForKpi(any(), any());
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    @Test
+    void calculateForPeriod_with_empty_filter_uses_aggregates() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 12, 31);
+        when(rollupRepo.sumForKpi(202401, 202412)).thenReturn(List.of());
+
+        service.calculateForPeriod(start, end, BigDecimal.ZERO, Currency.HUF, new KpiFilter(null, " ", null));
+
+        verify(txRepo, never()).streamForKpi(any(), any(), any(), any(), any());
+    }
+
+    private KpiAggregate aggregate(LocalDate date, BigDecimal amount, TransactionDirection direction, Currency currency) {
+        return new KpiAggregate(date.getYear(), date.getMonthValue(), currency, "Test Category", "TEST", direction, amount, 1L);
     }
 }
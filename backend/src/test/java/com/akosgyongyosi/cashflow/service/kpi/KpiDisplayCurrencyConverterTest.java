@@ -226,6 +226,26 @@ class KpiDisplayCurrencyConverterTest {
         assertThat(result.getMonthlyData().get(1).getRateDate()).isEqualTo("2024-12-31");
     }
 
+    @Test
+    void toDisplayCurrency_shouldUseTheYearOfEachMonth() {
+        KpiDashboardDTO dto = createTestDashboard();
+        MonthlyKpiDTO december = new MonthlyKpiDTO();
+        december.setYear(2024);
+        december.setMonth(12);
+        MonthlyKpiDTO january = new MonthlyKpiDTO();
+        january.setYear(2025);
+        january.setMonth(1);
+        dto.setMonthlyData(List.of(december, january));
+
+        when(fxService.convert(any(BigDecimal.class), any(), any(), any()))
+            .thenAnswer(inv -> inv.getArgument(0));
+
+        KpiDashboardDTO result = converter.toDisplayCurrency(dto, LocalDate.of(2024, 12, 1), Currency.USD, Currency.EUR);
+
+        assertThat(result.getMonthlyData().get(0).getRateDate()).isEqualTo("2024-12-31");
+        assertThat(result.getMonthlyData().get(1).getRateDate()).isEqualTo("2025-01-31");
+    }
+
     @Test
     void toDisplayCurrency_shouldHandleEmptyMonthlyData() {
         KpiDashboardDTO dto = createTestDashboard();
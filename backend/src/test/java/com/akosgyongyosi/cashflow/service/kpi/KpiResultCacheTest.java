@@ -0,0 +1,131 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.config.ForecastProperties;
+import com.akosgyongyosi.cashflow.dto.KpiCacheStatsDTO;
+import com.akosgyongyosi.cashflow.dto.KpiDashboardDTO;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.service.CategoryMappingChangedEvent;
+import com.akosgyongyosi.cashflow.service.fx.FxRatesIngestedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KpiResultCacheTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate DEC_31 = LocalDate.of(2025, 12, 31);
+
+    private KpiResultCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        ForecastProperties props = new ForecastProperties();
+        props.setKpiCacheSize(2);
+        cache = new KpiResultCache(props);
+        computations = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromCacheAndCounted() {
+        KpiResultCache.Key key = KpiResultCache.Key.forPeriod(JAN_1, DEC_31, new BigDecimal("100.00"), Currency.HUF, null);
+
+        KpiDashboardDTO first = cache.get(key, JAN_1, DEC_31, this::compute);
+        KpiDashboardDTO second = cache.get(KpiResultCache.Key.forPeriod(JAN_1, DEC_31, new BigDecimal("100"), Currency.HUF, null),
+                JAN_1, DEC_31, this::compute);
+
+        assertThat(second).isSameAs(first);
+        assertThat(computations).hasValue(1);
+        KpiCacheStatsDTO stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        KpiResultCache.Key a = KpiResultCache.Key.forPlan(1L, Currency.HUF, null);
+        KpiResultCache.Key b = KpiResultCache.Key.forPlan(2L, Currency.HUF, null);
+        KpiResultCache.Key c = KpiResultCache.Key.forPlan(3L, Currency.HUF, null);
+        cache.get(a, JAN_1, DEC_31, this::compute);
+        cache.get(b, JAN_1, DEC_31, this::compute);
+        cache.get(a, JAN_1, DEC_31, this::compute);
+        cache.get(c, JAN_1, DEC_31, this::compute);
+
+        cache.get(a, JAN_1, DEC_31, this::compute);
+        cache.get(b, JAN_1, DEC_31, this::compute);
+
+        assertThat(computations).hasValue(4);
+        assertThat(cache.stats().getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void eventsDropOnlyTheEntriesTheyAffect() {
+        KpiResultCache.Key plan1 = KpiResultCache.Key.forPlan(1L, Currency.HUF, Currency.EUR);
+        KpiResultCache.Key actuals = KpiResultCache.Key.forPeriod(JAN_1, DEC_31, BigDecimal.ZERO, Currency.HUF, null);
+        cache.get(plan1, JAN_1, DEC_31, this::compute);
+        cache.get(actuals, JAN_1, DEC_31, this::compute);
+
+        cache.onTransactionsImported(new TransactionsImportedEvent(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)));
+        cache.onPlanChanged(new PlanChangedEvent(2L));
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+
+        cache.onTransactionsRecategorized(new TransactionsRecategorizedEvent(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 1)));
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 1)));
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.of(2024, 12, 31), LocalDate.of(2024, 12, 31)));
+        assertThat(cache.stats().getSize()).isZero();
+        assertThat(cache.stats().getInvalidations()).isEqualTo(2);
+    }
+
+    @Test
+    void fxIngestionForTodayDropsDashboardsOfLaterPlans() {
+        LocalDate nextMonth = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        KpiResultCache.Key later = KpiResultCache.Key.forPlan(1L, Currency.HUF, Currency.EUR);
+        KpiResultCache.Key past = KpiResultCache.Key.forPlan(2L, Currency.HUF, Currency.EUR);
+        cache.get(later, nextMonth, nextMonth.plusMonths(6), this::compute);
+        cache.get(past, LocalDate.now().minusMonths(3), LocalDate.now().minusMonths(2), this::compute);
+
+        cache.onFxRatesIngested(new FxRatesIngestedEvent(LocalDate.now(), LocalDate.now()));
+
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+        cache.get(past, LocalDate.now().minusMonths(3), LocalDate.now().minusMonths(2), this::compute);
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    void categoryMappingChangeDropsEveryEntry() {
+        cache.get(KpiResultCache.Key.forPlan(1L, Currency.HUF, null), JAN_1, DEC_31, this::compute);
+        cache.get(KpiResultCache.Key.forPeriod(JAN_1, DEC_31, BigDecimal.ZERO, Currency.HUF, null), JAN_1, DEC_31, this::compute);
+
+        cache.onCategoryMappingChanged(new CategoryMappingChangedEvent(List.of(7L)));
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    void resultComputedAcrossAnInvalidationIsNotStored() {
+        KpiResultCache.Key key = KpiResultCache.Key.forPlan(1L, Currency.HUF, null);
+
+        cache.get(key, JAN_1, DEC_31, () -> {
+            cache.invalidatePlan(1L);
+            return compute();
+        });
+        cache.get(key, JAN_1, DEC_31, this::compute);
+
+        assertThat(computations).hasValue(2);
+    }
+
+    private KpiDashboardDTO compute() {
+        computations.incrementAndGet();
+        return new KpiDashboardDTO();
+    }
+}
@@ -0,0 +1,147 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.dto.KpiRollupCheckDTO;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.KpiMonthlyRollup;
+import com.akosgyongyosi.cashflow.entity.Transaction;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.repository.KpiMonthlyRollupRepository;
+import com.akosgyongyosi.cashflow.repository.KpiRollupRow;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KpiRollupServiceTest {
+
+    private KpiMonthlyRollupRepository rollupRepository;
+    private TransactionRepository transactionRepository;
+    private KpiRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(KpiMonthlyRollupRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        service = new KpiRollupService(rollupRepository, transactionRepository);
+    }
+
+    @Test
+    void apply_upserts_once_per_key() {
+        TransactionCategory rent = category(7L);
+        KpiRollupService.Delta delta = new KpiRollupService.Delta()
+                .add(tx(LocalDate.of(2025, 3, 1), "100.10", rent))
+                .add(tx(LocalDate.of(2025, 3, 20), "50.00", rent))
+                .add(tx(LocalDate.of(2025, 4, 2), "5.00", rent));
+
+        service.apply(delta);
+
+        verify(rollupRepository).upsert(2025, 3, 7L, "HUF", new BigDecimal("150.1"), 2L);
+        verify(rollupRepository).upsert(2025, 4, 7L, "HUF", new BigDecimal("5"), 1L);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    @Test
+    void apply_keys_uncategorized_transactions_by_the_sentinel() {
+        service.apply(new KpiRollupService.Delta().add(tx(LocalDate.of(2025, 3, 1), "12.50", null)));
+
+        verify(rollupRepository).upsert(2025, 3, KpiMonthlyRollup.UNCATEGORIZED, "HUF", new BigDecimal("12.5"), 1L);
+    }
+
+    @Test
+    void apply_moves_a_recategorized_transaction_between_keys() {
+        Transaction tx = tx(LocalDate.of(2025, 3, 1), "80", category(1L));
+        KpiRollupService.Delta delta = new KpiRollupService.Delta().remove(tx);
+        tx.setCategory(category(2L));
+        delta.add(tx);
+
+        service.apply(delta);
+
+        verify(rollupRepository).upsert(2025, 3, 1L, "HUF", new BigDecimal("-80"), -1L);
+        verify(rollupRepository).upsert(2025, 3, 2L, "HUF", new BigDecimal("80"), 1L);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    @Test
+    void apply_skips_keys_that_net_to_nothing() {
+        Transaction tx = tx(LocalDate.of(2025, 3, 1), "80", category(1L));
+
+        service.apply(new KpiRollupService.Delta().remove(tx).add(tx));
+
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void check_reports_keys_that_differ_from_transactions() {
+        when(transactionRepository.sumForRollup()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, 1L, Currency.HUF, new BigDecimal("100.00"), 2L),
+                new KpiRollupRow(2025, 4, 1L, Currency.HUF, new BigDecimal("40.00"), 1L)));
+        when(rollupRepository.findAllRows()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, 1L, Currency.HUF, new BigDecimal("100"), 2L),
+                new KpiRollupRow(2025, 4, 1L, Currency.HUF, new BigDecimal("45.00"), 1L),
+                new KpiRollupRow(2025, 5, null, Currency.EUR, new BigDecimal("1.00"), 1L)));
+
+        KpiRollupCheckDTO check = service.check();
+
+        assertThat(check.isConsistent()).isFalse();
+        assertThat(check.getMismatchCount()).isEqualTo(2);
+        assertThat(check.getTransactionKeys()).isEqualTo(2);
+        assertThat(check.getRollupKeys()).isEqualTo(3);
+    }
+
+    @Test
+    void check_matches_uncategorized_transactions_with_sentinel_rows() {
+        when(transactionRepository.sumForRollup()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, null, Currency.HUF, new BigDecimal("10.00"), 1L)));
+        when(rollupRepository.findAllRows()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, KpiMonthlyRollup.UNCATEGORIZED, Currency.HUF, new BigDecimal("10"), 1L)));
+
+        assertThat(service.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    void rebuildIfEmpty_replaces_rows_stored_with_a_null_category() {
+        when(rollupRepository.count()).thenReturn(3L);
+        when(rollupRepository.existsByCategoryIdIsNull()).thenReturn(true);
+        when(transactionRepository.sumForRollup()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, null, Currency.HUF, new BigDecimal("10.00"), 1L)));
+
+        service.rebuildIfEmpty();
+
+        verify(rollupRepository).deleteAllInBatch();
+        verify(rollupRepository).saveAll(argThat(list -> list.iterator().next().getCategoryId() == KpiMonthlyRollup.UNCATEGORIZED));
+    }
+
+    @Test
+    void rebuild_replaces_the_rollup_with_sums_from_transactions() {
+        when(transactionRepository.sumForRollup()).thenReturn(List.of(
+                new KpiRollupRow(2025, 3, 1L, Currency.HUF, new BigDecimal("100.00"), 2L)));
+
+        int rows = service.rebuild();
+
+        assertThat(rows).isEqualTo(1);
+        verify(rollupRepository).deleteAllInBatch();
+        verify(rollupRepository).saveAll(argThat(list -> list.iterator().next().getRowCount() == 2L));
+    }
+
+    private static TransactionCategory category(Long id) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        return c;
+    }
+
+    private static Transaction tx(LocalDate date, String amount, TransactionCategory category) {
+        Transaction tx = new Transaction();
+        tx.setBookingDate(date);
+        tx.setAmount(new BigDecimal(amount));
+        tx.setCurrency(Currency.HUF);
+        tx.setCategory(category);
+        return tx;
+    }
+}
@@ -0,0 +1,130 @@
+package com.akosgyongyosi.cashflow.service.kpi;
+
+import com.akosgyongyosi.cashflow.dto.PlanVarianceDTO;
+import com.akosgyongyosi.cashflow.dto.VarianceRowDTO;
+import com.akosgyongyosi.cashflow.entity.CashflowPlan;
+import com.akosgyongyosi.cashflow.entity.Currency;
+import com.akosgyongyosi.cashflow.entity.Frequency;
+import com.akosgyongyosi.cashflow.entity.TransactionCategory;
+import com.akosgyongyosi.cashflow.entity.TransactionDirection;
+import com.akosgyongyosi.cashflow.repository.SeasonalAggregate;
+import com.akosgyongyosi.cashflow.repository.TransactionRepository;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastModelCache;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastResult;
+import com.akosgyongyosi.cashflow.service.forecast.ForecastRow;
+import com.akosgyongyosi.cashflow.service.forecast.Recurrence;
+import com.akosgyongyosi.cashflow.service.forecast.RecurringSeries;
+import com.akosgyongyosi.cashflow.service.fx.FxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PlanVarianceServiceTest {
+
+    private ForecastModelCache modelCache;
+    private TransactionRepository txRepo;
+    private FxService fxService;
+    private PlanVarianceService service;
+    private TransactionCategory sales;
+    private TransactionCategory rent;
+    private CashflowPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        modelCache = mock(ForecastModelCache.class);
+        txRepo = mock(TransactionRepository.class);
+        fxService = mock(FxService.class);
+        service = new PlanVarianceService(modelCache, txRepo, fxService);
+
+        sales = category(1L, "Sales", TransactionDirection.POSITIVE);
+        rent = category(2L, "Rent", TransactionDirection.NEGATIVE);
+        plan = new CashflowPlan();
+        plan.setId(1L);
+        plan.setBaseCurrency(Currency.HUF);
+        plan.setStartDate(LocalDate.of(2025, 1, 1));
+        plan.setEndDate(LocalDate.of(2025, 12, 31));
+    }
+
+    @Test
+    void joinsPlannedAndActualCellsAndKeepsOneSidedOnes() {
+        RecurringSeries rentSeries = new RecurringSeries(
+                Recurrence.of(Frequency.MONTHLY, LocalDate.of(2025, 1, 5), LocalDate.of(2025, 12, 31)),
+                new BigDecimal("300"), new BigDecimal("300"), Currency.HUF, rent, 9L);
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(1L, Currency.HUF, plan.getStartDate(),
+                plan.getEndDate(), BigDecimal.ZERO, List.of(
+                        new ForecastRow(LocalDate.of(2025, 1, 15), new BigDecimal("1000"), null, Currency.HUF, sales, null),
+                        new ForecastRow(LocalDate.of(2025, 2, 15), new BigDecimal("1000"), null, Currency.HUF, sales, null),
+                        new ForecastRow(LocalDate.of(2025, 3, 15), new BigDecimal("1000"), null, Currency.HUF, sales, null)),
+                List.of(rentSeries)));
+        when(txRepo.sumByCategoryAndMonth(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 28))).thenReturn(List.of(
+                new SeasonalAggregate(sales, 2025, 1, Currency.HUF, new BigDecimal("800"), 3L),
+                new SeasonalAggregate(sales, 2025, 1, Currency.EUR, new BigDecimal("1"), 1L),
+                new SeasonalAggregate(rent, 2025, 1, Currency.HUF, new BigDecimal("-300"), 1L)));
+        when(fxService.convert(eq(BigDecimal.ONE), eq(Currency.EUR), eq(Currency.HUF), any())).thenReturn(new BigDecimal("400"));
+
+        PlanVarianceDTO result = service.variance(plan, LocalDate.of(2025, 2, 28));
+
+        assertThat(result.getThrough()).isEqualTo(LocalDate.of(2025, 2, 28));
+        assertThat(result.getRows()).extracting(VarianceRowDTO::getMonth, VarianceRowDTO::getCategory)
+                .containsExactly(tuple(1, "Rent"), tuple(1, "Sales"), tuple(2, "Rent"), tuple(2, "Sales"));
+        VarianceRowDTO janSales = result.getRows().get(1);
+        assertThat(janSales.getPlanned()).isEqualByComparingTo("1000");
+        assertThat(janSales.getActual()).isEqualByComparingTo("1200");
+        assertThat(janSales.getDelta()).isEqualByComparingTo("200");
+        assertThat(janSales.getDeviationPercent()).isEqualByComparingTo("20");
+        VarianceRowDTO janRent = result.getRows().get(0);
+        assertThat(janRent.getPlanned()).isEqualByComparingTo("-300");
+        assertThat(janRent.getDelta()).isEqualByComparingTo("0");
+        VarianceRowDTO febSales = result.getRows().get(3);
+        assertThat(febSales.getActual()).isEqualByComparingTo("0");
+        assertThat(febSales.getDeviationPercent()).isEqualByComparingTo("-100");
+        assertThat(result.getTotalPlanned()).isEqualByComparingTo("1400");
+        assertThat(result.getTotalActual()).isEqualByComparingTo("900");
+        assertThat(result.getTotalDelta()).isEqualByComparingTo("-500");
+        verify(txRepo, never()).findByBookingDateBetween(any(), any());
+    }
+
+    @Test
+    void actualsWithoutPlannedAmountHaveNoPercentage() {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(1L, Currency.HUF, plan.getStartDate(),
+                plan.getEndDate(), BigDecimal.ZERO, List.of()));
+        when(txRepo.sumByCategoryAndMonth(any(), any()))
+                .thenReturn(List.of(new SeasonalAggregate(rent, 2025, 4, Currency.HUF, new BigDecimal("50"), 1L)));
+
+        PlanVarianceDTO result = service.variance(plan, LocalDate.of(2026, 3, 1));
+
+        assertThat(result.getThrough()).isEqualTo(plan.getEndDate());
+        assertThat(result.getRows()).singleElement().satisfies(r -> {
+            assertThat(r.getActual()).isEqualByComparingTo("-50");
+            assertThat(r.getDeviationPercent()).isNull();
+        });
+    }
+
+    @Test
+    void rejectsCutoffBeforePlanStart() {
+        when(modelCache.evaluate(plan)).thenReturn(new ForecastResult(1L, Currency.HUF, plan.getStartDate(),
+                plan.getEndDate(), BigDecimal.ZERO, List.of()));
+
+        assertThatThrownBy(() -> service.variance(plan, LocalDate.of(2024, 12, 31)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(txRepo);
+    }
+
+    private static TransactionCategory category(Long id, String name, TransactionDirection direction) {
+        TransactionCategory c = new TransactionCategory();
+        c.setId(id);
+        c.setName(name);
+        c.setDirection(direction);
+        return c;
+    }
+}
@@ -1,11 +1,12 @@
 import { BarChart, Bar, XAxis, YAxis, CartesianGrid, Tooltip, Legend, ResponsiveContainer } from 'recharts'
 import PropTypes from 'prop-types'
 import { formatAmount } from '../utils/numberFormatter'
+import { compareMonthPeriods, monthPeriodLabel } from '../utils/monthPeriod'
 
 const MonthlyBarChart = ({ data = [], displayCurrency, baseCurrency, showLegendHint = true }) => {
   if (!data.length) return null
-  const formattedData = data.map(it => ({
-    month: `M${it.month}`,
+  const formattedData = [...data].sort(compareMonthPeriods).map(it => ({
+    month: monthPeriodLabel(it),
     Income: Number(it.totalIncome || 0),
     Expense: Number(it.totalExpense || 0)
   }))
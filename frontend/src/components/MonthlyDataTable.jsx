@@ -3,12 +3,13 @@ import { formatAmount } from '../utils/numberFormatter'
 import PropTypes from 'prop-types'
 import DualAmount from './DualAmount'
 import { useCurrency } from '../context/AppContext'
+import { compareMonthPeriods, monthPeriodKey, monthPeriodLabel } from '../utils/monthPeriod'
 
 export default function MonthlyDataTable({ startBalance = 0, originalStartBalance, baseCurrency = 'HUF', monthlyData = [] }) {
   const { displayCurrency } = useCurrency()
   if (!monthlyData.length) return null
-  const rows   = [...monthlyData].sort((a, b) => a.month - b.month)
-  const months = rows.map(r => r.month)
+  const rows   = [...monthlyData].sort(compareMonthPeriods)
+  const months = rows.map(monthPeriodKey)
 
   const incomeCategories = new Set()
   const expenseCategories = new Set()
@@ -79,8 +80,8 @@ export default function MonthlyDataTable({ startBalance = 0, originalStartBalanc
         <thead>
           <tr>
             <th>Item</th>
-            {months.map(m => (
-              <th key={m}>{`M${m}`}</th>
+            {rows.map((r, i) => (
+              <th key={months[i]}>{monthPeriodLabel(r)}</th>
             ))}
           </tr>
           {isConverted && (
@@ -133,7 +134,7 @@ export default function MonthlyDataTable({ startBalance = 0, originalStartBalanc
                 const rawValue = Number(r.incomeAccountingCategorySums?.[cat] || 0)
                 const cls = rawValue > 0 ? 'mdt-positive' : 'mdt-zero'
                 return (
-                  <td key={`${cat}-${r.month}`}>
+                  <td key={`${cat}-${monthPeriodKey(r)}`}>
                     <span className={cls}>{formatAmount(rawValue, { currency: displayCurrency })}</span>
                   </td>
                 )
@@ -148,7 +149,7 @@ export default function MonthlyDataTable({ startBalance = 0, originalStartBalanc
                 const rawValue = Number(r.expenseAccountingCategorySums?.[cat] || 0)
                 const cls = rawValue > 0 ? 'mdt-negative' : 'mdt-zero'
                 return (
-                  <td key={`${cat}-${r.month}`}>
+                  <td key={`${cat}-${monthPeriodKey(r)}`}>
                     <span className={cls}>{formatAmount(-rawValue, { currency: displayCurrency })}</span>
                   </td>
                 )
@@ -273,6 +274,7 @@ MonthlyDataTable.propTypes = {
   originalStartBalance: PropTypes.oneOfType([PropTypes.number, PropTypes.string]),
   baseCurrency: PropTypes.string,
   monthlyData: PropTypes.arrayOf(PropTypes.shape({
+    year: PropTypes.number,
     month: PropTypes.number,
     totalIncome: PropTypes.oneOfType([PropTypes.number, PropTypes.string]),
     totalExpense: PropTypes.oneOfType([PropTypes.number, PropTypes.string]),
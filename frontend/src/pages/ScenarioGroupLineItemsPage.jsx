@@ -23,6 +23,7 @@ import MonthlyDataTable from '../components/MonthlyDataTable'
 import { formatAmount } from '../utils/numberFormatter'
 import CurrencyBadge from '../components/CurrencyBadge'
 import { useCurrency } from '../context/AppContext'
+import { monthPeriodKey, monthPeriodLabel } from '../utils/monthPeriod'
 
 export default function ScenarioGroupLineItemsPage() {
   const { groupKey } = useParams()
@@ -87,9 +88,9 @@ export default function ScenarioGroupLineItemsPage() {
       }
       const combined = []
       for (const realItem of realData) {
-        const month = realItem.month
-        const worstItem = worstData.find((w) => w.month === month) || {}
-        const bestItem  = bestData.find((b) => b.month === month)  || {}
+        const period = monthPeriodKey(realItem)
+        const worstItem = worstData.find((w) => monthPeriodKey(w) === period) || {}
+        const bestItem  = bestData.find((b) => monthPeriodKey(b) === period)  || {}
         const directions = realItem.transactionCategoryDirections || {}
         const categories = Object.keys(directions)
         const sumsReal = {}
@@ -104,7 +105,7 @@ export default function ScenarioGroupLineItemsPage() {
           sumsBest[cat] = (bestItem.transactionCategoryDirections?.[cat] === 'NEGATIVE') ? -Math.abs(sb) : Math.abs(sb)
         }
         combined.push({
-          month: `M${month}`,
+          month: monthPeriodLabel(realItem),
           directions,
           categories,
           sums: { REALISTIC: sumsReal, WORST: sumsWorst, BEST: sumsBest },
@@ -0,0 +1,20 @@
+import { compareMonthPeriods, monthPeriodKey, monthPeriodLabel } from '../monthPeriod'
+
+describe('monthPeriod utilities', () => {
+  test('sorts by year before month', () => {
+    const rows = [{ year: 2026, month: 1 }, { year: 2025, month: 12 }, { year: 2025, month: 2 }]
+    expect([...rows].sort(compareMonthPeriods)).toEqual([
+      { year: 2025, month: 2 }, { year: 2025, month: 12 }, { year: 2026, month: 1 },
+    ])
+  })
+
+  test('labels and keys include the year', () => {
+    expect(monthPeriodLabel({ year: 2026, month: 3 })).toBe('2026-03')
+    expect(monthPeriodKey({ year: 2026, month: 3 })).toBe('2026-3')
+  })
+
+  test('falls back to the month when no year is present', () => {
+    expect(monthPeriodLabel({ month: 3 })).toBe('M3')
+    expect(monthPeriodKey({ month: 3 })).toBe('3')
+  })
+})
@@ -0,0 +1,14 @@
+// Monthly KPI rows carry a calendar year next to the 1-12 month, so a horizon that crosses
+// January sorts and labels by (year, month). Rows without a year fall back to the month alone.
+
+export function compareMonthPeriods(a, b) {
+  return (a.year ?? 0) - (b.year ?? 0) || a.month - b.month
+}
+
+export function monthPeriodKey(row) {
+  return row.year ? `${row.year}-${row.month}` : `${row.month}`
+}
+
+export function monthPeriodLabel(row) {
+  return row.year ? `${row.year}-${String(row.month).padStart(2, '0')}` : `M${row.month}`
+}